@@ -0,0 +1,104 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.CookieStoreReader;
+import com.mikaa404.store.JdbcCookieStoreReader;
+import com.mikaa404.store.PageCookieStoreReader;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a generated store end to end: store access, row mapping and decryption of every value.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CookieStoreReadBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int rows;
+    @Param({"READ_ONLY_IMMUTABLE", "IN_MEMORY_SNAPSHOT", "COPY", "MAPPED_PAGES"})
+    StoreAccessStrategy strategy;
+    
+    private Path tempDir;
+    private Path cookieFile;
+    private CookieStoreReader reader;
+    private CookieQuery hostQuery;
+    
+    @Setup
+    public void createStore() throws IOException {
+        tempDir = Files.createTempDirectory("cooky-benchmark");
+        cookieFile = Files.createDirectories(tempDir.resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, rows, FixtureCiphers.linuxV10());
+        reader = createReader(strategy, tempDir.resolve("cookyTmpStore"));
+        hostQuery = CookieQuery.builder().host(CookieStoreFixture.hostOf(rows / 2)).build();
+    }
+    
+    @TearDown
+    public void deleteStore() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    
+    @Benchmark
+    public void readAllCookies(Blackhole blackhole) {
+        read(CookieQuery.all(), blackhole);
+    }
+    
+    @Benchmark
+    public void readOneHost(Blackhole blackhole) {
+        read(hostQuery, blackhole);
+    }
+    
+    /**
+     * @return the reader {@code ChromiumBrowser} uses for the strategy.
+     */
+    static CookieStoreReader createReader(StoreAccessStrategy strategy, Path tempFolder) {
+        return createReader(strategy, tempFolder, false);
+    }
+    
+    /**
+     * @return the reader {@code ChromiumBrowser} uses for the strategy, decrypting values on first read if
+     * {@code lazyDecryption}.
+     */
+    static CookieStoreReader createReader(StoreAccessStrategy strategy, Path tempFolder, boolean lazyDecryption) {
+        CookieDecryptor decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        JdbcCookieStoreReader jdbcReader = new JdbcCookieStoreReader(decryptor, lazyDecryption, tempFolder, strategy);
+        if (strategy == StoreAccessStrategy.MAPPED_PAGES) {
+            return new PageCookieStoreReader(decryptor, lazyDecryption, jdbcReader);
+        }
+        return jdbcReader;
+    }
+    
+    private void read(CookieQuery query, Blackhole blackhole) {
+        try (CookieCursor cursor = reader.open(cookieFile, query)) {
+            while (cursor.hasNext()) {
+                blackhole.consume(cursor.next().getValue());
+            }
+        }
+    }
+}
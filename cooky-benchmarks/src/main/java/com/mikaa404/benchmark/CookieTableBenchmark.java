@@ -0,0 +1,100 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.CookieTable;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.CookieStoreReader;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a generated store as {@code List<ChromeCookie>} and as {@link CookieTable}. Run with {@code -prof gc} to
+ * compare the bytes allocated per read ({@code gc.alloc.rate.norm}).
+ * <p>
+ * The heap retained by each representation is measured with JOL by {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CookieTableBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int rows;
+    
+    private Path tempDir;
+    private Path cookieFile;
+    private CookieStoreReader reader;
+    
+    @Setup
+    public void createStore() throws IOException {
+        tempDir = Files.createTempDirectory("cooky-benchmark");
+        cookieFile = Files.createDirectories(tempDir.resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, rows, FixtureCiphers.linuxV10());
+        reader = CookieStoreReadBenchmark.createReader(StoreAccessStrategy.READ_ONLY_IMMUTABLE,
+                                                       tempDir.resolve("cookyTmpStore"));
+    }
+    
+    @TearDown
+    public void deleteStore() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    
+    @Benchmark
+    public List<ICookie> readAsList() {
+        List<ICookie> cookies = new ArrayList<>();
+        try (CookieCursor cursor = reader.open(cookieFile, CookieQuery.all())) {
+            cursor.forEachRemaining(cookies::add);
+        }
+        return cookies;
+    }
+    
+    @Benchmark
+    public CookieTable readAsTable() {
+        return CookieTable.from(reader.open(cookieFile, CookieQuery.all()));
+    }
+    
+    /**
+     * Prints the heap retained by each representation of a 100k rows store, or of the number of rows given as the
+     * first argument: {@code java -cp target/benchmarks.jar com.mikaa404.benchmark.CookieTableBenchmark}.
+     */
+    public static void main(String[] args) throws IOException {
+        CookieTableBenchmark benchmark = new CookieTableBenchmark();
+        benchmark.rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        benchmark.createStore();
+        try {
+            report("List<ChromeCookie>", benchmark.rows, GraphLayout.parseInstance(benchmark.readAsList()).totalSize());
+            report("CookieTable", benchmark.rows, GraphLayout.parseInstance(benchmark.readAsTable()).totalSize());
+        } finally {
+            benchmark.deleteStore();
+        }
+    }
+    
+    private static void report(String representation, int rows, long bytes) {
+        System.out.printf("%-20s %8d KiB %6.1f bytes/cookie%n", representation, bytes / 1024, (double) bytes / rows);
+    }
+}
@@ -0,0 +1,94 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.crypto.CookieEncryptor;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.crypto.WindowsCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.CookieWriter;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports cookies into a copy of a generated store of 10k rows: encryption, batched upserts and the commit of their
+ * single transaction. Half of the cookies replace stored ones, the other half are new.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CookieWriteBenchmark {
+    private static final int STORED_ROWS = 10_000;
+    
+    @Param({"1000", "10000"})
+    int cookies;
+    @Param({"LINUX_V11", "WINDOWS"})
+    String encryption;
+    
+    private Path tempDir;
+    private Path templateFile;
+    private Path cookieFile;
+    private CookieWriter writer;
+    private List<ChromeCookie> cookieList;
+    
+    @Setup
+    public void createStore() throws IOException {
+        tempDir = Files.createTempDirectory("cooky-benchmark");
+        templateFile = tempDir.resolve("Cookies-template");
+        cookieFile = Files.createDirectories(tempDir.resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.create(templateFile, STORED_ROWS, FixtureCiphers.linuxV11());
+        CookieEncryptor encryptor = encryption.equals("WINDOWS")
+                                    ? new WindowsCookieDecryptor(FixtureCiphers.WINDOWS_MASTER_KEY)
+                                    : new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        writer = new CookieWriter(encryptor);
+        
+        cookieList = new ArrayList<>();
+        for (int i = 0; i < cookies; i++) {
+            // even rows take the key of a stored cookie
+            int row = i % 2 == 0 ? i : STORED_ROWS + i;
+            long utc = CookieStoreFixture.BASE_UTC + row;
+            cookieList.add(new ChromeCookie(CookieStoreFixture.hostOf(row), CookieStoreFixture.nameOf(row),
+                                            "imported-" + CookieStoreFixture.valueOf(row), CookieStoreFixture.pathOf(row),
+                                            utc, "", utc + 1_000_000_000_000L, true, true, utc, true, true, 1, 0, 2, 443,
+                                            false, utc));
+        }
+    }
+    
+    @Setup(Level.Invocation)
+    public void copyStore() throws IOException {
+        Files.copy(templateFile, cookieFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    @TearDown
+    public void deleteStore() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    
+    @Benchmark
+    public int writeCookies() {
+        return writer.write(cookieFile, cookieList);
+    }
+}
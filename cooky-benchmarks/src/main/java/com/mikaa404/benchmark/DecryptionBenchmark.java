@@ -0,0 +1,89 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.crypto.MacOsCookieDecryptor;
+import com.mikaa404.crypto.WindowsCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Decrypts values in each format Chrome writes, the score is the time to decrypt one cookie.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecryptionBenchmark {
+    private static final int VALUES = 1000;
+    
+    public enum Format {
+        MAC_OS(FixtureCiphers::macOs, () -> new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD)),
+        LINUX_V10(FixtureCiphers::linuxV10, () -> new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET)),
+        LINUX_V11(FixtureCiphers::linuxV11, () -> new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET)),
+        WINDOWS(FixtureCiphers::windows, () -> new WindowsCookieDecryptor(FixtureCiphers.WINDOWS_MASTER_KEY));
+        
+        private final Supplier<Function<String, byte[]>> encryptor;
+        private final Supplier<CookieDecryptor> decryptor;
+        
+        Format(Supplier<Function<String, byte[]>> encryptor, Supplier<CookieDecryptor> decryptor) {
+            this.encryptor = encryptor;
+            this.decryptor = decryptor;
+        }
+    }
+    
+    @Param({"MAC_OS", "LINUX_V10", "LINUX_V11", "WINDOWS"})
+    Format format;
+    
+    private byte[][] encryptedValues;
+    private String[] values;
+    private CookieDecryptor decryptor;
+    
+    @Setup
+    public void encryptValues() {
+        Function<String, byte[]> encryptor = format.encryptor.get();
+        encryptedValues = new byte[VALUES][];
+        for (int i = 0; i < VALUES; i++) {
+            encryptedValues[i] = encryptor.apply(CookieStoreFixture.valueOf(i));
+        }
+        values = new String[VALUES];
+        decryptor = format.decryptor.get();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void decrypt(Blackhole blackhole) {
+        for (byte[] encryptedValue : encryptedValues) {
+            blackhole.consume(decryptor.decrypt(encryptedValue));
+        }
+    }
+    
+    /**
+     * Decrypts all values with one call, as cursors do without lazy decryption.
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public String[] decryptAll() {
+        decryptor.decryptAll(encryptedValues, VALUES, 0, values);
+        return values;
+    }
+}
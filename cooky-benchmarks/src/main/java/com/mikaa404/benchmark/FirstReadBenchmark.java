@@ -0,0 +1,85 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost: the first read of a store in a fresh JVM, which for sqlite-jdbc includes extracting and loading its
+ * native library. The store is generated by a child JVM, so sqlite is not loaded before the measured read.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class FirstReadBenchmark {
+    private static final int ROWS = 1000;
+    
+    @Param({"READ_ONLY_IMMUTABLE", "MAPPED_PAGES"})
+    StoreAccessStrategy strategy;
+    
+    private Path tempDir;
+    private Path cookieFile;
+    
+    @Setup
+    public void createStore() throws IOException, InterruptedException {
+        tempDir = Files.createTempDirectory("cooky-benchmark");
+        cookieFile = Files.createDirectories(tempDir.resolve("Default")).resolve("Cookies");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                             CreateStore.class.getName(), cookieFile.toString())
+                .inheritIO()
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Failed to create store. ");
+        }
+    }
+    
+    @TearDown
+    public void deleteStore() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    
+    @Benchmark
+    public int readAllCookies() {
+        int rows = 0;
+        try (CookieCursor cursor = CookieStoreReadBenchmark.createReader(strategy, tempDir.resolve("cookyTmpStore"))
+                                                           .open(cookieFile, CookieQuery.all())) {
+            while (cursor.hasNext()) {
+                cursor.next();
+                rows++;
+            }
+        }
+        return rows;
+    }
+    
+    public static class CreateStore {
+        public static void main(String[] args) {
+            CookieStoreFixture.create(new File(args[0]).toPath(), ROWS, FixtureCiphers.linuxV10());
+        }
+    }
+}
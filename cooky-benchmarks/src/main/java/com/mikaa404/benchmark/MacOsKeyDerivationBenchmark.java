@@ -0,0 +1,63 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.crypto.MacOsCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Decrypts macOS values with a key derived per cookie, how {@code ChromeCookie} used to work, and with one shared
+ * {@link MacOsCookieDecryptor}, the score is the time to decrypt one cookie.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MacOsKeyDerivationBenchmark {
+    private static final int VALUES = 100;
+    
+    private byte[][] encryptedValues;
+    private MacOsCookieDecryptor decryptor;
+    
+    @Setup
+    public void encryptValues() {
+        Function<String, byte[]> encryptor = FixtureCiphers.macOs();
+        encryptedValues = new byte[VALUES][];
+        for (int i = 0; i < VALUES; i++) {
+            encryptedValues[i] = encryptor.apply(CookieStoreFixture.valueOf(i));
+        }
+        decryptor = new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void keyDerivedPerCookie(Blackhole blackhole) {
+        for (byte[] encryptedValue : encryptedValues) {
+            blackhole.consume(new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD).decrypt(encryptedValue));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void sharedDecryptor(Blackhole blackhole) {
+        for (byte[] encryptedValue : encryptedValues) {
+            blackhole.consume(decryptor.decrypt(encryptedValue));
+        }
+    }
+}
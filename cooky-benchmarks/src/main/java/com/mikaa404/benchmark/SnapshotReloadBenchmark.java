@@ -0,0 +1,85 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.CookieTable;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.snapshot.CookieSnapshotDelta;
+import com.mikaa404.snapshot.CookieSnapshotFile;
+import com.mikaa404.store.CookieStoreReader;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds the cookies of a generated store after a restart: from its encrypted snapshot, compared with a full read
+ * and decryption of the store, and with the diff of the live store against the snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotReloadBenchmark {
+    private static final byte[] KEY = "cooky-benchmark-snapshot-key-32b".getBytes(StandardCharsets.US_ASCII);
+    
+    @Param({"10000", "100000"})
+    int rows;
+    @Param({"READ_ONLY_IMMUTABLE", "MAPPED_PAGES"})
+    StoreAccessStrategy strategy;
+    
+    private Path tempDir;
+    private Path cookieFile;
+    private CookieStoreReader reader;
+    private CookieSnapshotFile snapshotFile;
+    private CookieTable snapshot;
+    
+    @Setup
+    public void createSnapshot() throws IOException {
+        tempDir = Files.createTempDirectory("cooky-benchmark");
+        cookieFile = Files.createDirectories(tempDir.resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, rows, FixtureCiphers.linuxV10());
+        reader = CookieStoreReadBenchmark.createReader(strategy, tempDir.resolve("cookyTmpStore"));
+        snapshotFile = new CookieSnapshotFile(tempDir.resolve("Default.snapshot"), KEY);
+        snapshot = readStore();
+        snapshotFile.write(snapshot);
+    }
+    
+    @TearDown
+    public void deleteStore() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    
+    @Benchmark
+    public CookieTable readStore() {
+        return CookieTable.from(reader.open(cookieFile, CookieQuery.all()));
+    }
+    
+    @Benchmark
+    public CookieTable readSnapshot() {
+        return snapshotFile.read();
+    }
+    
+    @Benchmark
+    public CookieSnapshotDelta diffUnchangedStore() {
+        return CookieSnapshotDelta.between(snapshot, reader, cookieFile);
+    }
+}
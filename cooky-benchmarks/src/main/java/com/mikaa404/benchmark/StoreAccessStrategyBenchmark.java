@@ -0,0 +1,83 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.CookieStoreReader;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a generated store with each {@link StoreAccessStrategy} and finds one cookie by host, or scans every row.
+ * Values are decrypted lazily and never read, so only store access is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StoreAccessStrategyBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int rows;
+    @Param({"READ_ONLY_IMMUTABLE", "IN_MEMORY_SNAPSHOT", "COPY", "MAPPED_PAGES"})
+    StoreAccessStrategy strategy;
+    
+    private Path tempDir;
+    private Path cookieFile;
+    private CookieStoreReader reader;
+    private CookieQuery hostQuery;
+    
+    @Setup
+    public void createStore() throws IOException {
+        tempDir = Files.createTempDirectory("cooky-benchmark");
+        cookieFile = Files.createDirectories(tempDir.resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, rows, FixtureCiphers.linuxV10());
+        reader = CookieStoreReadBenchmark.createReader(strategy, tempDir.resolve("cookyTmpStore"), true);
+        hostQuery = CookieQuery.builder().host(CookieStoreFixture.hostOf(rows / 2)).build();
+    }
+    
+    @TearDown
+    public void deleteStore() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    
+    @Benchmark
+    public int lookUpHost() {
+        return count(hostQuery);
+    }
+    
+    @Benchmark
+    public int scanAllRows() {
+        return count(CookieQuery.all());
+    }
+    
+    private int count(CookieQuery query) {
+        int count = 0;
+        try (CookieCursor cursor = reader.open(cookieFile, query)) {
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mikaa404.benchmark;
+
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies a generated store to a temporary file and deletes it, which is what
+ * {@link com.mikaa404.store.StoreAccessStrategy#COPY} adds to each read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TempCopyBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int rows;
+    
+    private Path tempDir;
+    private Path cookieFile;
+    private Path tempFolder;
+    
+    @Setup
+    public void createStore() throws IOException {
+        tempDir = Files.createTempDirectory("cooky-benchmark");
+        cookieFile = tempDir.resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, rows, FixtureCiphers.linuxV10());
+        tempFolder = Files.createDirectories(tempDir.resolve("cookyTmpStore"));
+    }
+    
+    @TearDown
+    public void deleteStore() throws IOException {
+        FileUtils.deleteDirectory(tempDir.toFile());
+    }
+    
+    @Benchmark
+    public void copyToTempFile() throws IOException {
+        Path tempFile = Files.createTempFile(tempFolder, "Cookies", ".sqlite");
+        Files.copy(cookieFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(tempFile);
+    }
+}
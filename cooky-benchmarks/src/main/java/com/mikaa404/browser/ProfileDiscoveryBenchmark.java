@@ -0,0 +1,71 @@
+package com.mikaa404.browser;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discovers profiles of a generated user data folder, with and without the index cache. Lives in the browser package
+ * because {@link ProfileIndex} is package-private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProfileDiscoveryBenchmark {
+    @Param({"1", "10", "100"})
+    int profiles;
+    
+    private Path userDataPath;
+    private ProfileIndex cachedIndex;
+    
+    @Setup
+    public void createUserData() throws IOException {
+        userDataPath = Files.createTempDirectory("cooky-benchmark");
+        StringBuilder infoCache = new StringBuilder();
+        for (int i = 0; i < profiles; i++) {
+            String name = i == 0 ? "Default" : "Profile " + i;
+            Files.createFile(Files.createDirectories(userDataPath.resolve(name).resolve("Network")).resolve("Cookies"));
+            infoCache.append(i == 0 ? "" : ", ")
+                     .append(String.format("\"%s\": {\"name\": \"Person %d\"}", name, i + 1));
+        }
+        Files.write(userDataPath.resolve("Local State"),
+                    String.format("{\"profile\": {\"info_cache\": {%s}}}", infoCache).getBytes(StandardCharsets.UTF_8));
+        
+        cachedIndex = new ProfileIndex(userDataPath, "Network/Cookies", "Cookies");
+    }
+    
+    @TearDown
+    public void deleteUserData() throws IOException {
+        FileUtils.deleteDirectory(userDataPath.toFile());
+    }
+    
+    @Benchmark
+    public List<Profile> discover() {
+        return new ProfileIndex(userDataPath, "Network/Cookies", "Cookies").getProfiles();
+    }
+    
+    @Benchmark
+    public List<Profile> cached() {
+        return cachedIndex.getProfiles();
+    }
+}
@@ -1,22 +1,134 @@
 package com.mikaa404;
 
 import com.mikaa404.browser.ChromeBrowser;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
 import com.mikaa404.cookie.ICookie;
+import com.mikaa404.daemon.CookieDaemon;
+import com.mikaa404.export.CookieExporter;
+import com.mikaa404.export.CookieExporters;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 class Main {
-    public static void main(String[] args) {
-        List<ICookie> cookieList = ChromeBrowser.getInstance().getAllCookies();
+    private static final String USAGE = "Usage: java -jar cooky.jar [--format netscape|jsonl|har] [--output FILE] " +
+                                        "[--profile NAME] [--domain DOMAIN]\n" +
+                                        "       java -jar cooky.jar --daemon [--port PORT] [--token-file FILE]";
+    private static final int DEFAULT_DAEMON_PORT = 40404;
+    
+    public static void main(String[] args) throws IOException {
+        String format = null;
+        String output = null;
+        String profile = null;
+        boolean daemon = false;
+        int port = DEFAULT_DAEMON_PORT;
+        String tokenFile = null;
+        CookieQuery.Builder query = CookieQuery.builder();
+        for (int i = 0; i < args.length; i++) {
+            if ("--daemon".equals(args[i])) {
+                daemon = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                usage();
+            }
+            switch (args[i]) {
+                case "--format":
+                    format = args[++i];
+                    break;
+                case "--output":
+                    output = args[++i];
+                    break;
+                case "--profile":
+                    profile = args[++i];
+                    break;
+                case "--domain":
+                    query.domain(args[++i]);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--token-file":
+                    tokenFile = args[++i];
+                    break;
+                default:
+                    usage();
+            }
+        }
+        
+        if (daemon) {
+            runDaemon(port, tokenFile == null
+                            ? Paths.get(System.getProperty("user.home"), ".cooky", "daemon.token")
+                            : Paths.get(tokenFile));
+            return;
+        }
         
-        // do something with cookies
-        for (ICookie c : cookieList) {
-            System.out.printf("%s - %s - %s - %s\n",
-                              c.getHostKey(),
-                              c.getPath(),
-                              c.getName(),
-                              c.getValue()
-            );
+        // fail on an unknown format before reading cookies
+        CookieExporter exporter = format == null ? null : CookieExporters.forFormat(format);
+        CookieCursor cursor = profile == null
+                              ? ChromeBrowser.getInstance().openCookieCursor(query.build())
+                              : ChromeBrowser.getInstance().openCookieCursor(profile, query.build());
+        if (exporter == null) {
+            if (output == null) {
+                printCookies(cursor, System.out);
+            } else {
+                try (PrintStream out = new PrintStream(Files.newOutputStream(Paths.get(output)), false, "UTF-8")) {
+                    printCookies(cursor, out);
+                }
+            }
+        } else if (output == null) {
+            exporter.export(cursor, System.out);
+        } else {
+            try (FileChannel channel = FileChannel.open(Paths.get(output),
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING,
+                                                        StandardOpenOption.WRITE)) {
+                exporter.export(cursor, channel);
+            }
+        }
+    }
+    
+    private static void runDaemon(int port, Path tokenFile) {
+        CookieDaemon cookieDaemon = new CookieDaemon(ChromeBrowser.getInstance()::newCookieWatcher, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(cookieDaemon::close));
+        cookieDaemon.writeToken(tokenFile);
+        cookieDaemon.start();
+        System.err.printf("Serving cookies on http://%s:%d/cookies, bearer token in %s%n",
+                          cookieDaemon.getAddress().getHostString(),
+                          cookieDaemon.getAddress().getPort(),
+                          tokenFile);
+        // server threads are daemon threads, keep the JVM running until it is stopped
+        while (true) {
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+    
+    private static void printCookies(CookieCursor cursor, PrintStream out) {
+        try (CookieCursor cookies = cursor) {
+            while (cookies.hasNext()) {
+                ICookie c = cookies.next();
+                out.printf("%s - %s - %s - %s\n",
+                           c.getHostKey(),
+                           c.getPath(),
+                           c.getName(),
+                           c.getValue()
+                );
+            }
         }
     }
+    
+    private static void usage() {
+        System.err.println(USAGE);
+        System.exit(2);
+    }
 }
@@ -0,0 +1,125 @@
+package com.mikaa404.browser;
+
+import com.mikaa404.crypto.KeyProvider;
+import org.apache.commons.lang3.SystemUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Everything a browser needs to read one installation: the kind of browser, its user data folder, the folder for
+ * temporary copies of cookie stores and the {@link KeyProvider} owning its keys.
+ * <p>
+ * Closing the context wipes its keys, browsers using it can not decrypt cookies afterwards.
+ */
+public class BrowserContext implements AutoCloseable {
+    private final BrowserDescriptor browser;
+    private final Path userDataPath;
+    private final Path tempFolder;
+    private final KeyProvider keyProvider;
+    
+    private BrowserContext(Builder builder) {
+        this.browser = builder.browser;
+        this.userDataPath = builder.userDataPath != null ? builder.userDataPath : browser.getUserDataPath();
+        this.tempFolder = builder.tempFolder != null ? builder.tempFolder : defaultTempFolder();
+        this.keyProvider = builder.keyProvider != null
+                           ? builder.keyProvider
+                           : new KeyProvider(() -> browser.createDecryptor(userDataPath));
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * @return context of the default Chrome installation of the running OS.
+     */
+    public static BrowserContext forCurrentOs() {
+        return forBrowser(BrowserDescriptor.CHROME);
+    }
+    
+    /**
+     * @return context of the default installation of the browser on the running OS.
+     */
+    public static BrowserContext forBrowser(BrowserDescriptor browser) {
+        return builder().browser(browser).build();
+    }
+    
+    public BrowserDescriptor getBrowser() {
+        return browser;
+    }
+    
+    public Path getUserDataPath() {
+        return userDataPath;
+    }
+    
+    public Path getTempFolder() {
+        return tempFolder;
+    }
+    
+    public KeyProvider getKeyProvider() {
+        return keyProvider;
+    }
+    
+    @Override
+    public void close() {
+        keyProvider.close();
+    }
+    
+    static Path defaultTempFolder() {
+        if (SystemUtils.IS_OS_WINDOWS) {
+            // TODO: find a way like `$(realpath $(dirname ${BASH_SOURCE[0]}))` rather than `user.dir`
+            return Paths.get(SystemUtils.USER_DIR, "cookyTmpStore");
+        }
+        return Paths.get("/", "tmp", "cookyTmpStore");
+    }
+    
+    public static class Builder {
+        private BrowserDescriptor browser = BrowserDescriptor.CHROME;
+        private Path userDataPath;
+        private Path tempFolder;
+        private KeyProvider keyProvider;
+        
+        private Builder() {
+        }
+        
+        /**
+         * @param browser kind of browser installed, default is {@link BrowserDescriptor#CHROME}.
+         */
+        public Builder browser(BrowserDescriptor browser) {
+            this.browser = browser;
+            return this;
+        }
+        
+        /**
+         * @param userDataPath browser user data folder (e.g. the one given to Chrome with {@code --user-data-dir}),
+         *                     default is the one of the browser on the running OS.
+         */
+        public Builder userDataPath(Path userDataPath) {
+            this.userDataPath = userDataPath;
+            return this;
+        }
+        
+        /**
+         * @param tempFolder folder holding temporary copies of cookie stores, default is `cookyTmpStore` in the
+         *                   temporary folder of the OS.
+         */
+        public Builder tempFolder(Path tempFolder) {
+            this.tempFolder = tempFolder;
+            return this;
+        }
+        
+        /**
+         * @param keyProvider keys of the installation, owned and closed by the context. Default retrieves keys of the
+         *                    browser on the running OS, see {@link BrowserDescriptor#createDecryptor(Path)}.
+         */
+        public Builder keyProvider(KeyProvider keyProvider) {
+            this.keyProvider = keyProvider;
+            return this;
+        }
+        
+        public BrowserContext build() {
+            return new BrowserContext(this);
+        }
+    }
+}
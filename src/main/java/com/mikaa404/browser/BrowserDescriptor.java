@@ -0,0 +1,240 @@
+package com.mikaa404.browser;
+
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.CookieDecryptors;
+import org.apache.commons.lang3.SystemUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Where a Chromium based browser keeps its data and keys. Chromium based browsers share the cookie store schema and
+ * encryption, so one {@link ChromiumBrowser} reads any of them given its descriptor.
+ * <p>
+ * User data folders are relative to the user home folder, one per OS.
+ */
+public class BrowserDescriptor {
+    public static final BrowserDescriptor CHROME = builder("Chrome")
+                                                           .macOsUserDataPath("Library/Application Support/Google/Chrome")
+                                                           .windowsUserDataPath("AppData/Local/Google/Chrome/User Data")
+                                                           .linuxUserDataPath(".config/google-chrome")
+                                                           .keychainService("Chrome Safe Storage")
+                                                           .keyringApplication("chrome")
+                                                           .build();
+    public static final BrowserDescriptor EDGE = builder("Edge")
+                                                         .macOsUserDataPath("Library/Application Support/Microsoft Edge")
+                                                         .windowsUserDataPath("AppData/Local/Microsoft/Edge/User Data")
+                                                         .linuxUserDataPath(".config/microsoft-edge")
+                                                         .keychainService("Microsoft Edge Safe Storage")
+                                                         .keyringApplication("chromium")
+                                                         .build();
+    public static final BrowserDescriptor BRAVE = builder("Brave")
+                                                          .macOsUserDataPath("Library/Application Support/BraveSoftware/Brave-Browser")
+                                                          .windowsUserDataPath("AppData/Local/BraveSoftware/Brave-Browser/User Data")
+                                                          .linuxUserDataPath(".config/BraveSoftware/Brave-Browser")
+                                                          .keychainService("Brave Safe Storage")
+                                                          .keyringApplication("brave")
+                                                          .build();
+    public static final BrowserDescriptor CHROMIUM = builder("Chromium")
+                                                             .macOsUserDataPath("Library/Application Support/Chromium")
+                                                             .windowsUserDataPath("AppData/Local/Chromium/User Data")
+                                                             .linuxUserDataPath(".config/chromium")
+                                                             .keychainService("Chromium Safe Storage")
+                                                             .keyringApplication("chromium")
+                                                             .build();
+    public static final BrowserDescriptor VIVALDI = builder("Vivaldi")
+                                                            .macOsUserDataPath("Library/Application Support/Vivaldi")
+                                                            .windowsUserDataPath("AppData/Local/Vivaldi/User Data")
+                                                            .linuxUserDataPath(".config/vivaldi")
+                                                            .keychainService("Vivaldi Safe Storage")
+                                                            .keyringApplication("chrome")
+                                                            .build();
+    /**
+     * Opera keeps the cookies of its default profile directly in its user data folder.
+     */
+    public static final BrowserDescriptor OPERA = builder("Opera")
+                                                          .macOsUserDataPath("Library/Application Support/com.operasoftware.Opera")
+                                                          .windowsUserDataPath("AppData/Roaming/Opera Software/Opera Stable")
+                                                          .linuxUserDataPath(".config/opera")
+                                                          .keychainService("Opera Safe Storage")
+                                                          .keyringApplication("chromium")
+                                                          .build();
+    
+    private static final List<BrowserDescriptor> PRESETS = Collections.unmodifiableList(
+            Arrays.asList(CHROME, EDGE, BRAVE, CHROMIUM, VIVALDI, OPERA));
+    
+    private final String name;
+    private final String macOsUserDataPath;
+    private final String windowsUserDataPath;
+    private final String linuxUserDataPath;
+    private final String keychainService;
+    private final String keyringApplication;
+    private final String localStateLocation;
+    private final String[] cookieFileLocations;
+    
+    private BrowserDescriptor(Builder builder) {
+        this.name = builder.name;
+        this.macOsUserDataPath = builder.macOsUserDataPath;
+        this.windowsUserDataPath = builder.windowsUserDataPath;
+        this.linuxUserDataPath = builder.linuxUserDataPath;
+        this.keychainService = Objects.requireNonNull(builder.keychainService, "keychainService");
+        this.keyringApplication = Objects.requireNonNull(builder.keyringApplication, "keyringApplication");
+        this.localStateLocation = builder.localStateLocation;
+        this.cookieFileLocations = builder.cookieFileLocations;
+    }
+    
+    /**
+     * @param name name of the browser, e.g. "Chrome".
+     */
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+    
+    /**
+     * @return descriptors of Chrome, Edge, Brave, Chromium, Vivaldi and Opera.
+     */
+    public static List<BrowserDescriptor> presets() {
+        return PRESETS;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * @return user data folder of the browser on the running OS, whether it exists or not.
+     */
+    public Path getUserDataPath() {
+        return getUserDataPath(Paths.get(SystemUtils.USER_HOME));
+    }
+    
+    /**
+     * @param userHome home folder of the user.
+     * @return user data folder of the browser on the running OS, whether it exists or not.
+     */
+    public Path getUserDataPath(Path userHome) {
+        String location;
+        if (SystemUtils.IS_OS_MAC) {
+            location = macOsUserDataPath;
+        } else if (SystemUtils.IS_OS_WINDOWS) {
+            location = windowsUserDataPath;
+        } else if (SystemUtils.IS_OS_LINUX) {
+            location = linuxUserDataPath;
+        } else {
+            throw new RuntimeException(String.format("OS %s is not supported. ", SystemUtils.OS_NAME));
+        }
+        if (location == null) {
+            throw new RuntimeException(String.format("%s is not supported on OS %s. ", name, SystemUtils.OS_NAME));
+        }
+        return userHome.resolve(location);
+    }
+    
+    /**
+     * @param userDataPath user data folder of the browser.
+     * @return path of its `Local State` file, which lists profiles and holds the key on Windows.
+     */
+    public Path getLocalStatePath(Path userDataPath) {
+        return userDataPath.resolve(localStateLocation);
+    }
+    
+    /**
+     * @return paths of the cookie file relative to a profile folder, in order of preference.
+     */
+    public String[] getCookieFileLocations() {
+        return cookieFileLocations.clone();
+    }
+    
+    /**
+     * Create a decryptor for cookies stored in the user data folder, retrieving keys from keychain, keyring or
+     * `Local State` depending on the running OS.
+     */
+    public CookieDecryptor createDecryptor(Path userDataPath) {
+        return CookieDecryptors.forCurrentOs(getLocalStatePath(userDataPath), keychainService, keyringApplication);
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+    
+    public static class Builder {
+        private final String name;
+        private String macOsUserDataPath;
+        private String windowsUserDataPath;
+        private String linuxUserDataPath;
+        private String keychainService;
+        private String keyringApplication;
+        private String localStateLocation = "Local State";
+        // `Network/Cookies` since Chrome 96, `Cookies` before
+        private String[] cookieFileLocations = {"Network/Cookies", "Cookies"};
+        
+        private Builder(String name) {
+            this.name = name;
+        }
+        
+        /**
+         * @param location user data folder relative to the home folder on macOS.
+         */
+        public Builder macOsUserDataPath(String location) {
+            this.macOsUserDataPath = location;
+            return this;
+        }
+        
+        /**
+         * @param location user data folder relative to the home folder on Windows.
+         */
+        public Builder windowsUserDataPath(String location) {
+            this.windowsUserDataPath = location;
+            return this;
+        }
+        
+        /**
+         * @param location user data folder relative to the home folder on Linux.
+         */
+        public Builder linuxUserDataPath(String location) {
+            this.linuxUserDataPath = location;
+            return this;
+        }
+        
+        /**
+         * @param keychainService service name of the key in macOS keychain, e.g. "Chrome Safe Storage". Required.
+         */
+        public Builder keychainService(String keychainService) {
+            this.keychainService = keychainService;
+            return this;
+        }
+        
+        /**
+         * @param keyringApplication libsecret "application" attribute of the key on Linux, e.g. "chrome". Required.
+         */
+        public Builder keyringApplication(String keyringApplication) {
+            this.keyringApplication = keyringApplication;
+            return this;
+        }
+        
+        /**
+         * @param localStateLocation `Local State` file relative to the user data folder, default is "Local State".
+         */
+        public Builder localStateLocation(String localStateLocation) {
+            this.localStateLocation = localStateLocation;
+            return this;
+        }
+        
+        /**
+         * @param cookieFileLocations cookie file relative to a profile folder, in order of preference. Default is
+         *                            "Network/Cookies" then "Cookies".
+         */
+        public Builder cookieFileLocations(String... cookieFileLocations) {
+            this.cookieFileLocations = cookieFileLocations.clone();
+            return this;
+        }
+        
+        public BrowserDescriptor build() {
+            return new BrowserDescriptor(this);
+        }
+    }
+}
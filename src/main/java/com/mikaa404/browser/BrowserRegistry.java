@@ -0,0 +1,178 @@
+package com.mikaa404.browser;
+
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import org.apache.commons.lang3.SystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * The browsers of a host, read together in parallel.
+ */
+public class BrowserRegistry implements AutoCloseable {
+    private final List<IBrowser> browsers;
+    private final List<BrowserContext> ownedContexts;
+    
+    private BrowserRegistry(List<IBrowser> browsers, List<BrowserContext> ownedContexts) {
+        this.browsers = Collections.unmodifiableList(browsers);
+        this.ownedContexts = ownedContexts;
+    }
+    
+    /**
+     * @param browsers browsers to read, not closed by the registry.
+     */
+    public static BrowserRegistry of(IBrowser... browsers) {
+        return new BrowserRegistry(new ArrayList<>(Arrays.asList(browsers)), Collections.emptyList());
+    }
+    
+    /**
+     * Discover the browsers of {@link BrowserDescriptor#presets()} and Firefox installed for the current user.
+     */
+    public static BrowserRegistry installed() {
+        return installed(Paths.get(SystemUtils.USER_HOME), BrowserDescriptor.presets());
+    }
+    
+    /**
+     * Discover installed browsers: those whose user data folder exists, then Firefox if it has a `profiles.ini`. Keys
+     * are only retrieved when a browser is read, and wiped when the registry is closed.
+     *
+     * @param userHome    home folder of the user.
+     * @param descriptors Chromium based browsers to look for.
+     */
+    public static BrowserRegistry installed(Path userHome, List<BrowserDescriptor> descriptors) {
+        List<IBrowser> browsers = new ArrayList<>();
+        List<BrowserContext> contexts = new ArrayList<>();
+        for (BrowserDescriptor descriptor : descriptors) {
+            Path userDataPath = descriptor.getUserDataPath(userHome);
+            if (Files.isDirectory(userDataPath)) {
+                BrowserContext context = BrowserContext.builder()
+                                                       .browser(descriptor)
+                                                       .userDataPath(userDataPath)
+                                                       .build();
+                contexts.add(context);
+                browsers.add(new ChromiumBrowser(context));
+            }
+        }
+        FirefoxBrowser firefox = new FirefoxBrowser(FirefoxBrowser.getDataPath(userHome), BrowserContext.defaultTempFolder());
+        if (firefox.isInstalled()) {
+            browsers.add(firefox);
+        }
+        return new BrowserRegistry(browsers, contexts);
+    }
+    
+    public List<IBrowser> getBrowsers() {
+        return browsers;
+    }
+    
+    /**
+     * Read cookies matching the query of every profile of all browsers in parallel. Browsers none of whose profiles
+     * can be read (e.g. their keys are not accessible) are left out of the result.
+     *
+     * @return cookies of all profiles of each browser, in the order of {@link #getBrowsers()}.
+     */
+    public Map<IBrowser, List<ICookie>> getCookies(CookieQuery query) {
+        ExecutorService executor = ParallelReads.newExecutor(browsers.size());
+        try {
+            return getCookies(query, executor, (browser, e) -> {
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Read cookies matching the query of all browsers, one task per profile on the given executor. Profiles of Chromium
+     * based browsers and Firefox are listed on the calling thread, other browsers are read with
+     * {@link IBrowser#getCookies(CookieQuery)}.
+     *
+     * @param query        criteria the cookies must match
+     * @param executor     executor running reads, it is not shut down by this method
+     * @param errorHandler called with the browser and the failure of each profile whose cookies could not be read (or
+     *                     whose profiles could not be listed), other profiles are still read
+     * @return cookies of the profiles which could be read of each browser, in the order of {@link #getBrowsers()}.
+     * Browsers without profiles have no cookies, browsers none of whose profiles could be read are left out.
+     */
+    public Map<IBrowser, List<ICookie>> getCookies(CookieQuery query,
+                                                   ExecutorService executor,
+                                                   BiConsumer<IBrowser, RuntimeException> errorHandler) {
+        Map<IBrowser, List<ProfileRead>> readsByBrowser = new LinkedHashMap<>();
+        for (IBrowser browser : browsers) {
+            try {
+                readsByBrowser.put(browser, profileReads(browser, query));
+            } catch (RuntimeException e) {
+                errorHandler.accept(browser, e);
+            }
+        }
+        List<ProfileRead> reads = new ArrayList<>();
+        readsByBrowser.values().forEach(reads::addAll);
+        Map<ProfileRead, List<ICookie>> cookiesByProfile = ParallelReads.readAll(
+                reads, read -> read.read.get(), executor, (read, e) -> errorHandler.accept(read.browser, e));
+        
+        Map<IBrowser, List<ICookie>> results = new LinkedHashMap<>();
+        readsByBrowser.forEach((browser, browserReads) -> {
+            List<ICookie> cookies = new ArrayList<>();
+            boolean read = browserReads.isEmpty();
+            for (ProfileRead profileRead : browserReads) {
+                List<ICookie> profileCookies = cookiesByProfile.get(profileRead);
+                if (profileCookies != null) {
+                    cookies.addAll(profileCookies);
+                    read = true;
+                }
+            }
+            if (read) {
+                results.put(browser, cookies);
+            }
+        });
+        return results;
+    }
+    
+    private static List<ProfileRead> profileReads(IBrowser browser, CookieQuery query) {
+        List<ProfileRead> reads = new ArrayList<>();
+        if (browser instanceof ChromiumBrowser) {
+            ChromiumBrowser chromium = (ChromiumBrowser) browser;
+            for (Profile profile : chromium.getProfiles()) {
+                reads.add(new ProfileRead(browser, () -> chromium.getCookies(profile, query)));
+            }
+        } else if (browser instanceof FirefoxBrowser) {
+            FirefoxBrowser firefox = (FirefoxBrowser) browser;
+            for (Profile profile : firefox.getProfiles()) {
+                reads.add(new ProfileRead(browser, () -> firefox.getCookies(profile, query)));
+            }
+        } else {
+            reads.add(new ProfileRead(browser, () -> browser.getCookies(query)));
+        }
+        return reads;
+    }
+    
+    /**
+     * Wipe the keys of discovered browsers. Browsers given to {@link #of(IBrowser...)} are left open.
+     */
+    @Override
+    public void close() {
+        ownedContexts.forEach(BrowserContext::close);
+    }
+    
+    /**
+     * Read of the cookies of one profile of a browser.
+     */
+    private static class ProfileRead {
+        private final IBrowser browser;
+        private final Supplier<List<ICookie>> read;
+        
+        ProfileRead(IBrowser browser, Supplier<List<ICookie>> read) {
+            this.browser = browser;
+            this.read = read;
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package com.mikaa404.browser;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.CookieTable;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.CookieEncryptor;
+import com.mikaa404.crypto.DecryptedValueCache;
+import com.mikaa404.crypto.KeyProvider;
+import com.mikaa404.metrics.ExtractionListener;
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionStage;
+import com.mikaa404.snapshot.CookieSnapshotDelta;
+import com.mikaa404.store.CookieStoreReader;
+import com.mikaa404.store.CookieWriter;
+import com.mikaa404.store.JdbcCookieStoreReader;
+import com.mikaa404.store.PageCookieStoreReader;
+import com.mikaa404.store.StoreAccessStrategy;
+import com.mikaa404.watch.CookieChangeListener;
+import com.mikaa404.watch.CookieWatcher;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Reads cookies of a Chromium based browser installation described by its {@link BrowserContext}. Every Chromium based
+ * browser shares the cookie store schema and encryption, they only differ in folders and key locations.
+ */
+public class ChromiumBrowser implements IBrowser {
+    private final BrowserContext context;
+    private final ProfileIndex profileIndex;
+    private volatile boolean lazyDecryption;
+    private volatile StoreAccessStrategy accessStrategy = StoreAccessStrategy.COPY;
+    private volatile DecryptedValueCache decryptedValueCache;
+    private volatile ExtractionListener extractionListener;
+    
+    /**
+     * Create a browser reading the installation of the context. Browsers of different contexts share nothing and can
+     * be used concurrently.
+     *
+     * @param context installation to read, closed by its owner rather than by the browser.
+     */
+    public ChromiumBrowser(BrowserContext context) {
+        this.context = context;
+        BrowserDescriptor browser = context.getBrowser();
+        this.profileIndex = new ProfileIndex(context.getUserDataPath(),
+                                             browser.getLocalStatePath(context.getUserDataPath()),
+                                             browser.getCookieFileLocations());
+    }
+    
+    public BrowserContext getContext() {
+        return context;
+    }
+    
+    /**
+     * In lazy decryption mode, cookies keep their encrypted value and decrypt it on the first
+     * {@link ICookie#getValue()} call. This makes reading a profile cost one sqlite scan when only a few cookies are
+     * actually used, at the price of decryption errors being thrown by {@link ICookie#getValue()}.
+     *
+     * @param lazyDecryption whether values of cookies read afterwards are decrypted lazily, default is {@code false}.
+     * @return this browser.
+     */
+    public ChromiumBrowser setLazyDecryption(boolean lazyDecryption) {
+        this.lazyDecryption = lazyDecryption;
+        return this;
+    }
+    
+    public boolean isLazyDecryption() {
+        return lazyDecryption;
+    }
+    
+    /**
+     * @param accessStrategy how `Cookies` files are accessed by reads started afterwards, default is
+     *                       {@link StoreAccessStrategy#COPY}.
+     * @return this browser.
+     */
+    public ChromiumBrowser setAccessStrategy(StoreAccessStrategy accessStrategy) {
+        this.accessStrategy = accessStrategy;
+        return this;
+    }
+    
+    public StoreAccessStrategy getAccessStrategy() {
+        return accessStrategy;
+    }
+    
+    /**
+     * With a cache, values of cookies which did not change since a previous read are not decrypted again. The cache
+     * may be shared with other browsers and is not closed by this browser.
+     *
+     * @param decryptedValueCache cache checked before decrypting values of cookies read afterwards, or {@code null}
+     *                            to disable caching, which is the default.
+     * @return this browser.
+     */
+    public ChromiumBrowser setDecryptedValueCache(DecryptedValueCache decryptedValueCache) {
+        this.decryptedValueCache = decryptedValueCache;
+        return this;
+    }
+    
+    public DecryptedValueCache getDecryptedValueCache() {
+        return decryptedValueCache;
+    }
+    
+    /**
+     * The listener receives a report of each extraction (read of one profile) started afterwards, with time spent in
+     * each {@link ExtractionStage}, row counters and the failure if any. Cookie watchers are not reported.
+     *
+     * @param extractionListener listener of extractions, or {@code null} to disable reports, which is the default
+     *                           and costs nothing on reads.
+     * @return this browser.
+     */
+    public ChromiumBrowser setExtractionListener(ExtractionListener extractionListener) {
+        this.extractionListener = extractionListener;
+        return this;
+    }
+    
+    public ExtractionListener getExtractionListener() {
+        return extractionListener;
+    }
+    
+    @Override
+    public String getBrowserName() {
+        return context.getBrowser().getName();
+    }
+    
+    @Override
+    public List<ICookie> getAllCookies() {
+        return getCookies(CookieQuery.all());
+    }
+    
+    /**
+     * Get all cookies from a specific profile.
+     *
+     * @param profileName specified profile name
+     * @return a list of cookies stored in that profile name, or empty list if no profile of that name or cookies is
+     * found.
+     */
+    public List<ICookie> getAllCookies(String profileName) {
+        return getCookies(profileName, CookieQuery.all());
+    }
+    
+    @Override
+    public List<ICookie> getCookies(CookieQuery query) {
+        return readAll(openCookieCursor(query));
+    }
+    
+    /**
+     * Get cookies matching the query from a specific profile.
+     *
+     * @param profileName specified profile name
+     * @param query       criteria the cookies must match
+     * @return a list of matching cookies stored in that profile name, or empty list if no profile of that name or
+     * cookies is found.
+     */
+    public List<ICookie> getCookies(String profileName, CookieQuery query) {
+        return readAll(openCookieCursor(profileName, query));
+    }
+    
+    /**
+     * @param profile one of {@link #getProfiles()}
+     * @param query   criteria the cookies must match
+     * @return a list of matching cookies stored in that profile.
+     */
+    public List<ICookie> getCookies(Profile profile, CookieQuery query) {
+        return readAll(openCookieCursor(profile, query));
+    }
+    
+    /**
+     * Open a cursor over cookies matching the query in the first profile of {@link #getProfiles()}.
+     */
+    @Override
+    public CookieCursor openCookieCursor(CookieQuery query) {
+        ExtractionRecorder recorder = newRecorder();
+        return discoverProfile(recorder, () -> getProfiles().stream().findFirst())
+                       .map(p -> openCookieCursor(p, query, recorder))
+                       .orElseGet(() -> emptyCursor(recorder));
+    }
+    
+    /**
+     * Open a cursor over cookies matching the query in a specific profile.
+     *
+     * @param profileName specified profile name
+     * @param query       criteria the cookies must match
+     * @return a cursor over matching cookies stored in that profile name, or an empty cursor if no profile of that
+     * name is found.
+     */
+    public CookieCursor openCookieCursor(String profileName, CookieQuery query) {
+        ExtractionRecorder recorder = newRecorder();
+        return discoverProfile(recorder, () -> getProfile(profileName)).map(p -> openCookieCursor(p, query, recorder))
+                       .orElseGet(() -> emptyCursor(recorder));
+    }
+    
+    /**
+     * @param profile one of {@link #getProfiles()}
+     * @param query   criteria the cookies must match
+     * @return a cursor over matching cookies stored in that profile.
+     */
+    public CookieCursor openCookieCursor(Profile profile, CookieQuery query) {
+        return openCookieCursor(profile, query, newRecorder());
+    }
+    
+    /**
+     * @param profile one of {@link #getProfiles()}
+     * @param query   criteria the cookies must match
+     * @return matching cookies stored in that profile, in a compact table suited to holding many cookies.
+     */
+    public CookieTable getCookieTable(Profile profile, CookieQuery query) {
+        return CookieTable.from(openCookieCursor(profile, query));
+    }
+    
+    /**
+     * Read cookies of all profiles in parallel.
+     * <p>
+     * A profile whose cookies can not be read (e.g. its store is locked or corrupted) is left out of the result, use
+     * {@link #getCookiesByProfile(CookieQuery, ExecutorService, BiConsumer)} to be notified of such failures.
+     *
+     * @return cookies of each profile, in the order of {@link #getProfiles()}.
+     */
+    public Map<Profile, List<ICookie>> getAllCookiesByProfile() {
+        return getCookiesByProfile(CookieQuery.all());
+    }
+    
+    /**
+     * Same as {@link #getAllCookiesByProfile()}, with only cookies matching the query.
+     */
+    public Map<Profile, List<ICookie>> getCookiesByProfile(CookieQuery query) {
+        List<Profile> profiles = getProfiles();
+        ExecutorService executor = ParallelReads.newExecutor(profiles.size());
+        try {
+            return getCookiesByProfile(query, executor, (profile, e) -> {
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Read cookies matching the query of all profiles, one task per profile on the given executor. Keys are retrieved
+     * once before tasks are submitted and shared by all of them, their retrieval is reported with the extraction of
+     * the first profile.
+     *
+     * @param query        criteria the cookies must match
+     * @param executor     executor running reads, it is not shut down by this method
+     * @param errorHandler called with each profile whose cookies could not be read and the failure, other profiles are
+     *                     still read
+     * @return cookies of each profile which could be read, in the order of {@link #getProfiles()}.
+     */
+    public Map<Profile, List<ICookie>> getCookiesByProfile(CookieQuery query,
+                                                           ExecutorService executor,
+                                                           BiConsumer<Profile, RuntimeException> errorHandler) {
+        ExtractionRecorder firstRecorder = newRecorder();
+        long start = firstRecorder.start();
+        List<Profile> profiles;
+        try {
+            profiles = getProfiles();
+        } catch (RuntimeException e) {
+            firstRecorder.abort(ExtractionStage.PROFILE_DISCOVERY, start, e);
+            throw e;
+        }
+        firstRecorder.end(ExtractionStage.PROFILE_DISCOVERY, start);
+        if (profiles.isEmpty()) {
+            // nothing to read, keys are not retrieved
+            firstRecorder.finish();
+            return new LinkedHashMap<>();
+        }
+        final CookieStoreReader reader = createStoreReader(retrieveDecryptor(firstRecorder));
+        return ParallelReads.readAll(profiles, profile -> {
+            ExtractionRecorder recorder = profile == profiles.get(0) ? firstRecorder : newRecorder();
+            if (recorder != firstRecorder) {
+                recorder.keysRetrieved(true);
+            }
+            recorder.setProfile(profile.getName(), profile.getCookieFile());
+            return readAll(reader.open(profile.getCookieFile(), query, recorder));
+        }, executor, errorHandler);
+    }
+    
+    /**
+     * Create a watcher of cookie changes in all current profiles, using the current decryption and access settings.
+     * Call {@link CookieWatcher#start()} to receive changes as the browser writes them.
+     */
+    public CookieWatcher newCookieWatcher(CookieChangeListener listener) {
+        return new CookieWatcher(createStoreReader(context.getKeyProvider().getDecryptor()), getProfiles(), listener);
+    }
+    
+    /**
+     * Find cookies of the profile added, changed or removed since a snapshot of them was taken, e.g. one read from a
+     * {@code CookieSnapshotFile}, so that only rows updated since the snapshot are decrypted.
+     *
+     * @param profile  one of {@link #getProfiles()}
+     * @param snapshot cookies of that profile when the snapshot was taken.
+     * @return changes to append to the snapshot file, or to apply to the snapshot.
+     */
+    public CookieSnapshotDelta diffSnapshot(Profile profile, CookieTable snapshot) {
+        CookieStoreReader reader = createStoreReader(context.getKeyProvider().getDecryptor());
+        return CookieSnapshotDelta.between(snapshot, reader, profile.getCookieFile());
+    }
+    
+    /**
+     * Create a writer of cookies into the stores of this browser, e.g. {@code profile.getCookieFile()}, encrypting
+     * values with the cached keys of the context. The browser must be closed while writing.
+     *
+     * @throws UnsupportedOperationException if the keys of the context can only decrypt.
+     */
+    public CookieWriter newCookieWriter() {
+        CookieDecryptor decryptor = context.getKeyProvider().getDecryptor();
+        if (!(decryptor instanceof CookieEncryptor)) {
+            throw new UnsupportedOperationException("Keys of " + getBrowserName() + " can not encrypt cookies. ");
+        }
+        return new CookieWriter((CookieEncryptor) decryptor);
+    }
+    
+    /**
+     * Profiles are discovered from `Local State` and the known profile folders, and cached until the user data
+     * folder or `Local State` is modified.
+     *
+     * @return profiles with a `Cookies` file, "Default" first then "Profile N" in numeric order.
+     */
+    public List<Profile> getProfiles() {
+        return profileIndex.getProfiles();
+    }
+    
+    /**
+     * @param profileName folder name (e.g. "Profile 1") or display name of the profile.
+     * @return the profile, or empty if no profile of that name is found.
+     */
+    public Optional<Profile> getProfile(String profileName) {
+        List<Profile> profiles = getProfiles();
+        Optional<Profile> profile = profiles.stream()
+                                            .filter(p -> StringUtils.equals(profileName, p.getName()))
+                                            .findFirst();
+        if (profile.isPresent()) {
+            return profile;
+        }
+        return profiles.stream()
+                       .filter(p -> StringUtils.equals(profileName, p.getDisplayName()))
+                       .findFirst();
+    }
+    
+    private CookieCursor openCookieCursor(Profile profile, CookieQuery query, ExtractionRecorder recorder) {
+        recorder.setProfile(profile.getName(), profile.getCookieFile());
+        return createStoreReader(retrieveDecryptor(recorder)).open(profile.getCookieFile(), query, recorder);
+    }
+    
+    /**
+     * @return an empty cursor for a read which found no profile, reported as such. Shared with
+     * {@link FirefoxBrowser}, so both report reads the same way.
+     */
+    static CookieCursor emptyCursor(ExtractionRecorder recorder) {
+        recorder.finish();
+        return CookieCursor.empty();
+    }
+    
+    private ExtractionRecorder newRecorder() {
+        return ExtractionRecorder.of(extractionListener, getBrowserName());
+    }
+    
+    private static Optional<Profile> discoverProfile(ExtractionRecorder recorder, Supplier<Optional<Profile>> finder) {
+        long start = recorder.start();
+        Optional<Profile> profile;
+        try {
+            profile = finder.get();
+        } catch (RuntimeException e) {
+            recorder.abort(ExtractionStage.PROFILE_DISCOVERY, start, e);
+            throw e;
+        }
+        recorder.end(ExtractionStage.PROFILE_DISCOVERY, start);
+        return profile;
+    }
+    
+    private CookieDecryptor retrieveDecryptor(ExtractionRecorder recorder) {
+        KeyProvider keyProvider = context.getKeyProvider();
+        long start = recorder.start();
+        boolean cached = keyProvider.isRetrieved();
+        CookieDecryptor decryptor;
+        try {
+            decryptor = keyProvider.getDecryptor();
+        } catch (RuntimeException e) {
+            recorder.abort(ExtractionStage.KEY_RETRIEVAL, start, e);
+            throw e;
+        }
+        recorder.end(ExtractionStage.KEY_RETRIEVAL, start);
+        recorder.keysRetrieved(cached);
+        return decryptor;
+    }
+    
+    private CookieStoreReader createStoreReader(CookieDecryptor decryptor) {
+        DecryptedValueCache cache = decryptedValueCache;
+        if (cache != null) {
+            // all profiles of a user data folder share the same key
+            decryptor = cache.wrap(context.getUserDataPath().toString(), decryptor);
+        }
+        StoreAccessStrategy strategy = accessStrategy;
+        JdbcCookieStoreReader jdbcReader = new JdbcCookieStoreReader(decryptor, lazyDecryption, context.getTempFolder(), strategy);
+        if (strategy == StoreAccessStrategy.MAPPED_PAGES) {
+            return new PageCookieStoreReader(decryptor, lazyDecryption, jdbcReader);
+        }
+        return jdbcReader;
+    }
+    
+    private static List<ICookie> readAll(CookieCursor cursor) {
+        List<ICookie> cookieList = new ArrayList<>();
+        try (CookieCursor c = cursor) {
+            c.forEachRemaining(cookieList::add);
+        }
+        return cookieList;
+    }
+}
@@ -0,0 +1,276 @@
+package com.mikaa404.browser;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.FirefoxCookie;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.metrics.ExtractionListener;
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionStage;
+import com.mikaa404.store.CookieStoreReader;
+import com.mikaa404.store.FirefoxCookieStoreReader;
+import com.mikaa404.store.FirefoxSessionStore;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Reads cookies of Firefox profiles: persistent cookies from `cookies.sqlite` and session cookies from the session
+ * store. Values are not encrypted, so no key is needed.
+ */
+public class FirefoxBrowser implements IBrowser {
+    private final Path dataPath;
+    private final Path tempFolder;
+    private final FirefoxProfileIndex profileIndex;
+    private volatile StoreAccessStrategy accessStrategy = StoreAccessStrategy.COPY;
+    private volatile boolean sessionCookies = true;
+    private volatile ExtractionListener extractionListener;
+    
+    /**
+     * Create a browser reading the Firefox data folder of the running OS.
+     */
+    public FirefoxBrowser() {
+        this(getDataPath(Paths.get(SystemUtils.USER_HOME)), BrowserContext.defaultTempFolder());
+    }
+    
+    /**
+     * @param dataPath   Firefox data folder, holding `profiles.ini`.
+     * @param tempFolder folder holding temporary copies of cookie stores.
+     */
+    public FirefoxBrowser(Path dataPath, Path tempFolder) {
+        this.dataPath = dataPath;
+        this.tempFolder = tempFolder;
+        this.profileIndex = new FirefoxProfileIndex(dataPath);
+    }
+    
+    /**
+     * @param userHome home folder of the user.
+     * @return Firefox data folder on the running OS, whether it exists or not.
+     */
+    public static Path getDataPath(Path userHome) {
+        if (SystemUtils.IS_OS_MAC) {
+            return userHome.resolve("Library/Application Support/Firefox");
+        } else if (SystemUtils.IS_OS_WINDOWS) {
+            return userHome.resolve("AppData/Roaming/Mozilla/Firefox");
+        } else if (SystemUtils.IS_OS_LINUX) {
+            return userHome.resolve(".mozilla/firefox");
+        } else {
+            throw new RuntimeException(String.format("OS %s is not supported. ", SystemUtils.OS_NAME));
+        }
+    }
+    
+    /**
+     * @return whether Firefox data folder holds `profiles.ini`.
+     */
+    boolean isInstalled() {
+        return Files.isRegularFile(dataPath.resolve("profiles.ini"));
+    }
+    
+    /**
+     * Firefox writes `cookies.sqlite` in WAL mode and checkpoints rarely while running, so recent cookies are often only
+     * in `cookies.sqlite-wal`. {@link StoreAccessStrategy#COPY} copies both files and sees them, other strategies open
+     * the file as immutable and do not.
+     *
+     * @param accessStrategy how `cookies.sqlite` files are accessed by reads started afterwards, default is
+     *                       {@link StoreAccessStrategy#COPY}.
+     * @return this browser.
+     */
+    public FirefoxBrowser setAccessStrategy(StoreAccessStrategy accessStrategy) {
+        this.accessStrategy = accessStrategy;
+        return this;
+    }
+    
+    public StoreAccessStrategy getAccessStrategy() {
+        return accessStrategy;
+    }
+    
+    /**
+     * @param sessionCookies whether session cookies are read from the session store after those of
+     *                       `cookies.sqlite`, default is {@code true}.
+     * @return this browser.
+     */
+    public FirefoxBrowser setSessionCookies(boolean sessionCookies) {
+        this.sessionCookies = sessionCookies;
+        return this;
+    }
+    
+    public boolean isSessionCookies() {
+        return sessionCookies;
+    }
+    
+    /**
+     * The listener receives a report of each extraction (read of one profile) started afterwards. Reading the session
+     * store counts as {@link ExtractionStage#SCAN}.
+     *
+     * @param extractionListener listener of extractions, or {@code null} to disable reports, which is the default.
+     * @return this browser.
+     */
+    public FirefoxBrowser setExtractionListener(ExtractionListener extractionListener) {
+        this.extractionListener = extractionListener;
+        return this;
+    }
+    
+    public ExtractionListener getExtractionListener() {
+        return extractionListener;
+    }
+    
+    public Path getDataPath() {
+        return dataPath;
+    }
+    
+    @Override
+    public String getBrowserName() {
+        return "Firefox";
+    }
+    
+    @Override
+    public List<ICookie> getAllCookies() {
+        return getCookies(CookieQuery.all());
+    }
+    
+    @Override
+    public List<ICookie> getCookies(CookieQuery query) {
+        return readAll(openCookieCursor(query));
+    }
+    
+    /**
+     * @param profile one of {@link #getProfiles()}
+     * @param query   criteria the cookies must match
+     * @return a list of matching cookies stored in that profile.
+     */
+    public List<ICookie> getCookies(Profile profile, CookieQuery query) {
+        return readAll(openCookieCursor(profile, query));
+    }
+    
+    /**
+     * Open a cursor over cookies matching the query in the first profile of {@link #getProfiles()}.
+     */
+    @Override
+    public CookieCursor openCookieCursor(CookieQuery query) {
+        ExtractionRecorder recorder = newRecorder();
+        long start = recorder.start();
+        Optional<Profile> profile;
+        try {
+            profile = getProfiles().stream().findFirst();
+        } catch (RuntimeException e) {
+            recorder.abort(ExtractionStage.PROFILE_DISCOVERY, start, e);
+            throw e;
+        }
+        recorder.end(ExtractionStage.PROFILE_DISCOVERY, start);
+        return profile.map(p -> openCookieCursor(p, query, recorder))
+                      .orElseGet(() -> ChromiumBrowser.emptyCursor(recorder));
+    }
+    
+    /**
+     * @param profile one of {@link #getProfiles()}
+     * @param query   criteria the cookies must match
+     * @return a cursor over matching cookies of `cookies.sqlite`, then matching session cookies.
+     */
+    public CookieCursor openCookieCursor(Profile profile, CookieQuery query) {
+        return openCookieCursor(profile, query, newRecorder());
+    }
+    
+    /**
+     * Read cookies matching the query of all profiles, one task per profile on the given executor.
+     *
+     * @param query        criteria the cookies must match
+     * @param executor     executor running reads, it is not shut down by this method
+     * @param errorHandler called with each profile whose cookies could not be read and the failure, other profiles are
+     *                     still read
+     * @return cookies of each profile which could be read, in the order of {@link #getProfiles()}.
+     */
+    public Map<Profile, List<ICookie>> getCookiesByProfile(CookieQuery query,
+                                                           ExecutorService executor,
+                                                           BiConsumer<Profile, RuntimeException> errorHandler) {
+        return ParallelReads.readAll(getProfiles(), profile -> getCookies(profile, query), executor, errorHandler);
+    }
+    
+    /**
+     * Profiles are listed in `profiles.ini`, which is read again only when it is modified.
+     *
+     * @return profiles with a `cookies.sqlite` file, the default profile first.
+     */
+    public List<Profile> getProfiles() {
+        return profileIndex.getProfiles();
+    }
+    
+    /**
+     * @param profileName folder name (e.g. "abcd1234.default-release") or name (e.g. "default-release") of the
+     *                    profile.
+     * @return the profile, or empty if no profile of that name is found.
+     */
+    public Optional<Profile> getProfile(String profileName) {
+        List<Profile> profiles = getProfiles();
+        Optional<Profile> profile = profiles.stream()
+                                            .filter(p -> StringUtils.equals(profileName, p.getName()))
+                                            .findFirst();
+        if (profile.isPresent()) {
+            return profile;
+        }
+        return profiles.stream()
+                       .filter(p -> StringUtils.equals(profileName, p.getDisplayName()))
+                       .findFirst();
+    }
+    
+    private CookieCursor openCookieCursor(Profile profile, CookieQuery query, ExtractionRecorder recorder) {
+        recorder.setProfile(profile.getName(), profile.getCookieFile());
+        // the session store is small and read first, so a failure does not leak the store cursor
+        List<FirefoxCookie> sessionCookieList = Collections.emptyList();
+        if (sessionCookies) {
+            long start = recorder.start();
+            try {
+                sessionCookieList = readSessionCookies(profile, query);
+            } catch (RuntimeException e) {
+                recorder.abort(ExtractionStage.SCAN, start, e);
+                throw e;
+            }
+            recorder.end(ExtractionStage.SCAN, start);
+            recorder.rowsScanned(sessionCookieList.size());
+        }
+        CookieCursor storeCursor = createStoreReader().open(profile.getCookieFile(), query, recorder);
+        return CookieCursor.concat(storeCursor, CookieCursor.of(sessionCookieList.iterator()));
+    }
+    
+    private ExtractionRecorder newRecorder() {
+        return ExtractionRecorder.of(extractionListener, getBrowserName());
+    }
+    
+    private CookieStoreReader createStoreReader() {
+        return new FirefoxCookieStoreReader(tempFolder, accessStrategy);
+    }
+    
+    /**
+     * While Firefox runs, session cookies are in `sessionstore-backups/recovery.jsonlz4`. After it is closed with
+     * session restore enabled, they are in `sessionstore.jsonlz4`.
+     */
+    private static List<FirefoxCookie> readSessionCookies(Profile profile, CookieQuery query) {
+        Path sessionStoreFile = profile.getPath().resolve("sessionstore-backups").resolve("recovery.jsonlz4");
+        if (!Files.isRegularFile(sessionStoreFile)) {
+            sessionStoreFile = profile.getPath().resolve("sessionstore.jsonlz4");
+        }
+        return FirefoxSessionStore.readCookies(sessionStoreFile)
+                                  .stream()
+                                  .filter(query::matches)
+                                  .collect(Collectors.toList());
+    }
+    
+    private static List<ICookie> readAll(CookieCursor cursor) {
+        List<ICookie> cookieList = new ArrayList<>();
+        try (CookieCursor c = cursor) {
+            c.forEachRemaining(cookieList::add);
+        }
+        return cookieList;
+    }
+}
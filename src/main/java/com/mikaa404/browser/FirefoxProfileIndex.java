@@ -0,0 +1,114 @@
+package com.mikaa404.browser;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the profiles of Firefox from `profiles.ini` in its data folder.
+ * <p>
+ * The profile an installation starts with ({@code Default} of an {@code [Install...]} section) comes first, then the
+ * profile marked {@code Default=1}, then others in file order. Only profiles with a `cookies.sqlite` file are listed.
+ * The result is cached until the modification time of `profiles.ini` changes.
+ */
+class FirefoxProfileIndex {
+    static final String COOKIE_FILE = "cookies.sqlite";
+    
+    private final Path dataPath;
+    
+    private volatile FileTime snapshotModified;
+    private volatile List<Profile> snapshot;
+    
+    /**
+     * @param dataPath Firefox data folder, holding `profiles.ini`.
+     */
+    FirefoxProfileIndex(Path dataPath) {
+        this.dataPath = dataPath;
+    }
+    
+    synchronized List<Profile> getProfiles() {
+        Path profilesIni = dataPath.resolve("profiles.ini");
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(profilesIni);
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+        if (modified.equals(snapshotModified)) {
+            return snapshot;
+        }
+        
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(profilesIni, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read profiles.ini. ", e);
+        }
+        snapshot = Collections.unmodifiableList(parse(lines));
+        snapshotModified = modified;
+        return snapshot;
+    }
+    
+    private List<Profile> parse(List<String> lines) {
+        // section name -> key -> value
+        Map<String, Map<String, String>> sections = new LinkedHashMap<>();
+        Map<String, String> section = null;
+        for (String rawLine : lines) {
+            String line = rawLine.trim();
+            if (line.isEmpty() || line.startsWith(";") || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("[") && line.endsWith("]")) {
+                section = new LinkedHashMap<>();
+                sections.put(line.substring(1, line.length() - 1), section);
+            } else if (section != null && line.contains("=")) {
+                section.put(StringUtils.substringBefore(line, "=").trim(), StringUtils.substringAfter(line, "=").trim());
+            }
+        }
+        
+        List<String> installDefaults = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> entry : sections.entrySet()) {
+            if (entry.getKey().startsWith("Install") && entry.getValue().containsKey("Default")) {
+                installDefaults.add(entry.getValue().get("Default"));
+            }
+        }
+        
+        // profile -> rank, 0 for installation defaults, 1 for the default profile, 2 for others
+        Map<Profile, Integer> profiles = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : sections.entrySet()) {
+            Map<String, String> values = entry.getValue();
+            if (!entry.getKey().startsWith("Profile") || !values.containsKey("Path")) {
+                continue;
+            }
+            
+            String location = values.get("Path");
+            Path profilePath = "0".equals(values.get("IsRelative")) ? Paths.get(location) : dataPath.resolve(location);
+            Path cookieFile = profilePath.resolve(COOKIE_FILE);
+            if (!Files.isRegularFile(cookieFile)) {
+                continue;
+            }
+            
+            String folderName = profilePath.getFileName().toString();
+            profiles.put(new Profile(folderName, StringUtils.defaultIfEmpty(values.get("Name"), folderName), profilePath, cookieFile),
+                         installDefaults.contains(location) ? 0 : "1".equals(values.get("Default")) ? 1 : 2);
+        }
+        
+        // stable sort, profiles of the same rank keep their file order
+        return profiles.entrySet()
+                       .stream()
+                       .sorted(Map.Entry.comparingByValue())
+                       .map(Map.Entry::getKey)
+                       .collect(Collectors.toList());
+    }
+}
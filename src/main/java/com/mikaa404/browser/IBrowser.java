@@ -1,8 +1,11 @@
 package com.mikaa404.browser;
 
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
 import com.mikaa404.cookie.ICookie;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IBrowser {
     /**
@@ -15,4 +18,31 @@ public interface IBrowser {
      * @return a list of {@link ICookie} stored in path of this browser
      */
     List<ICookie> getAllCookies();
+    
+    /**
+     * @param query criteria the cookies must match, evaluated by the cookie store so non-matching cookies are neither
+     *              read nor decrypted.
+     * @return a list of {@link ICookie} stored in path of this browser and matching the query
+     */
+    List<ICookie> getCookies(CookieQuery query);
+    
+    /**
+     * Open a cursor which reads and decrypts cookies one row at a time. The cursor must be closed to release the
+     * cookie store, e.g. when iteration stops early.
+     *
+     * @param query criteria the cookies must match
+     * @return a cursor over {@link ICookie} stored in path of this browser and matching the query
+     */
+    CookieCursor openCookieCursor(CookieQuery query);
+    
+    /**
+     * Same as {@link #openCookieCursor(CookieQuery)} as a {@link Stream}, which must be closed (e.g. with
+     * try-with-resources) unless it is fully consumed.
+     *
+     * @param query criteria the cookies must match
+     * @return a stream of {@link ICookie} stored in path of this browser and matching the query
+     */
+    default Stream<ICookie> streamCookies(CookieQuery query) {
+        return openCookieCursor(query).stream();
+    }
 }
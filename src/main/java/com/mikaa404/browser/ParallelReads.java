@@ -0,0 +1,83 @@
+package com.mikaa404.browser;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs one read task per key (e.g. per profile) on an {@link ExecutorService}, isolating failures of each task.
+ */
+class ParallelReads {
+    private ParallelReads() {
+    }
+    
+    /**
+     * @param keys         keys to read, results keep their iteration order.
+     * @param read         reads the value of a key, may throw.
+     * @param executor     executor running the reads, not shut down by this method.
+     * @param errorHandler called with the key and the failure of each read that failed, on the calling thread.
+     * @return values of keys whose read succeeded.
+     */
+    static <K, V> Map<K, V> readAll(Collection<K> keys,
+                                    Function<K, V> read,
+                                    ExecutorService executor,
+                                    BiConsumer<K, RuntimeException> errorHandler) {
+        List<K> keyList = new ArrayList<>(keys);
+        List<Future<V>> futures = new ArrayList<>(keyList.size());
+        for (K key : keyList) {
+            futures.add(executor.submit(() -> read.apply(key)));
+        }
+        
+        Map<K, V> results = new LinkedHashMap<>();
+        for (int i = 0; i < keyList.size(); i++) {
+            try {
+                results.put(keyList.get(i), futures.get(i).get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                errorHandler.accept(keyList.get(i), cause instanceof RuntimeException
+                                                    ? (RuntimeException) cause
+                                                    : new RuntimeException(cause));
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while reading cookies. ", e);
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Reading cookie stores mostly waits on I/O, so virtual threads are used when the running JVM supports them (Java
+     * 21+), otherwise a pool with one thread per task, bounded by the number of processors.
+     *
+     * @param tasks number of tasks which will be submitted.
+     * @return a new executor, to be shut down by the caller.
+     */
+    static ExecutorService newExecutor(int tasks) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ignored) {
+            // virtual threads are not available
+        }
+        
+        int threads = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors()));
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cooky-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
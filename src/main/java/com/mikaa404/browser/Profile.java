@@ -0,0 +1,71 @@
+package com.mikaa404.browser;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A browser profile, i.e. a folder in browser user data folder (e.g. "Default", "Profile 1") holding its own cookies.
+ */
+public class Profile {
+    private final String name;
+    private final String displayName;
+    private final Path path;
+    private final Path cookieFile;
+    
+    public Profile(String name, String displayName, Path path, Path cookieFile) {
+        this.name = name;
+        this.displayName = displayName;
+        this.path = path;
+        this.cookieFile = cookieFile;
+    }
+    
+    /**
+     * @return name of the profile folder, e.g. "Profile 1".
+     */
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * @return name of the profile shown by the browser, or folder name if unknown.
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * @return path of the profile folder.
+     */
+    public Path getPath() {
+        return path;
+    }
+    
+    /**
+     * @return path of the cookie store file of this profile.
+     */
+    public Path getCookieFile() {
+        return cookieFile;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Profile profile = (Profile) o;
+        return path.equals(profile.path) && cookieFile.equals(profile.cookieFile);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, cookieFile);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Profile{name='%s', displayName='%s', path='%s'}", name, displayName, path);
+    }
+}
@@ -0,0 +1,192 @@
+package com.mikaa404.browser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Finds the profiles of a Chromium based browser without walking its whole user data folder, which also holds caches
+ * and extensions with many files.
+ * <p>
+ * Profile folders are those listed in `Local State` ({@code profile.info_cache}) and the folders named "Default" or
+ * "Profile N" directly in the user data folder. Only their known cookie file locations are checked. Browsers keeping
+ * the cookies of their default profile directly in the user data folder (e.g. Opera) get a "Default" profile for it.
+ * The result is cached until the user data folder, `Local State`, or a folder where a cookie file of a known profile
+ * was looked for is modified, so cookie files created later are found.
+ */
+class ProfileIndex {
+    private static final String DEFAULT_PROFILE = "Default";
+    private static final Pattern PROFILE_FOLDER_PATTERN = Pattern.compile("Default|Profile (\\d{1,9})");
+    private static final Comparator<Profile> PROFILE_ORDER = Comparator.comparingInt(ProfileIndex::profileRank)
+                                                                     .thenComparing(Profile::getName);
+    
+    private final Path userDataPath;
+    private final Path localStatePath;
+    private final String[] cookieFileLocations;
+    
+    private volatile Snapshot snapshot;
+    
+    /**
+     * @param userDataPath        browser user data folder.
+     * @param cookieFileLocations paths of cookie file relative to a profile folder, in order of preference.
+     */
+    ProfileIndex(Path userDataPath, String... cookieFileLocations) {
+        this(userDataPath, userDataPath.resolve("Local State"), cookieFileLocations);
+    }
+    
+    /**
+     * @param userDataPath        browser user data folder.
+     * @param localStatePath      `Local State` file of the browser.
+     * @param cookieFileLocations paths of cookie file relative to a profile folder, in order of preference.
+     */
+    ProfileIndex(Path userDataPath, Path localStatePath, String... cookieFileLocations) {
+        this.userDataPath = userDataPath;
+        this.localStatePath = localStatePath;
+        this.cookieFileLocations = cookieFileLocations;
+    }
+    
+    /**
+     * @return profiles which have a cookie file, "Default" first then "Profile N" in numeric order.
+     */
+    List<Profile> getProfiles() {
+        Snapshot current = snapshot;
+        if (current != null && current.isUpToDate()) {
+            return current.profiles;
+        }
+        
+        // read before scanning, so changes made during the scan invalidate the result
+        Map<Path, FileTime> modifiedTimes = new LinkedHashMap<>();
+        modifiedTimes.put(userDataPath, lastModified(userDataPath));
+        modifiedTimes.put(getLocalStatePath(), lastModified(getLocalStatePath()));
+        current = new Snapshot(modifiedTimes, scanProfiles(modifiedTimes));
+        snapshot = current;
+        return current.profiles;
+    }
+    
+    Path getLocalStatePath() {
+        return localStatePath;
+    }
+    
+    /**
+     * @param modifiedTimes receives the modification times of the folders where cookie files are looked for.
+     */
+    private List<Profile> scanProfiles(Map<Path, FileTime> modifiedTimes) {
+        // folder name -> display name
+        Map<String, String> profileNames = new LinkedHashMap<>(readInfoCache());
+        
+        if (Files.isDirectory(userDataPath)) {
+            try (Stream<Path> pathStream = Files.list(userDataPath)) {
+                pathStream.map(p -> p.getFileName().toString())
+                        .filter(n -> PROFILE_FOLDER_PATTERN.matcher(n).matches())
+                        .forEach(n -> profileNames.putIfAbsent(n, n));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed while accessing browser user data folder. ", e);
+            }
+        }
+        
+        List<Profile> profiles = new ArrayList<>();
+        for (Map.Entry<String, String> entry : profileNames.entrySet()) {
+            findProfile(entry.getKey(), entry.getValue(), userDataPath.resolve(entry.getKey()), modifiedTimes)
+                    .ifPresent(profiles::add);
+        }
+        if (profiles.stream().noneMatch(p -> DEFAULT_PROFILE.equals(p.getName()))) {
+            findProfile(DEFAULT_PROFILE, DEFAULT_PROFILE, userDataPath, modifiedTimes).ifPresent(profiles::add);
+        }
+        profiles.sort(PROFILE_ORDER);
+        return Collections.unmodifiableList(profiles);
+    }
+    
+    private Optional<Profile> findProfile(String name,
+                                          String displayName,
+                                          Path profilePath,
+                                          Map<Path, FileTime> modifiedTimes) {
+        for (String cookieFileLocation : cookieFileLocations) {
+            Path cookieFile = profilePath.resolve(cookieFileLocation);
+            // creating the cookie file changes the folder holding it, e.g. "Network" rather than the profile folder
+            Path folder = cookieFile.getParent();
+            modifiedTimes.computeIfAbsent(folder, ProfileIndex::lastModified);
+            if (Files.isRegularFile(cookieFile)) {
+                return Optional.of(new Profile(name, displayName, profilePath, cookieFile));
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * @return folder names and display names of profiles known by `Local State`, or empty map if it can not be read.
+     */
+    private Map<String, String> readInfoCache() {
+        Map<String, String> profileNames = new LinkedHashMap<>();
+        Path localStatePath = getLocalStatePath();
+        if (!Files.isRegularFile(localStatePath)) {
+            return profileNames;
+        }
+        
+        JsonNode infoCache;
+        try {
+            infoCache = new ObjectMapper().readTree(localStatePath.toFile()).path("profile").path("info_cache");
+        } catch (IOException e) {
+            // `Local State` may be rewritten by the browser while reading, profile folders are still listed
+            return profileNames;
+        }
+        
+        Iterator<Map.Entry<String, JsonNode>> fields = infoCache.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String displayName = field.getValue().path("name").asText();
+            profileNames.put(field.getKey(), StringUtils.defaultIfEmpty(displayName, field.getKey()));
+        }
+        return profileNames;
+    }
+    
+    private static int profileRank(Profile profile) {
+        Matcher matcher = PROFILE_FOLDER_PATTERN.matcher(profile.getName());
+        if (!matcher.matches()) {
+            return Integer.MAX_VALUE;
+        }
+        return matcher.group(1) == null ? -1 : Integer.parseInt(matcher.group(1));
+    }
+    
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+    
+    private static class Snapshot {
+        private final Map<Path, FileTime> modifiedTimes;
+        private final List<Profile> profiles;
+        
+        private Snapshot(Map<Path, FileTime> modifiedTimes, List<Profile> profiles) {
+            this.modifiedTimes = modifiedTimes;
+            this.profiles = profiles;
+        }
+        
+        private boolean isUpToDate() {
+            for (Map.Entry<Path, FileTime> entry : modifiedTimes.entrySet()) {
+                if (!entry.getValue().equals(lastModified(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mikaa404.cookie;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chrome stores timestamps (e.g. {@code expires_utc}) as microseconds since 1601-01-01T00:00:00Z (Windows epoch).
+ */
+public class ChromeTimestamps {
+    private static final long EPOCH_OFFSET_MICROS = TimeUnit.SECONDS.toMicros(11_644_473_600L);
+    
+    private ChromeTimestamps() {
+    }
+    
+    public static long toEpochMillis(long chromeTimestamp) {
+        return TimeUnit.MICROSECONDS.toMillis(chromeTimestamp - EPOCH_OFFSET_MICROS);
+    }
+    
+    public static long fromEpochMillis(long epochMillis) {
+        return TimeUnit.MILLISECONDS.toMicros(epochMillis) + EPOCH_OFFSET_MICROS;
+    }
+    
+    public static long toEpochMicros(long chromeTimestamp) {
+        return chromeTimestamp - EPOCH_OFFSET_MICROS;
+    }
+    
+    public static long fromEpochMicros(long epochMicros) {
+        return epochMicros + EPOCH_OFFSET_MICROS;
+    }
+    
+    /**
+     * @return current time as Chrome timestamp.
+     */
+    public static long now() {
+        return fromEpochMillis(System.currentTimeMillis());
+    }
+}
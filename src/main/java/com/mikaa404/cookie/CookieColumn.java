@@ -0,0 +1,88 @@
+package com.mikaa404.cookie;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Columns of Chrome `cookies` table, which can be selected with {@link CookieQuery.Builder#columns(CookieColumn...)}.
+ * <p>
+ * Columns were added and renamed across Chrome versions. A column missing from a store reads as its default value,
+ * which is the value Chrome gives it when migrating older stores.
+ */
+public enum CookieColumn {
+    CREATION_UTC(Type.INTEGER, 0),
+    HOST_KEY(Type.TEXT, 0),
+    TOP_FRAME_SITE_KEY(Type.TEXT, 0),
+    NAME(Type.TEXT, 0),
+    /**
+     * Plain text value, only filled by Chrome versions before values were encrypted.
+     */
+    VALUE(Type.TEXT, 0),
+    ENCRYPTED_VALUE(Type.BLOB, 0),
+    PATH(Type.TEXT, 0),
+    EXPIRES_UTC(Type.INTEGER, 0),
+    IS_SECURE(Type.INTEGER, 0, "secure"),
+    IS_HTTPONLY(Type.INTEGER, 0, "httponly"),
+    LAST_ACCESS_UTC(Type.INTEGER, 0),
+    HAS_EXPIRES(Type.INTEGER, 1),
+    IS_PERSISTENT(Type.INTEGER, 1, "persistent"),
+    /**
+     * Default is medium priority.
+     */
+    PRIORITY(Type.INTEGER, 1),
+    /**
+     * Default is unspecified.
+     */
+    SAMESITE(Type.INTEGER, -1),
+    /**
+     * Default is unset.
+     */
+    SOURCE_SCHEME(Type.INTEGER, 0),
+    /**
+     * Default is unspecified.
+     */
+    SOURCE_PORT(Type.INTEGER, -1),
+    IS_SAME_PARTY(Type.INTEGER, 0),
+    LAST_UPDATE_UTC(Type.INTEGER, 0);
+    
+    public enum Type {
+        TEXT,
+        BLOB,
+        INTEGER
+    }
+    
+    private final Type type;
+    private final long defaultValue;
+    private final List<String> columnNames;
+    
+    CookieColumn(Type type, long defaultValue, String... legacyColumnNames) {
+        this.type = type;
+        this.defaultValue = defaultValue;
+        
+        String[] columnNames = new String[legacyColumnNames.length + 1];
+        columnNames[0] = name().toLowerCase(Locale.ROOT);
+        System.arraycopy(legacyColumnNames, 0, columnNames, 1, legacyColumnNames.length);
+        this.columnNames = Collections.unmodifiableList(Arrays.asList(columnNames));
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * @return value of a missing {@link Type#INTEGER} column, missing text columns are empty and missing blob columns
+     * are {@code null}.
+     */
+    public long getDefaultValue() {
+        return defaultValue;
+    }
+    
+    /**
+     * @return current column name first, then names used by older Chrome versions.
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+}
@@ -0,0 +1,96 @@
+package com.mikaa404.cookie;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates cookies while they are read from the cookie store, so cookies are decrypted one by one and never all held
+ * in memory at once.
+ * <p>
+ * A cursor holds resources (database connection, temp files) until it is closed. It closes itself once the last cookie
+ * has been read, but must be closed explicitly when iteration stops early, preferably with try-with-resources:
+ * <pre>{@code
+ * try (CookieCursor cursor = browser.openCookieCursor(query)) {
+ *     while (cursor.hasNext()) {
+ *         ICookie cookie = cursor.next();
+ *     }
+ * }
+ * }</pre>
+ */
+public interface CookieCursor extends Iterator<ICookie>, AutoCloseable {
+    /**
+     * Release resources held by this cursor. Calling this method more than once has no effect.
+     */
+    @Override
+    void close();
+    
+    /**
+     * @return a sequential stream of remaining cookies, closing the stream closes this cursor.
+     */
+    default Stream<ICookie> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                       .onClose(this::close);
+    }
+    
+    /**
+     * @return a cursor without cookies.
+     */
+    static CookieCursor empty() {
+        return of(Collections.emptyIterator());
+    }
+    
+    /**
+     * @return a cursor over the cookies of {@code first} then those of {@code second}, closing it closes both.
+     */
+    static CookieCursor concat(CookieCursor first, CookieCursor second) {
+        return new CookieCursor() {
+            @Override
+            public boolean hasNext() {
+                return first.hasNext() || second.hasNext();
+            }
+            
+            @Override
+            public ICookie next() {
+                return first.hasNext() ? first.next() : second.next();
+            }
+            
+            @Override
+            public void close() {
+                try {
+                    first.close();
+                } finally {
+                    second.close();
+                }
+            }
+        };
+    }
+    
+    /**
+     * @return a cursor over cookies already in memory, closing it has no effect.
+     */
+    static CookieCursor of(Iterator<? extends ICookie> cookies) {
+        return new CookieCursor() {
+            @Override
+            public boolean hasNext() {
+                return cookies.hasNext();
+            }
+            
+            @Override
+            public ICookie next() {
+                if (!cookies.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return cookies.next();
+            }
+            
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package com.mikaa404.cookie;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An index of cookies answering which of them a request to a URI carries, following the domain, path, secure and
+ * expiry matching of RFC 6265.
+ * <p>
+ * Cookies are indexed in a trie of domain labels, from top level domain down (e.g. {@code com -> example -> www}), so
+ * a lookup only visits the nodes of the request host and its parent domains instead of scanning every cookie. Each node
+ * holds its domain cookies (host key with a leading dot, sent to subdomains as well) and host-only cookies. Only the
+ * cookies of visited nodes are checked for path, secure and expiry.
+ * <p>
+ * Partitioned cookies (CHIPS, with a Chrome {@code top_frame_site_key}) are only sent by requests made from their
+ * top-level site, see {@link #cookiesFor(URI, String, long)}.
+ * <p>
+ * A jar is immutable and can be shared by threads.
+ */
+public class CookieJar {
+    /**
+     * RFC 6265 orders cookies with longer paths first, then earlier created first. Creation is approximated by order in
+     * the source, which follows the store.
+     */
+    private static final Comparator<Entry> REQUEST_ORDER = Comparator.comparingInt((Entry e) -> e.cookie.getPath().length())
+                                                                     .reversed()
+                                                                     .thenComparingInt(e -> e.order);
+    
+    private final Node root = new Node();
+    private final int size;
+    
+    private CookieJar(Iterable<? extends ICookie> cookies) {
+        int count = 0;
+        for (ICookie cookie : cookies) {
+            String hostKey = cookie.getHostKey().toLowerCase(Locale.ROOT);
+            boolean domainCookie = hostKey.startsWith(".");
+            Node node = root.descend(domainCookie ? hostKey.substring(1) : hostKey);
+            (domainCookie ? node.domainCookies : node.hostOnlyCookies).add(new Entry(count++, cookie));
+        }
+        this.size = count;
+    }
+    
+    /**
+     * @param cookies e.g. cookies returned by {@link com.mikaa404.browser.IBrowser#getAllCookies()}, or a
+     *                {@link CookieTable}.
+     */
+    public static CookieJar of(Iterable<? extends ICookie> cookies) {
+        return new CookieJar(cookies);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @return unexpired unpartitioned cookies a request to the URI carries, longer paths first.
+     */
+    public List<ICookie> cookiesFor(URI uri) {
+        return cookiesFor(uri, ChromeTimestamps.now());
+    }
+    
+    /**
+     * @param chromeTimestamp time of the request as Chrome timestamp, see {@link ChromeTimestamps}.
+     * @return unpartitioned cookies a request to the URI carries at the given time, longer paths first.
+     */
+    public List<ICookie> cookiesFor(URI uri, long chromeTimestamp) {
+        return cookiesFor(uri, null, chromeTimestamp);
+    }
+    
+    /**
+     * @param topFrameSite    site of the top-level page making the request as Chrome stores it in
+     *                        {@code top_frame_site_key} (e.g. {@code "https://example.com"}), whose partitioned cookies
+     *                        are carried as well, or {@code null} for unpartitioned cookies only.
+     * @param chromeTimestamp time of the request as Chrome timestamp, see {@link ChromeTimestamps}.
+     * @return cookies a request to the URI carries at the given time, longer paths first.
+     */
+    public List<ICookie> cookiesFor(URI uri, String topFrameSite, long chromeTimestamp) {
+        String host = uri.getHost();
+        if (host == null) {
+            return Collections.emptyList();
+        }
+        host = host.toLowerCase(Locale.ROOT);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme()) || "wss".equalsIgnoreCase(uri.getScheme());
+        
+        List<Entry> matches = new ArrayList<>();
+        // walk labels from the top level domain down, domain cookies of every visited node match
+        Node node = root;
+        int end = host.length();
+        while (end > 0) {
+            int start = host.lastIndexOf('.', end - 1) + 1;
+            node = node.children.get(host.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            addMatches(node.domainCookies, path, secure, topFrameSite, chromeTimestamp, matches);
+            if (start == 0) {
+                addMatches(node.hostOnlyCookies, path, secure, topFrameSite, chromeTimestamp, matches);
+            }
+            end = start - 1;
+        }
+        
+        matches.sort(REQUEST_ORDER);
+        List<ICookie> cookies = new ArrayList<>(matches.size());
+        for (Entry match : matches) {
+            cookies.add(match.cookie);
+        }
+        return cookies;
+    }
+    
+    /**
+     * @return value of the {@code Cookie} request header for the URI, empty if no cookie matches.
+     */
+    public String cookieHeader(URI uri) {
+        StringBuilder header = new StringBuilder();
+        for (ICookie cookie : cookiesFor(uri)) {
+            if (header.length() > 0) {
+                header.append("; ");
+            }
+            header.append(cookie.getName()).append('=').append(cookie.getValue() == null ? "" : cookie.getValue());
+        }
+        return header.toString();
+    }
+    
+    private static void addMatches(List<Entry> entries,
+                                   String path,
+                                   boolean secure,
+                                   String topFrameSite,
+                                   long chromeTimestamp,
+                                   List<Entry> matches) {
+        for (Entry entry : entries) {
+            ICookie cookie = entry.cookie;
+            String partitionKey = partitionKey(cookie);
+            if ((partitionKey.isEmpty() || partitionKey.equals(topFrameSite))
+                && (!cookie.isSecure() || secure)
+                && (cookie.getExpiresUtc() == 0 || cookie.getExpiresUtc() > chromeTimestamp)
+                && pathMatches(cookie.getPath(), path)) {
+                matches.add(entry);
+            }
+        }
+    }
+    
+    /**
+     * @return top-level site the cookie is partitioned by, empty if it is not partitioned.
+     */
+    private static String partitionKey(ICookie cookie) {
+        if (cookie instanceof ChromeCookie) {
+            String topFrameSiteKey = ((ChromeCookie) cookie).getTopFrameSiteKey();
+            return topFrameSiteKey == null ? "" : topFrameSiteKey;
+        }
+        return "";
+    }
+    
+    /**
+     * Path-match of RFC 6265 section 5.1.4: the cookie path is the request path, or a prefix of it ending at a "/".
+     */
+    static boolean pathMatches(String cookiePath, String requestPath) {
+        if (!requestPath.startsWith(cookiePath)) {
+            return false;
+        }
+        return requestPath.length() == cookiePath.length()
+               || cookiePath.endsWith("/")
+               || requestPath.charAt(cookiePath.length()) == '/';
+    }
+    
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Entry> domainCookies = new ArrayList<>(0);
+        private final List<Entry> hostOnlyCookies = new ArrayList<>(0);
+        
+        private Node descend(String host) {
+            Node node = this;
+            int end = host.length();
+            while (end > 0) {
+                int start = host.lastIndexOf('.', end - 1) + 1;
+                node = node.children.computeIfAbsent(host.substring(start, end), label -> new Node());
+                end = start - 1;
+            }
+            return node;
+        }
+    }
+    
+    private static class Entry {
+        private final int order;
+        private final ICookie cookie;
+        
+        private Entry(int order, ICookie cookie) {
+            this.order = order;
+            this.cookie = cookie;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.mikaa404.cookie;
+
+import java.util.Objects;
+
+/**
+ * Identity of a cookie in a cookie store: at most one cookie exists per host key, top frame site key (partition),
+ * name and path.
+ */
+public class CookieKey {
+    private final String hostKey;
+    private final String topFrameSiteKey;
+    private final String name;
+    private final String path;
+    
+    public CookieKey(String hostKey, String topFrameSiteKey, String name, String path) {
+        this.hostKey = hostKey;
+        this.topFrameSiteKey = topFrameSiteKey == null ? "" : topFrameSiteKey;
+        this.name = name;
+        this.path = path;
+    }
+    
+    public static CookieKey of(ICookie cookie) {
+        String topFrameSiteKey = "";
+        if (cookie instanceof ChromeCookie) {
+            topFrameSiteKey = ((ChromeCookie) cookie).getTopFrameSiteKey();
+        } else if (cookie instanceof CookieTable.Row) {
+            topFrameSiteKey = ((CookieTable.Row) cookie).getTopFrameSiteKey();
+        } else if (cookie instanceof FirefoxCookie) {
+            // origin attributes partition Firefox cookies as the top frame site does for Chrome
+            topFrameSiteKey = ((FirefoxCookie) cookie).getOriginAttributes();
+        }
+        return new CookieKey(cookie.getHostKey(), topFrameSiteKey, cookie.getName(), cookie.getPath());
+    }
+    
+    public String getHostKey() {
+        return hostKey;
+    }
+    
+    public String getTopFrameSiteKey() {
+        return topFrameSiteKey;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CookieKey cookieKey = (CookieKey) o;
+        return hostKey.equals(cookieKey.hostKey)
+                       && topFrameSiteKey.equals(cookieKey.topFrameSiteKey)
+                       && name.equals(cookieKey.name)
+                       && path.equals(cookieKey.path);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(hostKey, topFrameSiteKey, name, path);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CookieKey{hostKey='%s', topFrameSiteKey='%s', name='%s', path='%s'}",
+                             hostKey, topFrameSiteKey, name, path);
+    }
+}
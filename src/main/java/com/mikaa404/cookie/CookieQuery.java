@@ -0,0 +1,243 @@
+package com.mikaa404.cookie;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Criteria to select cookies, built with {@link #builder()}. All criteria which are set must match.
+ * <p>
+ * Browsers translate a query into a parameterized SQL {@code WHERE} clause, so only matching rows are read from the
+ * cookie store and decrypted.
+ */
+public class CookieQuery {
+    private static final CookieQuery ALL = builder().build();
+    
+    private final String host;
+    private final String domain;
+    private final String name;
+    private final String pathPrefix;
+    private final Boolean expired;
+    private final boolean secureOnly;
+    private final Long updatedAfter;
+    private final Set<CookieColumn> columns;
+    
+    private CookieQuery(Builder builder) {
+        this.host = builder.host;
+        this.domain = builder.domain;
+        this.name = builder.name;
+        this.pathPrefix = builder.pathPrefix;
+        this.expired = builder.expired;
+        this.secureOnly = builder.secureOnly;
+        this.updatedAfter = builder.updatedAfter;
+        this.columns = Collections.unmodifiableSet(EnumSet.copyOf(builder.columns));
+    }
+    
+    /**
+     * @return a query matching every cookie.
+     */
+    public static CookieQuery all() {
+        return ALL;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * @return host key which must match exactly, or {@code null}.
+     */
+    public String getHost() {
+        return host;
+    }
+    
+    /**
+     * @return domain (without leading dot) whose cookies and its subdomains' cookies match, or {@code null}.
+     */
+    public String getDomain() {
+        return domain;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getPathPrefix() {
+        return pathPrefix;
+    }
+    
+    /**
+     * @return {@code true} to match only expired cookies, {@code false} to match only unexpired cookies (including
+     * session cookies), {@code null} to match both.
+     */
+    public Boolean getExpired() {
+        return expired;
+    }
+    
+    public boolean isSecureOnly() {
+        return secureOnly;
+    }
+    
+    /**
+     * Stores which do not record update times (Chrome before 86) can not tell which cookies changed, readers match
+     * all their cookies with {@link #withoutUpdatedAfter()}.
+     *
+     * @return Chrome timestamp (see {@link ChromeTimestamps}) after which matching cookies were last updated, or
+     * {@code null}.
+     */
+    public Long getUpdatedAfter() {
+        return updatedAfter;
+    }
+    
+    /**
+     * @return columns to read, every column by default.
+     */
+    public Set<CookieColumn> getColumns() {
+        return columns;
+    }
+    
+    /**
+     * @return this query without {@link #getUpdatedAfter()}, for stores which do not record update times.
+     */
+    public CookieQuery withoutUpdatedAfter() {
+        if (updatedAfter == null) {
+            return this;
+        }
+        Builder builder = new Builder();
+        builder.host = host;
+        builder.domain = domain;
+        builder.name = name;
+        builder.pathPrefix = pathPrefix;
+        builder.expired = expired;
+        builder.secureOnly = secureOnly;
+        builder.columns = EnumSet.copyOf(columns);
+        return builder.build();
+    }
+    
+    /**
+     * Check a cookie already in memory against the query, with the same semantics as the SQL translation.
+     */
+    public boolean matches(ICookie cookie) {
+        String hostKey = cookie.getHostKey();
+        if (host != null && !host.equals(hostKey)) {
+            return false;
+        }
+        if (domain != null && !(hostKey.equals(domain) || hostKey.equals("." + domain) || hostKey.endsWith("." + domain))) {
+            return false;
+        }
+        if (name != null && !name.equals(cookie.getName())) {
+            return false;
+        }
+        if (pathPrefix != null && !cookie.getPath().startsWith(pathPrefix)) {
+            return false;
+        }
+        if (expired != null) {
+            long expiresUtc = cookie.getExpiresUtc();
+            // session cookies are stored with expires_utc 0
+            if (expired != (expiresUtc != 0 && expiresUtc <= ChromeTimestamps.now())) {
+                return false;
+            }
+        }
+        if (secureOnly && !cookie.isSecure()) {
+            return false;
+        }
+        if (updatedAfter == null) {
+            return true;
+        } else if (cookie instanceof ChromeCookie) {
+            return ((ChromeCookie) cookie).getLastUpdateUtc() > updatedAfter;
+        } else if (cookie instanceof FirefoxCookie) {
+            return ((FirefoxCookie) cookie).getLastAccessedUtc() > updatedAfter;
+        }
+        return true;
+    }
+    
+    public static class Builder {
+        private String host;
+        private String domain;
+        private String name;
+        private String pathPrefix;
+        private Boolean expired;
+        private boolean secureOnly;
+        private Long updatedAfter;
+        private Set<CookieColumn> columns = EnumSet.allOf(CookieColumn.class);
+        
+        private Builder() {
+        }
+        
+        /**
+         * Match cookies whose host key is exactly {@code host}, e.g. {@code ".example.com"} for domain cookies or
+         * {@code "www.example.com"} for host-only cookies.
+         */
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+        
+        /**
+         * Match cookies of {@code domain} and all of its subdomains, e.g. {@code "example.com"} matches host keys
+         * {@code "example.com"}, {@code ".example.com"} and {@code ".www.example.com"}.
+         */
+        public Builder domain(String domain) {
+            this.domain = StringUtils.removeStart(domain, ".");
+            return this;
+        }
+        
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+        
+        public Builder pathPrefix(String pathPrefix) {
+            this.pathPrefix = pathPrefix;
+            return this;
+        }
+        
+        public Builder expired() {
+            this.expired = true;
+            return this;
+        }
+        
+        /**
+         * Match cookies which are not expired yet, session cookies never expire.
+         */
+        public Builder unexpired() {
+            this.expired = false;
+            return this;
+        }
+        
+        public Builder secureOnly() {
+            this.secureOnly = true;
+            return this;
+        }
+        
+        /**
+         * Match cookies created or modified strictly after the given time.
+         *
+         * @param chromeTimestamp time as Chrome timestamp, see {@link ChromeTimestamps}.
+         */
+        public Builder updatedAfter(long chromeTimestamp) {
+            this.updatedAfter = chromeTimestamp;
+            return this;
+        }
+        
+        /**
+         * Read only the given columns, other properties of cookies get default values. Host key, name and path are
+         * always read, and so is the plain {@link CookieColumn#VALUE} when {@link CookieColumn#ENCRYPTED_VALUE} is
+         * read. Without {@link CookieColumn#ENCRYPTED_VALUE}, values are not decrypted.
+         */
+        public Builder columns(CookieColumn... columns) {
+            this.columns = EnumSet.of(CookieColumn.HOST_KEY, CookieColumn.NAME, CookieColumn.PATH);
+            Collections.addAll(this.columns, columns);
+            if (this.columns.contains(CookieColumn.ENCRYPTED_VALUE)) {
+                this.columns.add(CookieColumn.VALUE);
+            }
+            return this;
+        }
+        
+        public CookieQuery build() {
+            return new CookieQuery(this);
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package com.mikaa404.cookie;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A read-only, memory-compact table of cookies, for holding many cookies (e.g. of hundreds of profiles) at once.
+ * <p>
+ * Cookies are stored by column rather than as objects: host keys, top frame site keys, names and paths are dictionary
+ * encoded so each distinct string is kept once, timestamps are {@code long} arrays, boolean attributes and small enums
+ * are bit-packed into one {@code int} per cookie, and values are kept as UTF-8 bytes in a single array.
+ * <p>
+ * {@link #get(int)} and {@link #iterator()} return {@link Row} views which read the columns on demand, views are not
+ * retained by the table.
+ * <p>
+ * The columns can be written as they are with {@link #writeTo(DataOutputStream)} and read back with
+ * {@link #readFrom(ByteBuffer)}, without re-reading nor decrypting the cookie store.
+ */
+public class CookieTable implements Iterable<ICookie> {
+    private static final int SECURE = 1;
+    private static final int HTTP_ONLY = 1 << 1;
+    private static final int HAS_EXPIRES = 1 << 2;
+    private static final int PERSISTENT = 1 << 3;
+    private static final int SAME_PARTY = 1 << 4;
+    private static final int NULL_VALUE = 1 << 5;
+    private static final int PRIORITY_SHIFT = 8;
+    private static final int SAME_SITE_SHIFT = 12;
+    private static final int SOURCE_SCHEME_SHIFT = 16;
+    private static final int NIBBLE = 0xF;
+    
+    private final int size;
+    private final Dictionary hostKeys;
+    private final Dictionary topFrameSiteKeys;
+    private final Dictionary names;
+    private final Dictionary paths;
+    private final byte[] valueBytes;
+    private final int[] valueOffsets;
+    private final long[] creationUtc;
+    private final long[] expiresUtc;
+    private final long[] lastAccessUtc;
+    private final long[] lastUpdateUtc;
+    private final int[] sourcePorts;
+    private final int[] attributes;
+    
+    private CookieTable(Builder builder) {
+        this(builder.size,
+             builder.hostKeys.trim(builder.size),
+             builder.topFrameSiteKeys.trim(builder.size),
+             builder.names.trim(builder.size),
+             builder.paths.trim(builder.size),
+             Arrays.copyOf(builder.valueBytes, builder.valueOffsets[builder.size]),
+             Arrays.copyOf(builder.valueOffsets, builder.size + 1),
+             Arrays.copyOf(builder.creationUtc, builder.size),
+             Arrays.copyOf(builder.expiresUtc, builder.size),
+             Arrays.copyOf(builder.lastAccessUtc, builder.size),
+             Arrays.copyOf(builder.lastUpdateUtc, builder.size),
+             Arrays.copyOf(builder.sourcePorts, builder.size),
+             Arrays.copyOf(builder.attributes, builder.size));
+    }
+    
+    private CookieTable(int size,
+                        Dictionary hostKeys,
+                        Dictionary topFrameSiteKeys,
+                        Dictionary names,
+                        Dictionary paths,
+                        byte[] valueBytes,
+                        int[] valueOffsets,
+                        long[] creationUtc,
+                        long[] expiresUtc,
+                        long[] lastAccessUtc,
+                        long[] lastUpdateUtc,
+                        int[] sourcePorts,
+                        int[] attributes) {
+        this.size = size;
+        this.hostKeys = hostKeys;
+        this.topFrameSiteKeys = topFrameSiteKeys;
+        this.names = names;
+        this.paths = paths;
+        this.valueBytes = valueBytes;
+        this.valueOffsets = valueOffsets;
+        this.creationUtc = creationUtc;
+        this.expiresUtc = expiresUtc;
+        this.lastAccessUtc = lastAccessUtc;
+        this.lastUpdateUtc = lastUpdateUtc;
+        this.sourcePorts = sourcePorts;
+        this.attributes = attributes;
+    }
+    
+    /**
+     * Read every cookie of the cursor into a table and close the cursor. Values are decrypted while reading.
+     */
+    public static CookieTable from(CookieCursor cursor) {
+        Builder builder = new Builder();
+        try (CookieCursor c = cursor) {
+            c.forEachRemaining(builder::add);
+        }
+        return builder.build();
+    }
+    
+    public static CookieTable from(Iterable<? extends ICookie> cookies) {
+        Builder builder = new Builder();
+        cookies.forEach(builder::add);
+        return builder.build();
+    }
+    
+    /**
+     * Read a table written by {@link #writeTo(DataOutputStream)}, from the position of the buffer to the end of the
+     * table, where the buffer is left.
+     */
+    public static CookieTable readFrom(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        Dictionary hostKeys = Dictionary.readFrom(column(buffer), size);
+        Dictionary topFrameSiteKeys = Dictionary.readFrom(column(buffer), size);
+        Dictionary names = Dictionary.readFrom(column(buffer), size);
+        Dictionary paths = Dictionary.readFrom(column(buffer), size);
+        ByteBuffer valueColumn = column(buffer);
+        byte[] valueBytes = new byte[valueColumn.remaining()];
+        valueColumn.get(valueBytes);
+        int[] valueOffsets = new int[size + 1];
+        column(buffer).asIntBuffer().get(valueOffsets);
+        long[][] timestamps = new long[4][size];
+        for (long[] timestamp : timestamps) {
+            column(buffer).asLongBuffer().get(timestamp);
+        }
+        int[] sourcePorts = new int[size];
+        column(buffer).asIntBuffer().get(sourcePorts);
+        int[] attributes = new int[size];
+        column(buffer).asIntBuffer().get(attributes);
+        return new CookieTable(size, hostKeys, topFrameSiteKeys, names, paths, valueBytes, valueOffsets,
+                               timestamps[0], timestamps[1], timestamps[2], timestamps[3], sourcePorts, attributes);
+    }
+    
+    /**
+     * Write the row count then every column, each prefixed with its length in bytes. Dictionary encoded columns write
+     * their distinct strings once, then the code of each row in 1, 2 or 4 bytes depending on how many there are.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (Dictionary dictionary : Arrays.asList(hostKeys, topFrameSiteKeys, names, paths)) {
+            dictionary.writeTo(out);
+        }
+        out.writeInt(valueBytes.length);
+        out.write(valueBytes);
+        writeInts(out, valueOffsets);
+        for (long[] timestamps : Arrays.asList(creationUtc, expiresUtc, lastAccessUtc, lastUpdateUtc)) {
+            out.writeInt(timestamps.length * Long.BYTES);
+            for (long timestamp : timestamps) {
+                out.writeLong(timestamp);
+            }
+        }
+        writeInts(out, sourcePorts);
+        writeInts(out, attributes);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @return number of distinct host keys, which are stored once each.
+     */
+    public int getHostKeyCount() {
+        return hostKeys.values.length;
+    }
+    
+    /**
+     * @return a view of the cookie at the given row.
+     */
+    public Row get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(String.format("Row %d out of %d rows. ", row, size));
+        }
+        return new Row(this, row);
+    }
+    
+    @Override
+    public Iterator<ICookie> iterator() {
+        return new Iterator<ICookie>() {
+            private int row;
+            
+            @Override
+            public boolean hasNext() {
+                return row < size;
+            }
+            
+            @Override
+            public ICookie next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new Row(CookieTable.this, row++);
+            }
+        };
+    }
+    
+    @Override
+    public Spliterator<ICookie> spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+    
+    public Stream<ICookie> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+    
+    private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+        out.writeInt(ints.length * Integer.BYTES);
+        for (int i : ints) {
+            out.writeInt(i);
+        }
+    }
+    
+    /**
+     * @return the column at the position of the buffer, which is moved after it.
+     */
+    private static ByteBuffer column(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        ByteBuffer column = buffer.slice();
+        column.limit(length);
+        buffer.position(buffer.position() + length);
+        return column;
+    }
+    
+    /**
+     * A cookie of a {@link CookieTable}, with the same properties as {@link ChromeCookie}.
+     */
+    public static class Row implements ICookie {
+        private final CookieTable table;
+        private final int row;
+        
+        private Row(CookieTable table, int row) {
+            this.table = table;
+            this.row = row;
+        }
+        
+        public int getRow() {
+            return row;
+        }
+        
+        @Override
+        public String getHostKey() {
+            return table.hostKeys.get(row);
+        }
+        
+        @Override
+        public String getName() {
+            return table.names.get(row);
+        }
+        
+        /**
+         * @return the value, decoded from the table on each call.
+         */
+        @Override
+        public String getValue() {
+            if (hasAttribute(NULL_VALUE)) {
+                return null;
+            }
+            int offset = table.valueOffsets[row];
+            return new String(table.valueBytes, offset, table.valueOffsets[row + 1] - offset, StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public String getPath() {
+            return table.paths.get(row);
+        }
+        
+        public String getTopFrameSiteKey() {
+            return table.topFrameSiteKeys.get(row);
+        }
+        
+        public long getCreationUtc() {
+            return table.creationUtc[row];
+        }
+        
+        @Override
+        public long getExpiresUtc() {
+            return table.expiresUtc[row];
+        }
+        
+        @Override
+        public boolean isSecure() {
+            return hasAttribute(SECURE);
+        }
+        
+        @Override
+        public boolean isHttpOnly() {
+            return hasAttribute(HTTP_ONLY);
+        }
+        
+        public long getLastAccessUtc() {
+            return table.lastAccessUtc[row];
+        }
+        
+        public boolean isHasExpires() {
+            return hasAttribute(HAS_EXPIRES);
+        }
+        
+        public boolean isPersistent() {
+            return hasAttribute(PERSISTENT);
+        }
+        
+        public int getPriority() {
+            return (table.attributes[row] >>> PRIORITY_SHIFT) & NIBBLE;
+        }
+        
+        public int getSameSite() {
+            // stored plus one, so unspecified (-1) fits
+            return ((table.attributes[row] >>> SAME_SITE_SHIFT) & NIBBLE) - 1;
+        }
+        
+        public int getSourceScheme() {
+            return (table.attributes[row] >>> SOURCE_SCHEME_SHIFT) & NIBBLE;
+        }
+        
+        public int getSourcePort() {
+            return table.sourcePorts[row];
+        }
+        
+        public boolean isSameParty() {
+            return hasAttribute(SAME_PARTY);
+        }
+        
+        public long getLastUpdateUtc() {
+            return table.lastUpdateUtc[row];
+        }
+        
+        private boolean hasAttribute(int attribute) {
+            return (table.attributes[row] & attribute) != 0;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("CookieTable.Row{row=%d, hostKey='%s', name='%s', path='%s'}", row, getHostKey(), getName(), getPath());
+        }
+    }
+    
+    /**
+     * Distinct strings of a column, and the index of each row's string among them.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> distinctValues = new ArrayList<>();
+        private String[] values;
+        private int[] codes = new int[16];
+        
+        private static Dictionary readFrom(ByteBuffer column, int size) {
+            Dictionary dictionary = new Dictionary();
+            dictionary.values = new String[column.getInt()];
+            for (int i = 0; i < dictionary.values.length; i++) {
+                int length = column.getInt();
+                if (length >= 0) {
+                    byte[] bytes = new byte[length];
+                    column.get(bytes);
+                    dictionary.values[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+            dictionary.codes = new int[size];
+            int codeLength = codeLength(dictionary.values.length);
+            for (int row = 0; row < size; row++) {
+                dictionary.codes[row] = codeLength == 1 ? column.get() & 0xFF
+                                        : codeLength == 2 ? column.getShort() & 0xFFFF
+                                        : column.getInt();
+            }
+            return dictionary;
+        }
+        
+        /**
+         * Write distinct strings as UTF-8 prefixed with their length (-1 for {@code null}), then the code of each row.
+         */
+        private void writeTo(DataOutputStream out) throws IOException {
+            byte[][] bytes = new byte[values.length][];
+            int length = Integer.BYTES;
+            for (int i = 0; i < values.length; i++) {
+                bytes[i] = values[i] == null ? null : values[i].getBytes(StandardCharsets.UTF_8);
+                length += Integer.BYTES + (bytes[i] == null ? 0 : bytes[i].length);
+            }
+            int codeLength = codeLength(values.length);
+            out.writeInt(length + codes.length * codeLength);
+            
+            out.writeInt(values.length);
+            for (byte[] value : bytes) {
+                out.writeInt(value == null ? -1 : value.length);
+                if (value != null) {
+                    out.write(value);
+                }
+            }
+            for (int code : codes) {
+                if (codeLength == 1) {
+                    out.writeByte(code);
+                } else if (codeLength == 2) {
+                    out.writeShort(code);
+                } else {
+                    out.writeInt(code);
+                }
+            }
+        }
+        
+        private static int codeLength(int distinctValueCount) {
+            return distinctValueCount <= 1 << 8 ? 1 : distinctValueCount <= 1 << 16 ? 2 : 4;
+        }
+        
+        private void add(int row, String value) {
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, row * 2);
+            }
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = distinctValues.size();
+                indexes.put(value, index);
+                distinctValues.add(value);
+            }
+            codes[row] = index;
+        }
+        
+        private Dictionary trim(int size) {
+            values = distinctValues.toArray(new String[0]);
+            codes = Arrays.copyOf(codes, size);
+            indexes.clear();
+            distinctValues.clear();
+            return this;
+        }
+        
+        private String get(int row) {
+            return values[codes[row]];
+        }
+    }
+    
+    private static class Builder {
+        private int size;
+        private final Dictionary hostKeys = new Dictionary();
+        private final Dictionary topFrameSiteKeys = new Dictionary();
+        private final Dictionary names = new Dictionary();
+        private final Dictionary paths = new Dictionary();
+        private byte[] valueBytes = new byte[256];
+        private int[] valueOffsets = new int[17];
+        private long[] creationUtc = new long[16];
+        private long[] expiresUtc = new long[16];
+        private long[] lastAccessUtc = new long[16];
+        private long[] lastUpdateUtc = new long[16];
+        private int[] sourcePorts = new int[16];
+        private int[] attributes = new int[16];
+        
+        private void add(ICookie cookie) {
+            if (size == attributes.length) {
+                grow();
+            }
+            
+            int row = size++;
+            hostKeys.add(row, cookie.getHostKey());
+            names.add(row, cookie.getName());
+            paths.add(row, cookie.getPath());
+            
+            String value = cookie.getValue();
+            byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+            int offset = valueOffsets[row];
+            if (offset + bytes.length > valueBytes.length) {
+                valueBytes = Arrays.copyOf(valueBytes, Math.max(valueBytes.length * 2, offset + bytes.length));
+            }
+            System.arraycopy(bytes, 0, valueBytes, offset, bytes.length);
+            valueOffsets[row + 1] = offset + bytes.length;
+            int attribute = value == null ? NULL_VALUE : 0;
+            
+            if (cookie instanceof Row) {
+                // copied column by column, so no property is lost between tables
+                Row source = (Row) cookie;
+                topFrameSiteKeys.add(row, source.getTopFrameSiteKey());
+                creationUtc[row] = source.getCreationUtc();
+                expiresUtc[row] = source.getExpiresUtc();
+                lastAccessUtc[row] = source.getLastAccessUtc();
+                lastUpdateUtc[row] = source.getLastUpdateUtc();
+                sourcePorts[row] = source.getSourcePort();
+                attribute = source.table.attributes[source.row];
+            } else if (cookie instanceof ChromeCookie) {
+                ChromeCookie chromeCookie = (ChromeCookie) cookie;
+                topFrameSiteKeys.add(row, chromeCookie.getTopFrameSiteKey());
+                creationUtc[row] = chromeCookie.getCreationUtc();
+                expiresUtc[row] = chromeCookie.getExpiresUtc();
+                lastAccessUtc[row] = chromeCookie.getLastAccessUtc();
+                lastUpdateUtc[row] = chromeCookie.getLastUpdateUtc();
+                sourcePorts[row] = chromeCookie.getSourcePort();
+                attribute |= (chromeCookie.isSecure() ? SECURE : 0)
+                             | (chromeCookie.isHttpOnly() ? HTTP_ONLY : 0)
+                             | (chromeCookie.isHasExpires() ? HAS_EXPIRES : 0)
+                             | (chromeCookie.isPersistent() ? PERSISTENT : 0)
+                             | (chromeCookie.isSameParty() ? SAME_PARTY : 0)
+                             | (chromeCookie.getPriority() & NIBBLE) << PRIORITY_SHIFT
+                             | ((chromeCookie.getSameSite() + 1) & NIBBLE) << SAME_SITE_SHIFT
+                             | (chromeCookie.getSourceScheme() & NIBBLE) << SOURCE_SCHEME_SHIFT;
+            } else {
+                // defaults of missing columns, see CookieColumn
+                topFrameSiteKeys.add(row, "");
+                expiresUtc[row] = cookie.getExpiresUtc();
+                sourcePorts[row] = -1;
+                attribute |= (cookie.isSecure() ? SECURE : 0)
+                             | (cookie.isHttpOnly() ? HTTP_ONLY : 0)
+                             | HAS_EXPIRES
+                             | PERSISTENT
+                             | 1 << PRIORITY_SHIFT;
+            }
+            attributes[row] = attribute;
+        }
+        
+        private void grow() {
+            int capacity = attributes.length * 2;
+            valueOffsets = Arrays.copyOf(valueOffsets, capacity + 1);
+            creationUtc = Arrays.copyOf(creationUtc, capacity);
+            expiresUtc = Arrays.copyOf(expiresUtc, capacity);
+            lastAccessUtc = Arrays.copyOf(lastAccessUtc, capacity);
+            lastUpdateUtc = Arrays.copyOf(lastUpdateUtc, capacity);
+            sourcePorts = Arrays.copyOf(sourcePorts, capacity);
+            attributes = Arrays.copyOf(attributes, capacity);
+        }
+        
+        private CookieTable build() {
+            return new CookieTable(this);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.mikaa404.cookie;
+
+/**
+ * A cookie of Firefox, read from {@code moz_cookies} or, for session cookies, from the session store.
+ * <p>
+ * Firefox stores values in plain text, so there is nothing to decrypt.
+ */
+public class FirefoxCookie implements ICookie {
+    private final String host;
+    private final String name;
+    private final String value;
+    private final String path;
+    private final long expiry;
+    private final long lastAccessed;
+    private final long creationTime;
+    private final boolean isSecure;
+    private final boolean isHttpOnly;
+    private final int sameSite;
+    private final int schemeMap;
+    private final String originAttributes;
+    private final boolean isSession;
+    
+    /**
+     * @param host             host of the cookie, with a leading dot for domain cookies.
+     * @param expiry           expiry in milliseconds since epoch, ignored for session cookies.
+     * @param lastAccessed     last access in microseconds since epoch.
+     * @param creationTime     creation in microseconds since epoch.
+     * @param sameSite         0 for None, 1 for Lax, 2 for Strict.
+     * @param schemeMap        bit set of schemes the cookie was set from: 1 for http, 2 for https, 4 for file.
+     * @param originAttributes suffix of the origin attributes (e.g. "^userContextId=1" for a container tab), empty
+     *                         for the default origin.
+     * @param isSession        whether the cookie is only kept until the browser is closed.
+     */
+    public FirefoxCookie(String host,
+                         String name,
+                         String value,
+                         String path,
+                         long expiry,
+                         long lastAccessed,
+                         long creationTime,
+                         boolean isSecure,
+                         boolean isHttpOnly,
+                         int sameSite,
+                         int schemeMap,
+                         String originAttributes,
+                         boolean isSession) {
+        this.host = host;
+        this.name = name;
+        this.value = value;
+        this.path = path;
+        this.expiry = expiry;
+        this.lastAccessed = lastAccessed;
+        this.creationTime = creationTime;
+        this.isSecure = isSecure;
+        this.isHttpOnly = isHttpOnly;
+        this.sameSite = sameSite;
+        this.schemeMap = schemeMap;
+        this.originAttributes = originAttributes;
+        this.isSession = isSession;
+    }
+    
+    @Override
+    public String getHostKey() {
+        return host;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public String getValue() {
+        return value;
+    }
+    
+    @Override
+    public String getPath() {
+        return path;
+    }
+    
+    @Override
+    public boolean isSecure() {
+        return isSecure;
+    }
+    
+    @Override
+    public boolean isHttpOnly() {
+        return isHttpOnly;
+    }
+    
+    @Override
+    public long getExpiresUtc() {
+        return isSession ? 0 : ChromeTimestamps.fromEpochMillis(expiry);
+    }
+    
+    /**
+     * @return expiry in milliseconds since epoch.
+     */
+    public long getExpiry() {
+        return expiry;
+    }
+    
+    /**
+     * @return last access in microseconds since epoch.
+     */
+    public long getLastAccessed() {
+        return lastAccessed;
+    }
+    
+    /**
+     * @return last access as Chrome timestamp, Firefox updates it whenever the cookie is set.
+     */
+    public long getLastAccessedUtc() {
+        return ChromeTimestamps.fromEpochMicros(lastAccessed);
+    }
+    
+    /**
+     * @return creation in microseconds since epoch.
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+    
+    public int getSameSite() {
+        return sameSite;
+    }
+    
+    public int getSchemeMap() {
+        return schemeMap;
+    }
+    
+    public String getOriginAttributes() {
+        return originAttributes;
+    }
+    
+    public boolean isSession() {
+        return isSession;
+    }
+}
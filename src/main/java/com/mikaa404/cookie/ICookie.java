@@ -9,4 +9,25 @@ public interface ICookie {
     
     String getPath();
     
+    /**
+     * @return whether the cookie is only sent over secure connections.
+     */
+    default boolean isSecure() {
+        return false;
+    }
+    
+    /**
+     * @return whether the cookie is hidden from scripts.
+     */
+    default boolean isHttpOnly() {
+        return false;
+    }
+    
+    /**
+     * @return expiry as Chrome timestamp (see {@link ChromeTimestamps}), 0 for session cookies.
+     */
+    default long getExpiresUtc() {
+        return 0;
+    }
+    
 }
@@ -0,0 +1,160 @@
+package com.mikaa404.crypto;
+
+import javax.crypto.*;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.security.auth.Destroyable;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+
+/**
+ * Decrypts cookies values encrypted with AES-128-CBC, which Chrome uses on macOS and Linux. The AES key is derived
+ * from a password with PBKDF2, the password and iteration count depend on the OS.
+ * <p>
+ * The key is derived only once, when the decryptor is created. Instances are thread-safe: each thread gets its own
+ * initialized {@link Cipher}, which is reused for every value that thread decrypts.
+ * <p>
+ * Values are encrypted with the same key and IV, so the decryptor is also the {@link CookieEncryptor} of its store.
+ * <p>
+ * {@link #destroy()} wipes the key, values can not be decrypted afterwards. Key schedules held internally by ciphers
+ * of other threads are out of reach and only released with those threads.
+ */
+public class AesCbcCookieDecryptor implements CookieDecryptor, CookieEncryptor, Destroyable {
+    private static final byte[] SALT = "saltysalt".getBytes(StandardCharsets.UTF_8);
+    private static final int KEY_LENGTH = 128;
+    
+    private final AesKey aesKey;
+    private final IvParameterSpec iv;
+    private final ThreadLocal<Cipher> cipher = ThreadLocal.withInitial(() -> createCipher(Cipher.DECRYPT_MODE));
+    private final ThreadLocal<Cipher> encryptCipher = ThreadLocal.withInitial(() -> createCipher(Cipher.ENCRYPT_MODE));
+    
+    public AesCbcCookieDecryptor(String password, int iterationCount) {
+        final byte[] key = deriveKey(password, iterationCount);
+        try {
+            this.aesKey = new AesKey(key);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+        
+        final byte[] ivBytes = new byte[16];
+        Arrays.fill(ivBytes, (byte) ' ');
+        this.iv = new IvParameterSpec(ivBytes);
+    }
+    
+    /**
+     * Values prefixed with "v10" or "v11" are decrypted, values without prefix were stored before Chrome encrypted
+     * cookies and are returned as is.
+     */
+    @Override
+    public String decrypt(byte[] encryptedValue) {
+        return decrypt(encryptedValue, 0);
+    }
+    
+    @Override
+    public String decrypt(byte[] encryptedValue, int plaintextOffset) {
+        checkNotDestroyed();
+        return decrypt(encryptedValue, plaintextOffset, cipher.get(), PlaintextBuffer.current());
+    }
+    
+    @Override
+    public void decryptAll(byte[][] encryptedValues, int count, int plaintextOffset, String[] values) {
+        checkNotDestroyed();
+        final Cipher c = cipher.get();
+        final PlaintextBuffer buffer = PlaintextBuffer.current();
+        for (int i = 0; i < count; i++) {
+            values[i] = decrypt(encryptedValues[i], plaintextOffset, c, buffer);
+        }
+    }
+    
+    /**
+     * Encrypt a value with the "v10" prefix, as Chrome does on macOS and on Linux without keyring.
+     */
+    @Override
+    public byte[] encrypt(byte[] plaintext) {
+        return encrypt(plaintext, CookieDecryptors.V10);
+    }
+    
+    byte[] encrypt(byte[] plaintext, String prefix) {
+        checkNotDestroyed();
+        final Cipher c = encryptCipher.get();
+        final int offset = CookieDecryptors.VERSION_PREFIX_LENGTH;
+        byte[] encryptedValue = new byte[offset + c.getOutputSize(plaintext.length)];
+        for (int i = 0; i < offset; i++) {
+            encryptedValue[i] = (byte) prefix.charAt(i);
+        }
+        try {
+            int length = c.doFinal(plaintext, 0, plaintext.length, encryptedValue, offset);
+            return offset + length == encryptedValue.length ? encryptedValue : Arrays.copyOf(encryptedValue, offset + length);
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            throw new RuntimeException("Failed to encrypt cookies value. ", e);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        aesKey.destroy();
+        cipher.remove();
+        encryptCipher.remove();
+    }
+    
+    @Override
+    public boolean isDestroyed() {
+        return aesKey.isDestroyed();
+    }
+    
+    private void checkNotDestroyed() {
+        if (aesKey.isDestroyed()) {
+            throw new IllegalStateException("Decryptor is destroyed. ");
+        }
+    }
+    
+    /**
+     * Decrypt into the buffer with offset and length APIs, so neither the ciphertext nor the plaintext is copied.
+     */
+    private static String decrypt(byte[] encryptedValue, int plaintextOffset, Cipher c, PlaintextBuffer buffer) {
+        if (!CookieDecryptors.hasVersionPrefix(encryptedValue)) {
+            return new String(encryptedValue, StandardCharsets.UTF_8);
+        }
+        
+        final int offset = CookieDecryptors.VERSION_PREFIX_LENGTH;
+        final int length = encryptedValue.length - offset;
+        try {
+            int plaintextLength = c.doFinal(encryptedValue, offset, length, buffer.array(c.getOutputSize(length)), 0);
+            return buffer.decode(plaintextLength, plaintextOffset);
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            throw new RuntimeException("Failed to decrypt cookies encrypted value. ", e);
+        }
+    }
+    
+    private static byte[] deriveKey(String password, int iterationCount) {
+        PBEKeySpec keySpec = new PBEKeySpec(password.toCharArray(), SALT, iterationCount, KEY_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1")
+                           .generateSecret(keySpec)
+                           .getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new RuntimeException("Failed to derive cookies AES key. ", e);
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+    
+    /**
+     * A CBC cipher returns to its initialized state after each {@code doFinal}, so it only has to be initialized once
+     * per thread and mode.
+     */
+    private Cipher createCipher(int mode) {
+        try {
+            Cipher c = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            c.init(mode, aesKey, iv);
+            return c;
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
+                 InvalidAlgorithmParameterException e) {
+            throw new RuntimeException("Failed to initialize cookies cipher. ", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mikaa404.crypto;
+
+import javax.crypto.SecretKey;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+/**
+ * An AES key whose bytes can be wiped with {@link #destroy()}, unlike {@link javax.crypto.spec.SecretKeySpec}. It can
+ * not be serialized, which would copy its bytes out of reach of {@link #destroy()}.
+ */
+final class AesKey implements SecretKey {
+    private static final long serialVersionUID = 1L;
+    
+    private final byte[] key;
+    private volatile boolean destroyed;
+    
+    /**
+     * @param key key bytes, copied so the caller can wipe its array.
+     */
+    AesKey(byte[] key) {
+        this.key = key.clone();
+    }
+    
+    @Override
+    public String getAlgorithm() {
+        return "AES";
+    }
+    
+    @Override
+    public String getFormat() {
+        return "RAW";
+    }
+    
+    @Override
+    public byte[] getEncoded() {
+        if (destroyed) {
+            throw new IllegalStateException("Key is destroyed. ");
+        }
+        return key.clone();
+    }
+    
+    @Override
+    public void destroy() {
+        destroyed = true;
+        Arrays.fill(key, (byte) 0);
+    }
+    
+    @Override
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+    
+    private void writeObject(ObjectOutputStream out) throws NotSerializableException {
+        throw new NotSerializableException("AesKey can not be serialized. ");
+    }
+}
@@ -0,0 +1,63 @@
+package com.mikaa404.crypto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decrypts the {@code encrypted_value} column of Chrome `Cookies` files.
+ * <p>
+ * Implementations are expected to be thread-safe and to do expensive setup (key retrieval and derivation) once, so a
+ * single instance can be shared by every cookie read from the same browser installation.
+ */
+public interface CookieDecryptor {
+    /**
+     * @param encryptedValue raw {@code encrypted_value}, including its version prefix (e.g. "v10").
+     * @return decrypted value.
+     */
+    String decrypt(byte[] encryptedValue);
+    
+    /**
+     * The default encodes {@link #decrypt(byte[])} back to UTF-8, which only gives the plaintext back if it is valid
+     * UTF-8. Implementations should override it to return the plaintext as decrypted, so that
+     * {@link #decrypt(byte[], int)} can skip binary prefixes such as host key digests exactly.
+     *
+     * @param encryptedValue raw {@code encrypted_value}, including its version prefix (e.g. "v10").
+     * @return decrypted plaintext bytes.
+     */
+    default byte[] decryptToBytes(byte[] encryptedValue) {
+        return decrypt(encryptedValue).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Decrypt a value whose plaintext starts with bytes which are not part of the value, e.g. the SHA-256 digest of
+     * the host key Chrome prepends since `Cookies` version 24. The default decrypts the plaintext with
+     * {@link #decryptToBytes(byte[])} and decodes it as UTF-8 after the first {@code plaintextOffset} bytes.
+     *
+     * @param encryptedValue  raw {@code encrypted_value}, including its version prefix (e.g. "v10").
+     * @param plaintextOffset number of leading plaintext bytes to skip, only applied to values with a version prefix.
+     * @return decrypted value.
+     */
+    default String decrypt(byte[] encryptedValue, int plaintextOffset) {
+        if (plaintextOffset == 0 || !CookieDecryptors.hasVersionPrefix(encryptedValue)) {
+            return decrypt(encryptedValue);
+        }
+        byte[] plaintext = decryptToBytes(encryptedValue);
+        if (plaintext.length < plaintextOffset) {
+            throw new IllegalStateException("Decrypted value is shorter than its plaintext offset. ");
+        }
+        return new String(plaintext, plaintextOffset, plaintext.length - plaintextOffset, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Decrypt a block of values, which lets implementations look up their per-thread cipher and buffer once per block.
+     *
+     * @param encryptedValues raw {@code encrypted_value}s, the first {@code count} are decrypted.
+     * @param count           number of values to decrypt.
+     * @param plaintextOffset see {@link #decrypt(byte[], int)}.
+     * @param values          receives the decrypted values, at the index of their encrypted value.
+     */
+    default void decryptAll(byte[][] encryptedValues, int count, int plaintextOffset, String[] values) {
+        for (int i = 0; i < count; i++) {
+            values[i] = decrypt(encryptedValues[i], plaintextOffset);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.mikaa404.crypto;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the {@link CookieDecryptor} of the running OS.
+ */
+public class CookieDecryptors {
+    static final String V10 = "v10";
+    static final String V11 = "v11";
+    static final int VERSION_PREFIX_LENGTH = 3;
+    /**
+     * Length of the SHA-256 digest of the host key, which Chrome prepends to plaintexts since `Cookies` version 24.
+     */
+    public static final int HOST_DIGEST_LENGTH = 32;
+    
+    private static volatile CookieDecryptor currentOsDecryptor;
+    
+    private CookieDecryptors() {
+    }
+    
+    /**
+     * The decryptor is created on first call and shared afterwards, so keys are retrieved from keychain, keyring or
+     * `Local State` only once. It is never destroyed, use a {@link KeyProvider} to control the lifetime of keys.
+     *
+     * @return decryptor for cookies of the default Chrome installation of the running OS.
+     */
+    public static CookieDecryptor forCurrentOs() {
+        CookieDecryptor decryptor = currentOsDecryptor;
+        if (decryptor != null) {
+            return decryptor;
+        }
+        
+        synchronized (CookieDecryptors.class) {
+            if (currentOsDecryptor == null) {
+                currentOsDecryptor = createForCurrentOs();
+            }
+            return currentOsDecryptor;
+        }
+    }
+    
+    /**
+     * Create a new decryptor for Chrome, retrieving keys again.
+     *
+     * @param userDataPath Chrome user data folder, which holds the key in `Local State` on Windows. On macOS and Linux
+     *                     the key is shared by all user data folders.
+     * @return decryptor for cookies of the running OS stored in that user data folder.
+     */
+    public static CookieDecryptor forCurrentOs(Path userDataPath) {
+        return forCurrentOs(userDataPath.resolve("Local State"), "Chrome Safe Storage", "chrome");
+    }
+    
+    /**
+     * Create a new decryptor for a Chromium based browser, retrieving keys again.
+     *
+     * @param localStatePath     `Local State` file holding the key on Windows.
+     * @param keychainService    keychain service name of the key on macOS, e.g. "Chrome Safe Storage".
+     * @param keyringApplication libsecret "application" attribute of the key on Linux, e.g. "chrome".
+     * @return decryptor for cookies of the running OS.
+     */
+    public static CookieDecryptor forCurrentOs(Path localStatePath, String keychainService, String keyringApplication) {
+        if (SystemUtils.IS_OS_MAC) {
+            return MacOsCookieDecryptor.fromKeychain(keychainService);
+        } else if (SystemUtils.IS_OS_WINDOWS) {
+            return WindowsCookieDecryptor.fromLocalState(localStatePath);
+        } else if (SystemUtils.IS_OS_LINUX) {
+            return LinuxCookieDecryptor.fromKeyring(keyringApplication);
+        } else {
+            throw new RuntimeException(String.format("OS %s is not supported. ", SystemUtils.OS_NAME));
+        }
+    }
+    
+    /**
+     * The digest binds a value to its host and is skipped rather than verified, since the host key is read from the
+     * same row as the value.
+     *
+     * @param decryptor decryptor of a `Cookies` file of version 24 or later.
+     * @return a decryptor returning values without the host digest of their plaintext.
+     */
+    public static CookieDecryptor skippingHostDigest(CookieDecryptor decryptor) {
+        return new CookieDecryptor() {
+            @Override
+            public String decrypt(byte[] encryptedValue) {
+                return decryptor.decrypt(encryptedValue, HOST_DIGEST_LENGTH);
+            }
+            
+            @Override
+            public String decrypt(byte[] encryptedValue, int plaintextOffset) {
+                return decryptor.decrypt(encryptedValue, HOST_DIGEST_LENGTH + plaintextOffset);
+            }
+            
+            @Override
+            public void decryptAll(byte[][] encryptedValues, int count, int plaintextOffset, String[] values) {
+                decryptor.decryptAll(encryptedValues, count, HOST_DIGEST_LENGTH + plaintextOffset, values);
+            }
+        };
+    }
+    
+    private static CookieDecryptor createForCurrentOs() {
+        return forCurrentOs(Paths.get(SystemUtils.USER_HOME, "AppData", "Local", "Google", "Chrome", "User Data"));
+    }
+    
+    static boolean hasVersionPrefix(byte[] encryptedValue) {
+        return hasPrefix(encryptedValue, V10) || hasPrefix(encryptedValue, V11);
+    }
+    
+    static boolean hasPrefix(byte[] encryptedValue, String prefix) {
+        if (encryptedValue.length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (encryptedValue[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Run a command which prints a secret (e.g. keychain password) and return the first line of its output.
+     */
+    static String readSecret(String... command) {
+        Process process;
+        try {
+            process = Runtime.getRuntime()
+                              // use exec(String[]) rather than exec(String). The former supports spaces in args while the latter not.
+                              .exec(command);
+            
+            boolean processExited = process.waitFor(60, TimeUnit.SECONDS);
+            if (!processExited || process.exitValue() != 0) {
+                throw new RuntimeException("Failed to read keyring password. ");
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Subprocess exited with non-0 value. ", e);
+        }
+        
+        try (InputStream inputStream = process.getInputStream()) {
+            return IOUtils.readLines(inputStream, StandardCharsets.UTF_8)
+                           .stream()
+                           .findFirst()
+                           .orElseThrow(() -> new RuntimeException("Failed to read keyring password. "));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed while try to get key ring password. ", e);
+        }
+    }
+}
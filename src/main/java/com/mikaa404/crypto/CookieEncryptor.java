@@ -0,0 +1,15 @@
+package com.mikaa404.crypto;
+
+/**
+ * Encrypts values for the {@code encrypted_value} column of Chrome `Cookies` files, the reverse of
+ * {@link CookieDecryptor}. Decryptors whose keys can encrypt as well implement this interface.
+ * <p>
+ * Implementations are expected to be thread-safe and to reuse their key, like decryptors.
+ */
+public interface CookieEncryptor {
+    /**
+     * @param plaintext UTF-8 value, preceded by the SHA-256 digest of the host key for `Cookies` version 24 or later.
+     * @return encrypted value with its version prefix (e.g. "v10").
+     */
+    byte[] encrypt(byte[] plaintext);
+}
@@ -0,0 +1,315 @@
+package com.mikaa404.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A size-bounded in-memory cache of decrypted cookie values, shared by the decryptors returned by
+ * {@link #wrap(String, CookieDecryptor)}.
+ * <p>
+ * Entries are keyed by scope (e.g. a profile), key version ("v10", "v11") and the SHA-256 digest of the encrypted
+ * value, so unchanged cookies are not decrypted again by later reads of the same profile. The least recently used
+ * entries are evicted once the cache exceeds its byte size, and entries expire a fixed time after being added.
+ * <p>
+ * Hashing a value costs about as much as decrypting it with AES once the key is derived, so the cache pays off when
+ * decryption is expensive, e.g. DPAPI-protected values on Windows, and saves little for "v10"/"v11" values. Blocks
+ * of values are looked up at once and only the misses are passed to the wrapped
+ * {@link CookieDecryptor#decryptAll(byte[][], int, int, String[])}, so its per-block cipher and buffer reuse is kept.
+ * <p>
+ * Plaintexts are kept as byte arrays which are wiped on eviction, expiry and {@link #close()}. Strings returned by the
+ * decryptors can not be wiped and live as long as the cookies holding them.
+ */
+public class DecryptedValueCache implements AutoCloseable {
+    /**
+     * Approximate memory used by an entry besides its plaintext: digest, key and entry objects, map node.
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+    private static final String UNVERSIONED = "";
+    
+    private final long maximumBytes;
+    private final long expireAfterWriteNanos;
+    private final ThreadLocal<MessageDigest> digest = ThreadLocal.withInitial(DecryptedValueCache::createDigest);
+    private final LinkedHashMap<CacheKey, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    
+    private long byteSize;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private boolean closed;
+    
+    private DecryptedValueCache(Builder builder) {
+        this.maximumBytes = builder.maximumBytes;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * @param scope     separates values of different stores, e.g. the profile path. Values decrypted with different
+     *                  keys must use different scopes.
+     * @param decryptor decrypts values missing from the cache.
+     * @return a decryptor checking this cache before decrypting.
+     */
+    public CookieDecryptor wrap(String scope, CookieDecryptor decryptor) {
+        return new CookieDecryptor() {
+            @Override
+            public String decrypt(byte[] encryptedValue) {
+                return decrypt(encryptedValue, 0);
+            }
+            
+            @Override
+            public String decrypt(byte[] encryptedValue, int plaintextOffset) {
+                CacheKey key = new CacheKey(scope, versionOf(encryptedValue), plaintextOffset,
+                                            digest.get().digest(encryptedValue));
+                String value = get(key);
+                if (value == null) {
+                    value = decryptor.decrypt(encryptedValue, plaintextOffset);
+                    put(key, value.getBytes(StandardCharsets.UTF_8));
+                }
+                return value;
+            }
+            
+            @Override
+            public void decryptAll(byte[][] encryptedValues, int count, int plaintextOffset, String[] values) {
+                MessageDigest md = digest.get();
+                CacheKey[] keys = new CacheKey[count];
+                byte[][] misses = new byte[count][];
+                int[] missIndexes = new int[count];
+                int missCount = 0;
+                for (int i = 0; i < count; i++) {
+                    keys[i] = new CacheKey(scope, versionOf(encryptedValues[i]), plaintextOffset,
+                                           md.digest(encryptedValues[i]));
+                    values[i] = get(keys[i]);
+                    if (values[i] == null) {
+                        misses[missCount] = encryptedValues[i];
+                        missIndexes[missCount++] = i;
+                    }
+                }
+                if (missCount == 0) {
+                    return;
+                }
+                
+                String[] decrypted = new String[missCount];
+                decryptor.decryptAll(misses, missCount, plaintextOffset, decrypted);
+                for (int j = 0; j < missCount; j++) {
+                    values[missIndexes[j]] = decrypted[j];
+                    put(keys[missIndexes[j]], decrypted[j].getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        };
+    }
+    
+    public synchronized Stats getStats() {
+        return new Stats(hitCount, missCount, evictionCount, entries.size(), byteSize);
+    }
+    
+    /**
+     * Wipe and remove every entry. Wrapped decryptors keep working afterwards, without caching.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (Iterator<CacheEntry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            remove(iterator, iterator.next());
+        }
+    }
+    
+    private synchronized String get(CacheKey key) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (System.nanoTime() - entry.createdNanos >= expireAfterWriteNanos) {
+            entry.wipe();
+            byteSize -= entry.size;
+            entries.remove(key);
+            evictionCount++;
+            missCount++;
+            return null;
+        }
+        
+        hitCount++;
+        return new String(entry.plaintext, StandardCharsets.UTF_8);
+    }
+    
+    private synchronized void put(CacheKey key, byte[] plaintext) {
+        CacheEntry entry = new CacheEntry(plaintext, key.digest.length + ENTRY_OVERHEAD, System.nanoTime());
+        if (closed || entry.size > maximumBytes) {
+            entry.wipe();
+            return;
+        }
+        
+        CacheEntry previous = entries.put(key, entry);
+        if (previous != null) {
+            previous.wipe();
+            byteSize -= previous.size;
+        }
+        byteSize += entry.size;
+        
+        // access order: the eldest entry is the least recently used one
+        for (Iterator<CacheEntry> iterator = entries.values().iterator(); byteSize > maximumBytes && iterator.hasNext(); ) {
+            remove(iterator, iterator.next());
+            evictionCount++;
+        }
+    }
+    
+    private void remove(Iterator<CacheEntry> iterator, CacheEntry entry) {
+        entry.wipe();
+        byteSize -= entry.size;
+        iterator.remove();
+    }
+    
+    private static String versionOf(byte[] encryptedValue) {
+        if (CookieDecryptors.hasPrefix(encryptedValue, CookieDecryptors.V10)) {
+            return CookieDecryptors.V10;
+        } else if (CookieDecryptors.hasPrefix(encryptedValue, CookieDecryptors.V11)) {
+            return CookieDecryptors.V11;
+        }
+        return UNVERSIONED;
+    }
+    
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to initialize cookies digest. ", e);
+        }
+    }
+    
+    public static class Builder {
+        private long maximumBytes = 16L * 1024 * 1024;
+        private long expireAfterWriteNanos = TimeUnit.MINUTES.toNanos(10);
+        
+        private Builder() {
+        }
+        
+        /**
+         * @param maximumBytes approximate memory the cache may use, default is 16 MiB.
+         */
+        public Builder maximumBytes(long maximumBytes) {
+            this.maximumBytes = maximumBytes;
+            return this;
+        }
+        
+        /**
+         * @param duration how long an entry is kept after being added, default is 10 minutes.
+         */
+        public Builder expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+        
+        public DecryptedValueCache build() {
+            return new DecryptedValueCache(this);
+        }
+    }
+    
+    public static class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int entryCount;
+        private final long byteSize;
+        
+        private Stats(long hitCount, long missCount, long evictionCount, int entryCount, long byteSize) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.entryCount = entryCount;
+            this.byteSize = byteSize;
+        }
+        
+        public long getHitCount() {
+            return hitCount;
+        }
+        
+        public long getMissCount() {
+            return missCount;
+        }
+        
+        /**
+         * @return entries removed because the cache was full or they expired.
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+        
+        public int getEntryCount() {
+            return entryCount;
+        }
+        
+        public long getByteSize() {
+            return byteSize;
+        }
+        
+        public double getHitRate() {
+            long requestCount = hitCount + missCount;
+            return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Stats{hitCount=%d, missCount=%d, evictionCount=%d, entryCount=%d, byteSize=%d}",
+                                 hitCount, missCount, evictionCount, entryCount, byteSize);
+        }
+    }
+    
+    private static class CacheKey {
+        private final String scope;
+        private final String version;
+        private final int plaintextOffset;
+        private final byte[] digest;
+        private final int hash;
+        
+        private CacheKey(String scope, String version, int plaintextOffset, byte[] digest) {
+            this.scope = scope;
+            this.version = version;
+            this.plaintextOffset = plaintextOffset;
+            this.digest = digest;
+            this.hash = 31 * (31 * (31 * scope.hashCode() + version.hashCode()) + plaintextOffset) + Arrays.hashCode(digest);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return scope.equals(that.scope) && version.equals(that.version) && plaintextOffset == that.plaintextOffset &&
+                   Arrays.equals(digest, that.digest);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    private static class CacheEntry {
+        private final byte[] plaintext;
+        private final long size;
+        private final long createdNanos;
+        
+        private CacheEntry(byte[] plaintext, int overhead, long createdNanos) {
+            this.plaintext = plaintext;
+            this.size = plaintext.length + overhead;
+            this.createdNanos = createdNanos;
+        }
+        
+        private void wipe() {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.mikaa404.crypto;
+
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * Owns the keys of one browser installation: retrieves and derives them on first use, shares them with every read of
+ * that installation and wipes them on {@link #close()}.
+ * <p>
+ * Providers are independent of each other, so several installations (e.g. Chrome started with a custom
+ * {@code --user-data-dir}) can be read in the same JVM. Once keys are derived, {@link #getDecryptor()} is a volatile
+ * read and concurrent readers do not lock.
+ */
+public class KeyProvider implements AutoCloseable {
+    private final Supplier<? extends CookieDecryptor> decryptorFactory;
+    
+    private volatile CookieDecryptor decryptor;
+    private volatile boolean closed;
+    
+    /**
+     * @param decryptorFactory retrieves keys and creates the decryptor, called at most once.
+     */
+    public KeyProvider(Supplier<? extends CookieDecryptor> decryptorFactory) {
+        this.decryptorFactory = decryptorFactory;
+    }
+    
+    /**
+     * @param decryptor decryptor whose keys are owned, and destroyed on close, by the provider.
+     */
+    public static KeyProvider of(CookieDecryptor decryptor) {
+        KeyProvider keyProvider = new KeyProvider(() -> decryptor);
+        keyProvider.decryptor = decryptor;
+        return keyProvider;
+    }
+    
+    /**
+     * @param userDataPath Chrome user data folder.
+     * @return a provider of keys for cookies stored in that user data folder, see
+     * {@link CookieDecryptors#forCurrentOs(Path)}.
+     */
+    public static KeyProvider forCurrentOs(Path userDataPath) {
+        return new KeyProvider(() -> CookieDecryptors.forCurrentOs(userDataPath));
+    }
+    
+    /**
+     * @return decryptor using the keys of this provider, created on first call.
+     * @throws IllegalStateException if this provider is closed.
+     */
+    public CookieDecryptor getDecryptor() {
+        CookieDecryptor current = decryptor;
+        if (current != null) {
+            return current;
+        }
+        
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Key provider is closed. ");
+            }
+            if (decryptor == null) {
+                decryptor = decryptorFactory.get();
+            }
+            return decryptor;
+        }
+    }
+    
+    /**
+     * @return whether keys were retrieved by a previous {@link #getDecryptor()} call and not wiped since.
+     */
+    public boolean isRetrieved() {
+        return decryptor != null;
+    }
+    
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    /**
+     * Wipe the keys. Decryptors already returned by {@link #getDecryptor()} throw {@link IllegalStateException}
+     * afterwards, unless they do not support being destroyed.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        CookieDecryptor current = decryptor;
+        decryptor = null;
+        if (current instanceof Destroyable && !((Destroyable) current).isDestroyed()) {
+            try {
+                ((Destroyable) current).destroy();
+            } catch (DestroyFailedException e) {
+                throw new RuntimeException("Failed to destroy cookies keys. ", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mikaa404.crypto;
+
+import javax.security.auth.Destroyable;
+import java.util.function.Supplier;
+
+/**
+ * Decrypts cookies values encrypted by Chrome on Linux.
+ * <p>
+ * Values prefixed with "v10" are encrypted with a key derived from the hard-coded password "peanuts", which Chrome
+ * uses when no keyring is available. Values prefixed with "v11" are encrypted with a key derived from the secret
+ * Chrome stores in the desktop keyring (GNOME keyring / KWallet through libsecret). Both use 1 PBKDF2 iteration.
+ * <p>
+ * The keyring is only accessed when the first "v11" value is decrypted or encrypted. {@link #destroy()} wipes both
+ * keys.
+ */
+public class LinuxCookieDecryptor implements CookieDecryptor, CookieEncryptor, Destroyable {
+    private static final int ITERATION_COUNT = 1;
+    private static final String V10_PASSWORD = "peanuts";
+    
+    private final AesCbcCookieDecryptor v10Decryptor = new AesCbcCookieDecryptor(V10_PASSWORD, ITERATION_COUNT);
+    private final Supplier<String> keyringSecret;
+    private volatile AesCbcCookieDecryptor v11Decryptor;
+    private volatile boolean destroyed;
+    
+    /**
+     * @param keyringSecret supplies the "Chrome Safe Storage" secret stored in keyring, called at most once, or
+     *                      {@code null} for a browser without keyring (e.g. started with
+     *                      {@code --password-store=basic}), which only reads and writes "v10" values.
+     */
+    public LinuxCookieDecryptor(Supplier<String> keyringSecret) {
+        this.keyringSecret = keyringSecret;
+    }
+    
+    /**
+     * Create a decryptor which reads the keyring secret with {@code secret-tool} (from libsecret-tools) when needed.
+     */
+    public static LinuxCookieDecryptor fromKeyring() {
+        return fromKeyring("chrome");
+    }
+    
+    /**
+     * Same as {@link #fromKeyring()}, for a Chromium based browser storing its secret under another application name.
+     *
+     * @param application value of the libsecret "application" attribute, e.g. "chromium".
+     */
+    public static LinuxCookieDecryptor fromKeyring(String application) {
+        return new LinuxCookieDecryptor(() -> CookieDecryptors.readSecret("secret-tool", "lookup", "application", application));
+    }
+    
+    @Override
+    public String decrypt(byte[] encryptedValue) {
+        return decrypt(encryptedValue, 0);
+    }
+    
+    @Override
+    public String decrypt(byte[] encryptedValue, int plaintextOffset) {
+        if (CookieDecryptors.hasPrefix(encryptedValue, CookieDecryptors.V11)) {
+            return getV11Decryptor().decrypt(encryptedValue, plaintextOffset);
+        }
+        return v10Decryptor.decrypt(encryptedValue, plaintextOffset);
+    }
+    
+    /**
+     * Encrypt a value as the browser does: with the keyring key and the "v11" prefix, or with the "v10" key without
+     * keyring.
+     */
+    @Override
+    public byte[] encrypt(byte[] plaintext) {
+        if (keyringSecret == null) {
+            return v10Decryptor.encrypt(plaintext);
+        }
+        return getV11Decryptor().encrypt(plaintext, CookieDecryptors.V11);
+    }
+    
+    @Override
+    public synchronized void destroy() {
+        destroyed = true;
+        v10Decryptor.destroy();
+        if (v11Decryptor != null) {
+            v11Decryptor.destroy();
+        }
+    }
+    
+    @Override
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+    
+    private AesCbcCookieDecryptor getV11Decryptor() {
+        AesCbcCookieDecryptor decryptor = v11Decryptor;
+        if (decryptor != null) {
+            return decryptor;
+        }
+        
+        synchronized (this) {
+            if (destroyed) {
+                throw new IllegalStateException("Decryptor is destroyed. ");
+            }
+            if (keyringSecret == null) {
+                throw new IllegalStateException("No keyring secret to decrypt \"v11\" values. ");
+            }
+            if (v11Decryptor == null) {
+                v11Decryptor = new AesCbcCookieDecryptor(keyringSecret.get(), ITERATION_COUNT);
+            }
+            return v11Decryptor;
+        }
+    }
+}
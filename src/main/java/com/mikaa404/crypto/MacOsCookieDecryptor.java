@@ -0,0 +1,32 @@
+package com.mikaa404.crypto;
+
+/**
+ * Decrypts cookies values encrypted by Chrome on macOS, the AES key is derived from the "Chrome Safe Storage" password
+ * stored in macOS keychain.
+ */
+public class MacOsCookieDecryptor extends AesCbcCookieDecryptor {
+    private static final int ITERATION_COUNT = 1003;
+    
+    /**
+     * @param password the "Chrome Safe Storage" password stored in macOS keychain.
+     */
+    public MacOsCookieDecryptor(String password) {
+        super(password, ITERATION_COUNT);
+    }
+    
+    /**
+     * Create a decryptor with the password read from macOS keychain. This method may prompt to ask for user password.
+     */
+    public static MacOsCookieDecryptor fromKeychain() {
+        return fromKeychain("Chrome Safe Storage");
+    }
+    
+    /**
+     * Same as {@link #fromKeychain()}, for a Chromium based browser storing its password under another service name.
+     *
+     * @param service keychain service name, e.g. "Brave Safe Storage".
+     */
+    public static MacOsCookieDecryptor fromKeychain(String service) {
+        return new MacOsCookieDecryptor(CookieDecryptors.readSecret("security", "find-generic-password", "-w", "-s", service));
+    }
+}
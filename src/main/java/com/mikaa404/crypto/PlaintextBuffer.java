@@ -0,0 +1,55 @@
+package com.mikaa404.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A buffer receiving decrypted values, one per thread and shared by every decryptor, so decrypting a value allocates
+ * nothing but the resulting {@link String}. Plaintexts are wiped from the buffer as soon as they are decoded.
+ */
+final class PlaintextBuffer {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final ThreadLocal<PlaintextBuffer> CURRENT = ThreadLocal.withInitial(PlaintextBuffer::new);
+    
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    
+    private PlaintextBuffer() {
+    }
+    
+    /**
+     * @return the buffer of the current thread.
+     */
+    static PlaintextBuffer current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * @param capacity number of bytes about to be written.
+     * @return backing array of the buffer, with at least {@code capacity} bytes.
+     */
+    byte[] array(int capacity) {
+        if (bytes.length < capacity) {
+            // a failed decryption may have left a plaintext behind
+            Arrays.fill(bytes, (byte) 0);
+            bytes = new byte[Math.max(capacity, bytes.length * 2)];
+        }
+        return bytes;
+    }
+    
+    /**
+     * Decode the first {@code length} bytes of the buffer as UTF-8, then wipe them.
+     *
+     * @param plaintextOffset number of leading bytes which are not part of the value.
+     * @throws IllegalStateException if the plaintext is shorter than {@code plaintextOffset}.
+     */
+    String decode(int length, int plaintextOffset) {
+        try {
+            if (length < plaintextOffset) {
+                throw new IllegalStateException("Decrypted value is shorter than its plaintext offset. ");
+            }
+            return new String(bytes, plaintextOffset, length - plaintextOffset, StandardCharsets.UTF_8);
+        } finally {
+            Arrays.fill(bytes, 0, length, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.mikaa404.crypto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.jna.platform.win32.Crypt32Util;
+
+import javax.crypto.*;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.security.auth.Destroyable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Decrypts cookies values encrypted by Chrome on Windows with AES-256-GCM. The AES key (master key) is stored in file
+ * `Local State`, encrypted with DPAPI.
+ * <p>
+ * Instances are thread-safe, each thread reuses its own {@link Cipher}. Values are encrypted with the master key and a
+ * random nonce, so the decryptor is also the {@link CookieEncryptor} of its store. {@link #destroy()} wipes the
+ * master key.
+ */
+public class WindowsCookieDecryptor implements CookieDecryptor, CookieEncryptor, Destroyable {
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final SecureRandom NONCES = new SecureRandom();
+    
+    private final AesKey masterKey;
+    private final ThreadLocal<Cipher> cipher = ThreadLocal.withInitial(WindowsCookieDecryptor::createCipher);
+    
+    /**
+     * @param masterKey decrypted master key, copied so the caller can wipe it.
+     */
+    public WindowsCookieDecryptor(byte[] masterKey) {
+        this.masterKey = new AesKey(masterKey);
+    }
+    
+    /**
+     * Create a decryptor with the master key stored in `Local State` file.
+     * <p>
+     * See <a href="https://stackoverflow.com/a/65953409/1631104">https://stackoverflow.com/a/65953409/1631104</a>
+     *
+     * @param localStatePath path of `Local State` file in Chrome user data folder.
+     */
+    public static WindowsCookieDecryptor fromLocalState(Path localStatePath) {
+        String encryptedMasterKeyWithPrefixBase64;
+        try {
+            encryptedMasterKeyWithPrefixBase64 = new ObjectMapper()
+                                                         .readTree(localStatePath.toFile())
+                                                         .get("os_crypt")
+                                                         .get("encrypted_key")
+                                                         .asText();
+        } catch (IOException e) {
+            throw new RuntimeException("Json parse error. ", e);
+        }
+        
+        // Remove prefix (DPAPI)
+        byte[] encryptedMasterKeyWithPrefix = Base64.getDecoder().decode(encryptedMasterKeyWithPrefixBase64);
+        byte[] encryptedMasterKey = Arrays.copyOfRange(encryptedMasterKeyWithPrefix, 5, encryptedMasterKeyWithPrefix.length);
+        
+        byte[] masterKey = Crypt32Util.cryptUnprotectData(encryptedMasterKey);
+        try {
+            return new WindowsCookieDecryptor(masterKey);
+        } finally {
+            Arrays.fill(masterKey, (byte) 0);
+        }
+    }
+    
+    /**
+     * Values prefixed with "v10" are decrypted with the master key, values without prefix were stored before Chrome
+     * v80 and are encrypted with DPAPI directly.
+     */
+    @Override
+    public String decrypt(byte[] encryptedValue) {
+        return decrypt(encryptedValue, 0);
+    }
+    
+    @Override
+    public String decrypt(byte[] encryptedValue, int plaintextOffset) {
+        checkNotDestroyed();
+        return decrypt(encryptedValue, plaintextOffset, cipher.get(), PlaintextBuffer.current());
+    }
+    
+    @Override
+    public void decryptAll(byte[][] encryptedValues, int count, int plaintextOffset, String[] values) {
+        checkNotDestroyed();
+        final Cipher c = cipher.get();
+        final PlaintextBuffer buffer = PlaintextBuffer.current();
+        for (int i = 0; i < count; i++) {
+            values[i] = decrypt(encryptedValues[i], plaintextOffset, c, buffer);
+        }
+    }
+    
+    /**
+     * Encrypt a value with the master key and the "v10" prefix, followed by the nonce then the ciphertext and its tag.
+     */
+    @Override
+    public byte[] encrypt(byte[] plaintext) {
+        checkNotDestroyed();
+        final Cipher c = cipher.get();
+        final int nonceOffset = CookieDecryptors.VERSION_PREFIX_LENGTH;
+        final int cipherTextOffset = nonceOffset + NONCE_LENGTH;
+        byte[] nonce = new byte[NONCE_LENGTH];
+        NONCES.nextBytes(nonce);
+        try {
+            c.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(TAG_LENGTH, nonce));
+            byte[] encryptedValue = new byte[cipherTextOffset + c.getOutputSize(plaintext.length)];
+            for (int i = 0; i < nonceOffset; i++) {
+                encryptedValue[i] = (byte) CookieDecryptors.V10.charAt(i);
+            }
+            System.arraycopy(nonce, 0, encryptedValue, nonceOffset, NONCE_LENGTH);
+            c.doFinal(plaintext, 0, plaintext.length, encryptedValue, cipherTextOffset);
+            return encryptedValue;
+        } catch (InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException |
+                 InvalidKeyException | ShortBufferException e) {
+            throw new RuntimeException("Failed to encrypt cookies value. ", e);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        masterKey.destroy();
+        cipher.remove();
+    }
+    
+    @Override
+    public boolean isDestroyed() {
+        return masterKey.isDestroyed();
+    }
+    
+    private void checkNotDestroyed() {
+        if (masterKey.isDestroyed()) {
+            throw new IllegalStateException("Decryptor is destroyed. ");
+        }
+    }
+    
+    /**
+     * GCM needs a new nonce for each value, so the cipher is initialized again, but the key and the cipher instance
+     * are reused and the value is decrypted into the buffer without copying the nonce or the ciphertext.
+     */
+    private String decrypt(byte[] encryptedValue, int plaintextOffset, Cipher c, PlaintextBuffer buffer) {
+        if (!CookieDecryptors.hasVersionPrefix(encryptedValue)) {
+            return new String(Crypt32Util.cryptUnprotectData(encryptedValue), StandardCharsets.UTF_8);
+        }
+        
+        final int nonceOffset = CookieDecryptors.VERSION_PREFIX_LENGTH;
+        final int cipherTextOffset = nonceOffset + NONCE_LENGTH;
+        final int length = encryptedValue.length - cipherTextOffset;
+        try {
+            c.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(TAG_LENGTH, encryptedValue, nonceOffset, NONCE_LENGTH));
+            int plaintextLength = c.doFinal(encryptedValue, cipherTextOffset, length, buffer.array(c.getOutputSize(length)), 0);
+            return buffer.decode(plaintextLength, plaintextOffset);
+        } catch (InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException |
+                 InvalidKeyException | ShortBufferException e) {
+            throw new RuntimeException("Failed to decrypt cookies encrypted value. ", e);
+        }
+    }
+    
+    private static Cipher createCipher() {
+        try {
+            return Cipher.getInstance("AES/GCM/NoPadding");
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new RuntimeException("Failed to initialize cookies cipher. ", e);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.mikaa404.daemon;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.export.CookieExporter;
+import com.mikaa404.export.CookieExporters;
+import com.mikaa404.watch.CookieChangeEvent;
+import com.mikaa404.watch.CookieChangeListener;
+import com.mikaa404.watch.CookieWatcher;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Serves cookies over loopback HTTP from snapshots kept in memory, so repeated queries pay neither JVM startup, key
+ * retrieval nor a store read.
+ * <p>
+ * Snapshots are filled by a {@link CookieWatcher}: the first poll reads every cookie once, later polls (triggered by
+ * changes of the stores) only apply added, changed and removed cookies.
+ * <p>
+ * {@code GET /cookies} returns cookies of every profile, filtered by the optional query parameters {@code profile},
+ * {@code host}, {@code domain}, {@code name} and {@code path}, in the export format {@code format} (default
+ * {@value CookieExporters#JSON_LINES}).
+ * <p>
+ * The daemon only listens on loopback, which does not keep web pages out: a page of a rebound DNS name reaches it
+ * from the browser. Requests must therefore name the daemon in their {@code Host} header ({@code 127.0.0.1:<port>}
+ * or {@code localhost:<port>}) and carry the random token of the daemon, {@code Authorization: Bearer <token>}. The
+ * token is only known to processes which can read it, see {@link #writeToken(Path)}.
+ */
+public class CookieDaemon implements AutoCloseable {
+    private static final int THREADS = 4;
+    private static final int TOKEN_LENGTH = 32;
+    private static final String BEARER = "Bearer ";
+    
+    private final Map<String, Map<CookieKey, ICookie>> snapshots = new ConcurrentHashMap<>();
+    private final CookieWatcher watcher;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String token = newToken();
+    
+    /**
+     * @param watcherFactory creates the watcher of the stores to serve, given the listener updating snapshots, e.g.
+     *                       {@code ChromeBrowser.getInstance()::newCookieWatcher}.
+     * @param port           loopback port to listen on, 0 for any free port.
+     */
+    public CookieDaemon(Function<CookieChangeListener, CookieWatcher> watcherFactory, int port) {
+        this.watcher = watcherFactory.apply(this::apply);
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to listen on port %d. ", port), e);
+        }
+        this.executor = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread thread = new Thread(r, "cooky-daemon");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/cookies", this::handleCookies);
+    }
+    
+    /**
+     * Read every store, then start serving queries and following store changes.
+     */
+    public void start() {
+        watcher.start();
+        server.start();
+    }
+    
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+    
+    /**
+     * @return bearer token requests must carry, random for each daemon.
+     */
+    public String getToken() {
+        return token;
+    }
+    
+    /**
+     * Write the token to a file only the current user can read (mode 0600 on POSIX file systems), replacing it.
+     */
+    public void writeToken(Path tokenFile) {
+        try {
+            Path parent = tokenFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Files.deleteIfExists(tokenFile);
+            if (parent.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } else {
+                Files.createFile(tokenFile);
+            }
+            Files.write(tokenFile, token.getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write daemon token to " + tokenFile + ". ", e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        watcher.close();
+    }
+    
+    private void apply(CookieChangeEvent event) {
+        Map<CookieKey, ICookie> snapshot = snapshots.computeIfAbsent(event.getProfile().getName(),
+                                                                     name -> new ConcurrentHashMap<>());
+        if (event.getType() == CookieChangeEvent.Type.REMOVED) {
+            snapshot.remove(event.getKey());
+        } else {
+            snapshot.put(event.getKey(), event.getCookie());
+        }
+    }
+    
+    private void handleCookies(HttpExchange exchange) throws IOException {
+        try {
+            if (!isDaemonHost(exchange.getRequestHeaders().getFirst("Host"))) {
+                respond(exchange, 403, "Unexpected Host header. ");
+                return;
+            }
+            if (!hasToken(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                respond(exchange, 401, "Missing or wrong bearer token. ");
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Only GET is supported. ");
+                return;
+            }
+            
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            CookieExporter exporter;
+            try {
+                exporter = CookieExporters.forFormat(parameters.getOrDefault("format", CookieExporters.JSON_LINES));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage());
+                return;
+            }
+            
+            CookieQuery.Builder query = CookieQuery.builder();
+            if (parameters.containsKey("host")) {
+                query.host(parameters.get("host"));
+            }
+            if (parameters.containsKey("domain")) {
+                query.domain(parameters.get("domain"));
+            }
+            if (parameters.containsKey("name")) {
+                query.name(parameters.get("name"));
+            }
+            if (parameters.containsKey("path")) {
+                query.pathPrefix(parameters.get("path"));
+            }
+            
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                exporter.export(cursor(parameters.get("profile"), query.build()), body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private boolean isDaemonHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        int port = server.getAddress().getPort();
+        // the loopback address is ::1 when IPv6 addresses are preferred
+        return host.equalsIgnoreCase("127.0.0.1:" + port) || host.equalsIgnoreCase("localhost:" + port) ||
+               host.equalsIgnoreCase("[::1]:" + port);
+    }
+    
+    private boolean hasToken(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return false;
+        }
+        byte[] presented = authorization.substring(BEARER.length()).trim().getBytes(StandardCharsets.US_ASCII);
+        // constant time, the comparison must not tell how much of a guess is right
+        return MessageDigest.isEqual(presented, token.getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    private static String newToken() {
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    private CookieCursor cursor(String profile, CookieQuery query) {
+        Iterator<ICookie> cookies = snapshots.entrySet()
+                                             .stream()
+                                             .filter(e -> profile == null || profile.equals(e.getKey()))
+                                             .flatMap(e -> e.getValue().values().stream())
+                                             .filter(query::matches)
+                                             .iterator();
+        return CookieCursor.of(cookies);
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+    
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                               URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,27 @@
+package com.mikaa404.export;
+
+import com.mikaa404.cookie.CookieCursor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes cookies in a file format other tools read, e.g. cookies.txt for curl.
+ * <p>
+ * Cookies are written as they are read from the cursor, so the memory used does not depend on the number of cookies.
+ */
+public interface CookieExporter {
+    /**
+     * Write every cookie of the cursor and close the cursor. The stream is flushed but not closed.
+     */
+    void export(CookieCursor cursor, OutputStream out) throws IOException;
+    
+    /**
+     * Same as {@link #export(CookieCursor, OutputStream)}, the channel is not closed.
+     */
+    default void export(CookieCursor cursor, WritableByteChannel channel) throws IOException {
+        export(cursor, new NonClosingOutputStream(Channels.newOutputStream(channel)));
+    }
+}
@@ -0,0 +1,43 @@
+package com.mikaa404.export;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Provides the built-in {@link CookieExporter}s by format name.
+ */
+public class CookieExporters {
+    public static final String NETSCAPE = "netscape";
+    public static final String JSON_LINES = "jsonl";
+    public static final String HAR = "har";
+    
+    private static final List<String> FORMATS = Collections.unmodifiableList(Arrays.asList(NETSCAPE, JSON_LINES, HAR));
+    
+    private CookieExporters() {
+    }
+    
+    /**
+     * @return names of the built-in formats.
+     */
+    public static List<String> getFormats() {
+        return FORMATS;
+    }
+    
+    /**
+     * @param format one of {@link #getFormats()}, case-insensitive.
+     */
+    public static CookieExporter forFormat(String format) {
+        switch (format.toLowerCase(Locale.ROOT)) {
+            case NETSCAPE:
+                return new NetscapeCookieExporter();
+            case JSON_LINES:
+                return new JsonLinesCookieExporter();
+            case HAR:
+                return new HarCookieExporter();
+            default:
+                throw new IllegalArgumentException(String.format("Unknown export format %s, expected one of %s. ", format, FORMATS));
+        }
+    }
+}
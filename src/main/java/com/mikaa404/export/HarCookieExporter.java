@@ -0,0 +1,46 @@
+package com.mikaa404.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mikaa404.cookie.ChromeTimestamps;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.ICookie;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+
+/**
+ * A JSON array of HAR 1.2 cookie objects, with {@code name}, {@code value}, {@code path}, {@code domain},
+ * {@code expires} (ISO 8601, omitted for session cookies), {@code httpOnly} and {@code secure}.
+ */
+public class HarCookieExporter implements CookieExporter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    @Override
+    public void export(CookieCursor cursor, OutputStream out) throws IOException {
+        try (CookieCursor c = cursor;
+             JsonGenerator generator = JSON_FACTORY.createGenerator(new NonClosingOutputStream(out))) {
+            generator.writeStartArray();
+            while (c.hasNext()) {
+                writeCookie(generator, c.next());
+            }
+            generator.writeEndArray();
+            generator.writeRaw('\n');
+        }
+    }
+    
+    private static void writeCookie(JsonGenerator generator, ICookie cookie) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", cookie.getName());
+        generator.writeStringField("value", cookie.getValue());
+        generator.writeStringField("path", cookie.getPath());
+        generator.writeStringField("domain", cookie.getHostKey());
+        if (cookie.getExpiresUtc() != 0) {
+            generator.writeStringField("expires", Instant.ofEpochMilli(ChromeTimestamps.toEpochMillis(cookie.getExpiresUtc())).toString());
+        }
+        generator.writeBooleanField("httpOnly", cookie.isHttpOnly());
+        generator.writeBooleanField("secure", cookie.isSecure());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,47 @@
+package com.mikaa404.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mikaa404.cookie.ChromeTimestamps;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.ICookie;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * One JSON object per line and per cookie, with {@code domain}, {@code name}, {@code value}, {@code path},
+ * {@code secure}, {@code httpOnly} and {@code expires} (epoch milliseconds, {@code null} for session cookies).
+ */
+public class JsonLinesCookieExporter implements CookieExporter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    @Override
+    public void export(CookieCursor cursor, OutputStream out) throws IOException {
+        try (CookieCursor c = cursor;
+             JsonGenerator generator = JSON_FACTORY.createGenerator(new NonClosingOutputStream(out))) {
+            generator.setRootValueSeparator(null);
+            while (c.hasNext()) {
+                writeCookie(generator, c.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+    
+    private static void writeCookie(JsonGenerator generator, ICookie cookie) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("domain", cookie.getHostKey());
+        generator.writeStringField("name", cookie.getName());
+        generator.writeStringField("value", cookie.getValue());
+        generator.writeStringField("path", cookie.getPath());
+        generator.writeBooleanField("secure", cookie.isSecure());
+        generator.writeBooleanField("httpOnly", cookie.isHttpOnly());
+        generator.writeFieldName("expires");
+        if (cookie.getExpiresUtc() == 0) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(ChromeTimestamps.toEpochMillis(cookie.getExpiresUtc()));
+        }
+        generator.writeEndObject();
+    }
+}
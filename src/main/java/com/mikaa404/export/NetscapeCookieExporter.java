@@ -0,0 +1,53 @@
+package com.mikaa404.export;
+
+import com.mikaa404.cookie.ChromeTimestamps;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.ICookie;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Netscape cookies.txt, read by curl ({@code -b}), wget ({@code --load-cookies}) and yt-dlp ({@code --cookies}).
+ * <p>
+ * One line per cookie with tab separated domain, include subdomains flag, path, secure flag, expiry in epoch seconds (0
+ * for session cookies), name and value. HttpOnly cookies get the {@code #HttpOnly_} domain prefix curl uses.
+ */
+public class NetscapeCookieExporter implements CookieExporter {
+    private static final String HTTP_ONLY_PREFIX = "#HttpOnly_";
+    
+    @Override
+    public void export(CookieCursor cursor, OutputStream out) throws IOException {
+        try (CookieCursor c = cursor;
+             Writer writer = new BufferedWriter(new OutputStreamWriter(new NonClosingOutputStream(out), StandardCharsets.UTF_8))) {
+            writer.write("# Netscape HTTP Cookie File\n");
+            while (c.hasNext()) {
+                writeCookie(writer, c.next());
+            }
+        }
+    }
+    
+    private static void writeCookie(Writer writer, ICookie cookie) throws IOException {
+        String hostKey = cookie.getHostKey();
+        long expiresSeconds = cookie.getExpiresUtc() == 0 ? 0 : ChromeTimestamps.toEpochMillis(cookie.getExpiresUtc()) / 1000;
+        
+        writer.write(cookie.isHttpOnly() ? HTTP_ONLY_PREFIX + hostKey : hostKey);
+        writer.write('\t');
+        writer.write(hostKey.startsWith(".") ? "TRUE" : "FALSE");
+        writer.write('\t');
+        writer.write(cookie.getPath());
+        writer.write('\t');
+        writer.write(cookie.isSecure() ? "TRUE" : "FALSE");
+        writer.write('\t');
+        writer.write(Long.toString(Math.max(expiresSeconds, 0)));
+        writer.write('\t');
+        writer.write(cookie.getName());
+        writer.write('\t');
+        writer.write(cookie.getValue() == null ? "" : cookie.getValue());
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,24 @@
+package com.mikaa404.export;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Keeps the underlying stream open when writers wrapping it are closed.
+ */
+class NonClosingOutputStream extends FilterOutputStream {
+    NonClosingOutputStream(OutputStream out) {
+        super(out);
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,79 @@
+package com.mikaa404.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed by {@link JfrExtractionListener} for each extraction.
+ */
+@Name("com.mikaa404.Extraction")
+@Label("Cookie Extraction")
+@Category("Cooky")
+@Description("Read of the cookies of one browser profile")
+@StackTrace(false)
+class ExtractionEvent extends Event {
+    @Label("Browser")
+    String browser;
+    
+    @Label("Profile")
+    String profile;
+    
+    @Label("Cookie File")
+    String cookieFile;
+    
+    @Label("Total Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long totalTime;
+    
+    @Label("Profile Discovery Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long profileDiscoveryTime;
+    
+    @Label("Key Retrieval Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long keyRetrievalTime;
+    
+    @Label("Store Copy Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long storeCopyTime;
+    
+    @Label("Store Open Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long storeOpenTime;
+    
+    @Label("Scan Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long scanTime;
+    
+    @Label("Decryption Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long decryptionTime;
+    
+    @Label("Rows Scanned")
+    long rowsScanned;
+    
+    @Label("Rows Decrypted")
+    long rowsDecrypted;
+    
+    @Label("Rows Failed")
+    long rowsFailed;
+    
+    @Label("Bytes Copied")
+    @DataAmount
+    long bytesCopied;
+    
+    @Label("Keys Cached")
+    boolean keysCached;
+    
+    @Label("Failed Stage")
+    String failedStage;
+    
+    @Label("Failure")
+    String failure;
+}
@@ -0,0 +1,27 @@
+package com.mikaa404.metrics;
+
+/**
+ * Receives a report of every extraction of a browser it is attached to, e.g. to export them as metrics with
+ * {@link MicrometerExtractionListener} or as JFR events with {@link JfrExtractionListener}.
+ */
+@FunctionalInterface
+public interface ExtractionListener {
+    /**
+     * Called once per extraction, on the thread which closed its cursor or saw it fail. Exceptions thrown by the
+     * listener are ignored so they do not fail the read.
+     */
+    void onExtraction(ExtractionReport report);
+    
+    /**
+     * @return a listener calling this listener, then the other one.
+     */
+    default ExtractionListener andThen(ExtractionListener other) {
+        return report -> {
+            try {
+                onExtraction(report);
+            } finally {
+                other.onExtraction(report);
+            }
+        };
+    }
+}
@@ -0,0 +1,218 @@
+package com.mikaa404.metrics;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.ICookie;
+
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+
+/**
+ * Collects timings and counters of one extraction, and reports them to its {@link ExtractionListener} when the
+ * extraction finishes: when its cursor is closed or exhausted, or when it fails before a cursor is returned.
+ * <p>
+ * A recorder is used by one thread at a time, like the cursor of its extraction. Without listener the shared
+ * {@link #disabled()} recorder is used, whose methods return at once without reading the clock, so reads nobody
+ * listens to only pay a few calls per batch of rows.
+ */
+public final class ExtractionRecorder {
+    private static final ExtractionRecorder DISABLED = new ExtractionRecorder(null, "");
+    
+    private final ExtractionListener listener;
+    private final String browserName;
+    private final long[] stageNanos = new long[ExtractionStage.values().length];
+    
+    private String profileName = "";
+    private Path cookieFile;
+    private long rowsScanned;
+    private long rowsDecrypted;
+    private long rowsFailed;
+    private long bytesCopied;
+    private boolean keysRetrieved;
+    private boolean keysCached;
+    private ExtractionStage failedStage;
+    private RuntimeException failure;
+    private boolean finished;
+    
+    private ExtractionRecorder(ExtractionListener listener, String browserName) {
+        this.listener = listener;
+        this.browserName = browserName;
+    }
+    
+    /**
+     * @param listener    listener of the extraction, or {@code null} for none.
+     * @param browserName name of the browser read by the extraction.
+     * @return a new recorder, or {@link #disabled()} without listener.
+     */
+    public static ExtractionRecorder of(ExtractionListener listener, String browserName) {
+        return listener == null ? DISABLED : new ExtractionRecorder(listener, browserName);
+    }
+    
+    /**
+     * @return the recorder which records nothing.
+     */
+    public static ExtractionRecorder disabled() {
+        return DISABLED;
+    }
+    
+    public boolean isEnabled() {
+        return listener != null;
+    }
+    
+    /**
+     * @return start time of a stage to pass to {@link #end(ExtractionStage, long)}, 0 if disabled.
+     */
+    public long start() {
+        return listener == null ? 0 : System.nanoTime();
+    }
+    
+    /**
+     * Add the time elapsed since {@code start} to the stage. A stage may be timed several times, e.g. once per batch
+     * of rows.
+     */
+    public void end(ExtractionStage stage, long start) {
+        if (listener != null) {
+            stageNanos[stage.ordinal()] += System.nanoTime() - start;
+        }
+    }
+    
+    public void setProfile(String profileName, Path cookieFile) {
+        if (listener != null) {
+            this.profileName = profileName;
+            this.cookieFile = cookieFile;
+        }
+    }
+    
+    /**
+     * @param cached whether keys were already retrieved by a previous extraction.
+     */
+    public void keysRetrieved(boolean cached) {
+        if (listener != null) {
+            keysRetrieved = true;
+            keysCached = cached;
+        }
+    }
+    
+    public void rowsScanned(int count) {
+        if (listener != null) {
+            rowsScanned += count;
+        }
+    }
+    
+    public void rowsDecrypted(int count) {
+        if (listener != null) {
+            rowsDecrypted += count;
+        }
+    }
+    
+    public void rowsFailed(int count) {
+        if (listener != null) {
+            rowsFailed += count;
+        }
+    }
+    
+    public void bytesCopied(long count) {
+        if (listener != null) {
+            bytesCopied += count;
+        }
+    }
+    
+    /**
+     * Record the failure of the extraction, only the first failure is kept.
+     */
+    public void failed(ExtractionStage stage, RuntimeException e) {
+        if (listener != null && failure == null) {
+            failedStage = stage;
+            failure = e;
+        }
+    }
+    
+    /**
+     * End the stage, record its failure and finish the extraction, for failures before a cursor is returned.
+     */
+    public void abort(ExtractionStage stage, long start, RuntimeException e) {
+        end(stage, start);
+        failed(stage, e);
+        finish();
+    }
+    
+    /**
+     * Report the extraction to the listener, calling this method more than once has no effect.
+     */
+    public void finish() {
+        if (listener == null || finished) {
+            return;
+        }
+        finished = true;
+        
+        try {
+            listener.onExtraction(new ExtractionReport(browserName, profileName, cookieFile, stageNanos.clone(),
+                                                       rowsScanned, rowsDecrypted, rowsFailed, bytesCopied,
+                                                       keysRetrieved, keysCached, failedStage, failure));
+        } catch (RuntimeException ignored) {
+            // a failing listener must not fail the read
+        }
+    }
+    
+    /**
+     * Record a cursor which is not instrumented itself: each cookie counts as a scanned row, time spent in the cursor
+     * counts as {@link ExtractionStage#SCAN}, and the extraction finishes when the cursor is exhausted or closed.
+     *
+     * @return a cursor over the cookies of {@code cursor}, or {@code cursor} itself if disabled.
+     */
+    public CookieCursor track(CookieCursor cursor) {
+        if (listener == null) {
+            return cursor;
+        }
+        
+        return new CookieCursor() {
+            @Override
+            public boolean hasNext() {
+                long start = start();
+                boolean hasNext;
+                try {
+                    hasNext = cursor.hasNext();
+                } catch (RuntimeException e) {
+                    fail(start, e);
+                    throw e;
+                }
+                end(ExtractionStage.SCAN, start);
+                if (!hasNext) {
+                    finish();
+                }
+                return hasNext;
+            }
+            
+            @Override
+            public ICookie next() {
+                long start = start();
+                ICookie cookie;
+                try {
+                    cookie = cursor.next();
+                } catch (NoSuchElementException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    fail(start, e);
+                    throw e;
+                }
+                end(ExtractionStage.SCAN, start);
+                rowsScanned++;
+                return cookie;
+            }
+            
+            @Override
+            public void close() {
+                try {
+                    cursor.close();
+                } finally {
+                    finish();
+                }
+            }
+            
+            private void fail(long start, RuntimeException e) {
+                end(ExtractionStage.SCAN, start);
+                failed(ExtractionStage.SCAN, e);
+                close();
+            }
+        };
+    }
+}
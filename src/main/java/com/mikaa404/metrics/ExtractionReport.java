@@ -0,0 +1,166 @@
+package com.mikaa404.metrics;
+
+import java.nio.file.Path;
+
+/**
+ * Timings and counters of one extraction, i.e. a read of the cookies of one profile, reported to
+ * {@link ExtractionListener}.
+ * <p>
+ * With lazy decryption values are decrypted after the extraction, so no row counts as decrypted and decryption errors
+ * are thrown by {@code getValue()} without being counted.
+ */
+public class ExtractionReport {
+    private final String browserName;
+    private final String profileName;
+    private final Path cookieFile;
+    private final long[] stageNanos;
+    private final long rowsScanned;
+    private final long rowsDecrypted;
+    private final long rowsFailed;
+    private final long bytesCopied;
+    private final boolean keysRetrieved;
+    private final boolean keysCached;
+    private final ExtractionStage failedStage;
+    private final RuntimeException failure;
+    
+    ExtractionReport(String browserName,
+                     String profileName,
+                     Path cookieFile,
+                     long[] stageNanos,
+                     long rowsScanned,
+                     long rowsDecrypted,
+                     long rowsFailed,
+                     long bytesCopied,
+                     boolean keysRetrieved,
+                     boolean keysCached,
+                     ExtractionStage failedStage,
+                     RuntimeException failure) {
+        this.browserName = browserName;
+        this.profileName = profileName;
+        this.cookieFile = cookieFile;
+        this.stageNanos = stageNanos;
+        this.rowsScanned = rowsScanned;
+        this.rowsDecrypted = rowsDecrypted;
+        this.rowsFailed = rowsFailed;
+        this.bytesCopied = bytesCopied;
+        this.keysRetrieved = keysRetrieved;
+        this.keysCached = keysCached;
+        this.failedStage = failedStage;
+        this.failure = failure;
+    }
+    
+    public String getBrowserName() {
+        return browserName;
+    }
+    
+    /**
+     * @return folder name of the profile, empty if the extraction failed before a profile was found.
+     */
+    public String getProfileName() {
+        return profileName;
+    }
+    
+    /**
+     * @return cookie store file, {@code null} if the extraction failed before a profile was found.
+     */
+    public Path getCookieFile() {
+        return cookieFile;
+    }
+    
+    /**
+     * @return time spent in the stage, 0 if the extraction did not go through it.
+     */
+    public long getNanos(ExtractionStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+    
+    /**
+     * @return time spent in all stages, time spent by the caller between two cookies is not included.
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long nanos : stageNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+    
+    /**
+     * @return rows read from the store, including those which did not match the query when the store can not filter
+     * them itself.
+     */
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+    
+    /**
+     * @return rows whose value was decrypted.
+     */
+    public long getRowsDecrypted() {
+        return rowsDecrypted;
+    }
+    
+    /**
+     * @return rows whose value could not be decrypted.
+     */
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+    
+    /**
+     * @return size of copies of the store made in the temp folder.
+     */
+    public long getBytesCopied() {
+        return bytesCopied;
+    }
+    
+    /**
+     * @return whether the extraction needed keys, which is not the case of browsers storing values in plain text.
+     */
+    public boolean isKeysRetrieved() {
+        return keysRetrieved;
+    }
+    
+    /**
+     * @return whether keys were found in the cache of a previous extraction rather than retrieved again.
+     */
+    public boolean isKeysCached() {
+        return keysCached;
+    }
+    
+    public boolean isFailed() {
+        return failure != null;
+    }
+    
+    /**
+     * @return stage which failed, {@code null} if the extraction succeeded.
+     */
+    public ExtractionStage getFailedStage() {
+        return failedStage;
+    }
+    
+    /**
+     * @return failure of the extraction, {@code null} if it succeeded.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ExtractionReport{browser=").append(browserName)
+                                                                              .append(", profile=").append(profileName);
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            builder.append(", ").append(stage).append('=').append(getNanos(stage) / 1000).append("us");
+        }
+        builder.append(", rowsScanned=").append(rowsScanned)
+               .append(", rowsDecrypted=").append(rowsDecrypted)
+               .append(", rowsFailed=").append(rowsFailed)
+               .append(", bytesCopied=").append(bytesCopied)
+               .append(", keysCached=").append(keysCached);
+        if (failure != null) {
+            builder.append(", failedStage=").append(failedStage).append(", failure=").append(failure);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.mikaa404.metrics;
+
+import com.mikaa404.store.StoreAccessStrategy;
+
+/**
+ * Stages of an extraction, i.e. a read of the cookies of one profile, timed by {@link ExtractionRecorder}.
+ */
+public enum ExtractionStage {
+    /**
+     * Finding the profiles of the browser and their cookie files.
+     */
+    PROFILE_DISCOVERY,
+    /**
+     * Retrieving and deriving keys from the keychain, DPAPI or the keyring, near zero once they are cached.
+     */
+    KEY_RETRIEVAL,
+    /**
+     * Copying the cookie store to the temp folder, with {@link StoreAccessStrategy#COPY} or as fallback.
+     */
+    STORE_COPY,
+    /**
+     * Opening the cookie store and starting the query.
+     */
+    STORE_OPEN,
+    /**
+     * Reading rows, without their decryption.
+     */
+    SCAN,
+    /**
+     * Decrypting values of rows, values decrypted lazily are not included.
+     */
+    DECRYPTION
+}
@@ -0,0 +1,39 @@
+package com.mikaa404.metrics;
+
+/**
+ * Commits a {@code com.mikaa404.Extraction} JFR event for each extraction, with its stage timings and counters.
+ * Events are only built while a recording enables them, e.g. with
+ * {@code jcmd <pid> JFR.start settings=profile} or {@code -XX:StartFlightRecording}.
+ * <p>
+ * Requires a JVM with JFR (Java 11+, or Java 8 from update 262).
+ */
+public class JfrExtractionListener implements ExtractionListener {
+    @Override
+    public void onExtraction(ExtractionReport report) {
+        ExtractionEvent event = new ExtractionEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        
+        event.browser = report.getBrowserName();
+        event.profile = report.getProfileName();
+        event.cookieFile = report.getCookieFile() == null ? null : report.getCookieFile().toString();
+        event.totalTime = report.getTotalNanos();
+        event.profileDiscoveryTime = report.getNanos(ExtractionStage.PROFILE_DISCOVERY);
+        event.keyRetrievalTime = report.getNanos(ExtractionStage.KEY_RETRIEVAL);
+        event.storeCopyTime = report.getNanos(ExtractionStage.STORE_COPY);
+        event.storeOpenTime = report.getNanos(ExtractionStage.STORE_OPEN);
+        event.scanTime = report.getNanos(ExtractionStage.SCAN);
+        event.decryptionTime = report.getNanos(ExtractionStage.DECRYPTION);
+        event.rowsScanned = report.getRowsScanned();
+        event.rowsDecrypted = report.getRowsDecrypted();
+        event.rowsFailed = report.getRowsFailed();
+        event.bytesCopied = report.getBytesCopied();
+        event.keysCached = report.isKeysCached();
+        if (report.isFailed()) {
+            event.failedStage = report.getFailedStage().name();
+            event.failure = report.getFailure().toString();
+        }
+        event.commit();
+    }
+}
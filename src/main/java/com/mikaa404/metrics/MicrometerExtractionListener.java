@@ -0,0 +1,50 @@
+package com.mikaa404.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records extractions in a Micrometer {@link MeterRegistry}, tagged with {@code browser} and {@code profile}:
+ * <ul>
+ *     <li>{@code cooky.extraction}: timer of extractions, tagged with {@code outcome} and {@code exception}</li>
+ *     <li>{@code cooky.extraction.stage}: timer of each stage an extraction went through, tagged with {@code stage}</li>
+ *     <li>{@code cooky.extraction.rows}: counter of rows, tagged with {@code state} scanned, decrypted or failed</li>
+ *     <li>{@code cooky.extraction.bytes.copied}: counter of bytes of store copies</li>
+ *     <li>{@code cooky.extraction.keys}: counter of key retrievals, tagged with {@code cache} hit or miss</li>
+ * </ul>
+ * Micrometer is not a dependency of cooky, applications using this listener provide it.
+ */
+public class MicrometerExtractionListener implements ExtractionListener {
+    private final MeterRegistry registry;
+    
+    public MicrometerExtractionListener(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    @Override
+    public void onExtraction(ExtractionReport report) {
+        Tags tags = Tags.of("browser", report.getBrowserName(), "profile", report.getProfileName());
+        
+        registry.timer("cooky.extraction", tags.and("outcome", report.isFailed() ? "failure" : "success",
+                                                    "exception", report.isFailed() ? report.getFailure().getClass().getSimpleName() : "none"))
+                .record(report.getTotalNanos(), TimeUnit.NANOSECONDS);
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            long nanos = report.getNanos(stage);
+            if (nanos > 0) {
+                registry.timer("cooky.extraction.stage", tags.and("stage", stage.name().toLowerCase(Locale.ROOT)))
+                        .record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        
+        registry.counter("cooky.extraction.rows", tags.and("state", "scanned")).increment(report.getRowsScanned());
+        registry.counter("cooky.extraction.rows", tags.and("state", "decrypted")).increment(report.getRowsDecrypted());
+        registry.counter("cooky.extraction.rows", tags.and("state", "failed")).increment(report.getRowsFailed());
+        registry.counter("cooky.extraction.bytes.copied", tags).increment(report.getBytesCopied());
+        if (report.isKeysRetrieved()) {
+            registry.counter("cooky.extraction.keys", tags.and("cache", report.isKeysCached() ? "hit" : "miss")).increment();
+        }
+    }
+}
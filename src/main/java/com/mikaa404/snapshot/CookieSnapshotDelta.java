@@ -0,0 +1,130 @@
+package com.mikaa404.snapshot;
+
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.CookieTable;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.store.CookieStoreReader;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Changes between a snapshot of a cookie store and a newer state of it: cookies added or changed, and keys of cookies
+ * removed. Deltas are appended to a {@link CookieSnapshotFile} rather than rewriting it.
+ */
+public class CookieSnapshotDelta {
+    private final CookieTable changed;
+    private final Set<CookieKey> removedKeys;
+    
+    public CookieSnapshotDelta(CookieTable changed, Set<CookieKey> removedKeys) {
+        this.changed = changed;
+        this.removedKeys = Collections.unmodifiableSet(new LinkedHashSet<>(removedKeys));
+    }
+    
+    /**
+     * Find changes of the live store since the snapshot was taken, the same way {@code CookieWatcher} does: only rows
+     * updated after the latest {@code last_update_utc} of the snapshot are read and decrypted, and removed cookies are
+     * found from the keys of the store, which are read without values. Keys are only read when the number of cookies
+     * in the store shows that some were removed.
+     * <p>
+     * Stores without {@code last_update_utc} (Chrome before 86) are read and decrypted entirely, and every cookie is
+     * reported as changed.
+     *
+     * @param snapshot   cookies of the store when the snapshot was taken.
+     * @param reader     reader of the store, as used to take the snapshot.
+     * @param cookieFile the live store.
+     */
+    public static CookieSnapshotDelta between(CookieTable snapshot, CookieStoreReader reader, Path cookieFile) {
+        long highWaterMark = 0;
+        for (ICookie cookie : snapshot) {
+            highWaterMark = Math.max(highWaterMark, ((CookieTable.Row) cookie).getLastUpdateUtc());
+        }
+        CookieQuery updatedQuery = CookieQuery.builder().updatedAfter(highWaterMark).build();
+        CookieTable changed = CookieTable.from(reader.open(cookieFile, updatedQuery));
+        
+        // keys are unique, so the store holds the cookies of the snapshot, plus those added, minus those removed
+        int removedCount = snapshot.size() + countAdded(snapshot, changed) - reader.countCookies(cookieFile);
+        if (removedCount <= 0) {
+            return new CookieSnapshotDelta(changed, Collections.emptySet());
+        }
+        Set<CookieKey> currentKeys = reader.readKeys(cookieFile);
+        Set<CookieKey> removedKeys = new LinkedHashSet<>();
+        for (ICookie cookie : snapshot) {
+            CookieKey key = CookieKey.of(cookie);
+            if (!currentKeys.contains(key)) {
+                removedKeys.add(key);
+            }
+        }
+        return new CookieSnapshotDelta(changed, removedKeys);
+    }
+    
+    /**
+     * @return number of changed cookies whose key is not in the snapshot.
+     */
+    private static int countAdded(CookieTable snapshot, CookieTable changed) {
+        Set<CookieKey> changedKeys = new HashSet<>();
+        Set<String> changedHostKeys = new HashSet<>();
+        for (ICookie cookie : changed) {
+            changedKeys.add(CookieKey.of(cookie));
+            changedHostKeys.add(cookie.getHostKey());
+        }
+        int added = changedKeys.size();
+        for (ICookie cookie : snapshot) {
+            // host keys are read from the table dictionary, keys are only built for rows of a changed host
+            if (changedHostKeys.contains(cookie.getHostKey()) && changedKeys.contains(CookieKey.of(cookie))) {
+                added--;
+            }
+        }
+        return added;
+    }
+    
+    /**
+     * @return cookies added or changed, replacing cookies of the same key.
+     */
+    public CookieTable getChanged() {
+        return changed;
+    }
+    
+    public Set<CookieKey> getRemovedKeys() {
+        return removedKeys;
+    }
+    
+    public boolean isEmpty() {
+        return changed.size() == 0 && removedKeys.isEmpty();
+    }
+    
+    /**
+     * @return a new table with the cookies of {@code table} which were neither removed nor changed, in their order,
+     * followed by the changed cookies.
+     */
+    public CookieTable applyTo(CookieTable table) {
+        if (isEmpty()) {
+            return table;
+        }
+        Set<CookieKey> replacedKeys = new HashSet<>(removedKeys);
+        for (ICookie cookie : changed) {
+            replacedKeys.add(CookieKey.of(cookie));
+        }
+        List<ICookie> cookies = new ArrayList<>(table.size() + changed.size());
+        for (ICookie cookie : table) {
+            if (!replacedKeys.contains(CookieKey.of(cookie))) {
+                cookies.add(cookie);
+            }
+        }
+        for (ICookie cookie : changed) {
+            cookies.add(cookie);
+        }
+        return CookieTable.from(cookies);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CookieSnapshotDelta{changed=%d, removed=%d}", changed.size(), removedKeys.size());
+    }
+}
@@ -0,0 +1,339 @@
+package com.mikaa404.snapshot;
+
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieTable;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A binary snapshot of extracted cookies, to rebuild a {@link CookieTable} after a restart without copying, scanning
+ * and decrypting cookie stores again.
+ * <p>
+ * The file is a header followed by segments: the whole table written by {@link #write(CookieTable)}, then the deltas
+ * appended by {@link #append(CookieSnapshotDelta)}. Each segment holds the columns of a table (see
+ * {@link CookieTable#writeTo(DataOutputStream)}) and is sealed with AES-GCM under the key given by the caller, with a
+ * random nonce, and the header (holding a random ID of the file) and its position in the file as associated data, so
+ * segments can neither be read, altered, reordered nor moved to another snapshot without the key.
+ * <p>
+ * {@link #read()} maps the file in memory once, then decrypts each segment and applies deltas in order.
+ * {@link #write(CookieTable)} the result of {@link #read()} to compact a file with many deltas.
+ */
+public class CookieSnapshotFile {
+    private static final byte[] MAGIC = "COOKYSNP".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 2;
+    private static final int FILE_ID_LENGTH = 16;
+    private static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES + FILE_ID_LENGTH;
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final int MIN_SEGMENT_LENGTH = NONCE_LENGTH + TAG_LENGTH / Byte.SIZE;
+    private static final byte TABLE_SEGMENT = 0;
+    private static final byte DELTA_SEGMENT = 1;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    /**
+     * File locks are held by the whole JVM and fail on overlap rather than wait, so appenders of this JVM take turns
+     * before locking.
+     */
+    private static final Object APPEND_LOCK = new Object();
+    
+    private final Path file;
+    private final SecretKeySpec key;
+    
+    /**
+     * @param file snapshot file, created by {@link #write(CookieTable)}.
+     * @param key  AES key of 16, 24 or 32 bytes, copied.
+     */
+    public CookieSnapshotFile(Path file, byte[] key) {
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException("Snapshot key must be 16, 24 or 32 bytes. ");
+        }
+        this.file = file;
+        this.key = new SecretKeySpec(key, "AES");
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    /**
+     * Replace the file with a snapshot of the table. The file is written next to it then moved in place, so a reader
+     * sees either the previous or the new snapshot.
+     */
+    public void write(CookieTable table) {
+        try {
+            byte[] fileId = new byte[FILE_ID_LENGTH];
+            RANDOM.nextBytes(fileId);
+            byte[] header = ByteBuffer.allocate(HEADER_LENGTH).put(MAGIC).putInt(FORMAT_VERSION).put(fileId).array();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bytes.write(header);
+            bytes.write(seal(header, TABLE_SEGMENT, 0, table::writeTo));
+            
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, bytes.toByteArray());
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write cookie snapshot. ", e);
+        }
+    }
+    
+    /**
+     * Append a delta to the snapshot, which {@link #read()} applies after the segments before it. Empty deltas are not
+     * appended. Appenders of any process take turns, each sealing its delta at the next index.
+     *
+     * @throws IllegalStateException if the file has no snapshot yet.
+     */
+    public void append(CookieSnapshotDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        synchronized (APPEND_LOCK) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                channel.read(header, 0);
+                header.flip();
+                checkHeader(header);
+                // segments are sealed with their index, which must not change until the segment is written
+                int segmentCount = countSegments(channel);
+                ByteBuffer segment = ByteBuffer.wrap(seal(header.array(), DELTA_SEGMENT, segmentCount, out -> writeDelta(out, delta)));
+                channel.position(channel.size());
+                while (segment.hasRemaining()) {
+                    channel.write(segment);
+                }
+                channel.force(false);
+            } catch (NoSuchFileException e) {
+                throw new IllegalStateException("No cookie snapshot to append to at " + file + ". ", e);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to append to cookie snapshot. ", e);
+            }
+        }
+    }
+    
+    /**
+     * @return cookies of the snapshot, with every delta applied.
+     * @throws IllegalStateException if the file is not a snapshot, is corrupted, or was sealed with another key.
+     */
+    public CookieTable read() {
+        ByteBuffer buffer = map();
+        byte[] header = checkHeader(buffer);
+        CookieTable table = null;
+        for (int index = 0; buffer.hasRemaining(); index++) {
+            ByteBuffer plaintext = open(header, nextSegment(buffer), index);
+            byte type = plaintext.get();
+            if (type == TABLE_SEGMENT && index == 0) {
+                table = CookieTable.readFrom(plaintext);
+            } else if (type == DELTA_SEGMENT && index > 0) {
+                table = readDelta(plaintext).applyTo(table);
+            } else {
+                throw new IllegalStateException("Unexpected segment " + index + " in cookie snapshot. ");
+            }
+        }
+        if (table == null) {
+            throw new IllegalStateException("Cookie snapshot has no segment. ");
+        }
+        return table;
+    }
+    
+    private ByteBuffer map() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Cookie snapshot is too large to be mapped: " + file);
+            }
+            // the mapping stays valid after the channel is closed, and is released when garbage collected
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read cookie snapshot. ", e);
+        }
+    }
+    
+    /**
+     * @return the header at the position of the buffer, which is moved after it.
+     */
+    private static byte[] checkHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_LENGTH) {
+            throw new IllegalStateException("Not a cookie snapshot. ");
+        }
+        byte[] header = new byte[HEADER_LENGTH];
+        buffer.duplicate().get(header);
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(MAGIC, magic)) {
+            throw new IllegalStateException("Not a cookie snapshot. ");
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported cookie snapshot version " + version + ". ");
+        }
+        buffer.position(buffer.position() + FILE_ID_LENGTH);
+        return header;
+    }
+    
+    /**
+     * @return the sealed segment at the position of the buffer, which is moved after it.
+     */
+    private static ByteBuffer nextSegment(ByteBuffer buffer) {
+        int length = buffer.remaining() < Integer.BYTES ? -1 : buffer.getInt();
+        if (length < MIN_SEGMENT_LENGTH || length > buffer.remaining()) {
+            throw new IllegalStateException("Cookie snapshot is truncated. ");
+        }
+        ByteBuffer segment = buffer.slice();
+        segment.limit(length);
+        buffer.position(buffer.position() + length);
+        return segment;
+    }
+    
+    /**
+     * Count segments from their lengths, which are not authenticated: lengths which are too small or run past the end
+     * of the file are rejected.
+     */
+    private static int countSegments(FileChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        long size = channel.size();
+        int count = 0;
+        long position = HEADER_LENGTH;
+        while (position < size) {
+            length.clear();
+            if (channel.read(length, position) < Integer.BYTES) {
+                throw new IllegalStateException("Cookie snapshot is truncated. ");
+            }
+            int segmentLength = length.getInt(0);
+            if (segmentLength < MIN_SEGMENT_LENGTH || position + Integer.BYTES + segmentLength > size) {
+                throw new IllegalStateException("Cookie snapshot is truncated. ");
+            }
+            position += Integer.BYTES + segmentLength;
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * @return length of the sealed segment, nonce, then ciphertext and tag of the segment type followed by its
+     * content.
+     */
+    private byte[] seal(byte[] header, byte type, int index, SegmentWriter writer) throws IOException {
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(plaintext);
+        out.writeByte(type);
+        writer.write(out);
+        out.flush();
+        
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOM.nextBytes(nonce);
+        try {
+            Cipher cipher = createCipher(Cipher.ENCRYPT_MODE, nonce, header, index);
+            byte[] segment = new byte[Integer.BYTES + NONCE_LENGTH + cipher.getOutputSize(plaintext.size())];
+            ByteBuffer.wrap(segment).putInt(segment.length - Integer.BYTES).put(nonce);
+            cipher.doFinal(plaintext.toByteArray(), 0, plaintext.size(), segment, Integer.BYTES + NONCE_LENGTH);
+            return segment;
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            throw new RuntimeException("Failed to encrypt cookie snapshot. ", e);
+        }
+    }
+    
+    private ByteBuffer open(byte[] header, ByteBuffer segment, int index) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        segment.get(nonce);
+        try {
+            Cipher cipher = createCipher(Cipher.DECRYPT_MODE, nonce, header, index);
+            ByteBuffer plaintext = ByteBuffer.allocate(cipher.getOutputSize(segment.remaining()));
+            cipher.doFinal(segment, plaintext);
+            plaintext.flip();
+            return plaintext;
+        } catch (AEADBadTagException e) {
+            throw new IllegalStateException("Cookie snapshot is corrupted or sealed with another key. ", e);
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            throw new RuntimeException("Failed to decrypt cookie snapshot. ", e);
+        }
+    }
+    
+    /**
+     * The header, whose file ID is random for each {@link #write(CookieTable)}, and the index of the segment are
+     * authenticated, so segments of another file or position are rejected.
+     */
+    private Cipher createCipher(int mode, byte[] nonce, byte[] header, int index) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH, nonce));
+            cipher.updateAAD(ByteBuffer.allocate(HEADER_LENGTH + Integer.BYTES).put(header).putInt(index).array());
+            return cipher;
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
+                 InvalidAlgorithmParameterException e) {
+            throw new RuntimeException("Failed to initialize cookie snapshot cipher. ", e);
+        }
+    }
+    
+    private static void writeDelta(DataOutputStream out, CookieSnapshotDelta delta) throws IOException {
+        delta.getChanged().writeTo(out);
+        out.writeInt(delta.getRemovedKeys().size());
+        for (CookieKey key : delta.getRemovedKeys()) {
+            writeString(out, key.getHostKey());
+            writeString(out, key.getTopFrameSiteKey());
+            writeString(out, key.getName());
+            writeString(out, key.getPath());
+        }
+    }
+    
+    private static CookieSnapshotDelta readDelta(ByteBuffer buffer) {
+        CookieTable changed = CookieTable.readFrom(buffer);
+        int removedCount = buffer.getInt();
+        Set<CookieKey> removedKeys = new HashSet<>();
+        for (int i = 0; i < removedCount; i++) {
+            removedKeys.add(new CookieKey(readString(buffer), readString(buffer), readString(buffer), readString(buffer)));
+        }
+        return new CookieSnapshotDelta(changed, removedKeys);
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    @FunctionalInterface
+    private interface SegmentWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
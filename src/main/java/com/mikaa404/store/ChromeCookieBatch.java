@@ -0,0 +1,207 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionStage;
+
+import java.util.Arrays;
+
+/**
+ * Rows of Chrome `cookies` table read into reusable holders, whose values are decrypted with a single call of
+ * {@link CookieDecryptor#decryptAll(byte[][], int, int, String[])} before they are turned into cookies.
+ */
+class ChromeCookieBatch {
+    /**
+     * Rows read and decrypted at once without lazy decryption.
+     */
+    static final int BATCH_SIZE = 64;
+    
+    private final Row[] rows;
+    private final ChromeCookie[] cookies;
+    private final byte[][] encryptedValues;
+    private final String[] decryptedValues;
+    
+    private int size;
+    private int position;
+    
+    ChromeCookieBatch(int capacity) {
+        this.rows = new Row[capacity];
+        for (int i = 0; i < capacity; i++) {
+            rows[i] = new Row();
+        }
+        this.cookies = new ChromeCookie[capacity];
+        this.encryptedValues = new byte[capacity][];
+        this.decryptedValues = new String[capacity];
+    }
+    
+    /**
+     * Start filling the batch again. Cookies which were not polled are dropped.
+     */
+    void clear() {
+        Arrays.fill(cookies, position, size, null);
+        size = 0;
+        position = 0;
+    }
+    
+    boolean isFull() {
+        return size == rows.length;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * @return holder of the next row, to be filled by the caller.
+     */
+    Row add() {
+        return rows[size++];
+    }
+    
+    /**
+     * Drop the row returned by the last {@link #add()}, e.g. because it does not match the query.
+     */
+    void removeLast() {
+        size--;
+    }
+    
+    /**
+     * Turn every added row into a cookie, decrypting values with one call of the decryptor.
+     *
+     * @return number of values decrypted.
+     */
+    int decrypt(CookieDecryptor decryptor) {
+        int encryptedCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (rows[i].isEncrypted()) {
+                encryptedValues[encryptedCount++] = rows[i].encryptedValue;
+            }
+        }
+        
+        decryptor.decryptAll(encryptedValues, encryptedCount, 0, decryptedValues);
+        for (int i = 0, j = 0; i < size; i++) {
+            Row row = rows[i];
+            cookies[i] = row.toCookie(row.isEncrypted() ? decryptedValues[j++] : row.value);
+        }
+        Arrays.fill(encryptedValues, 0, encryptedCount, null);
+        Arrays.fill(decryptedValues, 0, encryptedCount, null);
+        return encryptedCount;
+    }
+    
+    /**
+     * Same as {@link #decrypt(CookieDecryptor)}, recording time spent and rows decrypted or failed.
+     */
+    void decrypt(CookieDecryptor decryptor, ExtractionRecorder recorder) {
+        long start = recorder.start();
+        try {
+            recorder.rowsDecrypted(decrypt(decryptor));
+        } catch (RuntimeException e) {
+            // decryptors stop at the first value they can not decrypt
+            recorder.rowsFailed(1);
+            recorder.failed(ExtractionStage.DECRYPTION, e);
+            throw e;
+        } finally {
+            recorder.end(ExtractionStage.DECRYPTION, start);
+        }
+    }
+    
+    /**
+     * @return next cookie turned by {@link #decrypt(CookieDecryptor)}, or {@code null} if every cookie was polled.
+     */
+    ChromeCookie poll() {
+        if (position == size) {
+            return null;
+        }
+        ChromeCookie cookie = cookies[position];
+        cookies[position++] = null;
+        return cookie;
+    }
+    
+    /**
+     * Columns of a row, reused for every row so a batch allocates only its cookies. Cursors fill every field,
+     * with the default value of columns which were not selected.
+     */
+    static class Row {
+        String hostKey;
+        String name;
+        /**
+         * Plain text value, {@code null} if the row is encrypted or the column was not selected.
+         */
+        String value;
+        byte[] encryptedValue;
+        String path;
+        long creationUtc;
+        String topFrameSiteKey;
+        long expiresUtc;
+        boolean isSecure;
+        boolean isHttpOnly;
+        long lastAccessUtc;
+        boolean hasExpires;
+        boolean isPersistent;
+        int priority;
+        int sameSite;
+        int sourceScheme;
+        int sourcePort;
+        boolean isSameParty;
+        long lastUpdateUtc;
+        
+        boolean isEncrypted() {
+            return encryptedValue != null && encryptedValue.length > 0;
+        }
+        
+        ChromeCookie toCookie(String decryptedValue) {
+            return new ChromeCookie(
+                    hostKey,
+                    name,
+                    decryptedValue,
+                    path,
+                    creationUtc,
+                    topFrameSiteKey,
+                    expiresUtc,
+                    isSecure,
+                    isHttpOnly,
+                    lastAccessUtc,
+                    hasExpires,
+                    isPersistent,
+                    priority,
+                    sameSite,
+                    sourceScheme,
+                    sourcePort,
+                    isSameParty,
+                    lastUpdateUtc
+            );
+        }
+        
+        /**
+         * @return a cookie keeping its encrypted value, decrypted with the decryptor on first read.
+         */
+        ChromeCookie toLazyCookie(CookieDecryptor decryptor) {
+            if (!isEncrypted()) {
+                return toCookie(value);
+            }
+            return new ChromeCookie(
+                    hostKey,
+                    name,
+                    encryptedValue,
+                    path,
+                    creationUtc,
+                    topFrameSiteKey,
+                    expiresUtc,
+                    isSecure,
+                    isHttpOnly,
+                    lastAccessUtc,
+                    hasExpires,
+                    isPersistent,
+                    priority,
+                    sameSite,
+                    sourceScheme,
+                    sourcePort,
+                    isSameParty,
+                    lastUpdateUtc,
+                    decryptor,
+                    true
+            );
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeTimestamps;
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.cookie.CookieQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates a {@link CookieQuery} into a parameterized select statement on Chrome `cookies` table.
+ * <p>
+ * Exact host matches use {@code cookies_unique_index}, whose first column is {@code host_key}. Only the columns of
+ * the query which exist in the store are selected, criteria on missing columns compare their default value.
+ */
+class ChromeCookieSql {
+    private final String sql;
+    private final List<Object> parameters;
+    private final List<CookieColumn> columns;
+    
+    private ChromeCookieSql(String sql, List<Object> parameters, List<CookieColumn> columns) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.columns = columns;
+    }
+    
+    static ChromeCookieSql select(CookieQuery query) {
+        return select(query, CookieSchema.current());
+    }
+    
+    static ChromeCookieSql select(CookieQuery query, CookieSchema schema) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        
+        if (query.getHost() != null) {
+            conditions.add("host_key = ?");
+            parameters.add(query.getHost());
+        }
+        if (query.getDomain() != null) {
+            conditions.add("(host_key IN (?, ?) OR host_key LIKE ? ESCAPE '\\')");
+            parameters.add(query.getDomain());
+            parameters.add("." + query.getDomain());
+            parameters.add("%." + escapeLike(query.getDomain()));
+        }
+        if (query.getName() != null) {
+            conditions.add("name = ?");
+            parameters.add(query.getName());
+        }
+        if (query.getPathPrefix() != null) {
+            // LIKE is case-insensitive in sqlite while paths are not
+            conditions.add("substr(path, 1, ?) = ?");
+            parameters.add(query.getPathPrefix().length());
+            parameters.add(query.getPathPrefix());
+        }
+        if (query.getExpired() != null) {
+            // session cookies are stored with expires_utc 0
+            String expiresUtc = schema.expression(CookieColumn.EXPIRES_UTC);
+            conditions.add(String.format(query.getExpired()
+                                                 ? "(%1$s <> 0 AND %1$s <= ?)"
+                                                 : "(%1$s = 0 OR %1$s > ?)",
+                                         expiresUtc));
+            parameters.add(ChromeTimestamps.now());
+        }
+        if (query.isSecureOnly()) {
+            conditions.add(schema.expression(CookieColumn.IS_SECURE) + " = 1");
+        }
+        // stores without update times can not tell which cookies changed, every cookie matches
+        if (query.getUpdatedAfter() != null && schema.has(CookieColumn.LAST_UPDATE_UTC)) {
+            conditions.add(schema.expression(CookieColumn.LAST_UPDATE_UTC) + " > ?");
+            parameters.add(query.getUpdatedAfter());
+        }
+        
+        List<CookieColumn> columns = new ArrayList<>();
+        List<String> columnNames = new ArrayList<>();
+        for (CookieColumn column : query.getColumns()) {
+            if (schema.has(column)) {
+                columns.add(column);
+                columnNames.add(schema.columnName(column));
+            }
+        }
+        
+        String sql = "SELECT " + String.join(", ", columnNames) + " FROM cookies";
+        if (!conditions.isEmpty()) {
+            sql += " WHERE " + String.join(" AND ", conditions);
+        }
+        return new ChromeCookieSql(sql + ";", parameters, columns);
+    }
+    
+    /**
+     * @return statement selecting the identity of every cookie, which sqlite answers from
+     * {@code cookies_unique_index} without reading the table.
+     */
+    static String selectKeys(CookieSchema schema) {
+        return String.format("SELECT host_key, %s, name, path FROM cookies;", schema.expression(CookieColumn.TOP_FRAME_SITE_KEY));
+    }
+    
+    String getSql() {
+        return sql;
+    }
+    
+    /**
+     * @return selected columns, in the order of the select list.
+     */
+    List<CookieColumn> getColumns() {
+        return columns;
+    }
+    
+    PreparedStatement prepare(Connection connection) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+        return statement;
+    }
+    
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
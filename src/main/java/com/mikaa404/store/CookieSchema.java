@@ -0,0 +1,114 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.CookieColumn;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columns present in the `cookies` table of a store, probed once per read with {@code PRAGMA table_info}.
+ */
+class CookieSchema {
+    /**
+     * First `Cookies` version whose plaintexts start with the SHA-256 digest of the host key.
+     */
+    static final int HOST_DIGEST_VERSION = 24;
+    private static final CookieSchema CURRENT = of(currentColumnNames());
+    
+    private final Map<CookieColumn, String> columnNames;
+    
+    private CookieSchema(Map<CookieColumn, String> columnNames) {
+        this.columnNames = columnNames;
+    }
+    
+    /**
+     * @return schema of stores written by current Chrome versions, with every column.
+     */
+    static CookieSchema current() {
+        return CURRENT;
+    }
+    
+    static CookieSchema probe(Connection connection) throws SQLException {
+        Set<String> tableColumns = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA table_info(cookies);")) {
+            while (resultSet.next()) {
+                tableColumns.add(resultSet.getString("name"));
+            }
+        }
+        if (tableColumns.isEmpty()) {
+            throw new SQLException("No such table: cookies. ");
+        }
+        return of(tableColumns);
+    }
+    
+    /**
+     * @return version of the store recorded in its `meta` table, 0 if the store has no `meta` table.
+     */
+    static int probeVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'meta';")) {
+                if (!resultSet.next()) {
+                    return 0;
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT value FROM meta WHERE key = 'version';")) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        }
+    }
+    
+    static CookieSchema of(Collection<String> tableColumns) {
+        Map<CookieColumn, String> columnNames = new EnumMap<>(CookieColumn.class);
+        for (CookieColumn column : CookieColumn.values()) {
+            column.getColumnNames()
+                  .stream()
+                  .filter(tableColumns::contains)
+                  .findFirst()
+                  .ifPresent(name -> columnNames.put(column, name));
+        }
+        return new CookieSchema(columnNames);
+    }
+    
+    boolean has(CookieColumn column) {
+        return columnNames.containsKey(column);
+    }
+    
+    String columnName(CookieColumn column) {
+        return columnNames.get(column);
+    }
+    
+    /**
+     * @return the column name, or the default value of the column as SQL literal if the store does not have it.
+     */
+    String expression(CookieColumn column) {
+        String columnName = columnNames.get(column);
+        if (columnName != null) {
+            return columnName;
+        }
+        switch (column.getType()) {
+            case TEXT:
+                return "''";
+            case BLOB:
+                return "NULL";
+            default:
+                return Long.toString(column.getDefaultValue());
+        }
+    }
+    
+    private static Set<String> currentColumnNames() {
+        Set<String> names = new HashSet<>();
+        for (CookieColumn column : CookieColumn.values()) {
+            names.add(column.getColumnNames().get(0));
+        }
+        return names;
+    }
+}
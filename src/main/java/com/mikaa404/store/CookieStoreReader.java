@@ -0,0 +1,61 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionStage;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Reads cookies from a cookie store file of a browser profile.
+ */
+public interface CookieStoreReader {
+    /**
+     * @param cookieFile path of cookie store file, e.g. `Cookies` in Chrome profile folder.
+     * @param query      criteria the cookies must match.
+     * @return a cursor over matching cookies, which must be closed by the caller.
+     */
+    CookieCursor open(Path cookieFile, CookieQuery query);
+    
+    /**
+     * Same as {@link #open(Path, CookieQuery)}, recording the extraction with the recorder, which is finished when the
+     * cursor is closed or exhausted, or when opening fails. Readers which do not record their stages themselves count
+     * time spent in {@link #open(Path, CookieQuery)} as {@link ExtractionStage#STORE_OPEN}, and cookies read as
+     * scanned rows.
+     */
+    default CookieCursor open(Path cookieFile, CookieQuery query, ExtractionRecorder recorder) {
+        long start = recorder.start();
+        CookieCursor cursor;
+        try {
+            cursor = open(cookieFile, query);
+        } catch (RuntimeException e) {
+            recorder.abort(ExtractionStage.STORE_OPEN, start, e);
+            throw e;
+        }
+        recorder.end(ExtractionStage.STORE_OPEN, start);
+        return recorder.track(cursor);
+    }
+    
+    /**
+     * Read the identity of every cookie in the store, without reading nor decrypting values. This is much cheaper
+     * than reading all cookies, e.g. to find which cookies were removed since a previous read.
+     *
+     * @param cookieFile path of cookie store file.
+     * @return keys of all cookies stored in the file.
+     */
+    Set<CookieKey> readKeys(Path cookieFile);
+    
+    /**
+     * Count cookies in the store without reading them, e.g. to find whether any cookie was removed since a previous
+     * read before reading their keys.
+     *
+     * @param cookieFile path of cookie store file.
+     * @return number of cookies stored in the file.
+     */
+    default int countCookies(Path cookieFile) {
+        return readKeys(cookieFile).size();
+    }
+}
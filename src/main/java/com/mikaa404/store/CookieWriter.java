@@ -0,0 +1,280 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.crypto.CookieEncryptor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes cookies into a Chrome `Cookies` file, e.g. to import cookies read from another profile or machine. Values are
+ * encrypted the way the browser owning the store encrypts them, so it reads them back as its own.
+ * <p>
+ * Cookies are upserted on the unique key of the store (host, top frame site, name and path): a cookie replaces the
+ * stored one with the same key. All cookies are written in one transaction, either all of them or none are stored.
+ * <p>
+ * The browser must be closed while writing: it holds an exclusive lock on its store while running, and would
+ * overwrite the store with its own cookies when closed.
+ */
+public class CookieWriter {
+    private static final int BATCH_SIZE = 500;
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+    
+    private final CookieEncryptor encryptor;
+    
+    /**
+     * @param encryptor encryptor of the browser owning the stores, e.g. its cached {@code KeyProvider} decryptor.
+     */
+    public CookieWriter(CookieEncryptor encryptor) {
+        this.encryptor = encryptor;
+    }
+    
+    /**
+     * Write cookies into an existing store, in batches of prepared statements in a single transaction. The store is
+     * switched to WAL journal mode during the write, then always checkpointed, so readers of the main file see the
+     * written rows, and given back its journal mode if it was changed.
+     *
+     * @param cookieFile `Cookies` file of a profile of a closed browser.
+     * @param cookies    cookies to insert or replace, their plain values are encrypted.
+     * @return number of cookies written.
+     * @throws IllegalStateException if the store is locked, i.e. the browser is running.
+     */
+    public int write(Path cookieFile, Collection<? extends ChromeCookie> cookies) {
+        if (!Files.isRegularFile(cookieFile)) {
+            throw new IllegalArgumentException("No cookies store at " + cookieFile + ". ");
+        }
+        
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile)) {
+            try (Statement statement = connection.createStatement()) {
+                // fail at once rather than wait for a browser which holds its lock until it exits
+                statement.execute("PRAGMA busy_timeout = 0;");
+            }
+            String journalMode = setJournalMode(connection, "wal");
+            try {
+                return write(connection, cookies);
+            } finally {
+                // readers opening the store as immutable, or copying it, do not see rows left in the `-wal` file
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA wal_checkpoint(TRUNCATE);");
+                }
+                if (!"wal".equals(journalMode)) {
+                    setJournalMode(connection, journalMode);
+                }
+            }
+        } catch (SQLException e) {
+            if (isLocked(e)) {
+                throw new IllegalStateException("Cookies store is locked by a running browser, close it before writing. ", e);
+            }
+            throw new RuntimeException("Failed to write cookies. ", e);
+        }
+    }
+    
+    private int write(Connection connection, Collection<? extends ChromeCookie> cookies) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA synchronous = NORMAL;");
+            // take the write lock before reading the schema, so it can not change until commit
+            statement.execute("BEGIN IMMEDIATE;");
+        }
+        try {
+            CookieSchema schema = CookieSchema.probe(connection);
+            boolean hostDigest = CookieSchema.probeVersion(connection) >= CookieSchema.HOST_DIGEST_VERSION;
+            List<CookieColumn> columns = new ArrayList<>();
+            for (CookieColumn column : CookieColumn.values()) {
+                if (schema.has(column)) {
+                    columns.add(column);
+                }
+            }
+            
+            MessageDigest digest = hostDigest ? createDigest() : null;
+            int written = 0;
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(connection, schema, columns))) {
+                for (ChromeCookie cookie : cookies) {
+                    byte[] encryptedValue = encryptor.encrypt(plaintextOf(cookie, digest));
+                    for (int i = 0; i < columns.size(); i++) {
+                        bind(statement, i + 1, columns.get(i), cookie, encryptedValue);
+                    }
+                    statement.addBatch();
+                    if (++written % BATCH_SIZE == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+            
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("COMMIT;");
+            }
+            return written;
+        } catch (SQLException | RuntimeException e) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ROLLBACK;");
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * @return journal mode of the store before the change.
+     */
+    private static String setJournalMode(Connection connection, String journalMode) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            String previous;
+            try (ResultSet resultSet = statement.executeQuery("PRAGMA journal_mode;")) {
+                previous = resultSet.next() ? resultSet.getString(1).toLowerCase(Locale.ROOT) : "delete";
+            }
+            if (!previous.equals(journalMode)) {
+                try (ResultSet resultSet = statement.executeQuery("PRAGMA journal_mode = " + journalMode + ";")) {
+                    if (!resultSet.next() || !journalMode.equalsIgnoreCase(resultSet.getString(1))) {
+                        throw new SQLException("Failed to set journal mode to " + journalMode + ". ", null, SQLITE_BUSY);
+                    }
+                }
+            }
+            return previous;
+        }
+    }
+    
+    /**
+     * Columns cooky does not know (added by newer Chrome versions) are given a zero value when they can not be null
+     * and have no default, the browser migrates or fills them like for cookies of older versions.
+     */
+    private static String upsertSql(Connection connection, CookieSchema schema, List<CookieColumn> columns) throws SQLException {
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        for (CookieColumn column : columns) {
+            names.append(names.length() == 0 ? "" : ", ").append(schema.columnName(column));
+            values.append(values.length() == 0 ? "?" : ", ?");
+        }
+        
+        List<String> knownNames = new ArrayList<>();
+        for (CookieColumn column : CookieColumn.values()) {
+            knownNames.addAll(column.getColumnNames());
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA table_info(cookies);")) {
+            while (resultSet.next()) {
+                String name = resultSet.getString("name");
+                if (knownNames.contains(name) || resultSet.getInt("notnull") == 0 || resultSet.getString("dflt_value") != null) {
+                    continue;
+                }
+                String type = resultSet.getString("type").toUpperCase(Locale.ROOT);
+                names.append(", ").append(name);
+                values.append(type.contains("CHAR") || type.contains("TEXT") ? ", ''" : type.contains("BLOB") ? ", x''" : ", 0");
+            }
+        }
+        return "INSERT OR REPLACE INTO cookies (" + names + ") VALUES (" + values + ");";
+    }
+    
+    private static void bind(PreparedStatement statement,
+                             int index,
+                             CookieColumn column,
+                             ChromeCookie cookie,
+                             byte[] encryptedValue) throws SQLException {
+        switch (column) {
+            case CREATION_UTC:
+                statement.setLong(index, cookie.getCreationUtc());
+                break;
+            case HOST_KEY:
+                statement.setString(index, cookie.getHostKey());
+                break;
+            case TOP_FRAME_SITE_KEY:
+                statement.setString(index, cookie.getTopFrameSiteKey() == null ? "" : cookie.getTopFrameSiteKey());
+                break;
+            case NAME:
+                statement.setString(index, cookie.getName());
+                break;
+            case VALUE:
+                // values are only stored encrypted
+                statement.setString(index, "");
+                break;
+            case ENCRYPTED_VALUE:
+                statement.setBytes(index, encryptedValue);
+                break;
+            case PATH:
+                statement.setString(index, cookie.getPath());
+                break;
+            case EXPIRES_UTC:
+                statement.setLong(index, cookie.getExpiresUtc());
+                break;
+            case IS_SECURE:
+                statement.setBoolean(index, cookie.isSecure());
+                break;
+            case IS_HTTPONLY:
+                statement.setBoolean(index, cookie.isHttpOnly());
+                break;
+            case LAST_ACCESS_UTC:
+                statement.setLong(index, cookie.getLastAccessUtc());
+                break;
+            case HAS_EXPIRES:
+                statement.setBoolean(index, cookie.isHasExpires());
+                break;
+            case IS_PERSISTENT:
+                statement.setBoolean(index, cookie.isPersistent());
+                break;
+            case PRIORITY:
+                statement.setInt(index, cookie.getPriority());
+                break;
+            case SAMESITE:
+                statement.setInt(index, cookie.getSameSite());
+                break;
+            case SOURCE_SCHEME:
+                statement.setInt(index, cookie.getSourceScheme());
+                break;
+            case SOURCE_PORT:
+                statement.setInt(index, cookie.getSourcePort());
+                break;
+            case IS_SAME_PARTY:
+                statement.setBoolean(index, cookie.isSameParty());
+                break;
+            case LAST_UPDATE_UTC:
+                statement.setLong(index, cookie.getLastUpdateUtc());
+                break;
+            default:
+                throw new IllegalStateException("Unknown column " + column + ". ");
+        }
+    }
+    
+    /**
+     * @param digest SHA-256 digest prepended to plaintexts of `Cookies` version 24 and later, {@code null} before.
+     */
+    private static byte[] plaintextOf(ChromeCookie cookie, MessageDigest digest) {
+        byte[] value = cookie.getValue() == null ? new byte[0] : cookie.getValue().getBytes(StandardCharsets.UTF_8);
+        if (digest == null) {
+            return value;
+        }
+        byte[] hostDigest = digest.digest(cookie.getHostKey().getBytes(StandardCharsets.UTF_8));
+        byte[] plaintext = new byte[hostDigest.length + value.length];
+        System.arraycopy(hostDigest, 0, plaintext, 0, hostDigest.length);
+        System.arraycopy(value, 0, plaintext, hostDigest.length, value.length);
+        return plaintext;
+    }
+    
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to initialize host key digest. ", e);
+        }
+    }
+    
+    private static boolean isLocked(SQLException e) {
+        int code = e.getErrorCode() & 0xff;
+        return code == SQLITE_BUSY || code == SQLITE_LOCKED;
+    }
+}
@@ -0,0 +1,109 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.FirefoxCookie;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.store.FirefoxCookieSql.Column;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+/**
+ * Maps rows of an open {@link ResultSet} selected by {@link FirefoxCookieSql} to {@link FirefoxCookie}, one row at a
+ * time.
+ */
+class FirefoxCookieCursor implements CookieCursor {
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final Runnable onClose;
+    
+    private ICookie nextCookie;
+    private boolean closed;
+    
+    FirefoxCookieCursor(Connection connection, PreparedStatement statement, ResultSet resultSet, Runnable onClose) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.onClose = onClose;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (nextCookie != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        
+        try {
+            if (resultSet.next()) {
+                nextCookie = readCookie();
+                return true;
+            }
+        } catch (SQLException e) {
+            close();
+            throw new RuntimeException("Failed while execute SQL operations. ", e);
+        }
+        
+        close();
+        return false;
+    }
+    
+    @Override
+    public ICookie next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ICookie cookie = nextCookie;
+        nextCookie = null;
+        return cookie;
+    }
+    
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        
+        // resources are closed in reverse order, even if one of them fails
+        try {
+            try {
+                resultSet.close();
+            } finally {
+                try {
+                    statement.close();
+                } finally {
+                    connection.close();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed while execute SQL operations. ", e);
+        } finally {
+            onClose.run();
+        }
+    }
+    
+    private FirefoxCookie readCookie() throws SQLException {
+        return new FirefoxCookie(
+                resultSet.getString(Column.HOST.index()),
+                resultSet.getString(Column.NAME.index()),
+                resultSet.getString(Column.VALUE.index()),
+                resultSet.getString(Column.PATH.index()),
+                resultSet.getLong(Column.EXPIRY.index()),
+                resultSet.getLong(Column.LAST_ACCESSED.index()),
+                resultSet.getLong(Column.CREATION_TIME.index()),
+                resultSet.getInt(Column.IS_SECURE.index()) != 0,
+                resultSet.getInt(Column.IS_HTTP_ONLY.index()) != 0,
+                resultSet.getInt(Column.SAME_SITE.index()),
+                resultSet.getInt(Column.SCHEME_MAP.index()),
+                resultSet.getString(Column.ORIGIN_ATTRIBUTES.index()),
+                false
+        );
+    }
+}
@@ -0,0 +1,160 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeTimestamps;
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.cookie.CookieQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Translates a {@link CookieQuery} into a parameterized select statement on Firefox {@code moz_cookies} table.
+ * <p>
+ * Every {@link Column} is selected in declaration order, so rows are read by fixed index. Columns missing from older
+ * stores are selected as their default value.
+ */
+class FirefoxCookieSql {
+    /**
+     * Expiry is stored in seconds, or milliseconds by recent Firefox versions. Cookies never expire beyond a few
+     * hundred days, so values above this one are milliseconds.
+     */
+    private static final long EXPIRY_MILLIS_THRESHOLD = 100_000_000_000L;
+    private static final String EXPIRY_MILLIS = String.format("(CASE WHEN expiry > %1$d THEN expiry ELSE expiry * 1000 END)",
+                                                              EXPIRY_MILLIS_THRESHOLD);
+    
+    enum Column {
+        HOST("host", "''"),
+        NAME("name", "''"),
+        VALUE("value", "NULL"),
+        PATH("path", "'/'"),
+        EXPIRY("expiry", "0"),
+        LAST_ACCESSED("lastAccessed", "0"),
+        CREATION_TIME("creationTime", "0"),
+        IS_SECURE("isSecure", "0"),
+        IS_HTTP_ONLY("isHttpOnly", "0"),
+        SAME_SITE("sameSite", "0"),
+        SCHEME_MAP("schemeMap", "0"),
+        ORIGIN_ATTRIBUTES("originAttributes", "''");
+        
+        private final String columnName;
+        private final String defaultValue;
+        
+        Column(String columnName, String defaultValue) {
+            this.columnName = columnName;
+            this.defaultValue = defaultValue;
+        }
+        
+        /**
+         * @return 1-based index in the select list.
+         */
+        int index() {
+            return ordinal() + 1;
+        }
+    }
+    
+    private final String sql;
+    private final List<Object> parameters;
+    
+    private FirefoxCookieSql(String sql, List<Object> parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+    
+    /**
+     * @return names of the columns of {@code moz_cookies}.
+     */
+    static Set<String> probe(Connection connection) throws SQLException {
+        Set<String> tableColumns = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA table_info(moz_cookies);")) {
+            while (resultSet.next()) {
+                tableColumns.add(resultSet.getString("name"));
+            }
+        }
+        if (tableColumns.isEmpty()) {
+            throw new SQLException("No such table: moz_cookies. ");
+        }
+        return tableColumns;
+    }
+    
+    static FirefoxCookieSql select(CookieQuery query, Set<String> tableColumns) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        
+        if (query.getHost() != null) {
+            conditions.add("host = ?");
+            parameters.add(query.getHost());
+        }
+        if (query.getDomain() != null) {
+            conditions.add("(host IN (?, ?) OR host LIKE ? ESCAPE '\\')");
+            parameters.add(query.getDomain());
+            parameters.add("." + query.getDomain());
+            parameters.add("%." + ChromeCookieSql.escapeLike(query.getDomain()));
+        }
+        if (query.getName() != null) {
+            conditions.add("name = ?");
+            parameters.add(query.getName());
+        }
+        if (query.getPathPrefix() != null) {
+            conditions.add("substr(path, 1, ?) = ?");
+            parameters.add(query.getPathPrefix().length());
+            parameters.add(query.getPathPrefix());
+        }
+        if (query.getExpired() != null) {
+            // session cookies are not stored in moz_cookies
+            conditions.add(EXPIRY_MILLIS + (query.getExpired() ? " <= ?" : " > ?"));
+            parameters.add(System.currentTimeMillis());
+        }
+        if (query.isSecureOnly()) {
+            conditions.add("isSecure = 1");
+        }
+        if (query.getUpdatedAfter() != null) {
+            // Firefox sets lastAccessed whenever a cookie is set
+            conditions.add("lastAccessed > ?");
+            parameters.add(ChromeTimestamps.toEpochMicros(query.getUpdatedAfter()));
+        }
+        
+        List<String> expressions = new ArrayList<>();
+        for (Column column : Column.values()) {
+            boolean selected = column != Column.VALUE || query.getColumns().contains(CookieColumn.VALUE);
+            if (!selected || !tableColumns.contains(column.columnName)) {
+                expressions.add(column.defaultValue);
+            } else {
+                expressions.add(column == Column.EXPIRY ? EXPIRY_MILLIS : column.columnName);
+            }
+        }
+        
+        String sql = "SELECT " + String.join(", ", expressions) + " FROM moz_cookies";
+        if (!conditions.isEmpty()) {
+            sql += " WHERE " + String.join(" AND ", conditions);
+        }
+        return new FirefoxCookieSql(sql + ";", parameters);
+    }
+    
+    /**
+     * @return statement selecting the identity of every cookie.
+     */
+    static String selectKeys(Set<String> tableColumns) {
+        return String.format("SELECT host, %s, name, path FROM moz_cookies;",
+                             tableColumns.contains("originAttributes") ? "originAttributes" : "''");
+    }
+    
+    String getSql() {
+        return sql;
+    }
+    
+    PreparedStatement prepare(Connection connection) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+        return statement;
+    }
+}
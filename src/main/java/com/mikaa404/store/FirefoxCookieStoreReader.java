@@ -0,0 +1,72 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.metrics.ExtractionRecorder;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads Firefox `cookies.sqlite` files with sqlite-jdbc, accessing them like {@link JdbcCookieStoreReader} does.
+ * Values are stored in plain text, so rows are mapped to cookies without any decryption.
+ */
+public class FirefoxCookieStoreReader implements CookieStoreReader {
+    private final SqliteStoreAccess storeAccess;
+    
+    /**
+     * @param tempFolder     folder where `cookies.sqlite` files are copied with {@link StoreAccessStrategy#COPY} or
+     *                       as fallback, created if missing.
+     * @param accessStrategy how `cookies.sqlite` files are accessed.
+     */
+    public FirefoxCookieStoreReader(Path tempFolder, StoreAccessStrategy accessStrategy) {
+        this.storeAccess = new SqliteStoreAccess(tempFolder, accessStrategy);
+    }
+    
+    @Override
+    public CookieCursor open(Path cookieFile, CookieQuery query) {
+        return open(cookieFile, query, ExtractionRecorder.disabled());
+    }
+    
+    /**
+     * Rows are not encrypted, each cookie counts as a scanned row.
+     */
+    @Override
+    public CookieCursor open(Path cookieFile, CookieQuery query, ExtractionRecorder recorder) {
+        return storeAccess.withStore(cookieFile, recorder, (connection, cleanup) -> {
+            FirefoxCookieSql sql = FirefoxCookieSql.select(query, FirefoxCookieSql.probe(connection));
+            PreparedStatement statement = sql.prepare(connection);
+            try {
+                ResultSet resultSet = statement.executeQuery();
+                return recorder.track(new FirefoxCookieCursor(connection, statement, resultSet, cleanup));
+            } catch (SQLException e) {
+                SqliteStoreAccess.closeQuietly(statement);
+                throw e;
+            }
+        });
+    }
+    
+    @Override
+    public Set<CookieKey> readKeys(Path cookieFile) {
+        return storeAccess.withStore(cookieFile, (connection, cleanup) -> {
+            Set<CookieKey> keys = new HashSet<>();
+            try (Connection c = connection;
+                 Statement statement = c.createStatement();
+                 ResultSet resultSet = statement.executeQuery(FirefoxCookieSql.selectKeys(FirefoxCookieSql.probe(c)))) {
+                while (resultSet.next()) {
+                    keys.add(new CookieKey(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3), resultSet.getString(4)));
+                }
+            } finally {
+                cleanup.run();
+            }
+            return keys;
+        });
+    }
+}
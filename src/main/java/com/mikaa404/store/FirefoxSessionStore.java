@@ -0,0 +1,151 @@
+package com.mikaa404.store;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikaa404.cookie.FirefoxCookie;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads session cookies from the Firefox session store (e.g. `sessionstore-backups/recovery.jsonlz4`), which is the
+ * only place Firefox keeps them on disk.
+ * <p>
+ * The file is "mozLz40\0", the decompressed size as little-endian 32-bit integer, then one LZ4 block of JSON. Only
+ * the top level {@code cookies} array is parsed, the much larger window and tab history is skipped.
+ */
+public class FirefoxSessionStore {
+    private static final byte[] MAGIC = "mozLz40\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_LENGTH = MAGIC.length + 4;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /**
+     * Origin attributes in the order Firefox writes them in suffixes, with the name used there.
+     */
+    private static final String[][] ORIGIN_ATTRIBUTES = {
+            {"userContextId", "userContextId"},
+            {"inIsolatedMozBrowser", "inBrowser"},
+            {"privateBrowsingId", "privateBrowsingId"},
+            {"firstPartyDomain", "firstPartyDomain"},
+            {"geckoViewSessionContextId", "geckoViewUserContextId"},
+            {"partitionKey", "partitionKey"}};
+    
+    private FirefoxSessionStore() {
+    }
+    
+    /**
+     * @param sessionStoreFile a `.jsonlz4` session store file.
+     * @return session cookies in the order of the file, or empty list if the file does not exist.
+     */
+    public static List<FirefoxCookie> readCookies(Path sessionStoreFile) {
+        if (!Files.isRegularFile(sessionStoreFile)) {
+            return Collections.emptyList();
+        }
+        
+        byte[] json;
+        try {
+            json = decompress(Files.readAllBytes(sessionStoreFile));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read session store. ", e);
+        }
+        
+        List<FirefoxCookie> cookies = new ArrayList<>();
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RuntimeException("Session store is not a JSON object. ");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("cookies".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        cookies.add(toCookie(parser.readValueAsTree()));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Json parse error. ", e);
+        }
+        return cookies;
+    }
+    
+    /**
+     * @param mozLz4 content of a `.jsonlz4` (or `.mozlz4`) file.
+     * @return decompressed content.
+     */
+    static byte[] decompress(byte[] mozLz4) {
+        if (mozLz4.length < HEADER_LENGTH || !ByteBuffer.wrap(mozLz4, 0, MAGIC.length).equals(ByteBuffer.wrap(MAGIC))) {
+            throw new RuntimeException("Not a mozLz4 file. ");
+        }
+        int decompressedSize = ByteBuffer.wrap(mozLz4, MAGIC.length, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        try {
+            return Lz4Block.decompress(mozLz4, HEADER_LENGTH, mozLz4.length - HEADER_LENGTH, decompressedSize);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Corrupted mozLz4 file. ", e);
+        }
+    }
+    
+    private static FirefoxCookie toCookie(JsonNode node) {
+        return new FirefoxCookie(node.path("host").asText(),
+                                 node.path("name").asText(),
+                                 node.path("value").asText(),
+                                 node.path("path").asText("/"),
+                                 0,
+                                 0,
+                                 0,
+                                 node.path("secure").asBoolean(),
+                                 node.path("httponly").asBoolean(),
+                                 node.path("sameSite").asInt(),
+                                 node.path("schemeMap").asInt(),
+                                 originAttributesSuffix(node.path("originAttributes")),
+                                 true);
+    }
+    
+    /**
+     * @return origin attributes as the suffix stored in {@code moz_cookies.originAttributes}, e.g.
+     * "^userContextId=1", where attributes with their default value are left out.
+     */
+    static String originAttributesSuffix(JsonNode originAttributes) {
+        StringBuilder suffix = new StringBuilder();
+        for (String[] attribute : ORIGIN_ATTRIBUTES) {
+            JsonNode value = originAttributes.path(attribute[0]);
+            String text;
+            if (value.isBoolean()) {
+                text = value.asBoolean() ? "1" : "";
+            } else if (value.isNumber()) {
+                text = value.asLong() == 0 ? "" : value.asText();
+            } else {
+                text = value.asText();
+            }
+            if (text.isEmpty()) {
+                continue;
+            }
+            
+            suffix.append(suffix.length() == 0 ? '^' : '&')
+                  .append(attribute[1])
+                  .append('=')
+                  .append(encode(text));
+        }
+        return suffix.toString();
+    }
+    
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
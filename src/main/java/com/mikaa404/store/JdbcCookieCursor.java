@@ -0,0 +1,201 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionStage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Maps rows of an open {@link ResultSet} on Chrome `cookies` table to {@link ChromeCookie}, one row at a time with lazy
+ * decryption, or in batches decrypted with a single call to the decryptor otherwise.
+ * <p>
+ * Columns are read by index, columns which were not selected get their default value.
+ */
+class JdbcCookieCursor implements CookieCursor {
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    /**
+     * Index in the result set of each column by ordinal, 0 for columns which were not selected.
+     */
+    private final int[] columnIndexes = new int[CookieColumn.values().length];
+    private final CookieDecryptor decryptor;
+    private final boolean lazyDecryption;
+    private final Runnable onClose;
+    private final ExtractionRecorder recorder;
+    private final ChromeCookieBatch batch;
+    
+    private ICookie nextCookie;
+    private boolean closed;
+    
+    JdbcCookieCursor(Connection connection,
+                     PreparedStatement statement,
+                     ResultSet resultSet,
+                     List<CookieColumn> columns,
+                     CookieDecryptor decryptor,
+                     boolean lazyDecryption,
+                     Runnable onClose,
+                     ExtractionRecorder recorder) {
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndexes[columns.get(i).ordinal()] = i + 1;
+        }
+        this.decryptor = decryptor;
+        this.lazyDecryption = lazyDecryption;
+        this.onClose = onClose;
+        this.recorder = recorder;
+        this.batch = new ChromeCookieBatch(lazyDecryption ? 1 : ChromeCookieBatch.BATCH_SIZE);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (nextCookie != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        
+        try {
+            nextCookie = readNext();
+            if (nextCookie != null) {
+                return true;
+            }
+        } catch (SQLException e) {
+            RuntimeException failure = new RuntimeException("Failed while execute SQL operations. ", e);
+            recorder.failed(ExtractionStage.SCAN, failure);
+            close();
+            throw failure;
+        } catch (RuntimeException e) {
+            recorder.failed(ExtractionStage.SCAN, e);
+            close();
+            throw e;
+        }
+        
+        close();
+        return false;
+    }
+    
+    @Override
+    public ICookie next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ICookie cookie = nextCookie;
+        nextCookie = null;
+        return cookie;
+    }
+    
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        
+        // resources are closed in reverse order, even if one of them fails
+        try {
+            try {
+                resultSet.close();
+            } finally {
+                try {
+                    statement.close();
+                } finally {
+                    connection.close();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed while execute SQL operations. ", e);
+        } finally {
+            try {
+                onClose.run();
+            } finally {
+                recorder.finish();
+            }
+        }
+    }
+    
+    private ICookie readNext() throws SQLException {
+        if (lazyDecryption) {
+            long start = recorder.start();
+            batch.clear();
+            ICookie cookie = resultSet.next() ? readRow(batch.add()).toLazyCookie(decryptor) : null;
+            recorder.end(ExtractionStage.SCAN, start);
+            recorder.rowsScanned(batch.size());
+            return cookie;
+        }
+        
+        ChromeCookie cookie = batch.poll();
+        if (cookie != null) {
+            return cookie;
+        }
+        long start = recorder.start();
+        batch.clear();
+        while (!batch.isFull() && resultSet.next()) {
+            readRow(batch.add());
+        }
+        recorder.end(ExtractionStage.SCAN, start);
+        recorder.rowsScanned(batch.size());
+        batch.decrypt(decryptor, recorder);
+        return batch.poll();
+    }
+    
+    private ChromeCookieBatch.Row readRow(ChromeCookieBatch.Row row) throws SQLException {
+        row.hostKey = getString(CookieColumn.HOST_KEY);
+        row.name = getString(CookieColumn.NAME);
+        row.encryptedValue = getBytes(CookieColumn.ENCRYPTED_VALUE);
+        // stored in plain text by old Chrome versions, or not selected
+        row.value = row.isEncrypted() || columnIndexes[CookieColumn.VALUE.ordinal()] == 0 ? null : getString(CookieColumn.VALUE);
+        row.path = getString(CookieColumn.PATH);
+        row.creationUtc = getLong(CookieColumn.CREATION_UTC);
+        row.topFrameSiteKey = getString(CookieColumn.TOP_FRAME_SITE_KEY);
+        row.expiresUtc = getLong(CookieColumn.EXPIRES_UTC);
+        row.isSecure = getBoolean(CookieColumn.IS_SECURE);
+        row.isHttpOnly = getBoolean(CookieColumn.IS_HTTPONLY);
+        row.lastAccessUtc = getLong(CookieColumn.LAST_ACCESS_UTC);
+        row.hasExpires = getBoolean(CookieColumn.HAS_EXPIRES);
+        row.isPersistent = getBoolean(CookieColumn.IS_PERSISTENT);
+        row.priority = getInt(CookieColumn.PRIORITY);
+        row.sameSite = getInt(CookieColumn.SAMESITE);
+        row.sourceScheme = getInt(CookieColumn.SOURCE_SCHEME);
+        row.sourcePort = getInt(CookieColumn.SOURCE_PORT);
+        row.isSameParty = getBoolean(CookieColumn.IS_SAME_PARTY);
+        row.lastUpdateUtc = getLong(CookieColumn.LAST_UPDATE_UTC);
+        return row;
+    }
+    
+    private String getString(CookieColumn column) throws SQLException {
+        int index = columnIndexes[column.ordinal()];
+        return index == 0 ? "" : resultSet.getString(index);
+    }
+    
+    private byte[] getBytes(CookieColumn column) throws SQLException {
+        int index = columnIndexes[column.ordinal()];
+        return index == 0 ? null : resultSet.getBytes(index);
+    }
+    
+    private long getLong(CookieColumn column) throws SQLException {
+        int index = columnIndexes[column.ordinal()];
+        return index == 0 ? column.getDefaultValue() : resultSet.getLong(index);
+    }
+    
+    private int getInt(CookieColumn column) throws SQLException {
+        return (int) getLong(column);
+    }
+    
+    private boolean getBoolean(CookieColumn column) throws SQLException {
+        return getLong(column) != 0;
+    }
+}
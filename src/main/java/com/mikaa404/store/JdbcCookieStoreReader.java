@@ -0,0 +1,110 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.CookieDecryptors;
+import com.mikaa404.metrics.ExtractionRecorder;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads Chrome `Cookies` files with sqlite-jdbc.
+ * <p>
+ * A running Chrome holds a lock on its `Cookies` files, so they are accessed according to a
+ * {@link StoreAccessStrategy}: read-only without locking, through an in-memory snapshot, or through a copy in a temp
+ * folder. Each cursor gets its own connection (and copy), which is released when the cursor is closed.
+ */
+public class JdbcCookieStoreReader implements CookieStoreReader {
+    private final CookieDecryptor decryptor;
+    private final boolean lazyDecryption;
+    private final SqliteStoreAccess storeAccess;
+    
+    /**
+     * Create a reader which copies `Cookies` files to a temp folder before reading them.
+     *
+     * @param decryptor      decryptor of cookies values.
+     * @param lazyDecryption whether cookies values are decrypted on first read rather than when the row is read.
+     * @param tempFolder     folder where `Cookies` files are copied, created if missing.
+     */
+    public JdbcCookieStoreReader(CookieDecryptor decryptor, boolean lazyDecryption, Path tempFolder) {
+        this(decryptor, lazyDecryption, tempFolder, StoreAccessStrategy.COPY);
+    }
+    
+    /**
+     * @param decryptor      decryptor of cookies values.
+     * @param lazyDecryption whether cookies values are decrypted on first read rather than when the row is read.
+     * @param tempFolder     folder where `Cookies` files are copied with {@link StoreAccessStrategy#COPY} or as
+     *                       fallback, created if missing.
+     * @param accessStrategy how `Cookies` files are accessed.
+     */
+    public JdbcCookieStoreReader(CookieDecryptor decryptor,
+                                 boolean lazyDecryption,
+                                 Path tempFolder,
+                                 StoreAccessStrategy accessStrategy) {
+        this.decryptor = decryptor;
+        this.lazyDecryption = lazyDecryption;
+        this.storeAccess = new SqliteStoreAccess(tempFolder, accessStrategy);
+    }
+    
+    @Override
+    public CookieCursor open(Path cookieFile, CookieQuery query) {
+        return open(cookieFile, query, ExtractionRecorder.disabled());
+    }
+    
+    @Override
+    public CookieCursor open(Path cookieFile, CookieQuery query, ExtractionRecorder recorder) {
+        return storeAccess.withStore(cookieFile, recorder, (connection, cleanup) -> {
+            ChromeCookieSql sql = ChromeCookieSql.select(query, CookieSchema.probe(connection));
+            CookieDecryptor storeDecryptor = CookieSchema.probeVersion(connection) >= CookieSchema.HOST_DIGEST_VERSION
+                                             ? CookieDecryptors.skippingHostDigest(decryptor)
+                                             : decryptor;
+            PreparedStatement statement = sql.prepare(connection);
+            try {
+                ResultSet resultSet = statement.executeQuery();
+                return new JdbcCookieCursor(connection, statement, resultSet, sql.getColumns(), storeDecryptor, lazyDecryption, cleanup, recorder);
+            } catch (SQLException e) {
+                SqliteStoreAccess.closeQuietly(statement);
+                throw e;
+            }
+        });
+    }
+    
+    @Override
+    public Set<CookieKey> readKeys(Path cookieFile) {
+        return storeAccess.withStore(cookieFile, (connection, cleanup) -> {
+            Set<CookieKey> keys = new HashSet<>();
+            try (Connection c = connection;
+                 Statement statement = c.createStatement();
+                 ResultSet resultSet = statement.executeQuery(ChromeCookieSql.selectKeys(CookieSchema.probe(c)))) {
+                while (resultSet.next()) {
+                    keys.add(new CookieKey(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3), resultSet.getString(4)));
+                }
+            } finally {
+                cleanup.run();
+            }
+            return keys;
+        });
+    }
+    
+    @Override
+    public int countCookies(Path cookieFile) {
+        return storeAccess.withStore(cookieFile, (connection, cleanup) -> {
+            try (Connection c = connection;
+                 Statement statement = c.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM cookies;")) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            } finally {
+                cleanup.run();
+            }
+        });
+    }
+}
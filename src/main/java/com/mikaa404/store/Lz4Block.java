@@ -0,0 +1,95 @@
+package com.mikaa404.store;
+
+/**
+ * Decoder of the LZ4 block format, as used by Firefox `.jsonlz4` files.
+ * <p>
+ * A block is a series of sequences, each made of literals copied as is and a match copying bytes already decoded.
+ * See <a href="https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md">LZ4 Block Format Description</a>.
+ */
+class Lz4Block {
+    private static final int MIN_MATCH = 4;
+    /**
+     * Each byte of a block decodes to at most 255 bytes, a larger size given by a corrupted header is rejected before
+     * it is allocated.
+     */
+    private static final int MAX_RATIO = 255;
+    
+    private Lz4Block() {
+    }
+    
+    /**
+     * @param source           buffer holding the block.
+     * @param offset           start of the block in the buffer.
+     * @param length           length of the block.
+     * @param decompressedSize size of the decoded data.
+     * @return decoded data.
+     * @throws IllegalArgumentException if the block is malformed or does not decode to the given size, or if the size
+     *                                  is negative or larger than the block can decode to.
+     */
+    static byte[] decompress(byte[] source, int offset, int length, int decompressedSize) {
+        if (decompressedSize < 0 || decompressedSize > (long) length * MAX_RATIO) {
+            throw new IllegalArgumentException("Invalid LZ4 decompressed size. ");
+        }
+        final byte[] destination = new byte[decompressedSize];
+        final int sourceEnd = offset + length;
+        int sourcePos = offset;
+        int destinationPos = 0;
+        
+        try {
+            while (true) {
+                final int token = source[sourcePos++] & 0xFF;
+                
+                int literalLength = token >>> 4;
+                if (literalLength == 15) {
+                    int b;
+                    do {
+                        b = source[sourcePos++] & 0xFF;
+                        literalLength += b;
+                    } while (b == 255);
+                }
+                System.arraycopy(source, sourcePos, destination, destinationPos, literalLength);
+                sourcePos += literalLength;
+                destinationPos += literalLength;
+                
+                // the last sequence only holds literals
+                if (sourcePos >= sourceEnd) {
+                    break;
+                }
+                
+                final int matchOffset = (source[sourcePos] & 0xFF) | (source[sourcePos + 1] & 0xFF) << 8;
+                sourcePos += 2;
+                if (matchOffset == 0 || matchOffset > destinationPos) {
+                    throw new IllegalArgumentException("Invalid LZ4 match offset. ");
+                }
+                
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = source[sourcePos++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                
+                int matchPos = destinationPos - matchOffset;
+                if (matchOffset >= matchLength) {
+                    System.arraycopy(destination, matchPos, destination, destinationPos, matchLength);
+                    destinationPos += matchLength;
+                } else {
+                    // overlapping match, repeats the last matchOffset bytes
+                    for (int i = 0; i < matchLength; i++) {
+                        destination[destinationPos++] = destination[matchPos++];
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or oversized LZ4 block. ", e);
+        }
+        
+        if (destinationPos != decompressedSize || sourcePos != sourceEnd) {
+            throw new IllegalArgumentException("LZ4 block does not match its size. ");
+        }
+        return destination;
+    }
+}
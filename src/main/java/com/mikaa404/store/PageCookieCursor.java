@@ -0,0 +1,325 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionStage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Maps {@link SqliteFile.Rows} of Chrome `cookies` table to {@link ChromeCookie}, with the same semantics as
+ * {@link JdbcCookieCursor}: every row is checked with {@link CookieQuery#matches(ICookie)}, columns which were not
+ * selected get their default value.
+ */
+class PageCookieCursor implements CookieCursor {
+    private final SqliteFile file;
+    private final SqliteFile.Rows rows;
+    /**
+     * Index in records of each column by ordinal, -1 for columns the table does not have.
+     */
+    private final int[] columnIndexes = new int[CookieColumn.values().length];
+    /**
+     * Value of each column by ordinal for records which do not hold it: the declared default of the table like sqlite
+     * reads it ({@code null} if it has none), or the default of {@link CookieColumn} for columns the table does not
+     * have.
+     */
+    private final String[] defaultValues = new String[CookieColumn.values().length];
+    private final long[] defaultLongs = new long[CookieColumn.values().length];
+    private final int rowidColumn;
+    private final CookieQuery query;
+    private final boolean filtered;
+    private final boolean projected;
+    private final CookieDecryptor decryptor;
+    private final boolean lazyDecryption;
+    private final ExtractionRecorder recorder;
+    private final ChromeCookieBatch batch;
+    
+    private ICookie nextCookie;
+    private boolean closed;
+    
+    /**
+     * @param file the file of the rows, closed with the cursor.
+     */
+    PageCookieCursor(SqliteFile file,
+                     SqliteFile.Rows rows,
+                     SqliteFile.Table table,
+                     CookieQuery query,
+                     CookieDecryptor decryptor,
+                     boolean lazyDecryption,
+                     ExtractionRecorder recorder) {
+        this.file = file;
+        this.rows = rows;
+        CookieSchema schema = CookieSchema.of(table.getColumnNames());
+        for (CookieColumn column : CookieColumn.values()) {
+            int index = schema.has(column) ? table.getColumnNames().indexOf(schema.columnName(column)) : -1;
+            columnIndexes[column.ordinal()] = index;
+            if (index < 0) {
+                defaultLongs[column.ordinal()] = column.getDefaultValue();
+            } else {
+                defaultValues[column.ordinal()] = table.getDefaultValue(index);
+                defaultLongs[column.ordinal()] = parseLong(defaultValues[column.ordinal()]);
+            }
+        }
+        this.rowidColumn = table.getRowidColumn();
+        // stores without update times can not tell which cookies changed, every cookie matches
+        this.query = schema.has(CookieColumn.LAST_UPDATE_UTC) ? query : query.withoutUpdatedAfter();
+        this.filtered = hasCriteria(this.query);
+        this.projected = query.getColumns().size() < CookieColumn.values().length;
+        this.decryptor = decryptor;
+        this.lazyDecryption = lazyDecryption;
+        this.recorder = recorder;
+        this.batch = new ChromeCookieBatch(lazyDecryption ? 1 : ChromeCookieBatch.BATCH_SIZE);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (nextCookie != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        
+        try {
+            nextCookie = readNext();
+        } catch (RuntimeException e) {
+            recorder.failed(ExtractionStage.SCAN, e);
+            close();
+            throw e;
+        } catch (InternalError e) {
+            // the mapped file was truncated while being read
+            RuntimeException failure = new RuntimeException("Cookie store changed while being read. ", e);
+            recorder.failed(ExtractionStage.SCAN, failure);
+            close();
+            throw failure;
+        }
+        if (nextCookie != null) {
+            return true;
+        }
+        close();
+        return false;
+    }
+    
+    @Override
+    public ICookie next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ICookie cookie = nextCookie;
+        nextCookie = null;
+        return cookie;
+    }
+    
+    /**
+     * Unmap the file, cookies already read stay valid: their values were copied from the mapping.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        file.close();
+        recorder.finish();
+    }
+    
+    private ICookie readNext() {
+        if (lazyDecryption) {
+            long start = recorder.start();
+            int scanned = 0;
+            ICookie cookie = null;
+            while (cookie == null && rows.next()) {
+                scanned++;
+                batch.clear();
+                ChromeCookieBatch.Row row = batch.add();
+                if (readRow(row)) {
+                    cookie = row.toLazyCookie(decryptor);
+                }
+            }
+            recorder.end(ExtractionStage.SCAN, start);
+            recorder.rowsScanned(scanned);
+            return cookie;
+        }
+        
+        ChromeCookie cookie = batch.poll();
+        if (cookie != null) {
+            return cookie;
+        }
+        long start = recorder.start();
+        int scanned = 0;
+        batch.clear();
+        while (!batch.isFull() && rows.next()) {
+            scanned++;
+            if (!readRow(batch.add())) {
+                batch.removeLast();
+            }
+        }
+        recorder.end(ExtractionStage.SCAN, start);
+        recorder.rowsScanned(scanned);
+        batch.decrypt(decryptor, recorder);
+        return batch.poll();
+    }
+    
+    /**
+     * @return whether the row matches the query.
+     */
+    private boolean readRow(ChromeCookieBatch.Row row) {
+        SqliteFile.Record record = rows.getRecord();
+        row.hostKey = getString(record, CookieColumn.HOST_KEY);
+        row.name = getString(record, CookieColumn.NAME);
+        row.encryptedValue = getBytes(record, CookieColumn.ENCRYPTED_VALUE);
+        // stored in plain text by old Chrome versions
+        row.value = row.isEncrypted() || columnIndexes[CookieColumn.VALUE.ordinal()] < 0 ? null : getString(record, CookieColumn.VALUE);
+        row.path = getString(record, CookieColumn.PATH);
+        row.creationUtc = getLong(record, CookieColumn.CREATION_UTC);
+        row.topFrameSiteKey = getString(record, CookieColumn.TOP_FRAME_SITE_KEY);
+        row.expiresUtc = getLong(record, CookieColumn.EXPIRES_UTC);
+        row.isSecure = getLong(record, CookieColumn.IS_SECURE) != 0;
+        row.isHttpOnly = getLong(record, CookieColumn.IS_HTTPONLY) != 0;
+        row.lastAccessUtc = getLong(record, CookieColumn.LAST_ACCESS_UTC);
+        row.hasExpires = getLong(record, CookieColumn.HAS_EXPIRES) != 0;
+        row.isPersistent = getLong(record, CookieColumn.IS_PERSISTENT) != 0;
+        row.priority = (int) getLong(record, CookieColumn.PRIORITY);
+        row.sameSite = (int) getLong(record, CookieColumn.SAMESITE);
+        row.sourceScheme = (int) getLong(record, CookieColumn.SOURCE_SCHEME);
+        row.sourcePort = (int) getLong(record, CookieColumn.SOURCE_PORT);
+        row.isSameParty = getLong(record, CookieColumn.IS_SAME_PARTY) != 0;
+        row.lastUpdateUtc = getLong(record, CookieColumn.LAST_UPDATE_UTC);
+        
+        // criteria apply to stored values, like in SQL, before unselected columns are reset
+        if (filtered && !query.matches(row.toCookie(null))) {
+            return false;
+        }
+        if (projected) {
+            project(row, query.getColumns());
+        }
+        return true;
+    }
+    
+    /**
+     * Reset columns which were not selected to the values {@link JdbcCookieCursor} gives them.
+     */
+    private static void project(ChromeCookieBatch.Row row, Set<CookieColumn> columns) {
+        for (CookieColumn column : CookieColumn.values()) {
+            if (columns.contains(column)) {
+                continue;
+            }
+            switch (column) {
+                case HOST_KEY:
+                    row.hostKey = "";
+                    break;
+                case NAME:
+                    row.name = "";
+                    break;
+                case VALUE:
+                    row.value = null;
+                    break;
+                case ENCRYPTED_VALUE:
+                    row.encryptedValue = null;
+                    break;
+                case PATH:
+                    row.path = "";
+                    break;
+                case CREATION_UTC:
+                    row.creationUtc = column.getDefaultValue();
+                    break;
+                case TOP_FRAME_SITE_KEY:
+                    row.topFrameSiteKey = "";
+                    break;
+                case EXPIRES_UTC:
+                    row.expiresUtc = column.getDefaultValue();
+                    break;
+                case IS_SECURE:
+                    row.isSecure = column.getDefaultValue() != 0;
+                    break;
+                case IS_HTTPONLY:
+                    row.isHttpOnly = column.getDefaultValue() != 0;
+                    break;
+                case LAST_ACCESS_UTC:
+                    row.lastAccessUtc = column.getDefaultValue();
+                    break;
+                case HAS_EXPIRES:
+                    row.hasExpires = column.getDefaultValue() != 0;
+                    break;
+                case IS_PERSISTENT:
+                    row.isPersistent = column.getDefaultValue() != 0;
+                    break;
+                case PRIORITY:
+                    row.priority = (int) column.getDefaultValue();
+                    break;
+                case SAMESITE:
+                    row.sameSite = (int) column.getDefaultValue();
+                    break;
+                case SOURCE_SCHEME:
+                    row.sourceScheme = (int) column.getDefaultValue();
+                    break;
+                case SOURCE_PORT:
+                    row.sourcePort = (int) column.getDefaultValue();
+                    break;
+                case IS_SAME_PARTY:
+                    row.isSameParty = column.getDefaultValue() != 0;
+                    break;
+                case LAST_UPDATE_UTC:
+                    row.lastUpdateUtc = column.getDefaultValue();
+                    break;
+            }
+        }
+    }
+    
+    private String getString(SqliteFile.Record record, CookieColumn column) {
+        int index = columnIndexes[column.ordinal()];
+        // columns added after the row was written are missing from its record
+        if (index < 0 || index >= record.getColumnCount()) {
+            return defaultValues[column.ordinal()] == null ? "" : defaultValues[column.ordinal()];
+        }
+        return record.getString(index);
+    }
+    
+    private byte[] getBytes(SqliteFile.Record record, CookieColumn column) {
+        int index = columnIndexes[column.ordinal()];
+        if (index >= 0 && index >= record.getColumnCount()) {
+            String defaultValue = defaultValues[column.ordinal()];
+            return defaultValue == null ? null : defaultValue.getBytes(StandardCharsets.UTF_8);
+        }
+        return index < 0 ? null : record.getBytes(index);
+    }
+    
+    private long getLong(SqliteFile.Record record, CookieColumn column) {
+        int index = columnIndexes[column.ordinal()];
+        if (index == rowidColumn && index >= 0) {
+            return rows.getRowid();
+        }
+        return index < 0 || index >= record.getColumnCount() ? defaultLongs[column.ordinal()] : record.getLong(index);
+    }
+    
+    /**
+     * @return the integer value sqlite gives a declared default, 0 for NULL and text which is not a number.
+     */
+    private static long parseLong(String defaultValue) {
+        if (defaultValue == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(defaultValue.startsWith("+") ? defaultValue.substring(1) : defaultValue);
+        } catch (NumberFormatException e) {
+            try {
+                return (long) Double.parseDouble(defaultValue);
+            } catch (NumberFormatException notANumber) {
+                return 0;
+            }
+        }
+    }
+    
+    private static boolean hasCriteria(CookieQuery query) {
+        return query.getHost() != null || query.getDomain() != null || query.getName() != null ||
+               query.getPathPrefix() != null || query.getExpired() != null || query.isSecureOnly() ||
+               query.getUpdatedAfter() != null;
+    }
+}
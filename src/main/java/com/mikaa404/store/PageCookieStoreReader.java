@@ -0,0 +1,155 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.CookieDecryptors;
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionStage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reads Chrome `Cookies` files without sqlite: the file and its `-wal` are memory-mapped and the pages of the
+ * `cookies` table are decoded directly, see {@link StoreAccessStrategy#MAPPED_PAGES}. Files are unmapped when the
+ * cursor is closed.
+ * <p>
+ * Exact host matches are looked up in {@code cookies_unique_index}, other queries scan every row and check it in
+ * memory. Files which can not be read this way (missing, not a sqlite file, unsupported encoding) are read with the
+ * fallback reader instead.
+ */
+public class PageCookieStoreReader implements CookieStoreReader {
+    private final CookieDecryptor decryptor;
+    private final boolean lazyDecryption;
+    private final CookieStoreReader fallback;
+    
+    /**
+     * @param decryptor      decryptor of cookies values.
+     * @param lazyDecryption whether cookies values are decrypted on first read rather than when the row is read.
+     * @param fallback       reader of files which can not be read page by page, e.g. a {@link JdbcCookieStoreReader}.
+     */
+    public PageCookieStoreReader(CookieDecryptor decryptor, boolean lazyDecryption, CookieStoreReader fallback) {
+        this.decryptor = decryptor;
+        this.lazyDecryption = lazyDecryption;
+        this.fallback = fallback;
+    }
+    
+    @Override
+    public CookieCursor open(Path cookieFile, CookieQuery query) {
+        return open(cookieFile, query, ExtractionRecorder.disabled());
+    }
+    
+    @Override
+    public CookieCursor open(Path cookieFile, CookieQuery query, ExtractionRecorder recorder) {
+        long start = recorder.start();
+        SqliteFile file;
+        SqliteFile.Table table;
+        CookieDecryptor storeDecryptor;
+        SqliteFile.Rows rows;
+        try {
+            file = SqliteFile.open(cookieFile);
+        } catch (IOException | RuntimeException e) {
+            recorder.end(ExtractionStage.STORE_OPEN, start);
+            return fallback.open(cookieFile, query, recorder);
+        }
+        try {
+            table = file.table("cookies");
+            storeDecryptor = readVersion(file) >= CookieSchema.HOST_DIGEST_VERSION
+                             ? CookieDecryptors.skippingHostDigest(decryptor)
+                             : decryptor;
+            rows = table == null ? null : select(file, table, query);
+        } catch (RuntimeException e) {
+            table = null;
+            storeDecryptor = null;
+            rows = null;
+        }
+        if (rows == null) {
+            file.close();
+            recorder.end(ExtractionStage.STORE_OPEN, start);
+            return fallback.open(cookieFile, query, recorder);
+        }
+        recorder.end(ExtractionStage.STORE_OPEN, start);
+        return new PageCookieCursor(file, rows, table, query, storeDecryptor, lazyDecryption, recorder);
+    }
+    
+    @Override
+    public Set<CookieKey> readKeys(Path cookieFile) {
+        SqliteFile file;
+        SqliteFile.Table table;
+        try {
+            file = SqliteFile.open(cookieFile);
+        } catch (IOException | RuntimeException e) {
+            return fallback.readKeys(cookieFile);
+        }
+        try {
+            table = file.table("cookies");
+        } catch (RuntimeException e) {
+            table = null;
+        }
+        if (table == null) {
+            file.close();
+            return fallback.readKeys(cookieFile);
+        }
+        
+        CookieQuery keyQuery = CookieQuery.builder()
+                                          .columns(CookieColumn.HOST_KEY, CookieColumn.TOP_FRAME_SITE_KEY, CookieColumn.NAME, CookieColumn.PATH)
+                                          .build();
+        Set<CookieKey> keys = new HashSet<>();
+        try (CookieCursor cursor = new PageCookieCursor(file, file.scan(table), table, keyQuery, decryptor, true, ExtractionRecorder.disabled())) {
+            cursor.forEachRemaining(cookie -> keys.add(CookieKey.of(cookie)));
+        }
+        return keys;
+    }
+    
+    @Override
+    public int countCookies(Path cookieFile) {
+        try (SqliteFile file = SqliteFile.open(cookieFile)) {
+            SqliteFile.Table table = file.table("cookies");
+            if (table != null) {
+                return file.count(table);
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // e.g. missing or corrupted file, handled by the fallback
+        }
+        return fallback.countCookies(cookieFile);
+    }
+    
+    /**
+     * Exact host matches use {@code cookies_unique_index}, whose first column is {@code host_key}, other queries scan
+     * the whole table.
+     */
+    private static SqliteFile.Rows select(SqliteFile file, SqliteFile.Table table, CookieQuery query) {
+        if (query.getHost() != null) {
+            int indexRootPage = file.index("cookies", "host_key");
+            if (indexRootPage != 0) {
+                return file.lookup(table, indexRootPage, query.getHost());
+            }
+        }
+        return file.scan(table);
+    }
+    
+    /**
+     * @return version of the store recorded in its `meta` table, 0 if the store has no `meta` table.
+     */
+    private static int readVersion(SqliteFile file) {
+        SqliteFile.Table meta = file.table("meta");
+        if (meta == null) {
+            return 0;
+        }
+        int keyColumn = meta.getColumnNames().indexOf("key");
+        int valueColumn = meta.getColumnNames().indexOf("value");
+        SqliteFile.Rows rows = file.scan(meta);
+        while (rows.next()) {
+            SqliteFile.Record record = rows.getRecord();
+            if ("version".equals(record.getString(keyColumn))) {
+                return Integer.parseInt(record.getString(valueColumn));
+            }
+        }
+        return 0;
+    }
+}
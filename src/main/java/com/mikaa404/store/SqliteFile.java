@@ -0,0 +1,986 @@
+package com.mikaa404.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A read-only view of a sqlite database file and its write-ahead log, both memory-mapped, which walks table b-tree
+ * pages directly instead of going through sqlite.
+ * <p>
+ * Pages are read as of the last commit found in the `-wal` file, like sqlite recovers a database without its
+ * `-shm` index. No lock is taken, so like {@link StoreAccessStrategy#READ_ONLY_IMMUTABLE} a read may see pages the
+ * browser is writing at the same time, which fails the read rather than returning wrong rows.
+ * <p>
+ * The files are unmapped when the view is {@link #close() closed}: on Windows, a live mapping keeps the browser from
+ * truncating `Cookies-wal` on checkpoint. Reading pages after closing throws {@link IllegalStateException}.
+ * <p>
+ * Only what Chrome `Cookies` files use is supported: UTF-8 text and rowid tables. See
+ * <a href="https://www.sqlite.org/fileformat2.html">the file format</a>.
+ */
+class SqliteFile implements Closeable {
+    private static final byte[] MAGIC = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 100;
+    private static final int TEXT_ENCODING_UTF_8 = 1;
+    private static final int INTERIOR_INDEX_PAGE = 2;
+    private static final int INTERIOR_TABLE_PAGE = 5;
+    private static final int LEAF_INDEX_PAGE = 10;
+    private static final int LEAF_TABLE_PAGE = 13;
+    private static final int WAL_HEADER_SIZE = 32;
+    private static final int WAL_FRAME_HEADER_SIZE = 24;
+    private static final int WAL_MAGIC = 0x377f0682;
+    /**
+     * Deeper trees would need more pages than a file can hold, so deeper paths mean a corrupted (or changing) file.
+     */
+    private static final int MAX_DEPTH = 32;
+    private static final Unmapper UNMAPPER = Unmapper.create();
+    
+    private final ByteBuffer database;
+    private final ByteBuffer wal;
+    /**
+     * Offset in the `-wal` file of the last committed frame of each page it holds.
+     */
+    private final Map<Integer, Integer> walPages;
+    private final int pageSize;
+    private final int usableSize;
+    private final int pageCount;
+    private boolean closed;
+    
+    private SqliteFile(ByteBuffer database, ByteBuffer wal, Map<Integer, Integer> walPages, int pageSize, int usableSize,
+                       int pageCount) {
+        this.database = database;
+        this.wal = wal;
+        this.walPages = walPages;
+        this.pageSize = pageSize;
+        this.usableSize = usableSize;
+        this.pageCount = pageCount;
+    }
+    
+    /**
+     * Map the database file and its `-wal` file if present. The files are only mapped, pages are read on demand.
+     */
+    static SqliteFile open(Path databaseFile) throws IOException {
+        ByteBuffer database = map(databaseFile);
+        try {
+            return open(databaseFile, database);
+        } catch (IOException | RuntimeException e) {
+            UNMAPPER.unmap(database);
+            throw e;
+        }
+    }
+    
+    private static SqliteFile open(Path databaseFile, ByteBuffer database) throws IOException {
+        if (database.limit() < HEADER_SIZE || !startsWith(database, MAGIC)) {
+            throw new IOException("Not a sqlite database: " + databaseFile);
+        }
+        if (database.getInt(56) != TEXT_ENCODING_UTF_8) {
+            throw new IOException("Only UTF-8 sqlite databases are supported. ");
+        }
+        
+        int pageSize = database.getShort(16) & 0xffff;
+        if (pageSize == 1) {
+            pageSize = 65536;
+        }
+        int usableSize = pageSize - (database.get(20) & 0xff);
+        int pageCount = database.limit() / pageSize;
+        
+        ByteBuffer wal = null;
+        Map<Integer, Integer> walPages = new HashMap<>();
+        try {
+            wal = map(Paths.get(databaseFile + "-wal"));
+            int walPageCount = readWal(wal, pageSize, walPages);
+            if (walPageCount > 0) {
+                pageCount = walPageCount;
+            }
+        } catch (NoSuchFileException ignored) {
+            // not in WAL mode, or every change was checkpointed
+        } catch (RuntimeException e) {
+            UNMAPPER.unmap(wal);
+            throw e;
+        }
+        return new SqliteFile(database, wal, walPages, pageSize, usableSize, pageCount);
+    }
+    
+    /**
+     * Unmap the files now rather than when garbage collected, so the browser can truncate them.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        UNMAPPER.unmap(database);
+        UNMAPPER.unmap(wal);
+    }
+    
+    /**
+     * Find a table in the schema table, rooted at page 1.
+     *
+     * @return the table, or {@code null} if the database has no such table.
+     */
+    Table table(String name) {
+        TableScan schema = new TableScan(1);
+        while (schema.next()) {
+            Record record = schema.getRecord();
+            if ("table".equals(record.getString(0)) && name.equalsIgnoreCase(record.getString(1))) {
+                return Table.parse((int) record.getLong(3), record.getString(4));
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Find an index of a table whose first column is the given one, e.g. {@code cookies_unique_index}.
+     *
+     * @return root page of the index, or 0 if the table has no such index.
+     */
+    int index(String tableName, String firstColumn) {
+        TableScan schema = new TableScan(1);
+        while (schema.next()) {
+            Record record = schema.getRecord();
+            String sql = record.getString(4);
+            // automatic indexes of UNIQUE constraints have no statement
+            if ("index".equals(record.getString(0)) && tableName.equalsIgnoreCase(record.getString(2)) && sql != null) {
+                List<String> definitions = Table.splitDefinitions(sql.substring(sql.indexOf('(') + 1, sql.lastIndexOf(')')));
+                if (firstColumn.equalsIgnoreCase(Table.unquote(definitions.get(0).trim().split("\\s+")[0]))) {
+                    return (int) record.getLong(3);
+                }
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * @return a scan over rows of the table, in rowid order.
+     */
+    Rows scan(Table table) {
+        return new TableScan(table.rootPage);
+    }
+    
+    /**
+     * @return number of rows of the table, summed from the cell counts of its leaf pages without reading any row.
+     */
+    int count(Table table) {
+        return count(table.rootPage, 0);
+    }
+    
+    private int count(int pageNumber, int depth) {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("Table b-tree is too deep. ");
+        }
+        ByteBuffer page = page(pageNumber);
+        int header = pageNumber == 1 ? HEADER_SIZE : 0;
+        int pageType = page.get(header);
+        int cellCount = page.getShort(header + 3) & 0xffff;
+        if (pageType == LEAF_TABLE_PAGE) {
+            return cellCount;
+        }
+        if (pageType != INTERIOR_TABLE_PAGE) {
+            throw new IllegalStateException(String.format("Page %d is not a table b-tree page. ", pageNumber));
+        }
+        int count = count(page.getInt(header + 8), depth + 1);
+        for (int i = 0; i < cellCount; i++) {
+            int cell = page.getShort(header + 12 + 2 * i) & 0xffff;
+            count += count(page.getInt(cell), depth + 1);
+        }
+        return count;
+    }
+    
+    /**
+     * @param indexRootPage root page of an index of the table, see {@link #index(String, String)}.
+     * @param key           value of the first column of the index.
+     * @return rows of the table whose first indexed column is equal to the key, in index order.
+     */
+    Rows lookup(Table table, int indexRootPage, String key) {
+        return new IndexLookup(table.rootPage, indexRootPage, key.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Copy the payload of a cell into the record, following overflow pages.
+     *
+     * @param maxLocal largest payload stored in the cell itself, which depends on the b-tree type.
+     */
+    private void readPayload(ByteBuffer page, int offset, int payloadSize, int maxLocal, Record record) {
+        byte[] payload = record.prepare(payloadSize);
+        int localSize = localPayloadSize(payloadSize, maxLocal);
+        copy(page, offset, payload, 0, localSize);
+        
+        int copied = localSize;
+        int overflowPage = copied < payloadSize ? page.getInt(offset + localSize) : 0;
+        while (copied < payloadSize) {
+            ByteBuffer overflow = page(overflowPage);
+            int length = Math.min(usableSize - 4, payloadSize - copied);
+            copy(overflow, 4, payload, copied, length);
+            copied += length;
+            overflowPage = overflow.getInt(0);
+        }
+    }
+    
+    /**
+     * @return number of payload bytes stored in the cell itself, the rest is on overflow pages.
+     */
+    private int localPayloadSize(int payloadSize, int maxLocal) {
+        if (payloadSize <= maxLocal) {
+            return payloadSize;
+        }
+        int minLocal = ((usableSize - 12) * 32 / 255) - 23;
+        int localSize = minLocal + (payloadSize - minLocal) % (usableSize - 4);
+        return localSize <= maxLocal ? localSize : minLocal;
+    }
+    
+    /**
+     * Unmapped memory must not be read, which would crash the JVM.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Sqlite file is closed. ");
+        }
+    }
+    
+    private static void copy(ByteBuffer page, int offset, byte[] target, int targetOffset, int length) {
+        ByteBuffer source = page.duplicate();
+        source.position(offset);
+        source.get(target, targetOffset, length);
+    }
+    
+    /**
+     * @return a read-only view of the page, from the `-wal` file if it holds a committed version of the page.
+     */
+    private ByteBuffer page(int pageNumber) {
+        checkOpen();
+        if (pageNumber < 1 || pageNumber > pageCount) {
+            throw new IllegalStateException(String.format("Page %d is out of the database. ", pageNumber));
+        }
+        Integer walOffset = walPages.get(pageNumber);
+        ByteBuffer source = walOffset == null ? database : wal;
+        int offset = walOffset == null ? (pageNumber - 1) * pageSize : walOffset + WAL_FRAME_HEADER_SIZE;
+        if (offset + pageSize > source.limit()) {
+            throw new IllegalStateException(String.format("Page %d is out of the database. ", pageNumber));
+        }
+        ByteBuffer page = source.duplicate();
+        page.limit(offset + pageSize).position(offset);
+        return page.slice();
+    }
+    
+    /**
+     * Read frames of the `-wal` file up to the last valid commit, as sqlite does when recovering the WAL index. Frames
+     * whose salt or cumulative checksum does not match were left over from a previous WAL generation, or are still
+     * being written.
+     *
+     * @return page count of the database as of the last commit, or 0 if the WAL holds no commit.
+     */
+    private static int readWal(ByteBuffer wal, int pageSize, Map<Integer, Integer> committedPages) {
+        if (wal.limit() < WAL_HEADER_SIZE || (wal.getInt(0) & ~1) != WAL_MAGIC || wal.getInt(8) != pageSize) {
+            return 0;
+        }
+        ByteBuffer words = wal.duplicate().order((wal.getInt(0) & 1) == 1 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        int[] checksum = new int[2];
+        addChecksum(words, 0, 24, checksum);
+        if (checksum[0] != wal.getInt(24) || checksum[1] != wal.getInt(28)) {
+            return 0;
+        }
+        
+        final int salt1 = wal.getInt(16);
+        final int salt2 = wal.getInt(20);
+        Map<Integer, Integer> pendingPages = new HashMap<>();
+        int committedPageCount = 0;
+        for (int offset = WAL_HEADER_SIZE; offset + WAL_FRAME_HEADER_SIZE + pageSize <= wal.limit();
+             offset += WAL_FRAME_HEADER_SIZE + pageSize) {
+            if (wal.getInt(offset + 8) != salt1 || wal.getInt(offset + 12) != salt2) {
+                break;
+            }
+            addChecksum(words, offset, 8, checksum);
+            addChecksum(words, offset + WAL_FRAME_HEADER_SIZE, pageSize, checksum);
+            if (checksum[0] != wal.getInt(offset + 16) || checksum[1] != wal.getInt(offset + 20)) {
+                break;
+            }
+            
+            pendingPages.put(wal.getInt(offset), offset);
+            int pageCountAfterCommit = wal.getInt(offset + 4);
+            if (pageCountAfterCommit != 0) {
+                committedPages.putAll(pendingPages);
+                pendingPages.clear();
+                committedPageCount = pageCountAfterCommit;
+            }
+        }
+        return committedPageCount;
+    }
+    
+    private static void addChecksum(ByteBuffer words, int offset, int length, int[] checksum) {
+        int s0 = checksum[0];
+        int s1 = checksum[1];
+        for (int i = offset; i < offset + length; i += 8) {
+            s0 += words.getInt(i) + s1;
+            s1 += words.getInt(i + 4) + s0;
+        }
+        checksum[0] = s0;
+        checksum[1] = s1;
+    }
+    
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to be mapped: " + file);
+            }
+            // the mapping stays valid after the channel is closed, until it is unmapped by close()
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+    
+    private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @return value of the varint at {@code offset}, and its length in bytes in {@code length[0]}.
+     */
+    private static long readVarint(ByteBuffer buffer, int offset, int[] length) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            int b = buffer.get(offset + i) & 0xff;
+            value = (value << 7) | (b & 0x7f);
+            if ((b & 0x80) == 0) {
+                length[0] = i + 1;
+                return value;
+            }
+        }
+        length[0] = 9;
+        return (value << 8) | (buffer.get(offset + 8) & 0xff);
+    }
+    
+    private static long readVarint(byte[] buffer, int offset, int[] length) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            int b = buffer[offset + i] & 0xff;
+            value = (value << 7) | (b & 0x7f);
+            if ((b & 0x80) == 0) {
+                length[0] = i + 1;
+                return value;
+            }
+        }
+        length[0] = 9;
+        return (value << 8) | (buffer[offset + 8] & 0xff);
+    }
+    
+    /**
+     * A rowid table, with its columns in record order as declared by its {@code CREATE TABLE} statement.
+     */
+    static class Table {
+        private static final Pattern DEFAULT_VALUE =
+                Pattern.compile("\\bDEFAULT\\s+(?:'((?:[^']|'')*)'|\\(?\\s*([-+]?[\\w.]+)\\s*\\)?)", Pattern.CASE_INSENSITIVE);
+        
+        private final int rootPage;
+        private final List<String> columnNames;
+        private final List<String> defaultValues;
+        private final int rowidColumn;
+        
+        private Table(int rootPage, List<String> columnNames, List<String> defaultValues, int rowidColumn) {
+            this.rootPage = rootPage;
+            this.columnNames = columnNames;
+            this.defaultValues = defaultValues;
+            this.rowidColumn = rowidColumn;
+        }
+        
+        static Table parse(int rootPage, String createSql) {
+            int start = createSql.indexOf('(');
+            int end = createSql.lastIndexOf(')');
+            if (start < 0 || end < start) {
+                throw new IllegalStateException("Unexpected table definition: " + createSql);
+            }
+            if (createSql.substring(end + 1).toUpperCase(Locale.ROOT).contains("WITHOUT ROWID")) {
+                throw new UnsupportedOperationException("WITHOUT ROWID tables are not supported. ");
+            }
+            
+            List<String> columnNames = new ArrayList<>();
+            List<String> defaultValues = new ArrayList<>();
+            int rowidColumn = -1;
+            for (String definition : splitDefinitions(createSql.substring(start + 1, end))) {
+                String[] tokens = definition.trim().split("\\s+");
+                String keyword = tokens[0].toUpperCase(Locale.ROOT);
+                if (keyword.equals("CONSTRAINT") || keyword.equals("PRIMARY") || keyword.equals("UNIQUE") ||
+                    keyword.equals("CHECK") || keyword.equals("FOREIGN")) {
+                    continue;
+                }
+                // an INTEGER PRIMARY KEY column is an alias of the rowid and stored as NULL in records
+                String upperCaseDefinition = definition.toUpperCase(Locale.ROOT);
+                if (tokens.length > 1 && tokens[1].equalsIgnoreCase("INTEGER") && upperCaseDefinition.contains("PRIMARY KEY") &&
+                    !upperCaseDefinition.contains("DESC")) {
+                    rowidColumn = columnNames.size();
+                }
+                columnNames.add(unquote(tokens[0]));
+                defaultValues.add(parseDefaultValue(definition));
+            }
+            return new Table(rootPage, columnNames, defaultValues, rowidColumn);
+        }
+        
+        List<String> getColumnNames() {
+            return columnNames;
+        }
+        
+        /**
+         * Records written before a column was added (by {@code ALTER TABLE ... ADD COLUMN}) do not hold it, sqlite
+         * reads its declared default instead.
+         *
+         * @return declared default of the column as text, or {@code null} if it has none (the default is NULL).
+         */
+        String getDefaultValue(int column) {
+            return defaultValues.get(column);
+        }
+        
+        /**
+         * Literal defaults only, which are the only ones {@code ADD COLUMN} accepts.
+         */
+        static String parseDefaultValue(String definition) {
+            Matcher matcher = DEFAULT_VALUE.matcher(definition);
+            if (!matcher.find()) {
+                return null;
+            }
+            if (matcher.group(1) != null) {
+                return matcher.group(1).replace("''", "'");
+            }
+            String literal = matcher.group(2);
+            if (literal.equalsIgnoreCase("NULL")) {
+                return null;
+            }
+            if (literal.equalsIgnoreCase("TRUE")) {
+                return "1";
+            }
+            return literal.equalsIgnoreCase("FALSE") ? "0" : literal;
+        }
+        
+        /**
+         * @return index of the column aliasing the rowid, or -1 if there is none.
+         */
+        int getRowidColumn() {
+            return rowidColumn;
+        }
+        
+        static List<String> splitDefinitions(String definitions) {
+            List<String> result = new ArrayList<>();
+            int depth = 0;
+            char quote = 0;
+            int start = 0;
+            for (int i = 0; i < definitions.length(); i++) {
+                char c = definitions.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                } else if (c == '[') {
+                    quote = ']';
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    result.add(definitions.substring(start, i));
+                    start = i + 1;
+                }
+            }
+            result.add(definitions.substring(start));
+            return result;
+        }
+        
+        static String unquote(String name) {
+            if (name.length() >= 2 && "\"`[".indexOf(name.charAt(0)) >= 0) {
+                return name.substring(1, name.length() - 1);
+            }
+            return name;
+        }
+    }
+    
+    /**
+     * Rows of a table, read one at a time.
+     */
+    interface Rows {
+        /**
+         * Move to the next row.
+         *
+         * @return false if there are no rows left.
+         */
+        boolean next();
+        
+        long getRowid();
+        
+        /**
+         * @return the current row, valid until the next call of {@link #next()}.
+         */
+        Record getRecord();
+    }
+    
+    /**
+     * Walks the leaves of a table b-tree from left to right. The payload of the current row is copied into a reused
+     * buffer, following overflow pages, and decoded on demand by its {@link Record}.
+     */
+    class TableScan implements Rows {
+        private final ByteBuffer[] pages = new ByteBuffer[MAX_DEPTH];
+        /**
+         * Offset of the b-tree page header, which follows the database header on page 1.
+         */
+        private final int[] headerOffsets = new int[MAX_DEPTH];
+        /**
+         * For interior pages, index of the next child to visit. For the leaf, index of the next cell.
+         */
+        private final int[] nextIndexes = new int[MAX_DEPTH];
+        private final int[] varintLength = new int[1];
+        private final Record record = new Record();
+        private int depth;
+        private long rowid;
+        
+        private TableScan(int rootPage) {
+            descend(rootPage);
+        }
+        
+        @Override
+        public boolean next() {
+            // pages on the path to the current leaf are kept between rows
+            checkOpen();
+            while (depth > 0) {
+                int top = depth - 1;
+                ByteBuffer page = pages[top];
+                int header = headerOffsets[top];
+                int cellCount = page.getShort(header + 3) & 0xffff;
+                if (page.get(header) == LEAF_TABLE_PAGE) {
+                    if (nextIndexes[top] < cellCount) {
+                        readCell(page, page.getShort(header + 8 + 2 * nextIndexes[top]++) & 0xffff);
+                        return true;
+                    }
+                    depth--;
+                } else if (nextIndexes[top] < cellCount) {
+                    int cell = page.getShort(header + 12 + 2 * nextIndexes[top]++) & 0xffff;
+                    descend(page.getInt(cell));
+                } else if (nextIndexes[top] == cellCount) {
+                    nextIndexes[top]++;
+                    descend(page.getInt(header + 8));
+                } else {
+                    depth--;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public long getRowid() {
+            return rowid;
+        }
+        
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+        
+        private void descend(int pageNumber) {
+            if (depth == MAX_DEPTH) {
+                throw new IllegalStateException("Table b-tree is too deep. ");
+            }
+            ByteBuffer page = page(pageNumber);
+            int header = pageNumber == 1 ? HEADER_SIZE : 0;
+            int pageType = page.get(header);
+            if (pageType != LEAF_TABLE_PAGE && pageType != INTERIOR_TABLE_PAGE) {
+                throw new IllegalStateException(String.format("Page %d is not a table b-tree page. ", pageNumber));
+            }
+            pages[depth] = page;
+            headerOffsets[depth] = header;
+            nextIndexes[depth] = 0;
+            depth++;
+        }
+        
+        private void readCell(ByteBuffer page, int offset) {
+            long payloadSize = readVarint(page, offset, varintLength);
+            offset += varintLength[0];
+            rowid = readVarint(page, offset, varintLength);
+            offset += varintLength[0];
+            if (payloadSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Row is too large. ");
+            }
+            
+            readPayload(page, offset, (int) payloadSize, usableSize - 35, record);
+        }
+    }
+    
+    /**
+     * Finds the rowids of an index whose first column equals a key, then reads each row from the table b-tree by
+     * rowid. Only the pages on the path to matching entries are read.
+     */
+    class IndexLookup implements Rows {
+        private final int tableRootPage;
+        private final byte[] key;
+        private final Record record = new Record();
+        private final int[] varintLength = new int[1];
+        private long[] rowids = new long[16];
+        private int rowidCount;
+        private int position;
+        
+        private IndexLookup(int tableRootPage, int indexRootPage, byte[] key) {
+            this.tableRootPage = tableRootPage;
+            this.key = key;
+            collectRowids(indexRootPage, 0);
+        }
+        
+        @Override
+        public boolean next() {
+            while (position < rowidCount) {
+                if (seek(rowids[position++])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public long getRowid() {
+            return rowids[position - 1];
+        }
+        
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+        
+        /**
+         * Entries of interior index pages are not repeated in leaves, so they are collected in order between the
+         * children around them. A child holds the keys up to its entry, and is skipped when that entry is lower than
+         * the key.
+         */
+        private void collectRowids(int pageNumber, int depth) {
+            if (depth == MAX_DEPTH) {
+                throw new IllegalStateException("Index b-tree is too deep. ");
+            }
+            ByteBuffer page = page(pageNumber);
+            int header = pageNumber == 1 ? HEADER_SIZE : 0;
+            int pageType = page.get(header);
+            if (pageType != LEAF_INDEX_PAGE && pageType != INTERIOR_INDEX_PAGE) {
+                throw new IllegalStateException(String.format("Page %d is not an index b-tree page. ", pageNumber));
+            }
+            boolean leaf = pageType == LEAF_INDEX_PAGE;
+            int cellCount = page.getShort(header + 3) & 0xffff;
+            int maxLocal = ((usableSize - 12) * 64 / 255) - 23;
+            for (int i = 0; i < cellCount; i++) {
+                int cell = page.getShort(header + (leaf ? 8 : 12) + 2 * i) & 0xffff;
+                int offset = leaf ? cell : cell + 4;
+                long payloadSize = readVarint(page, offset, varintLength);
+                readPayload(page, offset + varintLength[0], (int) payloadSize, maxLocal, record);
+                int comparison = compareFirstColumn();
+                // read before the child overwrites the record
+                long rowid = comparison == 0 ? record.getLong(record.getColumnCount() - 1) : 0;
+                if (!leaf && comparison >= 0) {
+                    collectRowids(page.getInt(cell), depth + 1);
+                }
+                if (comparison == 0) {
+                    addRowid(rowid);
+                } else if (comparison > 0) {
+                    return;
+                }
+            }
+            if (!leaf) {
+                collectRowids(page.getInt(header + 8), depth + 1);
+            }
+        }
+        
+        /**
+         * Compare the first column of the current entry to the key, as sqlite does with the BINARY collation: NULL and
+         * numbers sort before text, blobs after it.
+         */
+        private int compareFirstColumn() {
+            int serialType = record.getSerialType(0);
+            if (serialType < 12) {
+                return -1;
+            } else if (serialType % 2 == 0) {
+                return 1;
+            }
+            byte[] payload = record.payload;
+            int offset = record.getOffset(0);
+            int length = (serialType - 13) / 2;
+            for (int i = 0; i < Math.min(length, key.length); i++) {
+                int difference = (payload[offset + i] & 0xff) - (key[i] & 0xff);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return length - key.length;
+        }
+        
+        private void addRowid(long rowid) {
+            if (rowidCount == rowids.length) {
+                rowids = Arrays.copyOf(rowids, rowidCount * 2);
+            }
+            rowids[rowidCount++] = rowid;
+        }
+        
+        /**
+         * Read the row of the rowid into the record.
+         *
+         * @return false if the table has no such row.
+         */
+        private boolean seek(long rowid) {
+            int pageNumber = tableRootPage;
+            for (int depth = 0; depth < MAX_DEPTH; depth++) {
+                ByteBuffer page = page(pageNumber);
+                int header = pageNumber == 1 ? HEADER_SIZE : 0;
+                int pageType = page.get(header);
+                int cellCount = page.getShort(header + 3) & 0xffff;
+                if (pageType == LEAF_TABLE_PAGE) {
+                    for (int i = 0; i < cellCount; i++) {
+                        int cell = page.getShort(header + 8 + 2 * i) & 0xffff;
+                        long payloadSize = readVarint(page, cell, varintLength);
+                        int offset = cell + varintLength[0];
+                        long cellRowid = readVarint(page, offset, varintLength);
+                        if (cellRowid == rowid) {
+                            readPayload(page, offset + varintLength[0], (int) payloadSize, usableSize - 35, record);
+                            return true;
+                        }
+                    }
+                    return false;
+                } else if (pageType != INTERIOR_TABLE_PAGE) {
+                    throw new IllegalStateException(String.format("Page %d is not a table b-tree page. ", pageNumber));
+                }
+                
+                // the left child of the first cell whose key is not lower holds the rowid, else the right-most child
+                pageNumber = page.getInt(header + 8);
+                for (int i = 0; i < cellCount; i++) {
+                    int cell = page.getShort(header + 12 + 2 * i) & 0xffff;
+                    if (readVarint(page, cell + 4, varintLength) >= rowid) {
+                        pageNumber = page.getInt(cell);
+                        break;
+                    }
+                }
+            }
+            throw new IllegalStateException("Table b-tree is too deep. ");
+        }
+    }
+    
+    /**
+     * Values of a row in sqlite record format: a header of serial types, then the values. Columns added to the table
+     * after the row was written are missing from the record.
+     */
+    static class Record {
+        private final int[] varintLength = new int[1];
+        private byte[] payload = new byte[256];
+        private int[] serialTypes = new int[32];
+        private int[] offsets = new int[32];
+        private int columnCount;
+        private int payloadSize;
+        
+        private byte[] prepare(int size) {
+            if (payload.length < size) {
+                payload = new byte[Math.max(size, payload.length * 2)];
+            }
+            payloadSize = size;
+            columnCount = -1;
+            return payload;
+        }
+        
+        /**
+         * @return number of values in the record, columns of higher index are missing.
+         */
+        int getColumnCount() {
+            parseHeader();
+            return columnCount;
+        }
+        
+        int getSerialType(int column) {
+            return column < getColumnCount() ? serialTypes[column] : 0;
+        }
+        
+        int getOffset(int column) {
+            return offsets[column];
+        }
+        
+        boolean isNull(int column) {
+            return column >= getColumnCount() || serialTypes[column] == 0;
+        }
+        
+        long getLong(int column) {
+            if (isNull(column)) {
+                return 0;
+            }
+            int serialType = serialTypes[column];
+            int offset = offsets[column];
+            switch (serialType) {
+                case 8:
+                    return 0;
+                case 9:
+                    return 1;
+                case 7:
+                    return (long) Double.longBitsToDouble(readInteger(offset, 8));
+                default:
+                    if (serialType >= 1 && serialType <= 6) {
+                        return readInteger(offset, integerSize(serialType));
+                    }
+                    throw new IllegalStateException(String.format("Column %d is not an integer. ", column));
+            }
+        }
+        
+        /**
+         * @return text value, or {@code null} if the value is NULL.
+         */
+        String getString(int column) {
+            if (isNull(column)) {
+                return null;
+            }
+            int serialType = serialTypes[column];
+            if (serialType < 12) {
+                return Long.toString(getLong(column));
+            }
+            return new String(payload, offsets[column], (serialType - 12) / 2, StandardCharsets.UTF_8);
+        }
+        
+        /**
+         * @return a copy of the blob or text value, or {@code null} if the value is NULL.
+         */
+        byte[] getBytes(int column) {
+            if (isNull(column)) {
+                return null;
+            }
+            int serialType = serialTypes[column];
+            if (serialType < 12) {
+                return getString(column).getBytes(StandardCharsets.UTF_8);
+            }
+            int offset = offsets[column];
+            byte[] value = new byte[(serialType - 12) / 2];
+            System.arraycopy(payload, offset, value, 0, value.length);
+            return value;
+        }
+        
+        private void parseHeader() {
+            if (columnCount >= 0) {
+                return;
+            }
+            int[] length = varintLength;
+            int headerSize = (int) readVarint(payload, 0, length);
+            int position = length[0];
+            int offset = headerSize;
+            int count = 0;
+            while (position < headerSize) {
+                if (count == serialTypes.length) {
+                    serialTypes = Arrays.copyOf(serialTypes, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                int serialType = (int) readVarint(payload, position, length);
+                position += length[0];
+                serialTypes[count] = serialType;
+                offsets[count] = offset;
+                offset += valueSize(serialType);
+                count++;
+            }
+            if (offset > payloadSize) {
+                throw new IllegalStateException("Record is larger than its payload. ");
+            }
+            columnCount = count;
+        }
+        
+        private long readInteger(int offset, int size) {
+            // big-endian two's complement, sign extended from the first byte
+            long value = payload[offset];
+            for (int i = 1; i < size; i++) {
+                value = (value << 8) | (payload[offset + i] & 0xff);
+            }
+            return value;
+        }
+        
+        private static int integerSize(int serialType) {
+            return serialType == 5 ? 6 : serialType == 6 ? 8 : serialType;
+        }
+        
+        private static int valueSize(int serialType) {
+            if (serialType >= 12) {
+                return (serialType - 12) / 2;
+            }
+            switch (serialType) {
+                case 0:
+                case 8:
+                case 9:
+                    return 0;
+                case 7:
+                    return 8;
+                default:
+                    if (serialType >= 1 && serialType <= 6) {
+                        return integerSize(serialType);
+                    }
+                    throw new IllegalStateException(String.format("Unknown serial type %d. ", serialType));
+            }
+        }
+    }
+    
+    /**
+     * Releases mappings without waiting for garbage collection, with {@code Unsafe.invokeCleaner} on Java 9 and later,
+     * or the cleaner of {@code DirectBuffer} on Java 8. If neither is available, mappings are released when garbage
+     * collected.
+     */
+    private static class Unmapper {
+        private final Object unsafe;
+        private final Method invokeCleaner;
+        private final Method cleaner;
+        private final Method clean;
+        
+        private Unmapper(Object unsafe, Method invokeCleaner, Method cleaner, Method clean) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+            this.cleaner = cleaner;
+            this.clean = clean;
+        }
+        
+        static Unmapper create() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return new Unmapper(theUnsafe.get(null), invokeCleaner, null, null);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // Java 8
+            }
+            try {
+                Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                return new Unmapper(null, null, cleaner, clean);
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                return new Unmapper(null, null, null, null);
+            }
+        }
+        
+        void unmap(ByteBuffer buffer) {
+            if (buffer == null || !buffer.isDirect()) {
+                return;
+            }
+            try {
+                if (invokeCleaner != null) {
+                    invokeCleaner.invoke(unsafe, buffer);
+                } else if (cleaner != null) {
+                    Object bufferCleaner = cleaner.invoke(buffer);
+                    if (bufferCleaner != null) {
+                        clean.invoke(bufferCleaner);
+                    }
+                }
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+                // released when garbage collected
+            }
+        }
+    }
+}
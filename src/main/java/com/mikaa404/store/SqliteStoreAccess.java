@@ -0,0 +1,211 @@
+package com.mikaa404.store;
+
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionStage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Opens sqlite cookie store files, which may be open (and locked) by a running browser, according to a
+ * {@link StoreAccessStrategy}.
+ */
+class SqliteStoreAccess {
+    private static final Runnable NO_CLEANUP = () -> {
+    };
+    
+    private final Path tempFolder;
+    private final StoreAccessStrategy accessStrategy;
+    
+    /**
+     * @param tempFolder     folder where store files are copied with {@link StoreAccessStrategy#COPY} or as fallback,
+     *                       created if missing.
+     * @param accessStrategy how store files are accessed.
+     */
+    SqliteStoreAccess(Path tempFolder, StoreAccessStrategy accessStrategy) {
+        this.tempFolder = tempFolder;
+        this.accessStrategy = accessStrategy;
+    }
+    
+    /**
+     * Access the store with the configured strategy, falling back to a copy if it fails.
+     */
+    <T> T withStore(Path cookieFile, StoreAction<T> action) {
+        return withStore(cookieFile, ExtractionRecorder.disabled(), action);
+    }
+    
+    /**
+     * Same as {@link #withStore(Path, StoreAction)}, recording copies and time spent opening the store. If it fails,
+     * the failure is recorded and the recorder finished.
+     * <p>
+     * Only failures to open the store fall back to a copy, failures of the action are thrown as they are.
+     */
+    <T> T withStore(Path cookieFile, ExtractionRecorder recorder, StoreAction<T> action) {
+        try {
+            long start = recorder.start();
+            Connection connection = null;
+            Runnable cleanup = NO_CLEANUP;
+            Exception openFailure = null;
+            try {
+                if (accessStrategy != StoreAccessStrategy.COPY) {
+                    try {
+                        connection = open(cookieFile, accessStrategy);
+                    } catch (SQLException | RuntimeException e) {
+                        // e.g. sqlite built without URI filenames support, try again with a copy
+                        openFailure = e;
+                    }
+                }
+                if (connection == null) {
+                    // time spent copying is recorded as its own stage
+                    recorder.end(ExtractionStage.STORE_OPEN, start);
+                    Path copy = copyFileToTemp(cookieFile, recorder);
+                    start = recorder.start();
+                    cleanup = () -> deleteTempFile(copy);
+                    connection = DriverManager.getConnection("jdbc:sqlite:" + readOnlyUri(copy));
+                }
+                return action.apply(connection, cleanup);
+            } catch (SQLException | RuntimeException e) {
+                closeQuietly(connection);
+                cleanup.run();
+                RuntimeException failure = e instanceof SQLException
+                                           ? new RuntimeException("Failed while execute SQL operations. ", e)
+                                           : (RuntimeException) e;
+                if (openFailure != null) {
+                    // the read went on with a copy, keep why the configured strategy could not be used
+                    failure.addSuppressed(openFailure);
+                }
+                throw failure;
+            } finally {
+                recorder.end(ExtractionStage.STORE_OPEN, start);
+            }
+        } catch (RuntimeException e) {
+            recorder.failed(ExtractionStage.STORE_OPEN, e);
+            recorder.finish();
+            throw e;
+        }
+    }
+    
+    /**
+     * Open the live file with a strategy other than {@link StoreAccessStrategy#COPY}.
+     */
+    private static Connection open(Path cookieFile, StoreAccessStrategy strategy) throws SQLException {
+        if (strategy == StoreAccessStrategy.IN_MEMORY_SNAPSHOT) {
+            return loadInMemory(cookieFile);
+        }
+        return DriverManager.getConnection("jdbc:sqlite:" + immutableUri(cookieFile));
+    }
+    
+    /**
+     * Copy the live file into an in-memory database with sqlite backup API.
+     */
+    private static Connection loadInMemory(Path cookieFile) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(String.format("restore from '%s'", immutableUri(cookieFile)));
+            return connection;
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw e;
+        }
+    }
+    
+    /**
+     * A sqlite URI filename which opens the file read-only and tells sqlite the file never changes, so no lock is
+     * taken and journal files are ignored.
+     */
+    private static String immutableUri(Path cookieFile) {
+        // quote is percent-encoded as well, so the URI can be embedded in SQL string literals
+        return cookieFile.toAbsolutePath().toUri().toString().replace("'", "%27") + "?mode=ro&immutable=1";
+    }
+    
+    /**
+     * A sqlite URI filename which opens the file read-only, applying changes of its `-wal` file if any.
+     */
+    private static String readOnlyUri(Path cookieFile) {
+        return cookieFile.toAbsolutePath().toUri().toString() + "?mode=ro";
+    }
+    
+    /**
+     * Copy the store file to temp folder, for example, on macOS, file located in
+     * {@code /Users/my_username/Library/Application Support/Google/Chrome/Profile 1/Cookies} will be copied to
+     * {@code /tmp/cookyTmpStore/Chrome_Profile 1_Cookies<random number>}. Its `-wal` file, holding changes not yet
+     * checkpointed by the browser (e.g. always of a running Firefox), is copied next to the copy.
+     *
+     * @return path of copy of the store file.
+     */
+    private Path copyFileToTemp(Path source, ExtractionRecorder recorder) {
+        final String tmpFilePrefix = String.join("_",
+                                                 source.getParent().getParent().getFileName().toString(),
+                                                 source.getParent().getFileName().toString(),
+                                                 source.getFileName().toString());
+        
+        long start = recorder.start();
+        try {
+            Files.createDirectories(tempFolder);
+            // a unique name per copy, so concurrent reads of the same file do not conflict
+            Path tmpFilePath = Files.createTempFile(tempFolder, tmpFilePrefix, "");
+            Files.copy(source, tmpFilePath, StandardCopyOption.REPLACE_EXISTING);
+            Path walFile = walFileOf(source);
+            Path tmpWalFile = walFileOf(tmpFilePath);
+            try {
+                Files.copy(walFile, tmpWalFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (NoSuchFileException ignored) {
+                // the store is not in WAL mode, or the browser checkpointed and removed it
+            }
+            if (recorder.isEnabled()) {
+                recorder.bytesCopied(Files.size(tmpFilePath) + (Files.exists(tmpWalFile) ? Files.size(tmpWalFile) : 0));
+            }
+            return tmpFilePath;
+        } catch (IOException e) {
+            RuntimeException failure = new RuntimeException("Failed copying cookies store file. ", e);
+            recorder.failed(ExtractionStage.STORE_COPY, failure);
+            throw failure;
+        } finally {
+            recorder.end(ExtractionStage.STORE_COPY, start);
+        }
+    }
+    
+    private void deleteTempFile(Path targetPath) {
+        try {
+            Files.deleteIfExists(walFileOf(targetPath));
+            Files.deleteIfExists(targetPath.resolveSibling(targetPath.getFileName() + "-shm"));
+            Files.deleteIfExists(targetPath);
+            Files.deleteIfExists(tempFolder);
+        } catch (DirectoryNotEmptyException ignored) {
+            // other cursors are still open
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete temp files. ", e);
+        }
+    }
+    
+    private static Path walFileOf(Path storeFile) {
+        return storeFile.resolveSibling(storeFile.getFileName() + "-wal");
+    }
+    
+    static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+        }
+    }
+    
+    /**
+     * Reads from a store connection. On success, the action is responsible for closing the connection and running
+     * the cleanup (now or later, e.g. when a cursor is closed), on failure this is done by the caller.
+     */
+    @FunctionalInterface
+    interface StoreAction<T> {
+        T apply(Connection connection, Runnable cleanup) throws SQLException;
+    }
+}
@@ -0,0 +1,36 @@
+package com.mikaa404.store;
+
+/**
+ * How a cookie store file which may be open (and locked) by a running browser is accessed.
+ */
+public enum StoreAccessStrategy {
+    /**
+     * Open the live file read-only with {@code ?mode=ro&immutable=1}. Nothing is copied and no lock is taken, so the
+     * read neither waits for nor blocks the browser. sqlite then ignores locks, the journal and the `-wal` file: while
+     * the browser writes, a read may return stale rows, miss rows or fail with a corruption error. Use it only when the
+     * browser is known not to write, e.g. it is not running. Falls back to {@link #COPY} if the file can not be opened
+     * this way.
+     */
+    READ_ONLY_IMMUTABLE,
+    
+    /**
+     * Load the live file (opened as with {@link #READ_ONLY_IMMUTABLE}) into an in-memory database with sqlite backup
+     * API, then query the in-memory copy. The file is only accessed during the backup, which keeps the window for
+     * concurrent browser writes short. Falls back to {@link #COPY} if the file can not be loaded this way.
+     */
+    IN_MEMORY_SNAPSHOT,
+    
+    /**
+     * Copy the file and its `-wal` to a temp folder and read the copy read-only with {@code ?mode=ro}, so changes not
+     * yet checkpointed by the browser are seen. The copy is deleted afterwards. This is the default of browsers.
+     */
+    COPY,
+    
+    /**
+     * Memory-map the live file and its `-wal` and decode the pages of the `cookies` table directly with
+     * {@link PageCookieStoreReader}, without loading sqlite. Like {@link #READ_ONLY_IMMUTABLE} nothing is copied and no
+     * lock is taken. Changes still in the `-wal` file are read too. Falls back to {@link #READ_ONLY_IMMUTABLE} if the
+     * file can not be read this way, and readers which need sqlite (e.g. of Firefox stores) use that strategy instead.
+     */
+    MAPPED_PAGES
+}
@@ -0,0 +1,52 @@
+package com.mikaa404.watch;
+
+import com.mikaa404.browser.Profile;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.ICookie;
+
+/**
+ * A cookie added to, changed in or removed from the cookie store of a profile.
+ */
+public class CookieChangeEvent {
+    public enum Type {
+        ADDED,
+        CHANGED,
+        REMOVED
+    }
+    
+    private final Type type;
+    private final Profile profile;
+    private final CookieKey key;
+    private final ICookie cookie;
+    
+    public CookieChangeEvent(Type type, Profile profile, CookieKey key, ICookie cookie) {
+        this.type = type;
+        this.profile = profile;
+        this.key = key;
+        this.cookie = cookie;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public Profile getProfile() {
+        return profile;
+    }
+    
+    public CookieKey getKey() {
+        return key;
+    }
+    
+    /**
+     * @return the added or changed cookie, or {@code null} for {@link Type#REMOVED} events.
+     */
+    public ICookie getCookie() {
+        return cookie;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CookieChangeEvent{type=%s, profile='%s', key=%s}", type, profile.getName(), key);
+    }
+}
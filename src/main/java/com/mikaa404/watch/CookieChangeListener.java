@@ -0,0 +1,12 @@
+package com.mikaa404.watch;
+
+/**
+ * Receives changes found by a {@link CookieWatcher}.
+ */
+@FunctionalInterface
+public interface CookieChangeListener {
+    /**
+     * Called on the watcher thread (or the thread calling {@link CookieWatcher#poll()}), one event at a time.
+     */
+    void onChange(CookieChangeEvent event);
+}
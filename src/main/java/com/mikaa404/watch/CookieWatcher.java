@@ -0,0 +1,246 @@
+package com.mikaa404.watch;
+
+import com.mikaa404.browser.Profile;
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.FirefoxCookie;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.store.CookieStoreReader;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emits cookies added, changed and removed in the cookie stores of some profiles, without re-reading whole stores.
+ * <p>
+ * For each profile, the watcher keeps the highest {@code last_update_utc} seen so far (high-water mark) and the keys
+ * of known cookies. A poll only reads and decrypts rows updated after the high-water mark, then finds removed cookies
+ * by diffing known keys with the keys currently in the store, which are read from the store index. The first poll
+ * reports every existing cookie as added.
+ * <p>
+ * Firefox stores have no update time, their high-water mark is the highest {@code lastAccessed}, which Firefox also
+ * updates whenever it sends a cookie. The watcher keeps the value and attributes of known Firefox cookies, and only
+ * reports a cookie read again as changed if one of them differs.
+ * <p>
+ * Once {@link #start() started}, the watcher polls on a background thread whenever a file in the cookie stores'
+ * folders changes, and at a fallback interval in case notifications are missed (e.g. on network file systems).
+ */
+public class CookieWatcher implements AutoCloseable {
+    /**
+     * Browsers write several files (store, journal) in a burst, notifications arriving within this delay are merged
+     * into one poll.
+     */
+    private static final long DEBOUNCE_MILLIS = 50;
+    private static final long DEFAULT_FALLBACK_POLL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    
+    private final CookieStoreReader reader;
+    private final List<Profile> profiles;
+    private final CookieChangeListener listener;
+    private final long fallbackPollMillis;
+    private final Map<Profile, ProfileState> states = new HashMap<>();
+    
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean closed;
+    
+    public CookieWatcher(CookieStoreReader reader, Collection<Profile> profiles, CookieChangeListener listener) {
+        this(reader, profiles, listener, DEFAULT_FALLBACK_POLL_MILLIS);
+    }
+    
+    /**
+     * @param reader             reader of cookie stores, lazy decryption is recommended so that listeners only
+     *                           decrypt values they use.
+     * @param profiles           profiles to watch.
+     * @param listener           receives changes.
+     * @param fallbackPollMillis interval between polls when no change notification is received.
+     */
+    public CookieWatcher(CookieStoreReader reader,
+                         Collection<Profile> profiles,
+                         CookieChangeListener listener,
+                         long fallbackPollMillis) {
+        this.reader = reader;
+        this.profiles = new ArrayList<>(profiles);
+        this.listener = listener;
+        this.fallbackPollMillis = fallbackPollMillis;
+    }
+    
+    /**
+     * Check every profile for changes now and emit them to the listener.
+     */
+    public synchronized void poll() {
+        for (Profile profile : profiles) {
+            poll(profile);
+        }
+    }
+    
+    /**
+     * Poll once, then poll again in a background daemon thread whenever a cookie store changes.
+     */
+    public synchronized void start() {
+        if (watchThread != null) {
+            throw new IllegalStateException("Watcher is already started. ");
+        }
+        
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> folders = new HashSet<>();
+            for (Profile profile : profiles) {
+                Path folder = profile.getCookieFile().toAbsolutePath().getParent();
+                if (folders.add(folder)) {
+                    folder.register(watchService,
+                                    StandardWatchEventKinds.ENTRY_CREATE,
+                                    StandardWatchEventKinds.ENTRY_MODIFY,
+                                    StandardWatchEventKinds.ENTRY_DELETE);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to watch cookie store files. ", e);
+        }
+        
+        poll();
+        watchThread = new Thread(this::watch, "cooky-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+    
+    /**
+     * Stop watching. Polls already running complete, later notifications are ignored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to stop watching cookie store files. ", e);
+        }
+    }
+    
+    private void watch() {
+        while (!closed) {
+            try {
+                WatchKey key = watchService.poll(fallbackPollMillis, TimeUnit.MILLISECONDS);
+                boolean storeChanged = key == null;
+                while (key != null) {
+                    storeChanged |= isStoreEvent(key);
+                    key.reset();
+                    key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                
+                if (storeChanged && !closed) {
+                    poll();
+                }
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            } catch (RuntimeException ignored) {
+                // the store may be in the middle of a write, changes are picked up by the next poll
+            }
+        }
+    }
+    
+    /**
+     * @return whether the event is about a cookie store file or one of its companion files (e.g. {@code Cookies-journal}).
+     */
+    private boolean isStoreEvent(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                return true;
+            }
+            String fileName = event.context().toString();
+            for (Profile profile : profiles) {
+                if (fileName.startsWith(profile.getCookieFile().getFileName().toString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private void poll(Profile profile) {
+        ProfileState state = states.computeIfAbsent(profile, p -> new ProfileState());
+        List<CookieChangeEvent> events = new ArrayList<>();
+        
+        long highWaterMark = state.highWaterMark;
+        Map<CookieKey, List<Object>> firefoxAttributes = new HashMap<>(state.firefoxAttributes);
+        // the first poll reads every cookie, Long.MIN_VALUE would overflow once converted to a Firefox timestamp
+        CookieQuery updatedQuery = highWaterMark == Long.MIN_VALUE
+                                   ? CookieQuery.all()
+                                   : CookieQuery.builder().updatedAfter(highWaterMark).build();
+        try (CookieCursor cursor = reader.open(profile.getCookieFile(), updatedQuery)) {
+            while (cursor.hasNext()) {
+                ICookie cookie = cursor.next();
+                CookieKey key = CookieKey.of(cookie);
+                if (cookie instanceof ChromeCookie) {
+                    highWaterMark = Math.max(highWaterMark, ((ChromeCookie) cookie).getLastUpdateUtc());
+                } else if (cookie instanceof FirefoxCookie) {
+                    // the column CookieQuery#getUpdatedAfter() is matched against for Firefox stores
+                    FirefoxCookie firefoxCookie = (FirefoxCookie) cookie;
+                    highWaterMark = Math.max(highWaterMark, firefoxCookie.getLastAccessedUtc());
+                    List<Object> previous = firefoxAttributes.put(key, attributesOf(firefoxCookie));
+                    if (firefoxAttributes.get(key).equals(previous)) {
+                        // only sent by Firefox since the last poll
+                        continue;
+                    }
+                }
+                CookieChangeEvent.Type type = state.knownKeys.contains(key)
+                                              ? CookieChangeEvent.Type.CHANGED
+                                              : CookieChangeEvent.Type.ADDED;
+                events.add(new CookieChangeEvent(type, profile, key, cookie));
+            }
+        }
+        
+        // keys not seen in updated rows (e.g. inserted after the cursor was opened) are reported by the next poll
+        Set<CookieKey> currentKeys = reader.readKeys(profile.getCookieFile());
+        Set<CookieKey> knownKeys = new HashSet<>(state.knownKeys);
+        for (CookieChangeEvent event : events) {
+            knownKeys.add(event.getKey());
+        }
+        for (Iterator<CookieKey> iterator = knownKeys.iterator(); iterator.hasNext(); ) {
+            CookieKey key = iterator.next();
+            if (!currentKeys.contains(key)) {
+                iterator.remove();
+                firefoxAttributes.remove(key);
+                events.add(new CookieChangeEvent(CookieChangeEvent.Type.REMOVED, profile, key, null));
+            }
+        }
+        
+        state.highWaterMark = highWaterMark;
+        state.knownKeys = knownKeys;
+        state.firefoxAttributes = firefoxAttributes;
+        events.forEach(listener::onChange);
+    }
+    
+    /**
+     * @return what a Firefox cookie is set with, as opposed to {@code lastAccessed} which changes when it is sent.
+     */
+    private static List<Object> attributesOf(FirefoxCookie cookie) {
+        return Arrays.asList(cookie.getValue(), cookie.getExpiry(), cookie.isSecure(), cookie.isHttpOnly(),
+                             cookie.getSameSite(), cookie.getSchemeMap());
+    }
+    
+    private static class ProfileState {
+        private long highWaterMark = Long.MIN_VALUE;
+        private Set<CookieKey> knownKeys = new HashSet<>();
+        private Map<CookieKey, List<Object>> firefoxAttributes = new HashMap<>();
+    }
+}
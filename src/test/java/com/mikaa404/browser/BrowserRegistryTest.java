@@ -0,0 +1,89 @@
+package com.mikaa404.browser;
+
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.KeyProvider;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BrowserRegistryTest {
+    @TempDir
+    Path userHome;
+    
+    @Test
+    public void discoversInstalledPresets() throws IOException {
+        Files.createDirectories(BrowserDescriptor.OPERA.getUserDataPath(userHome));
+        Files.createDirectories(BrowserDescriptor.BRAVE.getUserDataPath(userHome));
+        Path firefoxDataPath = Files.createDirectories(FirefoxBrowser.getDataPath(userHome));
+        Files.createFile(firefoxDataPath.resolve("profiles.ini"));
+        
+        try (BrowserRegistry registry = BrowserRegistry.installed(userHome, BrowserDescriptor.presets())) {
+            assertEquals(Arrays.asList("Brave", "Opera", "Firefox"),
+                         registry.getBrowsers().stream().map(IBrowser::getBrowserName).collect(Collectors.toList()));
+        }
+    }
+    
+    @Test
+    public void readsBrowsersInParallel() throws IOException {
+        Path braveUserData = BrowserDescriptor.BRAVE.getUserDataPath(userHome);
+        CookieStoreFixture.create(Files.createDirectories(braveUserData.resolve("Default").resolve("Network")).resolve("Cookies"),
+                                  10, FixtureCiphers.linuxV10());
+        // every profile is read, not only the first one
+        CookieStoreFixture.create(Files.createDirectories(braveUserData.resolve("Profile 1").resolve("Network")).resolve("Cookies"),
+                                  5, FixtureCiphers.linuxV10());
+        Path operaUserData = BrowserDescriptor.OPERA.getUserDataPath(userHome);
+        CookieStoreFixture.create(Files.createDirectories(operaUserData.resolve("Network")).resolve("Cookies"),
+                                  20, FixtureCiphers.linuxV11());
+        Path vivaldiUserData = BrowserDescriptor.VIVALDI.getUserDataPath(userHome);
+        Files.createDirectories(vivaldiUserData.resolve("Default"));
+        Files.write(vivaldiUserData.resolve("Default").resolve("Cookies"), "not a database".getBytes(StandardCharsets.UTF_8));
+        
+        try (BrowserContext brave = newContext(BrowserDescriptor.BRAVE, braveUserData);
+             BrowserContext opera = newContext(BrowserDescriptor.OPERA, operaUserData);
+             BrowserContext vivaldi = newContext(BrowserDescriptor.VIVALDI, vivaldiUserData)) {
+            ChromiumBrowser vivaldiBrowser = new ChromiumBrowser(vivaldi);
+            BrowserRegistry registry = BrowserRegistry.of(new ChromiumBrowser(brave), new ChromiumBrowser(opera), vivaldiBrowser);
+            
+            List<IBrowser> failed = new ArrayList<>();
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            Map<IBrowser, List<ICookie>> cookies;
+            try {
+                cookies = registry.getCookies(CookieQuery.all(), executor, (browser, e) -> failed.add(browser));
+            } finally {
+                executor.shutdownNow();
+            }
+            
+            assertEquals(Arrays.asList("Brave", "Opera"),
+                         cookies.keySet().stream().map(IBrowser::getBrowserName).collect(Collectors.toList()));
+            assertEquals(Arrays.asList(15, 20), cookies.values().stream().map(List::size).collect(Collectors.toList()));
+            assertEquals(CookieStoreFixture.valueOf(19), cookies.get(registry.getBrowsers().get(1)).get(19).getValue());
+            assertEquals(Arrays.asList(vivaldiBrowser), failed);
+        }
+    }
+    
+    private BrowserContext newContext(BrowserDescriptor descriptor, Path userDataPath) {
+        return BrowserContext.builder()
+                             .browser(descriptor)
+                             .userDataPath(userDataPath)
+                             .tempFolder(userHome.resolve("cookyTmpStore"))
+                             .keyProvider(KeyProvider.of(new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET)))
+                             .build();
+    }
+}
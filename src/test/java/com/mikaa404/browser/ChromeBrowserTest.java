@@ -0,0 +1,72 @@
+package com.mikaa404.browser;
+
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.KeyProvider;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.crypto.MacOsCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChromeBrowserTest {
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void readsInstallationsWithTheirOwnKeys() throws IOException {
+        Path macOsUserData = createUserData("mac", 10, FixtureCiphers.macOs());
+        Path linuxUserData = createUserData("linux", 20, FixtureCiphers.linuxV11());
+        
+        try (BrowserContext macOs = BrowserContext.builder()
+                                                  .userDataPath(macOsUserData)
+                                                  .tempFolder(tempDir.resolve("tmp-mac"))
+                                                  .keyProvider(KeyProvider.of(new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD)))
+                                                  .build();
+             BrowserContext linux = BrowserContext.builder()
+                                                  .userDataPath(linuxUserData)
+                                                  .tempFolder(tempDir.resolve("tmp-linux"))
+                                                  .keyProvider(KeyProvider.of(new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET)))
+                                                  .build()) {
+            List<ICookie> macOsCookies = new ChromeBrowser(macOs).getAllCookies();
+            List<ICookie> linuxCookies = new ChromeBrowser(linux).getAllCookies();
+            
+            assertEquals(10, macOsCookies.size());
+            assertEquals(20, linuxCookies.size());
+            assertEquals(CookieStoreFixture.valueOf(7), macOsCookies.get(7).getValue());
+            assertEquals(CookieStoreFixture.valueOf(17), linuxCookies.get(17).getValue());
+        }
+    }
+    
+    @Test
+    public void closedContextCanNotDecrypt() throws IOException {
+        BrowserContext context = BrowserContext.builder()
+                                               .userDataPath(createUserData("closed", 5, FixtureCiphers.linuxV10()))
+                                               .tempFolder(tempDir.resolve("tmp"))
+                                               .keyProvider(KeyProvider.of(new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET)))
+                                               .build();
+        ChromeBrowser browser = new ChromeBrowser(context);
+        assertEquals(5, browser.getCookies(CookieQuery.all()).size());
+        
+        context.close();
+        
+        assertThrows(IllegalStateException.class, () -> browser.getCookies(CookieQuery.all()));
+    }
+    
+    private Path createUserData(String name, int rows, Function<String, byte[]> encryptor) throws IOException {
+        Path userData = tempDir.resolve(name);
+        Path cookieFile = Files.createDirectories(userData.resolve("Default").resolve("Network")).resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, rows, encryptor);
+        return userData;
+    }
+}
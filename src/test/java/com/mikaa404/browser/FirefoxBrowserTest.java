@@ -0,0 +1,164 @@
+package com.mikaa404.browser;
+
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.FirefoxCookie;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FirefoxStoreFixture;
+import com.mikaa404.metrics.ExtractionReport;
+import com.mikaa404.store.FirefoxCookieStoreReader;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FirefoxBrowserTest {
+    private static final int ROWS = 50;
+    
+    @TempDir
+    Path tempDir;
+    private Path dataPath;
+    private FirefoxBrowser browser;
+    
+    @BeforeEach
+    void createProfiles() throws IOException {
+        dataPath = tempDir.resolve("firefox");
+        Path elsewhere = tempDir.resolve("elsewhere.profile");
+        FirefoxStoreFixture.create(createProfileFolder(dataPath.resolve("Profiles/b1.default-release")), ROWS);
+        FirefoxStoreFixture.create(createProfileFolder(dataPath.resolve("Profiles/a1.default")), 5);
+        Files.createDirectories(dataPath.resolve("Profiles/c1.empty"));
+        FirefoxStoreFixture.create(createProfileFolder(elsewhere), 5);
+        Files.write(dataPath.resolve("profiles.ini"),
+                    ("[Profile2]\nName=empty\nIsRelative=1\nPath=Profiles/c1.empty\n\n" +
+                     "[Profile0]\nName=default\nIsRelative=1\nPath=Profiles/a1.default\nDefault=1\n\n" +
+                     "[Profile3]\nName=elsewhere\nIsRelative=0\nPath=" + elsewhere + "\n\n" +
+                     "[Profile1]\nName=default-release\nIsRelative=1\nPath=Profiles/b1.default-release\n\n" +
+                     "[General]\nStartWithLastProfile=1\nVersion=2\n\n" +
+                     "[Install4F96D1932A9F858E]\nDefault=Profiles/b1.default-release\nLocked=1\n").getBytes(StandardCharsets.UTF_8));
+        FirefoxStoreFixture.writeSessionStore(dataPath.resolve("Profiles/b1.default-release/sessionstore-backups/recovery.jsonlz4"),
+                                              "{\"cookies\": [{\"host\": \".host0.example.com\", \"value\": \"session-value\", " +
+                                              "\"path\": \"/\", \"name\": \"session\", \"secure\": true, \"originAttributes\": {}}]}");
+        
+        browser = new FirefoxBrowser(dataPath, tempDir.resolve("cookyTmpStore"));
+    }
+    
+    @Test
+    public void findsProfilesFromProfilesIni() {
+        List<Profile> profiles = browser.getProfiles();
+        
+        assertEquals(Arrays.asList("b1.default-release", "a1.default", "elsewhere.profile"),
+                     profiles.stream().map(Profile::getName).collect(Collectors.toList()));
+        assertEquals("default-release", profiles.get(0).getDisplayName());
+        assertEquals(dataPath.resolve("Profiles/b1.default-release/cookies.sqlite"), profiles.get(0).getCookieFile());
+        assertEquals("a1.default", browser.getProfile("default").map(Profile::getName).orElse(null));
+        assertEquals(0, new FirefoxBrowser(tempDir.resolve("missing"), tempDir).getProfiles().size());
+    }
+    
+    @Test
+    public void readsStoredAndSessionCookies() {
+        List<ICookie> cookies = browser.getAllCookies();
+        
+        assertEquals(ROWS + 1, cookies.size());
+        FirefoxCookie stored = (FirefoxCookie) cookies.get(7);
+        assertEquals(CookieStoreFixture.hostOf(7), stored.getHostKey());
+        assertEquals(CookieStoreFixture.valueOf(7), stored.getValue());
+        assertEquals(CookieStoreFixture.pathOf(7), stored.getPath());
+        assertEquals("^userContextId=1", stored.getOriginAttributes());
+        assertEquals(FirefoxStoreFixture.BASE_TIME + 7, stored.getCreationTime());
+        assertFalse(stored.isSession());
+        assertTrue(Math.abs(stored.getExpiry() - System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)) < TimeUnit.MINUTES.toMillis(1));
+        
+        FirefoxCookie session = (FirefoxCookie) cookies.get(ROWS);
+        assertEquals("session-value", session.getValue());
+        assertTrue(session.isSession());
+        
+        assertEquals(ROWS, browser.setSessionCookies(false).getAllCookies().size());
+    }
+    
+    @Test
+    public void filtersLikeInMemoryQuery() {
+        List<ICookie> cookies = browser.getAllCookies();
+        
+        for (CookieQuery query : new CookieQuery[]{
+                CookieQuery.builder().host(CookieStoreFixture.hostOf(0)).build(),
+                CookieQuery.builder().domain("host1.example.com").secureOnly().build(),
+                CookieQuery.builder().pathPrefix("/path1").build(),
+                CookieQuery.builder().expired().build(),
+                CookieQuery.builder().unexpired().build(),
+                CookieQuery.builder().name("session").build()}) {
+            assertEquals(cookies.stream().filter(query::matches).map(CookieKey::of).collect(Collectors.toList()),
+                         browser.getCookies(query).stream().map(CookieKey::of).collect(Collectors.toList()));
+        }
+        assertEquals(ROWS / 5, browser.getCookies(CookieQuery.builder().expired().build()).size());
+    }
+    
+    @Test
+    public void reportsReadWithoutProfiles() {
+        List<ExtractionReport> reports = new ArrayList<>();
+        FirefoxBrowser missing = new FirefoxBrowser(tempDir.resolve("missing"), tempDir).setExtractionListener(reports::add);
+        
+        assertTrue(missing.getAllCookies().isEmpty());
+        assertEquals(1, reports.size());
+        assertEquals("Firefox", reports.get(0).getBrowserName());
+        assertFalse(reports.get(0).isFailed());
+    }
+    
+    @Test
+    public void readsKeysWithOriginAttributes() {
+        for (StoreAccessStrategy strategy : StoreAccessStrategy.values()) {
+            Set<CookieKey> keys = new FirefoxCookieStoreReader(tempDir.resolve("cookyTmpStore"), strategy)
+                                          .readKeys(browser.getProfiles().get(0).getCookieFile());
+            
+            assertEquals(ROWS, keys.size());
+            assertTrue(keys.contains(new CookieKey(CookieStoreFixture.hostOf(14), "^userContextId=1",
+                                                   CookieStoreFixture.nameOf(14), CookieStoreFixture.pathOf(14))));
+        }
+    }
+    
+    @Test
+    public void readsCookiesNotYetCheckpointed() throws IOException, SQLException {
+        Path cookieFile = browser.getProfiles().get(0).getCookieFile();
+        // like a running Firefox, which keeps the store open in WAL mode and checkpoints rarely
+        try (Connection firefox = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = firefox.createStatement()) {
+            statement.execute("PRAGMA journal_mode = WAL;");
+            statement.execute("PRAGMA wal_autocheckpoint = 0;");
+            statement.executeUpdate("INSERT INTO moz_cookies (name, value, host, path, expiry, lastAccessed, creationTime, " +
+                                    "isSecure, isHttpOnly) VALUES ('recent', 'recent-value', '.recent.example.org', '/', " +
+                                    "4102444800, 1, 1, 1, 1)");
+            assertTrue(Files.size(cookieFile.resolveSibling("cookies.sqlite-wal")) > 0);
+            
+            CookieQuery query = CookieQuery.builder().name("recent").build();
+            List<ICookie> cookies = browser.getCookies(query);
+            assertEquals(1, cookies.size());
+            assertEquals("recent-value", cookies.get(0).getValue());
+            assertEquals(ROWS + 1, browser.setSessionCookies(false).getCookies(browser.getProfiles().get(0), CookieQuery.all()).size());
+            assertTrue(browser.setAccessStrategy(StoreAccessStrategy.READ_ONLY_IMMUTABLE).getCookies(query).isEmpty());
+        }
+        assertFalse(Files.exists(tempDir.resolve("cookyTmpStore")));
+    }
+    
+    private static Path createProfileFolder(Path profilePath) throws IOException {
+        return Files.createDirectories(profilePath).resolve("cookies.sqlite");
+    }
+}
@@ -0,0 +1,87 @@
+package com.mikaa404.browser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelReadsTest {
+    @Test
+    public void failuresAreIsolated() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Map<String, RuntimeException> errors = new HashMap<>();
+        try {
+            Map<String, Integer> results = ParallelReads.readAll(Arrays.asList("Default", "Locked", "Profile 1", "Profile 2"),
+                                                                 profile -> {
+                                                                     if (profile.equals("Locked")) {
+                                                                         throw new RuntimeException("database is locked");
+                                                                     }
+                                                                     return profile.length();
+                                                                 },
+                                                                 executor,
+                                                                 errors::put);
+            
+            assertEquals(Arrays.asList("Default", "Profile 1", "Profile 2"), new ArrayList<>(results.keySet()));
+            assertEquals(7, results.get("Default"));
+            assertEquals(1, errors.size());
+            assertEquals("database is locked", errors.get("Locked").getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void readsRunConcurrently() throws InterruptedException {
+        List<Integer> keys = Arrays.asList(1, 2, 3, 4);
+        CountDownLatch allStarted = new CountDownLatch(keys.size());
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(keys.size());
+        try {
+            Map<Integer, Integer> results = ParallelReads.readAll(keys, key -> {
+                threads.add(Thread.currentThread().toString());
+                allStarted.countDown();
+                try {
+                    // every read waits for the others, which only completes if they run at the same time
+                    assertTrue(allStarted.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return key * 2;
+            }, executor, (key, e) -> {
+                throw e;
+            });
+            
+            assertEquals(4, results.size());
+            assertEquals(8, results.get(4));
+            assertEquals(keys.size(), threads.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void defaultExecutorRunsReads() {
+        ExecutorService executor = ParallelReads.newExecutor(3);
+        try {
+            Map<Integer, Integer> results = ParallelReads.readAll(Arrays.asList(1, 2, 3), key -> key * 2, executor, (key, e) -> {
+                throw e;
+            });
+            assertEquals(Arrays.asList(2, 4, 6), new ArrayList<>(results.values()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
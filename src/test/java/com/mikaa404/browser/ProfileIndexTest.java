@@ -0,0 +1,130 @@
+package com.mikaa404.browser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ProfileIndexTest {
+    @TempDir
+    Path userDataPath;
+    private ProfileIndex profileIndex;
+    
+    @BeforeEach
+    void createUserData() throws IOException {
+        createCookieFile("Profile 10/Network/Cookies");
+        createCookieFile("Default/Network/Cookies");
+        createCookieFile("Default/Cookies");
+        createCookieFile("Profile 2/Cookies");
+        createCookieFile("Work/Network/Cookies");
+        createCookieFile("Crashpad/Cookies");
+        Files.createDirectories(userDataPath.resolve("Profile 3"));
+        Files.write(userDataPath.resolve("Local State"),
+                    ("{\"profile\": {\"info_cache\": {" +
+                     "\"Default\": {\"name\": \"Personal\"}, " +
+                     "\"Work\": {\"name\": \"Work\"}, " +
+                     "\"Profile 2\": {}}}}").getBytes(StandardCharsets.UTF_8));
+        
+        profileIndex = new ProfileIndex(userDataPath, "Network/Cookies", "Cookies");
+    }
+    
+    @Test
+    public void findsProfilesWithCookies() {
+        List<Profile> profiles = profileIndex.getProfiles();
+        
+        assertEquals(Arrays.asList("Default", "Profile 2", "Profile 10", "Work"),
+                     profiles.stream().map(Profile::getName).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("Personal", "Profile 2", "Profile 10", "Work"),
+                     profiles.stream().map(Profile::getDisplayName).collect(Collectors.toList()));
+        assertEquals(userDataPath.resolve("Default").resolve("Network").resolve("Cookies"), profiles.get(0).getCookieFile());
+        assertEquals(userDataPath.resolve("Profile 2").resolve("Cookies"), profiles.get(1).getCookieFile());
+    }
+    
+    @Test
+    public void cachedUntilUserDataModified() throws IOException {
+        List<Profile> profiles = profileIndex.getProfiles();
+        assertSame(profiles, profileIndex.getProfiles());
+        
+        createCookieFile("Profile 4/Cookies");
+        touch(userDataPath);
+        assertEquals(5, profileIndex.getProfiles().size());
+    }
+    
+    @Test
+    public void cachedUntilProfileFolderModified() throws IOException {
+        Path networkFolder = Files.createDirectories(userDataPath.resolve("Profile 3").resolve("Network"));
+        List<Profile> profiles = profileIndex.getProfiles();
+        assertEquals(4, profiles.size());
+        assertSame(profiles, profileIndex.getProfiles());
+        
+        // only the "Network" folder is modified
+        createCookieFile("Profile 3/Network/Cookies");
+        touch(networkFolder);
+        List<Profile> reloaded = profileIndex.getProfiles();
+        assertEquals(5, reloaded.size());
+        assertEquals(networkFolder.resolve("Cookies"), reloaded.get(2).getCookieFile());
+    }
+    
+    @Test
+    public void cachedUntilLocalStateModified() throws IOException {
+        List<Profile> profiles = profileIndex.getProfiles();
+        
+        Files.write(userDataPath.resolve("Local State"),
+                    "{\"profile\": {\"info_cache\": {\"Default\": {\"name\": \"Renamed\"}}}}".getBytes(StandardCharsets.UTF_8));
+        touch(userDataPath.resolve("Local State"));
+        
+        List<Profile> reloaded = profileIndex.getProfiles();
+        assertEquals("Renamed", reloaded.get(0).getDisplayName());
+        // "Work" is neither in `Local State` nor named like a profile folder anymore
+        assertEquals(profiles.size() - 1, reloaded.size());
+    }
+    
+    @Test
+    public void worksWithoutLocalState() throws IOException {
+        Files.delete(userDataPath.resolve("Local State"));
+        
+        assertEquals(Arrays.asList("Default", "Profile 2", "Profile 10"),
+                     profileIndex.getProfiles().stream().map(Profile::getName).collect(Collectors.toList()));
+    }
+    
+    @Test
+    public void userDataFolderHoldingDefaultProfile() throws IOException {
+        Path operaUserData = userDataPath.resolve("Opera Stable");
+        Files.createDirectories(operaUserData.resolve("Network"));
+        Files.createFile(operaUserData.resolve("Network").resolve("Cookies"));
+        
+        List<Profile> profiles = new ProfileIndex(operaUserData, "Network/Cookies", "Cookies").getProfiles();
+        
+        assertEquals(1, profiles.size());
+        assertEquals("Default", profiles.get(0).getName());
+        assertEquals(operaUserData, profiles.get(0).getPath());
+        // a "Default" folder takes precedence
+        assertEquals(userDataPath.resolve("Default"), profileIndex.getProfiles().get(0).getPath());
+    }
+    
+    @Test
+    public void missingUserDataFolder() {
+        assertEquals(0, new ProfileIndex(userDataPath.resolve("missing"), "Cookies").getProfiles().size());
+    }
+    
+    private void createCookieFile(String relativePath) throws IOException {
+        Path cookieFile = userDataPath.resolve(relativePath);
+        Files.createDirectories(cookieFile.getParent());
+        Files.createFile(cookieFile);
+    }
+    
+    private static void touch(Path path) throws IOException {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 10_000));
+    }
+}
@@ -0,0 +1,84 @@
+package com.mikaa404.cookie;
+
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChromeCookieTest {
+    private final CookieDecryptor linuxDecryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+    private final AtomicInteger decryptCount = new AtomicInteger();
+    private final CookieDecryptor countingDecryptor = encryptedValue -> {
+        decryptCount.incrementAndGet();
+        return linuxDecryptor.decrypt(encryptedValue);
+    };
+    
+    @Test
+    public void eagerCookieDecryptsInConstructor() {
+        ChromeCookie cookie = cookie(FixtureCiphers.linuxV10().apply("eager"), countingDecryptor, false);
+        
+        assertEquals(1, decryptCount.get());
+        assertEquals("eager", cookie.getValue());
+        assertEquals(1, decryptCount.get());
+    }
+    
+    @Test
+    public void lazyCookieDecryptsOnFirstRead() {
+        ChromeCookie cookie = cookie(FixtureCiphers.linuxV10().apply("lazy"), countingDecryptor, true);
+        
+        assertEquals(0, decryptCount.get());
+        assertEquals("lazy", cookie.getValue());
+        assertEquals("lazy", cookie.getValue());
+        assertEquals(1, decryptCount.get());
+    }
+    
+    @Test
+    public void lazyCookieDecryptsOnceAcrossThreads() throws Exception {
+        ChromeCookie cookie = cookie(FixtureCiphers.linuxV11().apply("shared"), countingDecryptor, true);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cookie.getValue();
+                }));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("shared", future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, decryptCount.get());
+    }
+    
+    @Test
+    public void lazyCookieThrowsOnRead() {
+        byte[] corrupted = FixtureCiphers.linuxV10().apply("corrupted");
+        corrupted[corrupted.length - 1] ^= 1;
+        
+        ChromeCookie cookie = cookie(corrupted, countingDecryptor, true);
+        assertThrows(RuntimeException.class, cookie::getValue);
+        assertThrows(RuntimeException.class, () -> cookie(corrupted, countingDecryptor, false));
+    }
+    
+    private static ChromeCookie cookie(byte[] encryptedValue, CookieDecryptor decryptor, boolean lazy) {
+        return new ChromeCookie(".example.com", "name", encryptedValue, "/", 0L, "", 0L, true, true, 0L,
+                                false, false, 1, 0, 2, 443, false, 0L, decryptor, lazy);
+    }
+}
@@ -0,0 +1,101 @@
+package com.mikaa404.cookie;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CookieJarTest {
+    private static final long NOW = ChromeTimestamps.fromEpochMillis(1_700_000_000_000L);
+    
+    private final CookieJar jar = CookieJar.of(Arrays.asList(
+            cookie(".example.com", "domain", "/", false, 0),
+            cookie("example.com", "hostOnly", "/", false, 0),
+            cookie("www.example.com", "www", "/", false, 0),
+            cookie(".www.example.com", "docs", "/docs", false, 0),
+            cookie(".example.com", "secure", "/", true, 0),
+            cookie(".example.com", "expired", "/", false, NOW - 1),
+            cookie(".example.com", "unexpired", "/", false, NOW + 1),
+            cookie(".badexample.com", "bad", "/", false, 0),
+            cookie(".org", "tld", "/", false, 0)
+    ));
+    
+    @Test
+    public void matchesDomainAndHostOnlyCookies() {
+        assertEquals(Arrays.asList("domain", "hostOnly", "unexpired"), names("http://example.com/"));
+        assertEquals(Arrays.asList("domain", "www", "unexpired"), names("http://WWW.Example.com/"));
+        assertEquals(Arrays.asList("domain", "unexpired"), names("http://a.b.example.com"));
+        assertEquals(Arrays.asList("bad"), names("http://badexample.com/"));
+        assertEquals(Arrays.asList(), names("http://example.net/"));
+        assertEquals(Arrays.asList(), names("file:///tmp/x"));
+    }
+    
+    @Test
+    public void matchesPathsLongestFirst() {
+        assertEquals(Arrays.asList("docs", "domain", "www", "unexpired"), names("http://www.example.com/docs"));
+        assertEquals("docs", names("http://www.example.com/docs/web?q=1").get(0));
+        assertFalse(names("http://www.example.com/docsx").contains("docs"));
+        assertFalse(names("http://www.example.com/").contains("docs"));
+    }
+    
+    @Test
+    public void secureCookiesNeedSecureScheme() {
+        assertTrue(names("https://example.com/").contains("secure"));
+        assertTrue(names("wss://example.com/").contains("secure"));
+        assertFalse(names("http://example.com/").contains("secure"));
+    }
+    
+    @Test
+    public void pathMatch() {
+        assertTrue(CookieJar.pathMatches("/", "/anything"));
+        assertTrue(CookieJar.pathMatches("/a/", "/a/b"));
+        assertTrue(CookieJar.pathMatches("/a", "/a/b"));
+        assertTrue(CookieJar.pathMatches("/a", "/a"));
+        assertFalse(CookieJar.pathMatches("/a", "/ab"));
+        assertFalse(CookieJar.pathMatches("/a/b", "/a"));
+    }
+    
+    @Test
+    public void buildsHeader() {
+        CookieJar session = CookieJar.of(Arrays.asList(cookie(".example.com", "a", "/", false, 0),
+                                                       cookie(".example.com", "b", "/b", false, 0)));
+        
+        assertEquals("b=value-b; a=value-a", session.cookieHeader(URI.create("https://example.com/b/c")));
+        assertEquals("", session.cookieHeader(URI.create("https://example.org/")));
+        assertEquals(2, session.size());
+    }
+    
+    @Test
+    public void partitionedCookiesNeedTheirTopFrameSite() {
+        CookieJar partitioned = CookieJar.of(Arrays.asList(
+                cookie(".example.com", "unpartitioned", "/", true, 0),
+                new ChromeCookie(".example.com", "partitioned", "value", "/", 0L, "https://embedder.com", 0L, true, false,
+                                 0L, false, false, 1, -1, 2, 443, false, 0L)));
+        URI uri = URI.create("https://example.com/");
+        
+        assertEquals(Arrays.asList("unpartitioned"), names(partitioned.cookiesFor(uri, NOW)));
+        assertEquals(Arrays.asList("unpartitioned"), names(partitioned.cookiesFor(uri, "https://example.com", NOW)));
+        assertEquals(Arrays.asList("unpartitioned", "partitioned"),
+                     names(partitioned.cookiesFor(uri, "https://embedder.com", NOW)));
+        assertEquals("unpartitioned=value-unpartitioned", partitioned.cookieHeader(uri));
+    }
+    
+    private List<String> names(String uri) {
+        return names(jar.cookiesFor(URI.create(uri), NOW));
+    }
+    
+    private static List<String> names(List<ICookie> cookies) {
+        return cookies.stream().map(ICookie::getName).collect(Collectors.toList());
+    }
+    
+    private static ChromeCookie cookie(String hostKey, String name, String path, boolean secure, long expiresUtc) {
+        return new ChromeCookie(hostKey, name, "value-" + name, path, 0L, "", expiresUtc, secure, false, 0L,
+                                expiresUtc != 0, expiresUtc != 0, 1, -1, 2, 443, false, 0L);
+    }
+}
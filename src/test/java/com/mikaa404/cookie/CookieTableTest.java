@@ -0,0 +1,157 @@
+package com.mikaa404.cookie;
+
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.JdbcCookieStoreReader;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CookieTableTest {
+    private static final int ROWS = 200;
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void keepsEveryPropertyOfReadCookies() throws IOException {
+        Path cookieFile = Files.createDirectories(tempDir.resolve("google-chrome").resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, ROWS, FixtureCiphers.linuxV10());
+        JdbcCookieStoreReader reader = new JdbcCookieStoreReader(
+                new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), false, tempDir.resolve("tmp"),
+                StoreAccessStrategy.READ_ONLY_IMMUTABLE);
+        List<ICookie> cookies = new ArrayList<>();
+        try (CookieCursor cursor = reader.open(cookieFile, CookieQuery.all())) {
+            cursor.forEachRemaining(cookies::add);
+        }
+        
+        CookieTable table = CookieTable.from(reader.open(cookieFile, CookieQuery.all()));
+        
+        assertEquals(ROWS, table.size());
+        assertEquals(ROWS / 20, table.getHostKeyCount());
+        int row = 0;
+        for (ICookie cookie : table) {
+            ChromeCookie expected = (ChromeCookie) cookies.get(row);
+            CookieTable.Row actual = (CookieTable.Row) cookie;
+            assertEquals(row++, actual.getRow());
+            assertEquals(expected.getHostKey(), actual.getHostKey());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getValue(), actual.getValue());
+            assertEquals(expected.getPath(), actual.getPath());
+            assertEquals(expected.getTopFrameSiteKey(), actual.getTopFrameSiteKey());
+            assertEquals(expected.getCreationUtc(), actual.getCreationUtc());
+            assertEquals(expected.getExpiresUtc(), actual.getExpiresUtc());
+            assertEquals(expected.isSecure(), actual.isSecure());
+            assertEquals(expected.isHttpOnly(), actual.isHttpOnly());
+            assertEquals(expected.getLastAccessUtc(), actual.getLastAccessUtc());
+            assertEquals(expected.isHasExpires(), actual.isHasExpires());
+            assertEquals(expected.isPersistent(), actual.isPersistent());
+            assertEquals(expected.getPriority(), actual.getPriority());
+            assertEquals(expected.getSameSite(), actual.getSameSite());
+            assertEquals(expected.getSourceScheme(), actual.getSourceScheme());
+            assertEquals(expected.getSourcePort(), actual.getSourcePort());
+            assertEquals(expected.isSameParty(), actual.isSameParty());
+            assertEquals(expected.getLastUpdateUtc(), actual.getLastUpdateUtc());
+            assertEquals(CookieKey.of(expected), CookieKey.of(actual));
+        }
+        assertEquals(ROWS, row);
+    }
+    
+    @Test
+    public void packsEdgeValues() {
+        ChromeCookie unspecified = new ChromeCookie("example.com", "a", "välue €", "/", 1L, "https://example.com", 2L,
+                                                    true, false, 3L, false, true, 2, -1, 2, 65535, true, 4L);
+        ChromeCookie notRead = new ChromeCookie("example.com", "b", (String) null, "/x", 0L, "", 0L,
+                                                false, true, 0L, true, false, 0, 3, 0, -1, false, 0L);
+        CookieTable table = CookieTable.from(Arrays.asList(unspecified, notRead));
+        
+        CookieTable.Row first = table.get(0);
+        assertEquals("välue €", first.getValue());
+        assertEquals(-1, first.getSameSite());
+        assertEquals(2, first.getPriority());
+        assertEquals(2, first.getSourceScheme());
+        assertEquals(65535, first.getSourcePort());
+        assertEquals("https://example.com", first.getTopFrameSiteKey());
+        CookieTable.Row second = table.get(1);
+        assertNull(second.getValue());
+        assertEquals(3, second.getSameSite());
+        assertEquals(-1, second.getSourcePort());
+        assertFalse(second.isSecure());
+        assertEquals(1, table.getHostKeyCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(2));
+    }
+    
+    @Test
+    public void readsWrittenColumns() throws IOException {
+        List<ICookie> cookies = new ArrayList<>();
+        cookies.add(new ChromeCookie("example.com", "a", "välue €", "/", 1L, null, 2L,
+                                     true, false, 3L, false, true, 2, -1, 2, 65535, true, 4L));
+        cookies.add(new ChromeCookie("example.com", "b", (String) null, "/x", 0L, "", 0L,
+                                     false, true, 0L, true, false, 0, 3, 0, -1, false, 0L));
+        // more than 256 distinct names, so their codes take 2 bytes
+        for (int i = 0; i < 300; i++) {
+            cookies.add(new ChromeCookie("host" + i % 3 + ".example.com", "name" + i, "value" + i, "/", i, "", i,
+                                         i % 2 == 0, false, i, true, true, 1, 0, 2, 443, false, i));
+        }
+        CookieTable table = CookieTable.from(cookies);
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.writeTo(new DataOutputStream(bytes));
+        ByteBuffer buffer = ByteBuffer.wrap(Arrays.copyOf(bytes.toByteArray(), bytes.size() + 1));
+        CookieTable read = CookieTable.readFrom(buffer);
+        
+        assertEquals(1, buffer.remaining());
+        assertEquals(table.size(), read.size());
+        assertEquals(table.getHostKeyCount(), read.getHostKeyCount());
+        for (int row = 0; row < table.size(); row++) {
+            CookieTable.Row expected = table.get(row);
+            CookieTable.Row actual = read.get(row);
+            assertEquals(expected.getHostKey(), actual.getHostKey());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getValue(), actual.getValue());
+            assertEquals(expected.getPath(), actual.getPath());
+            assertEquals(expected.getTopFrameSiteKey(), actual.getTopFrameSiteKey());
+            assertEquals(expected.getCreationUtc(), actual.getCreationUtc());
+            assertEquals(expected.getExpiresUtc(), actual.getExpiresUtc());
+            assertEquals(expected.getLastAccessUtc(), actual.getLastAccessUtc());
+            assertEquals(expected.getLastUpdateUtc(), actual.getLastUpdateUtc());
+            assertEquals(expected.isSecure(), actual.isSecure());
+            assertEquals(expected.getSameSite(), actual.getSameSite());
+            assertEquals(expected.getSourcePort(), actual.getSourcePort());
+        }
+        assertNull(read.get(0).getTopFrameSiteKey());
+        assertNull(read.get(1).getValue());
+        
+        // rows copied into another table keep every property
+        CookieTable.Row copy = CookieTable.from(read).get(0);
+        assertEquals(65535, copy.getSourcePort());
+        assertEquals(-1, copy.getSameSite());
+        assertEquals(4L, copy.getLastUpdateUtc());
+    }
+    
+    @Test
+    public void emptyTable() {
+        CookieTable table = CookieTable.from(Collections.emptyList());
+        
+        assertEquals(0, table.size());
+        assertFalse(table.iterator().hasNext());
+        assertEquals(0, table.stream().count());
+    }
+}
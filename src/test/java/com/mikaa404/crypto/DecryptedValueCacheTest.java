@@ -0,0 +1,136 @@
+package com.mikaa404.crypto;
+
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DecryptedValueCacheTest {
+    private final AtomicInteger decryptions = new AtomicInteger();
+    private final CookieDecryptor counting = encryptedValue -> {
+        decryptions.incrementAndGet();
+        return new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET).decrypt(encryptedValue);
+    };
+    
+    @Test
+    public void decryptsUnchangedValueOnce() {
+        try (DecryptedValueCache cache = DecryptedValueCache.builder().build()) {
+            CookieDecryptor decryptor = cache.wrap("Default", counting);
+            byte[] first = FixtureCiphers.linuxV10().apply("first");
+            
+            assertEquals("first", decryptor.decrypt(first));
+            assertEquals("first", decryptor.decrypt(first.clone()));
+            assertEquals("second", decryptor.decrypt(FixtureCiphers.linuxV10().apply("second")));
+            
+            assertEquals(2, decryptions.get());
+            DecryptedValueCache.Stats stats = cache.getStats();
+            assertEquals(1, stats.getHitCount());
+            assertEquals(2, stats.getMissCount());
+            assertEquals(2, stats.getEntryCount());
+        }
+    }
+    
+    @Test
+    public void decryptsOnlyMissesOfBlock() {
+        AtomicInteger blocks = new AtomicInteger();
+        CookieDecryptor batching = new CookieDecryptor() {
+            @Override
+            public String decrypt(byte[] encryptedValue) {
+                return counting.decrypt(encryptedValue);
+            }
+            
+            @Override
+            public void decryptAll(byte[][] encryptedValues, int count, int plaintextOffset, String[] values) {
+                blocks.incrementAndGet();
+                CookieDecryptor.super.decryptAll(encryptedValues, count, plaintextOffset, values);
+            }
+        };
+        try (DecryptedValueCache cache = DecryptedValueCache.builder().build()) {
+            CookieDecryptor decryptor = cache.wrap("Default", batching);
+            byte[] first = FixtureCiphers.linuxV10().apply("first");
+            decryptor.decrypt(first);
+            
+            String[] values = new String[3];
+            decryptor.decryptAll(new byte[][]{first, FixtureCiphers.linuxV10().apply("second"), first}, 2, 0, values);
+            assertArrayEquals(new String[]{"first", "second", null}, values);
+            assertEquals(1, blocks.get());
+            assertEquals(2, decryptions.get());
+            
+            // a block of hits only is not passed to the decryptor
+            decryptor.decryptAll(new byte[][]{first}, 1, 0, values);
+            assertEquals("first", values[0]);
+            assertEquals(1, blocks.get());
+        }
+    }
+    
+    @Test
+    public void separatesScopes() {
+        try (DecryptedValueCache cache = DecryptedValueCache.builder().build()) {
+            byte[] value = FixtureCiphers.linuxV11().apply("value");
+            
+            assertEquals("value", cache.wrap("Default", counting).decrypt(value));
+            assertEquals("value", cache.wrap("Profile 1", counting).decrypt(value));
+            assertEquals(2, decryptions.get());
+        }
+    }
+    
+    @Test
+    public void evictsLeastRecentlyUsedWhenFull() {
+        byte[] first = FixtureCiphers.linuxV10().apply("first");
+        byte[] second = FixtureCiphers.linuxV10().apply("second");
+        byte[] third = FixtureCiphers.linuxV10().apply("third");
+        try (DecryptedValueCache cache = DecryptedValueCache.builder().maximumBytes(500).build()) {
+            CookieDecryptor decryptor = cache.wrap("Default", counting);
+            decryptor.decrypt(first);
+            decryptor.decrypt(second);
+            decryptor.decrypt(first);
+            decryptor.decrypt(third);
+            assertEquals(3, decryptions.get());
+            
+            DecryptedValueCache.Stats stats = cache.getStats();
+            assertEquals(2, stats.getEntryCount());
+            assertEquals(1, stats.getEvictionCount());
+            assertTrue(stats.getByteSize() <= 500);
+            
+            decryptor.decrypt(first);
+            assertEquals(3, decryptions.get());
+            decryptor.decrypt(second);
+            assertEquals(4, decryptions.get());
+        }
+    }
+    
+    @Test
+    public void expiresEntries() {
+        try (DecryptedValueCache cache = DecryptedValueCache.builder().expireAfterWrite(0, TimeUnit.SECONDS).build()) {
+            CookieDecryptor decryptor = cache.wrap("Default", counting);
+            byte[] value = FixtureCiphers.linuxV10().apply("value");
+            
+            decryptor.decrypt(value);
+            decryptor.decrypt(value);
+            assertEquals(2, decryptions.get());
+            assertEquals(1, cache.getStats().getEvictionCount());
+        }
+    }
+    
+    @Test
+    public void closeRemovesEntriesAndStopsCaching() {
+        DecryptedValueCache cache = DecryptedValueCache.builder().build();
+        CookieDecryptor decryptor = cache.wrap("Default", counting);
+        byte[] value = FixtureCiphers.linuxV10().apply("value");
+        decryptor.decrypt(value);
+        
+        cache.close();
+        assertEquals(0, cache.getStats().getEntryCount());
+        assertEquals(0, cache.getStats().getByteSize());
+        
+        assertEquals("value", decryptor.decrypt(value));
+        assertEquals("value", decryptor.decrypt(value));
+        assertEquals(3, decryptions.get());
+        assertEquals(0, cache.getStats().getEntryCount());
+    }
+}
@@ -0,0 +1,70 @@
+package com.mikaa404.crypto;
+
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyProviderTest {
+    @Test
+    public void createsDecryptorOnceForConcurrentReaders() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        KeyProvider keyProvider = new KeyProvider(() -> {
+            created.incrementAndGet();
+            return new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD);
+        });
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> tasks = IntStream.range(0, 64)
+                                                    .mapToObj(i -> (Callable<String>) () -> keyProvider.getDecryptor().decrypt(
+                                                            FixtureCiphers.macOs().apply("value " + i)))
+                                                    .collect(Collectors.toList());
+            List<Future<String>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("value " + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, created.get());
+    }
+    
+    @Test
+    public void closeWipesKeys() {
+        WindowsCookieDecryptor decryptor = new WindowsCookieDecryptor(FixtureCiphers.WINDOWS_MASTER_KEY);
+        KeyProvider keyProvider = KeyProvider.of(decryptor);
+        assertSame(decryptor, keyProvider.getDecryptor());
+        assertEquals("hello", keyProvider.getDecryptor().decrypt(FixtureCiphers.windows().apply("hello")));
+        
+        keyProvider.close();
+        
+        assertTrue(keyProvider.isClosed());
+        assertTrue(decryptor.isDestroyed());
+        assertThrows(IllegalStateException.class, () -> decryptor.decrypt(FixtureCiphers.windows().apply("hello")));
+        assertThrows(IllegalStateException.class, keyProvider::getDecryptor);
+    }
+    
+    @Test
+    public void closeWipesLazilyDerivedKeys() {
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        assertEquals("v11", decryptor.decrypt(FixtureCiphers.linuxV11().apply("v11")));
+        
+        KeyProvider.of(decryptor).close();
+        
+        assertThrows(IllegalStateException.class, () -> decryptor.decrypt(FixtureCiphers.linuxV10().apply("v10")));
+        assertThrows(IllegalStateException.class, () -> decryptor.decrypt(FixtureCiphers.linuxV11().apply("v11")));
+    }
+}
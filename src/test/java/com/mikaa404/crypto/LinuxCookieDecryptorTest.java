@@ -0,0 +1,61 @@
+package com.mikaa404.crypto;
+
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LinuxCookieDecryptorTest {
+    @Test
+    public void decryptsV10WithoutKeyring() {
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> {
+            throw new AssertionError("keyring must not be accessed for v10 values");
+        });
+        
+        assertEquals("hello", decryptor.decrypt(FixtureCiphers.linuxV10().apply("hello")));
+    }
+    
+    @Test
+    public void decryptsV11WithKeyringSecretReadOnce() {
+        AtomicInteger keyringReads = new AtomicInteger();
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> {
+            keyringReads.incrementAndGet();
+            return FixtureCiphers.LINUX_KEYRING_SECRET;
+        });
+        
+        assertEquals("first", decryptor.decrypt(FixtureCiphers.linuxV11().apply("first")));
+        assertEquals("second", decryptor.decrypt(FixtureCiphers.linuxV11().apply("second")));
+        assertEquals("v10 still works", decryptor.decrypt(FixtureCiphers.linuxV10().apply("v10 still works")));
+        assertEquals(1, keyringReads.get());
+    }
+    
+    @Test
+    public void decryptsBatchOfMixedVersions() {
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        byte[][] encryptedValues = {
+                FixtureCiphers.linuxV10().apply("v10 value"),
+                FixtureCiphers.linuxV11().apply("v11 value"),
+                "unversioned".getBytes(StandardCharsets.UTF_8)
+        };
+        String[] values = new String[encryptedValues.length];
+        
+        decryptor.decryptAll(encryptedValues, encryptedValues.length, 0, values);
+        assertArrayEquals(new String[]{"v10 value", "v11 value", "unversioned"}, values);
+    }
+    
+    @Test
+    public void rejectsPlaintextShorterThanOffset() {
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        byte[] encryptedValue = FixtureCiphers.linuxV10().apply("short");
+        
+        assertEquals("rt", decryptor.decrypt(encryptedValue, 3));
+        assertThrows(IllegalStateException.class, () -> decryptor.decrypt(encryptedValue, 32));
+        assertThrows(IllegalStateException.class,
+                     () -> decryptor.decryptAll(new byte[][]{encryptedValue}, 1, 32, new String[1]));
+    }
+}
@@ -0,0 +1,64 @@
+package com.mikaa404.crypto;
+
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MacOsCookieDecryptorTest {
+    private final Function<String, byte[]> encryptor = FixtureCiphers.macOs();
+    
+    @Test
+    public void decryptsWithDerivedKey() {
+        MacOsCookieDecryptor decryptor = new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD);
+        
+        assertEquals("hello", decryptor.decrypt(encryptor.apply("hello")));
+        assertEquals("", decryptor.decrypt(encryptor.apply("")));
+        assertEquals("ünïcödé", decryptor.decrypt(encryptor.apply("ünïcödé")));
+    }
+    
+    @Test
+    public void wrongPasswordFails() {
+        MacOsCookieDecryptor decryptor = new MacOsCookieDecryptor("not the password");
+        
+        assertThrows(RuntimeException.class, () -> decryptor.decrypt(encryptor.apply("hello")));
+    }
+    
+    @Test
+    public void sharedAcrossThreads() throws Exception {
+        MacOsCookieDecryptor decryptor = new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD);
+        List<byte[]> encrypted = IntStream.range(0, 200)
+                                         .mapToObj(i -> encryptor.apply("value" + i))
+                                         .collect(Collectors.toList());
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = IntStream.range(0, encrypted.size())
+                                                   .mapToObj(i -> executor.submit(() -> decryptor.decrypt(encrypted.get(i))))
+                                                   .collect(Collectors.toList());
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals("value" + i, futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void unprefixedValueIsPlainText() {
+        MacOsCookieDecryptor decryptor = new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD);
+        
+        assertEquals("plain", decryptor.decrypt("plain".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("", decryptor.decrypt(new byte[0]));
+    }
+}
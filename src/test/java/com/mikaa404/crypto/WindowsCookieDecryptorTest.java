@@ -0,0 +1,60 @@
+package com.mikaa404.crypto;
+
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WindowsCookieDecryptorTest {
+    private final Function<String, byte[]> encryptor = FixtureCiphers.windows();
+    
+    @Test
+    public void decryptsWithMasterKey() {
+        WindowsCookieDecryptor decryptor = new WindowsCookieDecryptor(FixtureCiphers.WINDOWS_MASTER_KEY);
+        
+        assertEquals("hello", decryptor.decrypt(encryptor.apply("hello")));
+        assertEquals("", decryptor.decrypt(encryptor.apply("")));
+        assertEquals("ünïcödé", decryptor.decrypt(encryptor.apply("ünïcödé")));
+    }
+    
+    @Test
+    public void tamperedValueFails() {
+        WindowsCookieDecryptor decryptor = new WindowsCookieDecryptor(FixtureCiphers.WINDOWS_MASTER_KEY);
+        byte[] encryptedValue = encryptor.apply("hello");
+        encryptedValue[encryptedValue.length - 1] ^= 1;
+        
+        assertThrows(RuntimeException.class, () -> decryptor.decrypt(encryptedValue));
+    }
+    
+    @Test
+    public void keyIsCopied() {
+        byte[] masterKey = FixtureCiphers.WINDOWS_MASTER_KEY.clone();
+        WindowsCookieDecryptor decryptor = new WindowsCookieDecryptor(masterKey);
+        Arrays.fill(masterKey, (byte) 0);
+        
+        assertEquals("hello", decryptor.decrypt(encryptor.apply("hello")));
+    }
+    
+    @Test
+    public void decryptsBatchSkippingHostDigest() {
+        WindowsCookieDecryptor decryptor = new WindowsCookieDecryptor(FixtureCiphers.WINDOWS_MASTER_KEY);
+        String longValue = String.join("", Collections.nCopies(100, "long-value"));
+        byte[][] encryptedValues = {
+                FixtureCiphers.windowsBytes().apply(FixtureCiphers.withHostDigest(".example.com", "hello")),
+                FixtureCiphers.windowsBytes().apply(FixtureCiphers.withHostDigest(".example.com", longValue)),
+                FixtureCiphers.windowsBytes().apply(FixtureCiphers.withHostDigest(".example.com", "")),
+                null
+        };
+        String[] values = new String[encryptedValues.length];
+        
+        decryptor.decryptAll(encryptedValues, 3, CookieDecryptors.HOST_DIGEST_LENGTH, values);
+        assertArrayEquals(new String[]{"hello", longValue, "", null}, values);
+        assertEquals("hello", CookieDecryptors.skippingHostDigest(decryptor).decrypt(encryptedValues[0]));
+    }
+}
@@ -0,0 +1,149 @@
+package com.mikaa404.daemon;
+
+import com.mikaa404.browser.Profile;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.JdbcCookieStoreReader;
+import com.mikaa404.watch.CookieWatcher;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CookieDaemonTest {
+    private static final int ROWS = 100;
+    
+    @TempDir
+    Path tempDir;
+    private Path cookieFile;
+    private CookieDaemon daemon;
+    
+    @BeforeEach
+    void startDaemon() throws IOException {
+        Path profileFolder = Files.createDirectories(tempDir.resolve("google-chrome").resolve("Default"));
+        cookieFile = profileFolder.resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, ROWS, FixtureCiphers.linuxV10());
+        JdbcCookieStoreReader reader = new JdbcCookieStoreReader(
+                new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), false, tempDir.resolve("cookyTmpStore"));
+        Profile profile = new Profile("Default", "Person 1", profileFolder, cookieFile);
+        
+        daemon = new CookieDaemon(listener -> new CookieWatcher(reader, Collections.singletonList(profile), listener, 500), 0);
+        daemon.start();
+    }
+    
+    @AfterEach
+    void stopDaemon() {
+        daemon.close();
+    }
+    
+    @Test
+    public void servesFilteredCookies() throws IOException {
+        assertEquals(ROWS, get("/cookies").split("\n").length);
+        
+        String[] lines = get("/cookies?domain=host2.example.com&name=" + CookieStoreFixture.nameOf(45)).split("\n");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].contains(CookieStoreFixture.valueOf(45)), lines[0]);
+        
+        String netscape = get("/cookies?format=netscape&host=" + CookieStoreFixture.hostOf(0) + "&profile=Default");
+        assertTrue(netscape.startsWith("# Netscape HTTP Cookie File\n"));
+        assertEquals(21, netscape.split("\n").length);
+        assertEquals("", get("/cookies?profile=Other"));
+    }
+    
+    @Test
+    public void rejectsUnknownFormat() throws IOException {
+        HttpURLConnection connection = open("/cookies?format=csv");
+        assertEquals(400, connection.getResponseCode());
+    }
+    
+    @Test
+    public void rejectsMissingTokenAndForeignHost() throws IOException {
+        HttpURLConnection connection = open("/cookies");
+        connection.setRequestProperty("Authorization", "Bearer wrong-token");
+        assertEquals(401, connection.getResponseCode());
+        
+        connection = (HttpURLConnection) url("/cookies").openConnection();
+        assertEquals(401, connection.getResponseCode());
+        
+        // a page of a rebound DNS name reaches the daemon with its own name as Host
+        assertTrue(rawGet("attacker.example:" + daemon.getAddress().getPort()).startsWith("HTTP/1.1 403"));
+        assertTrue(rawGet("localhost:" + daemon.getAddress().getPort()).startsWith("HTTP/1.1 200"));
+        assertTrue(rawGet("[::1]:" + daemon.getAddress().getPort()).startsWith("HTTP/1.1 200"));
+    }
+    
+    @Test
+    public void writesTokenOnlyOwnerCanRead() throws IOException {
+        Path tokenFile = tempDir.resolve("token").resolve("daemon.token");
+        daemon.writeToken(tokenFile);
+        
+        assertEquals(daemon.getToken(), new String(Files.readAllBytes(tokenFile), StandardCharsets.US_ASCII));
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(tokenFile));
+    }
+    
+    @Test
+    public void refreshesOnStoreChange() throws IOException, SQLException, InterruptedException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM cookies WHERE name = '" + CookieStoreFixture.nameOf(0) + "'");
+        }
+        
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!get("/cookies?name=" + CookieStoreFixture.nameOf(0)).isEmpty()) {
+            assertTrue(System.nanoTime() < deadline, "cookie still served after removal");
+            Thread.sleep(50);
+        }
+    }
+    
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = open(path);
+        assertEquals(200, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+    
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url(path).openConnection();
+        connection.setRequestProperty("Authorization", "Bearer " + daemon.getToken());
+        return connection;
+    }
+    
+    private URL url(String path) throws IOException {
+        return new URL(String.format("http://%s:%d%s", daemon.getAddress().getHostString(), daemon.getAddress().getPort(), path));
+    }
+    
+    /**
+     * GET with the token and a chosen Host header, which {@link HttpURLConnection} does not let callers set.
+     */
+    private String rawGet(String host) throws IOException {
+        try (Socket socket = new Socket(daemon.getAddress().getAddress(), daemon.getAddress().getPort())) {
+            String request = "GET /cookies?name=" + CookieStoreFixture.nameOf(0) + " HTTP/1.1\r\n" +
+                             "Host: " + host + "\r\n" +
+                             "Authorization: Bearer " + daemon.getToken() + "\r\n" +
+                             "Connection: close\r\n\r\n";
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            return IOUtils.toString(socket.getInputStream(), StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.mikaa404.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.ChromeTimestamps;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.ICookie;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CookieExporterTest {
+    private static final long EXPIRES_MILLIS = 1_800_000_000_000L;
+    private static final List<ICookie> COOKIES = Arrays.asList(
+            new ChromeCookie(".example.com", "SID", "a\"b", "/", 0L, "", ChromeTimestamps.fromEpochMillis(EXPIRES_MILLIS),
+                             true, true, 0L, true, true, 1, -1, 2, 443, false, 0L),
+            new ChromeCookie("www.example.com", "session", "v", "/app", 0L, "", 0L,
+                             false, false, 0L, false, false, 1, -1, 2, 443, false, 0L)
+    );
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Test
+    public void netscape() throws IOException {
+        assertEquals("# Netscape HTTP Cookie File\n" +
+                     "#HttpOnly_.example.com\tTRUE\t/\tTRUE\t1800000000\tSID\ta\"b\n" +
+                     "www.example.com\tFALSE\t/app\tFALSE\t0\tsession\tv\n",
+                     export(CookieExporters.NETSCAPE));
+    }
+    
+    @Test
+    public void jsonLines() throws IOException {
+        String[] lines = export(CookieExporters.JSON_LINES).split("\n");
+        
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(".example.com", first.get("domain").asText());
+        assertEquals("a\"b", first.get("value").asText());
+        assertTrue(first.get("httpOnly").asBoolean());
+        assertEquals(EXPIRES_MILLIS, first.get("expires").asLong());
+        assertTrue(objectMapper.readTree(lines[1]).get("expires").isNull());
+    }
+    
+    @Test
+    public void har() throws IOException {
+        JsonNode cookies = objectMapper.readTree(export(CookieExporters.HAR));
+        
+        assertEquals(2, cookies.size());
+        assertEquals("SID", cookies.get(0).get("name").asText());
+        assertEquals("2027-01-15T08:00:00Z", cookies.get(0).get("expires").asText());
+        assertTrue(cookies.get(0).get("secure").asBoolean());
+        assertFalse(cookies.get(1).has("expires"));
+        assertEquals("/app", cookies.get(1).get("path").asText());
+    }
+    
+    @Test
+    public void writesToChannelWithoutClosingIt() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (WritableByteChannel channel = Channels.newChannel(out)) {
+            CookieExporters.forFormat("JSONL").export(CookieCursor.of(COOKIES.iterator()), channel);
+            assertTrue(channel.isOpen());
+        }
+        assertEquals(export(CookieExporters.JSON_LINES), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+    
+    @Test
+    public void unknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> CookieExporters.forFormat("csv"));
+    }
+    
+    private static String export(String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CookieExporters.forFormat(format).export(CookieCursor.of(COOKIES.iterator()), out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,138 @@
+package com.mikaa404.fixture;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Generates synthetic Chrome `Cookies` sqlite files with the same schema Chrome uses.
+ */
+public class CookieStoreFixture {
+    //language=SQL
+    private static final String CREATE_COOKIES_TABLE =
+            "CREATE TABLE cookies(creation_utc INTEGER NOT NULL, host_key TEXT NOT NULL, top_frame_site_key TEXT NOT NULL, " +
+            "name TEXT NOT NULL, value TEXT NOT NULL, encrypted_value BLOB NOT NULL, path TEXT NOT NULL, " +
+            "expires_utc INTEGER NOT NULL, is_secure INTEGER NOT NULL, is_httponly INTEGER NOT NULL, " +
+            "last_access_utc INTEGER NOT NULL, has_expires INTEGER NOT NULL, is_persistent INTEGER NOT NULL, " +
+            "priority INTEGER NOT NULL, samesite INTEGER NOT NULL, source_scheme INTEGER NOT NULL, " +
+            "source_port INTEGER NOT NULL, is_same_party INTEGER NOT NULL, last_update_utc INTEGER NOT NULL)";
+    /**
+     * Schema of Chrome before 86, which did not record {@code last_update_utc}.
+     */
+    private static final String CREATE_COOKIES_TABLE_WITHOUT_UPDATE_TIMES =
+            CREATE_COOKIES_TABLE.replace(", last_update_utc INTEGER NOT NULL", "");
+    //language=SQL
+    private static final String CREATE_UNIQUE_INDEX =
+            "CREATE UNIQUE INDEX cookies_unique_index ON cookies(host_key, top_frame_site_key, name, path)";
+    //language=SQL
+    private static final String CREATE_META_TABLE =
+            "CREATE TABLE meta(key LONGVARCHAR NOT NULL UNIQUE PRIMARY KEY, value LONGVARCHAR)";
+    //language=SQL
+    private static final String INSERT_COOKIE =
+            "INSERT INTO cookies VALUES (?, ?, '', ?, '', ?, ?, ?, ?, ?, ?, ?, ?, 1, 0, 2, 443, 0, ?)";
+    //language=SQL
+    private static final String INSERT_COOKIE_WITHOUT_UPDATE_TIMES =
+            "INSERT INTO cookies VALUES (?, ?, '', ?, '', ?, ?, ?, ?, ?, ?, ?, ?, 1, 0, 2, 443, 0)";
+    
+    /**
+     * Chrome timestamps are microseconds since 1601-01-01, this one is in 2023.
+     */
+    public static final long BASE_UTC = 13_330_000_000_000_000L;
+    private static final int HOST_DIGEST_VERSION = 24;
+    
+    private CookieStoreFixture() {
+    }
+    
+    /**
+     * Write {@code rows} cookies into a new sqlite file at {@code cookieFile}.
+     *
+     * @param encryptor encrypts plain cookie values into {@code encrypted_value} blobs.
+     */
+    public static void create(Path cookieFile, int rows, Function<String, byte[]> encryptor) {
+        create(cookieFile, rows, 0, true, row -> encryptor.apply(valueOf(row)));
+    }
+    
+    /**
+     * Write {@code rows} cookies into a new sqlite file with the schema of Chrome before 86, without
+     * {@code last_update_utc}.
+     */
+    public static void createWithoutUpdateTimes(Path cookieFile, int rows, Function<String, byte[]> encryptor) {
+        create(cookieFile, rows, 0, false, row -> encryptor.apply(valueOf(row)));
+    }
+    
+    /**
+     * Write {@code rows} cookies into a new sqlite file of `Cookies` version 24, whose plaintexts start with the
+     * SHA-256 digest of the host key.
+     *
+     * @param encryptor encrypts raw plaintexts into {@code encrypted_value} blobs.
+     */
+    public static void createWithHostDigest(Path cookieFile, int rows, Function<byte[], byte[]> encryptor) {
+        create(cookieFile, rows, HOST_DIGEST_VERSION, true,
+               row -> encryptor.apply(FixtureCiphers.withHostDigest(hostOf(row), valueOf(row))));
+    }
+    
+    private static void create(Path cookieFile, int rows, int version, boolean updateTimes, IntFunction<byte[]> encryptedValueOf) {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(updateTimes ? CREATE_COOKIES_TABLE : CREATE_COOKIES_TABLE_WITHOUT_UPDATE_TIMES);
+                statement.execute(CREATE_UNIQUE_INDEX);
+                if (version > 0) {
+                    statement.execute(CREATE_META_TABLE);
+                    statement.execute("INSERT INTO meta VALUES ('version', '" + version + "')");
+                }
+            }
+            
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(updateTimes ? INSERT_COOKIE : INSERT_COOKIE_WITHOUT_UPDATE_TIMES)) {
+                for (int i = 0; i < rows; i++) {
+                    statement.setLong(1, BASE_UTC + i);
+                    statement.setString(2, hostOf(i));
+                    statement.setString(3, nameOf(i));
+                    statement.setBytes(4, encryptedValueOf.apply(i));
+                    statement.setString(5, pathOf(i));
+                    statement.setLong(6, BASE_UTC + 1_000_000_000_000L);
+                    statement.setBoolean(7, i % 2 == 0);
+                    statement.setBoolean(8, i % 3 == 0);
+                    statement.setLong(9, BASE_UTC + i);
+                    statement.setBoolean(10, true);
+                    statement.setBoolean(11, true);
+                    if (updateTimes) {
+                        statement.setLong(12, BASE_UTC + i);
+                    }
+                    statement.addBatch();
+                    if (i % 1000 == 999) {
+                        statement.executeBatch();
+                    }
+                }
+                statement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to create cookies fixture. ", e);
+        }
+    }
+    
+    /**
+     * Hosts are shared by groups of 20 cookies, like real profiles where a site sets many cookies.
+     */
+    public static String hostOf(int row) {
+        return String.format(".host%d.example.com", row / 20);
+    }
+    
+    public static String nameOf(int row) {
+        return "name" + row;
+    }
+    
+    public static String valueOf(int row) {
+        return "value-" + row + "-0123456789abcdef";
+    }
+    
+    public static String pathOf(int row) {
+        return row % 4 == 0 ? "/" : "/path" + row % 4;
+    }
+}
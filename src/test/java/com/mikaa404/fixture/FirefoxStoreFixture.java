@@ -0,0 +1,158 @@
+package com.mikaa404.fixture;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates synthetic Firefox `cookies.sqlite` and `.jsonlz4` session store files. Cookies get the hosts, names,
+ * values and paths of {@link CookieStoreFixture}.
+ */
+public class FirefoxStoreFixture {
+    //language=SQL
+    private static final String CREATE_COOKIES_TABLE =
+            "CREATE TABLE moz_cookies (id INTEGER PRIMARY KEY, originAttributes TEXT NOT NULL DEFAULT '', name TEXT, " +
+            "value TEXT, host TEXT, path TEXT, expiry INTEGER, lastAccessed INTEGER, creationTime INTEGER, " +
+            "isSecure INTEGER, isHttpOnly INTEGER, inBrowserElement INTEGER DEFAULT 0, sameSite INTEGER DEFAULT 0, " +
+            "rawSameSite INTEGER DEFAULT 0, schemeMap INTEGER DEFAULT 0, isPartitionedAttributeSet INTEGER DEFAULT 0, " +
+            "CONSTRAINT moz_uniqueid UNIQUE (name, host, path, originAttributes))";
+    //language=SQL
+    private static final String INSERT_COOKIE =
+            "INSERT INTO moz_cookies (originAttributes, name, value, host, path, expiry, lastAccessed, creationTime, " +
+            "isSecure, isHttpOnly, sameSite, schemeMap) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1, 2)";
+    
+    /**
+     * Microseconds since epoch, in 2023.
+     */
+    public static final long BASE_TIME = TimeUnit.SECONDS.toMicros(1_690_000_000L);
+    
+    private FirefoxStoreFixture() {
+    }
+    
+    /**
+     * Write {@code rows} cookies into a new `cookies.sqlite` file. Every fifth cookie is expired, every seventh is in
+     * container 1.
+     */
+    public static void create(Path cookieFile, int rows) {
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_COOKIES_TABLE);
+            }
+            
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_COOKIE)) {
+                for (int i = 0; i < rows; i++) {
+                    statement.setString(1, originAttributesOf(i));
+                    statement.setString(2, CookieStoreFixture.nameOf(i));
+                    statement.setString(3, CookieStoreFixture.valueOf(i));
+                    statement.setString(4, CookieStoreFixture.hostOf(i));
+                    statement.setString(5, CookieStoreFixture.pathOf(i));
+                    statement.setLong(6, i % 5 == 0 ? now - 3600 : now + 3600);
+                    statement.setLong(7, BASE_TIME + i);
+                    statement.setLong(8, BASE_TIME + i);
+                    statement.setBoolean(9, i % 2 == 0);
+                    statement.setBoolean(10, i % 3 == 0);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to create cookies fixture. ", e);
+        }
+    }
+    
+    public static String originAttributesOf(int row) {
+        return row % 7 == 0 ? "^userContextId=1" : "";
+    }
+    
+    /**
+     * Write a session store file as Firefox does: "mozLz40\0", decompressed size, then one LZ4 block.
+     */
+    public static void writeSessionStore(Path file, String json) {
+        byte[] content = json.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("mozLz40\0".getBytes(StandardCharsets.US_ASCII), 0, 8);
+        for (int i = 0; i < 4; i++) {
+            out.write(content.length >>> (8 * i));
+        }
+        byte[] block = compressLz4(content);
+        out.write(block, 0, block.length);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, out.toByteArray());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write session store fixture. ", e);
+        }
+    }
+    
+    /**
+     * A greedy LZ4 block compressor, enough to produce literal runs and (overlapping) matches of any length.
+     */
+    public static byte[] compressLz4(byte[] source) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] table = new int[1 << 16];
+        Arrays.fill(table, -1);
+        // the last match must start 12 bytes before the end and the last 5 bytes must be literals
+        int matchStartLimit = source.length - 12;
+        int matchEndLimit = source.length - 5;
+        int anchor = 0;
+        int pos = 0;
+        while (pos < matchStartLimit) {
+            int sequence = readInt(source, pos);
+            int hash = (sequence * -1640531535) >>> 16;
+            int reference = table[hash];
+            table[hash] = pos;
+            if (reference < 0 || pos - reference > 65535 || readInt(source, reference) != sequence) {
+                pos++;
+                continue;
+            }
+            
+            int matchLength = 4;
+            while (pos + matchLength < matchEndLimit && source[reference + matchLength] == source[pos + matchLength]) {
+                matchLength++;
+            }
+            int literalLength = pos - anchor;
+            out.write(Math.min(literalLength, 15) << 4 | Math.min(matchLength - 4, 15));
+            writeLength(out, literalLength);
+            out.write(source, anchor, literalLength);
+            out.write(pos - reference);
+            out.write((pos - reference) >>> 8);
+            writeLength(out, matchLength - 4);
+            pos += matchLength;
+            anchor = pos;
+        }
+        
+        int literalLength = source.length - anchor;
+        out.write(Math.min(literalLength, 15) << 4);
+        writeLength(out, literalLength);
+        out.write(source, anchor, literalLength);
+        return out.toByteArray();
+    }
+    
+    private static void writeLength(ByteArrayOutputStream out, int length) {
+        if (length < 15) {
+            return;
+        }
+        int remaining = length - 15;
+        while (remaining >= 255) {
+            out.write(255);
+            remaining -= 255;
+        }
+        out.write(remaining);
+    }
+    
+    private static int readInt(byte[] source, int pos) {
+        return (source[pos] & 0xFF) | (source[pos + 1] & 0xFF) << 8 | (source[pos + 2] & 0xFF) << 16 | (source[pos + 3] & 0xFF) << 24;
+    }
+}
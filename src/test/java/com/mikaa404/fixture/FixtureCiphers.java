@@ -0,0 +1,127 @@
+package com.mikaa404.fixture;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Encrypts cookie values the same way Chrome does, so fixtures can be decrypted with known keys.
+ */
+public class FixtureCiphers {
+    public static final String MAC_OS_PASSWORD = "cooky-fixture-password";
+    public static final String LINUX_KEYRING_SECRET = "cooky-fixture-keyring-secret";
+    public static final byte[] WINDOWS_MASTER_KEY = "cooky-fixture-windows-master-key".getBytes(StandardCharsets.US_ASCII);
+    
+    private FixtureCiphers() {
+    }
+    
+    /**
+     * Version prefix followed by AES-128-CBC, key derived with PBKDF2 from {@code password}.
+     */
+    public static Function<String, byte[]> cbc(String prefix, String password, int iterationCount) {
+        return utf8(cbcBytes(prefix, password, iterationCount));
+    }
+    
+    /**
+     * Like {@link #cbc(String, String, int)}, encrypting raw plaintexts, e.g. ones starting with a host digest.
+     */
+    public static Function<byte[], byte[]> cbcBytes(String prefix, String password, int iterationCount) {
+        final Cipher cipher;
+        try {
+            byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1")
+                                 .generateSecret(new PBEKeySpec(password.toCharArray(),
+                                                                "saltysalt".getBytes(StandardCharsets.UTF_8),
+                                                                iterationCount,
+                                                                128))
+                                 .getEncoded();
+            byte[] iv = new byte[16];
+            Arrays.fill(iv, (byte) ' ');
+            cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+        
+        return value -> {
+            try {
+                return withPrefix(prefix, cipher.doFinal(value));
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+    
+    public static Function<String, byte[]> macOs() {
+        return cbc("v10", MAC_OS_PASSWORD, 1003);
+    }
+    
+    public static Function<String, byte[]> linuxV10() {
+        return cbc("v10", "peanuts", 1);
+    }
+    
+    public static Function<String, byte[]> linuxV11() {
+        return cbc("v11", LINUX_KEYRING_SECRET, 1);
+    }
+    
+    /**
+     * "v10" prefix, 12 bytes random nonce, then AES-256-GCM cipher text and tag.
+     */
+    public static Function<String, byte[]> windows() {
+        return utf8(windowsBytes());
+    }
+    
+    public static Function<byte[], byte[]> windowsBytes() {
+        final SecretKeySpec key = new SecretKeySpec(WINDOWS_MASTER_KEY, "AES");
+        final SecureRandom random = new SecureRandom();
+        return value -> {
+            byte[] nonce = new byte[12];
+            random.nextBytes(nonce);
+            try {
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, nonce));
+                byte[] cipherText = cipher.doFinal(value);
+                byte[] nonceAndCipherText = Arrays.copyOf(nonce, nonce.length + cipherText.length);
+                System.arraycopy(cipherText, 0, nonceAndCipherText, nonce.length, cipherText.length);
+                return withPrefix("v10", nonceAndCipherText);
+            } catch (GeneralSecurityException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+    
+    /**
+     * Plaintext of Chrome `Cookies` version 24 and later: SHA-256 digest of the host key, then the value.
+     */
+    public static byte[] withHostDigest(String hostKey, String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(hostKey.getBytes(StandardCharsets.UTF_8));
+            byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            byte[] plaintext = Arrays.copyOf(digest, digest.length + valueBytes.length);
+            System.arraycopy(valueBytes, 0, plaintext, digest.length, valueBytes.length);
+            return plaintext;
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static Function<String, byte[]> utf8(Function<byte[], byte[]> encryptor) {
+        return value -> encryptor.apply(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static byte[] withPrefix(String prefix, byte[] cipherText) {
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.US_ASCII);
+        byte[] result = Arrays.copyOf(prefixBytes, prefixBytes.length + cipherText.length);
+        System.arraycopy(cipherText, 0, result, prefixBytes.length, cipherText.length);
+        return result;
+    }
+}
@@ -0,0 +1,200 @@
+package com.mikaa404.metrics;
+
+import com.mikaa404.browser.BrowserContext;
+import com.mikaa404.browser.ChromeBrowser;
+import com.mikaa404.browser.Profile;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.KeyProvider;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.StoreAccessStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExtractionListenerTest {
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void reportsStagesOfRead() throws IOException {
+        Path userData = createUserData(50, "Default");
+        List<ExtractionReport> reports = new CopyOnWriteArrayList<>();
+        try (BrowserContext context = newContext(userData, FixtureCiphers.LINUX_KEYRING_SECRET)) {
+            ChromeBrowser browser = new ChromeBrowser(context).setAccessStrategy(StoreAccessStrategy.COPY)
+                                                              .setExtractionListener(reports::add);
+            assertEquals(50, browser.getAllCookies().size());
+            assertEquals(50, browser.getAllCookies().size());
+        }
+        
+        assertEquals(2, reports.size());
+        ExtractionReport report = reports.get(0);
+        assertEquals("Chrome", report.getBrowserName());
+        assertEquals("Default", report.getProfileName());
+        assertEquals(userData.resolve("Default").resolve("Network").resolve("Cookies"), report.getCookieFile());
+        for (ExtractionStage stage : ExtractionStage.values()) {
+            assertTrue(report.getNanos(stage) > 0, stage.name());
+        }
+        assertEquals(50, report.getRowsScanned());
+        assertEquals(50, report.getRowsDecrypted());
+        assertEquals(0, report.getRowsFailed());
+        assertEquals(Files.size(report.getCookieFile()), report.getBytesCopied());
+        assertTrue(report.isKeysRetrieved());
+        assertFalse(report.isKeysCached());
+        assertFalse(report.isFailed());
+        assertTrue(reports.get(1).isKeysCached());
+    }
+    
+    @Test
+    public void reportsFailedStage() throws IOException {
+        Path userData = createUserData(50, "Default");
+        List<ExtractionReport> reports = new CopyOnWriteArrayList<>();
+        try (BrowserContext context = newContext(userData, "wrong-keyring-secret")) {
+            ChromeBrowser browser = new ChromeBrowser(context).setAccessStrategy(StoreAccessStrategy.READ_ONLY_IMMUTABLE)
+                                                              .setExtractionListener(reports::add);
+            RuntimeException e = assertThrows(RuntimeException.class, browser::getAllCookies);
+            
+            assertEquals(1, reports.size());
+            assertEquals(ExtractionStage.DECRYPTION, reports.get(0).getFailedStage());
+            assertEquals(e, reports.get(0).getFailure());
+            assertEquals(1, reports.get(0).getRowsFailed());
+            assertEquals(0, reports.get(0).getBytesCopied());
+        }
+    }
+    
+    @Test
+    public void reportsEachProfileReadInParallel() throws IOException {
+        Path userData = createUserData(10, "Default", "Profile 1", "Profile 2");
+        List<ExtractionReport> reports = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try (BrowserContext context = newContext(userData, FixtureCiphers.LINUX_KEYRING_SECRET)) {
+            ChromeBrowser browser = new ChromeBrowser(context).setAccessStrategy(StoreAccessStrategy.MAPPED_PAGES)
+                                                              .setExtractionListener(reports::add);
+            Map<Profile, List<ICookie>> cookies = browser.getCookiesByProfile(CookieQuery.all(), executor, (profile, e) -> {
+            });
+            assertEquals(3, cookies.size());
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertEquals(3, reports.size());
+        assertEquals(1, reports.stream().filter(r -> !r.isKeysCached()).count());
+        assertEquals(30, reports.stream().mapToLong(ExtractionReport::getRowsScanned).sum());
+        assertEquals(30, reports.stream().mapToLong(ExtractionReport::getRowsDecrypted).sum());
+    }
+    
+    @Test
+    public void reportsReadWithoutProfiles() throws IOException {
+        Path userData = Files.createDirectories(tempDir.resolve("user-data"));
+        List<ExtractionReport> reports = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (BrowserContext context = newContext(userData, FixtureCiphers.LINUX_KEYRING_SECRET)) {
+            ChromeBrowser browser = new ChromeBrowser(context).setExtractionListener(reports::add);
+            assertTrue(browser.getCookiesByProfile(CookieQuery.all(), executor, (profile, e) -> {
+            }).isEmpty());
+            assertTrue(browser.getAllCookies().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertEquals(2, reports.size());
+        for (ExtractionReport report : reports) {
+            assertEquals("", report.getProfileName());
+            assertNull(report.getCookieFile());
+            assertTrue(report.getNanos(ExtractionStage.PROFILE_DISCOVERY) > 0);
+            assertFalse(report.isKeysRetrieved());
+            assertFalse(report.isFailed());
+        }
+    }
+    
+    @Test
+    public void disabledRecorderRecordsNothing() {
+        ExtractionRecorder recorder = ExtractionRecorder.of(null, "Chrome");
+        
+        assertFalse(recorder.isEnabled());
+        assertEquals(0, recorder.start());
+        recorder.rowsScanned(10);
+        recorder.finish();
+        assertTrue(ExtractionRecorder.disabled() == recorder);
+    }
+    
+    @Test
+    public void registersMeters() throws IOException {
+        Path userData = createUserData(20, "Default");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (BrowserContext context = newContext(userData, FixtureCiphers.LINUX_KEYRING_SECRET)) {
+            ChromeBrowser browser = new ChromeBrowser(context).setAccessStrategy(StoreAccessStrategy.READ_ONLY_IMMUTABLE)
+                                                              .setExtractionListener(new MicrometerExtractionListener(registry));
+            browser.getAllCookies();
+            browser.getAllCookies();
+        }
+        
+        assertEquals(2, registry.get("cooky.extraction").tag("outcome", "success").timer().count());
+        assertEquals(2, registry.get("cooky.extraction.stage").tag("stage", "scan").timer().count());
+        assertEquals(40, registry.get("cooky.extraction.rows").tag("state", "decrypted").counter().count());
+        assertEquals(1, registry.get("cooky.extraction.keys").tag("cache", "hit").counter().count());
+        assertEquals(1, registry.get("cooky.extraction.keys").tag("cache", "miss").counter().count());
+        assertNull(registry.find("cooky.extraction.stage").tag("stage", "store_copy").timer());
+    }
+    
+    @Test
+    public void commitsJfrEvents() throws IOException {
+        Path userData = createUserData(20, "Default");
+        Path recordingFile = tempDir.resolve("extraction.jfr");
+        try (BrowserContext context = newContext(userData, FixtureCiphers.LINUX_KEYRING_SECRET);
+             Recording recording = new Recording()) {
+            recording.enable("com.mikaa404.Extraction");
+            recording.start();
+            new ChromeBrowser(context).setExtractionListener(new JfrExtractionListener()).getAllCookies();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile)
+                                                  .stream()
+                                                  .filter(e -> e.getEventType().getName().equals("com.mikaa404.Extraction"))
+                                                  .collect(Collectors.toList());
+        assertEquals(1, events.size());
+        assertEquals("Default", events.get(0).getString("profile"));
+        assertEquals(20, events.get(0).getLong("rowsDecrypted"));
+        assertTrue(events.get(0).getDuration("scanTime").toNanos() > 0);
+    }
+    
+    private BrowserContext newContext(Path userData, String keyringSecret) {
+        return BrowserContext.builder()
+                             .userDataPath(userData)
+                             .tempFolder(tempDir.resolve("tmp"))
+                             .keyProvider(new KeyProvider(() -> new LinuxCookieDecryptor(() -> keyringSecret)))
+                             .build();
+    }
+    
+    private Path createUserData(int rows, String... profileNames) throws IOException {
+        Path userData = tempDir.resolve("user-data");
+        for (String profileName : profileNames) {
+            Path cookieFile = Files.createDirectories(userData.resolve(profileName).resolve("Network")).resolve("Cookies");
+            CookieStoreFixture.create(cookieFile, rows, FixtureCiphers.linuxV11());
+        }
+        return userData;
+    }
+}
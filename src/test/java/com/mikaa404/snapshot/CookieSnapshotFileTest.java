@@ -0,0 +1,262 @@
+package com.mikaa404.snapshot;
+
+import com.mikaa404.browser.BrowserContext;
+import com.mikaa404.browser.ChromeBrowser;
+import com.mikaa404.browser.Profile;
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.CookieTable;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.KeyProvider;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CookieSnapshotFileTest {
+    private static final int ROWS = 200;
+    private static final byte[] KEY = "cooky-fixture-snapshot-key-32-by".getBytes(StandardCharsets.US_ASCII);
+    
+    @TempDir
+    Path tempDir;
+    private Path cookieFile;
+    private Path snapshotFile;
+    
+    @BeforeEach
+    void createStore() throws IOException {
+        cookieFile = Files.createDirectories(tempDir.resolve("user-data").resolve("Default").resolve("Network"))
+                          .resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, ROWS, FixtureCiphers.linuxV11());
+        snapshotFile = tempDir.resolve("snapshots").resolve("Default.snapshot");
+    }
+    
+    @Test
+    public void readsWrittenSnapshot() {
+        try (BrowserContext context = newContext()) {
+            CookieTable table = new ChromeBrowser(context).getCookieTable(profileOf(context), CookieQuery.all());
+            CookieSnapshotFile snapshot = new CookieSnapshotFile(snapshotFile, KEY);
+            snapshot.write(table);
+            
+            assertEquals(valuesByKey(table), valuesByKey(snapshot.read()));
+        }
+    }
+    
+    @Test
+    public void appendsChangesOfLiveStore() throws IOException, SQLException {
+        try (BrowserContext context = newContext()) {
+            ChromeBrowser browser = new ChromeBrowser(context);
+            Profile profile = profileOf(context);
+            CookieSnapshotFile snapshot = new CookieSnapshotFile(snapshotFile, KEY);
+            snapshot.write(browser.getCookieTable(profile, CookieQuery.all()));
+            
+            long updateUtc = CookieStoreFixture.BASE_UTC + 1_000_000;
+            browser.newCookieWriter().write(cookieFile, Arrays.asList(
+                    newCookie(CookieStoreFixture.hostOf(5), CookieStoreFixture.nameOf(5), CookieStoreFixture.pathOf(5), updateUtc),
+                    newCookie(".added.example.org", "added", "/", updateUtc + 1)));
+            executeSql("DELETE FROM cookies WHERE name = '" + CookieStoreFixture.nameOf(9) + "'");
+            
+            CookieSnapshotDelta delta = browser.diffSnapshot(profile, snapshot.read());
+            assertEquals(2, delta.getChanged().size());
+            assertEquals(Collections.singleton(new CookieKey(CookieStoreFixture.hostOf(9), "", CookieStoreFixture.nameOf(9),
+                                                             CookieStoreFixture.pathOf(9))), delta.getRemovedKeys());
+            snapshot.append(delta);
+            
+            executeSql("DELETE FROM cookies WHERE name = 'added'");
+            snapshot.append(browser.diffSnapshot(profile, snapshot.read()));
+            
+            CookieTable read = snapshot.read();
+            assertEquals(ROWS - 1, read.size());
+            assertEquals(valuesByKey(browser.getCookieTable(profile, CookieQuery.all())), valuesByKey(read));
+        }
+    }
+    
+    @Test
+    public void findsChangesOfStoreWithoutUpdateTimes() throws IOException, SQLException {
+        Files.delete(cookieFile);
+        CookieStoreFixture.createWithoutUpdateTimes(cookieFile, ROWS, FixtureCiphers.linuxV11());
+        try (BrowserContext context = newContext()) {
+            ChromeBrowser browser = new ChromeBrowser(context);
+            Profile profile = profileOf(context);
+            CookieSnapshotFile snapshot = new CookieSnapshotFile(snapshotFile, KEY);
+            snapshot.write(browser.getCookieTable(profile, CookieQuery.all()));
+            
+            browser.newCookieWriter().write(cookieFile, Collections.singletonList(newCookie(".added.example.org", "added", "/", 1L)));
+            executeSql("DELETE FROM cookies WHERE name = '" + CookieStoreFixture.nameOf(9) + "'");
+            
+            // without update times every cookie of the store is reported as changed
+            CookieSnapshotDelta delta = browser.diffSnapshot(profile, snapshot.read());
+            assertEquals(ROWS, delta.getChanged().size());
+            assertEquals(1, delta.getRemovedKeys().size());
+            snapshot.append(delta);
+            
+            CookieTable read = snapshot.read();
+            assertEquals(ROWS, read.size());
+            assertEquals(valuesByKey(browser.getCookieTable(profile, CookieQuery.all())), valuesByKey(read));
+        }
+    }
+    
+    @Test
+    public void skipsEmptyDelta() throws IOException {
+        try (BrowserContext context = newContext()) {
+            ChromeBrowser browser = new ChromeBrowser(context);
+            CookieSnapshotFile snapshot = new CookieSnapshotFile(snapshotFile, KEY);
+            snapshot.write(browser.getCookieTable(profileOf(context), CookieQuery.all()));
+            long size = Files.size(snapshotFile);
+            
+            CookieSnapshotDelta delta = browser.diffSnapshot(profileOf(context), snapshot.read());
+            snapshot.append(delta);
+            
+            assertTrue(delta.isEmpty());
+            assertEquals(size, Files.size(snapshotFile));
+        }
+    }
+    
+    @Test
+    public void rejectsWrongKeyAndCorruption() throws IOException {
+        CookieTable table = CookieTable.from(Collections.singletonList(newCookie("example.com", "a", "/", 1L)));
+        CookieSnapshotFile snapshot = new CookieSnapshotFile(snapshotFile, KEY);
+        snapshot.write(table);
+        snapshot.append(new CookieSnapshotDelta(CookieTable.from(Collections.emptyList()),
+                                                Collections.singleton(CookieKey.of(table.get(0)))));
+        assertEquals(0, snapshot.read().size());
+        
+        byte[] otherKey = KEY.clone();
+        otherKey[0] ^= 1;
+        assertThrows(IllegalStateException.class, () -> new CookieSnapshotFile(snapshotFile, otherKey).read());
+        
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalStateException.class, snapshot::read);
+        
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshotFile, bytes);
+        assertThrows(IllegalStateException.class, snapshot::read);
+        
+        assertThrows(IllegalStateException.class,
+                     () -> new CookieSnapshotFile(tempDir.resolve("missing"), KEY).append(
+                             new CookieSnapshotDelta(table, Collections.emptySet())));
+    }
+    
+    @Test
+    public void rejectsSegmentsOfOtherSnapshotAndBadLengths() throws IOException {
+        CookieTable table = CookieTable.from(Collections.singletonList(newCookie("example.com", "a", "/", 1L)));
+        CookieSnapshotDelta delta = new CookieSnapshotDelta(CookieTable.from(Collections.emptyList()),
+                                                            Collections.singleton(CookieKey.of(table.get(0))));
+        CookieSnapshotFile snapshot = new CookieSnapshotFile(snapshotFile, KEY);
+        CookieSnapshotFile other = new CookieSnapshotFile(tempDir.resolve("snapshots").resolve("Other.snapshot"), KEY);
+        snapshot.write(table);
+        other.write(table);
+        other.append(delta);
+        
+        // the delta of the other snapshot, sealed with the same key, at the same index
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        byte[] otherBytes = Files.readAllBytes(other.getFile());
+        byte[] spliced = Arrays.copyOf(bytes, otherBytes.length);
+        System.arraycopy(otherBytes, bytes.length, spliced, bytes.length, otherBytes.length - bytes.length);
+        Files.write(snapshotFile, spliced);
+        assertThrows(IllegalStateException.class, snapshot::read);
+        
+        for (int length : new int[]{-4, -1, 0, Integer.MAX_VALUE}) {
+            byte[] badLength = Arrays.copyOf(bytes, bytes.length + Integer.BYTES);
+            ByteBuffer.wrap(badLength, bytes.length, Integer.BYTES).putInt(length);
+            Files.write(snapshotFile, badLength);
+            assertTimeoutPreemptively(Duration.ofSeconds(10),
+                                      () -> assertThrows(IllegalStateException.class, () -> snapshot.append(delta)));
+            assertThrows(IllegalStateException.class, snapshot::read);
+        }
+    }
+    
+    @Test
+    public void concurrentAppendersTakeTurns() throws Exception {
+        CookieSnapshotFile snapshot = new CookieSnapshotFile(snapshotFile, KEY);
+        snapshot.write(CookieTable.from(Collections.emptyList()));
+        int appenders = 16;
+        CyclicBarrier start = new CyclicBarrier(appenders);
+        ExecutorService executor = Executors.newFixedThreadPool(appenders);
+        try {
+            List<Future<?>> appends = new ArrayList<>();
+            for (int i = 0; i < appenders; i++) {
+                List<ICookie> cookies = new ArrayList<>();
+                for (int j = 0; j < ROWS; j++) {
+                    cookies.add(newCookie("host" + i + ".example.com", "c" + j, "/", 1L));
+                }
+                CookieSnapshotDelta delta = new CookieSnapshotDelta(CookieTable.from(cookies), Collections.emptySet());
+                // each appender has its own instance, as separate processes would
+                appends.add(executor.submit(() -> {
+                    start.await();
+                    new CookieSnapshotFile(snapshotFile, KEY).append(delta);
+                    return null;
+                }));
+            }
+            for (Future<?> append : appends) {
+                append.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        assertEquals(appenders * ROWS, snapshot.read().size());
+    }
+    
+    private BrowserContext newContext() {
+        return BrowserContext.builder()
+                             .userDataPath(tempDir.resolve("user-data"))
+                             .tempFolder(tempDir.resolve("tmp"))
+                             .keyProvider(new KeyProvider(() -> new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET)))
+                             .build();
+    }
+    
+    private static Profile profileOf(BrowserContext context) {
+        return new ChromeBrowser(context).getProfile("Default").get();
+    }
+    
+    private void executeSql(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+    
+    private static Map<CookieKey, String> valuesByKey(CookieTable table) {
+        Map<CookieKey, String> values = new HashMap<>();
+        for (ICookie cookie : table) {
+            CookieTable.Row row = (CookieTable.Row) cookie;
+            values.put(CookieKey.of(row), row.getValue() + "@" + row.getLastUpdateUtc());
+        }
+        return values;
+    }
+    
+    private static ChromeCookie newCookie(String host, String name, String path, long utc) {
+        return new ChromeCookie(host, name, "snapshot-value-" + name, path, utc, "", utc + 1_000_000_000_000L,
+                                true, true, utc, true, true, 1, 0, 2, 443, false, utc);
+    }
+}
@@ -0,0 +1,127 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChromeCookieSqlTest {
+    private static final int ROWS = 400;
+    
+    @TempDir
+    static Path tempDir;
+    private static Connection connection;
+    
+    @BeforeAll
+    static void createStore() throws SQLException {
+        Path cookieFile = tempDir.resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, ROWS, FixtureCiphers.linuxV10());
+        connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+    }
+    
+    @AfterAll
+    static void closeStore() throws SQLException {
+        connection.close();
+    }
+    
+    @Test
+    public void allSelectsEveryRow() throws SQLException {
+        assertEquals(ROWS, count(CookieQuery.all()));
+    }
+    
+    @Test
+    public void exactHost() throws SQLException {
+        assertEquals(20, count(CookieQuery.builder().host(".host3.example.com").build()));
+        assertEquals(0, count(CookieQuery.builder().host("host3.example.com").build()));
+    }
+    
+    @Test
+    public void exactHostUsesIndex() throws SQLException {
+        ChromeCookieSql sql = ChromeCookieSql.select(CookieQuery.builder().host(".host3.example.com").build());
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN QUERY PLAN " + sql.getSql().replace("?", "'.host3.example.com'"))) {
+            assertTrue(resultSet.next());
+            assertTrue(resultSet.getString("detail").contains("cookies_unique_index"), resultSet.getString("detail"));
+        }
+    }
+    
+    @Test
+    public void domainMatchesSubdomains() throws SQLException {
+        assertEquals(20, count(CookieQuery.builder().domain("host3.example.com").build()));
+        assertEquals(20, count(CookieQuery.builder().domain(".host3.example.com").build()));
+        assertEquals(ROWS, count(CookieQuery.builder().domain("example.com").build()));
+        assertEquals(0, count(CookieQuery.builder().domain("ample.com").build()));
+    }
+    
+    @Test
+    public void nameAndPath() throws SQLException {
+        assertEquals(1, count(CookieQuery.builder().name(CookieStoreFixture.nameOf(7)).build()));
+        assertEquals(ROWS, count(CookieQuery.builder().pathPrefix("/").build()));
+        assertEquals(ROWS / 4, count(CookieQuery.builder().pathPrefix("/path1").build()));
+        assertEquals(0, count(CookieQuery.builder().pathPrefix("/PATH1").build()));
+    }
+    
+    @Test
+    public void secureAndExpiry() throws SQLException {
+        assertEquals(ROWS / 2, count(CookieQuery.builder().secureOnly().build()));
+        // fixture cookies expired in 2023
+        assertEquals(ROWS, count(CookieQuery.builder().expired().build()));
+        assertEquals(0, count(CookieQuery.builder().unexpired().build()));
+    }
+    
+    @Test
+    public void criteriaAreCombined() throws SQLException {
+        assertEquals(10, count(CookieQuery.builder().domain("host3.example.com").secureOnly().build()));
+    }
+    
+    @Test
+    public void selectsOnlyProjectedColumns() {
+        CookieQuery query = CookieQuery.builder().columns(CookieColumn.ENCRYPTED_VALUE, CookieColumn.EXPIRES_UTC).build();
+        
+        assertEquals("SELECT host_key, name, value, encrypted_value, path, expires_utc FROM cookies;",
+                     ChromeCookieSql.select(query).getSql());
+    }
+    
+    @Test
+    public void missingColumnsUseDefaults() {
+        CookieSchema legacy = CookieSchema.of(Arrays.asList("creation_utc", "host_key", "name", "value", "path",
+                                                            "expires_utc", "secure", "httponly", "last_access_utc"));
+        CookieQuery query = CookieQuery.builder().secureOnly().updatedAfter(42).build();
+        ChromeCookieSql sql = ChromeCookieSql.select(query, legacy);
+        
+        assertEquals("SELECT creation_utc, host_key, name, value, path, expires_utc, secure, httponly, last_access_utc " +
+                     "FROM cookies WHERE secure = 1;", sql.getSql());
+        assertEquals(Arrays.asList(CookieColumn.CREATION_UTC, CookieColumn.HOST_KEY, CookieColumn.NAME,
+                                   CookieColumn.VALUE, CookieColumn.PATH, CookieColumn.EXPIRES_UTC,
+                                   CookieColumn.IS_SECURE, CookieColumn.IS_HTTPONLY, CookieColumn.LAST_ACCESS_UTC),
+                     sql.getColumns());
+        assertEquals("SELECT host_key, '', name, path FROM cookies;", ChromeCookieSql.selectKeys(legacy));
+    }
+    
+    private static int count(CookieQuery query) throws SQLException {
+        int count = 0;
+        try (PreparedStatement statement = ChromeCookieSql.select(query).prepare(connection);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
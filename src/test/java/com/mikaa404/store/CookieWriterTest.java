@@ -0,0 +1,235 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.CookieEncryptor;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.crypto.MacOsCookieDecryptor;
+import com.mikaa404.crypto.WindowsCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CookieWriterTest {
+    private static final int ROWS = 100;
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void roundTripsLinuxKeyringValues() throws IOException {
+        assertRoundTrip(new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), FixtureCiphers.linuxV11(), "v11");
+    }
+    
+    @Test
+    public void roundTripsLinuxValuesWithoutKeyring() throws IOException {
+        assertRoundTrip(new LinuxCookieDecryptor(null), FixtureCiphers.linuxV10(), "v10");
+    }
+    
+    @Test
+    public void roundTripsMacOsValues() throws IOException {
+        assertRoundTrip(new MacOsCookieDecryptor(FixtureCiphers.MAC_OS_PASSWORD), FixtureCiphers.macOs(), "v10");
+    }
+    
+    @Test
+    public void roundTripsWindowsValues() throws IOException {
+        assertRoundTrip(new WindowsCookieDecryptor(FixtureCiphers.WINDOWS_MASTER_KEY), FixtureCiphers.windows(), "v10");
+    }
+    
+    @Test
+    public void roundTripsValuesWithHostDigest() throws IOException {
+        WindowsCookieDecryptor decryptor = new WindowsCookieDecryptor(FixtureCiphers.WINDOWS_MASTER_KEY);
+        Path cookieFile = createStoreFolder().resolve("Cookies");
+        CookieStoreFixture.createWithHostDigest(cookieFile, ROWS, FixtureCiphers.windowsBytes());
+        List<ChromeCookie> cookies = newCookies(ROWS, 50);
+        
+        assertEquals(50, new CookieWriter(decryptor).write(cookieFile, cookies));
+        
+        List<ChromeCookie> stored = readAll(cookieFile, decryptor);
+        assertEquals(ROWS + 50, stored.size());
+        assertCookiesEqual(cookies, stored.subList(ROWS, ROWS + 50));
+        assertEquals(CookieStoreFixture.valueOf(0), stored.get(0).getValue());
+    }
+    
+    @Test
+    public void replacesCookiesWithSameKey() throws IOException {
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        Path cookieFile = createStore(FixtureCiphers.linuxV11());
+        ChromeCookie replacement = newCookie(CookieStoreFixture.hostOf(7), CookieStoreFixture.nameOf(7),
+                                             "replaced-value", CookieStoreFixture.pathOf(7), 7);
+        
+        new CookieWriter(decryptor).write(cookieFile, Collections.singletonList(replacement));
+        
+        List<ChromeCookie> stored = readAll(cookieFile, decryptor);
+        assertEquals(ROWS, stored.size());
+        ChromeCookie cookie = stored.stream()
+                                    .filter(c -> c.getName().equals(CookieStoreFixture.nameOf(7)))
+                                    .findFirst()
+                                    .get();
+        assertEquals("replaced-value", cookie.getValue());
+        assertEquals(replacement.getExpiresUtc(), cookie.getExpiresUtc());
+    }
+    
+    @Test
+    public void restoresJournalMode() throws IOException, SQLException {
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        Path cookieFile = createStore(FixtureCiphers.linuxV11());
+        
+        new CookieWriter(decryptor).write(cookieFile, newCookies(ROWS, 1200));
+        
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA journal_mode;")) {
+            resultSet.next();
+            assertEquals("delete", resultSet.getString(1));
+        }
+        assertFalse(Files.exists(cookieFile.resolveSibling("Cookies-wal")));
+        assertEquals(ROWS + 1200, readAll(cookieFile, decryptor).size());
+    }
+    
+    @Test
+    public void checkpointsStoreInWalMode() throws IOException, SQLException {
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        Path cookieFile = createStore(FixtureCiphers.linuxV11());
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode = WAL;");
+            statement.execute("PRAGMA wal_autocheckpoint = 0;");
+            statement.executeQuery("SELECT COUNT(*) FROM cookies;").close();
+            
+            // the browser keeps its connection open, so the `-wal` file outlives the writer connection
+            new CookieWriter(decryptor).write(cookieFile, newCookies(ROWS, 50));
+            
+            assertEquals(0, Files.size(cookieFile.resolveSibling("Cookies-wal")));
+            JdbcCookieStoreReader reader = new JdbcCookieStoreReader(decryptor, false, tempDir.resolve("cookyTmpStore"),
+                                                                     StoreAccessStrategy.READ_ONLY_IMMUTABLE);
+            assertEquals(ROWS + 50, reader.countCookies(cookieFile));
+        }
+    }
+    
+    @Test
+    public void refusesLockedStore() throws IOException, SQLException {
+        LinuxCookieDecryptor decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        Path cookieFile = createStore(FixtureCiphers.linuxV11());
+        byte[] content = Files.readAllBytes(cookieFile);
+        
+        // a running browser holds an exclusive lock on its store
+        try (Connection browser = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = browser.createStatement()) {
+            statement.execute("PRAGMA locking_mode = EXCLUSIVE;");
+            statement.execute("BEGIN EXCLUSIVE;");
+            
+            CookieWriter writer = new CookieWriter(decryptor);
+            assertThrows(IllegalStateException.class, () -> writer.write(cookieFile, newCookies(ROWS, 10)));
+            statement.execute("COMMIT;");
+        }
+        
+        assertArrayEquals(content, Files.readAllBytes(cookieFile));
+    }
+    
+    private void assertRoundTrip(CookieDecryptor decryptor, Function<String, byte[]> fixtureCipher, String prefix) throws IOException {
+        Path cookieFile = createStore(fixtureCipher);
+        List<ChromeCookie> cookies = newCookies(ROWS, 50);
+        
+        assertEquals(50, new CookieWriter((CookieEncryptor) decryptor).write(cookieFile, cookies));
+        
+        List<ChromeCookie> stored = readAll(cookieFile, decryptor);
+        assertEquals(ROWS + 50, stored.size());
+        assertCookiesEqual(cookies, stored.subList(ROWS, ROWS + 50));
+        assertEquals(CookieStoreFixture.valueOf(0), stored.get(0).getValue());
+        assertEquals(prefix, encryptedPrefixOf(cookieFile, cookies.get(0).getName()));
+    }
+    
+    private static void assertCookiesEqual(List<ChromeCookie> expected, List<ChromeCookie> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ChromeCookie e = expected.get(i);
+            ChromeCookie a = actual.get(i);
+            assertEquals(e.getHostKey(), a.getHostKey());
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getValue(), a.getValue());
+            assertEquals(e.getPath(), a.getPath());
+            assertEquals(e.getCreationUtc(), a.getCreationUtc());
+            assertEquals(e.getExpiresUtc(), a.getExpiresUtc());
+            assertEquals(e.isSecure(), a.isSecure());
+            assertEquals(e.isHttpOnly(), a.isHttpOnly());
+            assertEquals(e.getLastAccessUtc(), a.getLastAccessUtc());
+            assertEquals(e.getPriority(), a.getPriority());
+            assertEquals(e.getSameSite(), a.getSameSite());
+            assertEquals(e.getSourcePort(), a.getSourcePort());
+            assertEquals(e.getLastUpdateUtc(), a.getLastUpdateUtc());
+        }
+    }
+    
+    private Path createStoreFolder() throws IOException {
+        return Files.createDirectories(tempDir.resolve("google-chrome").resolve("Default"));
+    }
+    
+    private Path createStore(Function<String, byte[]> fixtureCipher) throws IOException {
+        Path cookieFile = createStoreFolder().resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, ROWS, fixtureCipher);
+        return cookieFile;
+    }
+    
+    private List<ChromeCookie> readAll(Path cookieFile, CookieDecryptor decryptor) {
+        List<ChromeCookie> cookies = new ArrayList<>();
+        JdbcCookieStoreReader reader = new JdbcCookieStoreReader(decryptor, false, tempDir.resolve("cookyTmpStore"));
+        try (CookieCursor cursor = reader.open(cookieFile, CookieQuery.all())) {
+            while (cursor.hasNext()) {
+                ICookie cookie = cursor.next();
+                cookies.add((ChromeCookie) cookie);
+            }
+        }
+        return cookies;
+    }
+    
+    private static String encryptedPrefixOf(Path cookieFile, String name) {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT encrypted_value FROM cookies WHERE name = '" + name + "';")) {
+            resultSet.next();
+            return new String(resultSet.getBytes(1), 0, 3);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * Cookies of hosts the fixture does not have, in the order the store returns them.
+     */
+    private static List<ChromeCookie> newCookies(int firstRow, int count) {
+        List<ChromeCookie> cookies = new ArrayList<>();
+        for (int row = firstRow; row < firstRow + count; row++) {
+            cookies.add(newCookie(".imported" + row + ".example.org", "imported" + row, "imported-value-" + row + "-é", "/", row));
+        }
+        return cookies;
+    }
+    
+    private static ChromeCookie newCookie(String host, String name, String value, String path, int row) {
+        long utc = CookieStoreFixture.BASE_UTC + 2_000_000_000L + row;
+        return new ChromeCookie(host, name, value, path, utc, "", utc + 1_000_000_000_000L, row % 2 == 0, row % 3 == 0,
+                                utc, true, true, 2, 1, 2, 443, false, utc);
+    }
+}
@@ -0,0 +1,115 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.FirefoxCookie;
+import com.mikaa404.fixture.FirefoxStoreFixture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FirefoxSessionStoreTest {
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void decodesOverlappingMatch() {
+        byte[] block = {0x35, 'a', 'b', 'c', 3, 0, 0x50, 'x', 'y', 'z', '!', '!'};
+        
+        assertEquals("abcabcabcabcxyz!!", new String(Lz4Block.decompress(block, 0, block.length, 17), StandardCharsets.US_ASCII));
+    }
+    
+    @Test
+    public void decodesLongLiteralsAndMatches() {
+        byte[] content = new byte[200_000];
+        Random random = new Random(42);
+        for (int i = 0; i < content.length; ) {
+            // random runs, repeated runs and long runs of a single byte
+            int length = 1 + random.nextInt(i % 3 == 0 ? 2000 : 50);
+            int kind = random.nextInt(3);
+            for (int j = 0; j < length && i < content.length; j++, i++) {
+                content[i] = kind == 0 ? (byte) random.nextInt() : kind == 1 ? (byte) (j % 7) : (byte) 'x';
+            }
+        }
+        byte[] block = FirefoxStoreFixture.compressLz4(content);
+        
+        assertTrue(block.length < content.length);
+        assertArrayEquals(content, Lz4Block.decompress(block, 0, block.length, content.length));
+    }
+    
+    @Test
+    public void rejectsCorruptedBlocks() {
+        byte[] badOffset = {0x35, 'a', 'b', 'c', 9, 0, 0x50, 'x', 'y', 'z', '!', '!'};
+        assertThrows(IllegalArgumentException.class, () -> Lz4Block.decompress(badOffset, 0, badOffset.length, 17));
+        
+        byte[] truncated = {0x35, 'a', 'b', 'c', 3};
+        assertThrows(IllegalArgumentException.class, () -> Lz4Block.decompress(truncated, 0, truncated.length, 17));
+        
+        assertThrows(RuntimeException.class, () -> FirefoxSessionStore.decompress("not lz4".getBytes(StandardCharsets.US_ASCII)));
+    }
+    
+    @Test
+    public void rejectsUntrustedDecompressedSizes() {
+        byte[] block = {0x35, 'a', 'b', 'c', 3, 0, 0x50, 'x', 'y', 'z', '!', '!'};
+        assertThrows(IllegalArgumentException.class, () -> Lz4Block.decompress(block, 0, block.length, -1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> Lz4Block.decompress(block, 0, block.length, block.length * 255 + 1));
+        
+        for (int size : new int[]{-1, Integer.MAX_VALUE}) {
+            byte[] mozLz4 = ByteBuffer.allocate(12 + block.length).order(ByteOrder.LITTLE_ENDIAN)
+                                      .put("mozLz40\0".getBytes(StandardCharsets.US_ASCII)).putInt(size).put(block)
+                                      .array();
+            RuntimeException e = assertThrows(RuntimeException.class, () -> FirefoxSessionStore.decompress(mozLz4));
+            assertEquals("Corrupted mozLz4 file. ", e.getMessage());
+        }
+    }
+    
+    @Test
+    public void readsTopLevelCookies() {
+        Path sessionStore = tempDir.resolve("sessionstore-backups").resolve("recovery.jsonlz4");
+        FirefoxStoreFixture.writeSessionStore(sessionStore,
+                                              "{\"version\": [\"sessionrestore\", 1], " +
+                                              "\"windows\": [{\"tabs\": [], \"cookies\": [{\"host\": \"nested.example.com\", \"name\": \"nested\"}]}], " +
+                                              "\"cookies\": [" +
+                                              "{\"host\": \".example.com\", \"value\": \"v1\", \"path\": \"/\", \"name\": \"sid\", \"secure\": true, " +
+                                              "\"httponly\": true, \"sameSite\": 1, \"schemeMap\": 2, " +
+                                              "\"originAttributes\": {\"firstPartyDomain\": \"\", \"privateBrowsingId\": 0, \"userContextId\": 2}}, " +
+                                              "{\"host\": \"www.example.com\", \"value\": \"v2\", \"path\": \"/app\", \"name\": \"pref\", " +
+                                              "\"originAttributes\": {\"partitionKey\": \"(https,example.org)\", \"userContextId\": 0}}], " +
+                                              "\"session\": {\"lastUpdate\": 1690000000000}}");
+        
+        List<FirefoxCookie> cookies = FirefoxSessionStore.readCookies(sessionStore);
+        
+        assertEquals(Arrays.asList("sid", "pref"), cookies.stream().map(FirefoxCookie::getName).collect(Collectors.toList()));
+        FirefoxCookie sid = cookies.get(0);
+        assertEquals(".example.com", sid.getHostKey());
+        assertEquals("v1", sid.getValue());
+        assertTrue(sid.isSecure());
+        assertTrue(sid.isHttpOnly());
+        assertTrue(sid.isSession());
+        assertEquals(0, sid.getExpiresUtc());
+        assertEquals(1, sid.getSameSite());
+        assertEquals("^userContextId=2", sid.getOriginAttributes());
+        FirefoxCookie pref = cookies.get(1);
+        assertFalse(pref.isSecure());
+        assertEquals("/app", pref.getPath());
+        assertEquals("^partitionKey=%28https%2Cexample.org%29", pref.getOriginAttributes());
+    }
+    
+    @Test
+    public void missingSessionStore() {
+        assertEquals(0, FirefoxSessionStore.readCookies(tempDir.resolve("missing.jsonlz4")).size());
+    }
+}
@@ -0,0 +1,298 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.metrics.ExtractionRecorder;
+import com.mikaa404.metrics.ExtractionReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JdbcCookieStoreReaderTest {
+    private static final int ROWS = 100;
+    
+    @TempDir
+    Path tempDir;
+    private Path cookieFile;
+    private Path tempFolder;
+    private JdbcCookieStoreReader reader;
+    
+    @BeforeEach
+    void createStore() throws IOException {
+        Path profileFolder = Files.createDirectories(tempDir.resolve("google-chrome").resolve("Default"));
+        cookieFile = profileFolder.resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, ROWS, FixtureCiphers.linuxV10());
+        tempFolder = tempDir.resolve("cookyTmpStore");
+        reader = new JdbcCookieStoreReader(new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), false, tempFolder);
+    }
+    
+    @Test
+    public void readsAllRows() {
+        int row = 0;
+        try (CookieCursor cursor = reader.open(cookieFile, CookieQuery.all())) {
+            while (cursor.hasNext()) {
+                ChromeCookie cookie = (ChromeCookie) cursor.next();
+                assertEquals(CookieStoreFixture.hostOf(row), cookie.getHostKey());
+                assertEquals(CookieStoreFixture.nameOf(row), cookie.getName());
+                assertEquals(CookieStoreFixture.valueOf(row), cookie.getValue());
+                assertEquals(CookieStoreFixture.pathOf(row), cookie.getPath());
+                assertEquals(CookieStoreFixture.BASE_UTC + row, cookie.getCreationUtc());
+                row++;
+            }
+            assertThrows(NoSuchElementException.class, cursor::next);
+        }
+        assertEquals(ROWS, row);
+        assertFalse(Files.exists(tempFolder));
+    }
+    
+    @Test
+    public void earlyCloseReleasesTempFile() throws IOException {
+        try (CookieCursor cursor = reader.open(cookieFile, CookieQuery.all())) {
+            assertTrue(cursor.hasNext());
+            cursor.next();
+            try (Stream<Path> files = Files.list(tempFolder)) {
+                assertEquals(1, files.count());
+            }
+        }
+        assertFalse(Files.exists(tempFolder));
+    }
+    
+    @Test
+    public void concurrentCursorsUseSeparateCopies() {
+        try (CookieCursor first = reader.open(cookieFile, CookieQuery.all());
+             CookieCursor second = reader.open(cookieFile, CookieQuery.all())) {
+            assertEquals(CookieStoreFixture.valueOf(0), first.next().getValue());
+            assertEquals(CookieStoreFixture.valueOf(0), second.next().getValue());
+        }
+        assertFalse(Files.exists(tempFolder));
+    }
+    
+    @Test
+    public void streamStopsEarly() {
+        List<String> names;
+        try (Stream<ICookie> stream = reader.open(cookieFile, CookieQuery.builder().domain("host1.example.com").build()).stream()) {
+            names = stream.limit(3).map(ICookie::getName).collect(Collectors.toList());
+        }
+        
+        assertEquals(3, names.size());
+        assertEquals(CookieStoreFixture.nameOf(20), names.get(0));
+        assertFalse(Files.exists(tempFolder));
+    }
+    
+    @Test
+    public void missingTableReleasesTempFile() throws IOException {
+        Path emptyFile = Files.createFile(tempDir.resolve("google-chrome").resolve("Default").resolve("Empty"));
+        
+        assertThrows(RuntimeException.class, () -> reader.open(emptyFile, CookieQuery.all()));
+        assertFalse(Files.exists(tempFolder));
+    }
+    
+    @Test
+    public void queryFailureIsNotReadAgainFromCopy() throws SQLException {
+        Path otherFile = tempDir.resolve("google-chrome").resolve("Default").resolve("Other");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + otherFile);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE meta(key TEXT, value TEXT)");
+        }
+        JdbcCookieStoreReader immutableReader = new JdbcCookieStoreReader(
+                new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), false, tempFolder,
+                StoreAccessStrategy.READ_ONLY_IMMUTABLE);
+        List<ExtractionReport> reports = new ArrayList<>();
+        
+        // the file opens, only the query fails
+        RuntimeException e = assertThrows(RuntimeException.class,
+                                          () -> immutableReader.open(otherFile, CookieQuery.all(), ExtractionRecorder.of(reports::add, "Chrome")));
+        assertEquals(1, reports.size());
+        assertEquals(0, reports.get(0).getBytesCopied());
+        assertEquals(e, reports.get(0).getFailure());
+        assertEquals(0, e.getSuppressed().length);
+    }
+    
+    @Test
+    public void everyStrategyReadsTheSameCookies() {
+        for (StoreAccessStrategy strategy : StoreAccessStrategy.values()) {
+            JdbcCookieStoreReader strategyReader = new JdbcCookieStoreReader(
+                    new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), false, tempFolder, strategy);
+            
+            int row = 0;
+            try (CookieCursor cursor = strategyReader.open(cookieFile, CookieQuery.all())) {
+                while (cursor.hasNext()) {
+                    assertEquals(CookieStoreFixture.valueOf(row++), cursor.next().getValue(), strategy.name());
+                }
+            }
+            assertEquals(ROWS, row, strategy.name());
+            assertFalse(Files.exists(tempFolder), strategy.name());
+        }
+    }
+    
+    @Test
+    public void readsStoreLockedByBrowser() throws SQLException {
+        try (Connection browser = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = browser.createStatement()) {
+            // Chrome keeps its cookie database exclusively locked while running
+            statement.execute("PRAGMA locking_mode = EXCLUSIVE");
+            statement.execute("BEGIN EXCLUSIVE");
+            
+            for (StoreAccessStrategy strategy : new StoreAccessStrategy[]{StoreAccessStrategy.READ_ONLY_IMMUTABLE, StoreAccessStrategy.IN_MEMORY_SNAPSHOT}) {
+                JdbcCookieStoreReader strategyReader = new JdbcCookieStoreReader(
+                        new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), false, tempFolder, strategy);
+                try (CookieCursor cursor = strategyReader.open(cookieFile, CookieQuery.builder().name(CookieStoreFixture.nameOf(42)).build())) {
+                    assertEquals(CookieStoreFixture.valueOf(42), cursor.next().getValue(), strategy.name());
+                    // served from the live file or memory, not from a copy
+                    assertFalse(Files.exists(tempFolder), strategy.name());
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void readsOnlyProjectedColumns() {
+        CookieQuery query = CookieQuery.builder().name(CookieStoreFixture.nameOf(42)).columns(CookieColumn.EXPIRES_UTC).build();
+        try (CookieCursor cursor = reader.open(cookieFile, query)) {
+            ChromeCookie cookie = (ChromeCookie) cursor.next();
+            assertEquals(CookieStoreFixture.hostOf(42), cookie.getHostKey());
+            assertEquals(CookieStoreFixture.pathOf(42), cookie.getPath());
+            assertEquals(CookieStoreFixture.BASE_UTC + 1_000_000_000_000L, cookie.getExpiresUtc());
+            assertNull(cookie.getValue());
+            assertEquals(0, cookie.getCreationUtc());
+            assertFalse(cookie.isSecure());
+        }
+    }
+    
+    @Test
+    public void readsLegacySchema() throws IOException, SQLException {
+        Path legacyFile = Files.createDirectories(tempDir.resolve("legacy").resolve("Default")).resolve("Cookies");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + legacyFile);
+             Statement statement = connection.createStatement()) {
+            // columns of Chrome 40 stores, before values were encrypted
+            statement.execute("CREATE TABLE cookies(creation_utc INTEGER NOT NULL UNIQUE PRIMARY KEY, host_key TEXT NOT NULL, " +
+                              "name TEXT NOT NULL, value TEXT NOT NULL, path TEXT NOT NULL, expires_utc INTEGER NOT NULL, " +
+                              "secure INTEGER NOT NULL, httponly INTEGER NOT NULL, last_access_utc INTEGER NOT NULL, " +
+                              "has_expires INTEGER NOT NULL DEFAULT 1, persistent INTEGER NOT NULL DEFAULT 1, " +
+                              "priority INTEGER NOT NULL DEFAULT 1, encrypted_value BLOB DEFAULT '')");
+            statement.execute("INSERT INTO cookies(creation_utc, host_key, name, value, path, expires_utc, secure, httponly, " +
+                              "last_access_utc) VALUES (1, '.example.com', 'SID', 'plain', '/', 0, 1, 0, 2)");
+        }
+        
+        try (CookieCursor cursor = reader.open(legacyFile, CookieQuery.builder().secureOnly().updatedAfter(-1).build())) {
+            ChromeCookie cookie = (ChromeCookie) cursor.next();
+            assertEquals("SID", cookie.getName());
+            assertEquals("plain", cookie.getValue());
+            assertTrue(cookie.isSecure());
+            assertTrue(cookie.isPersistent());
+            assertEquals("", cookie.getTopFrameSiteKey());
+            assertEquals(-1, cookie.getSameSite());
+            assertFalse(cursor.hasNext());
+        }
+        assertEquals(1, reader.readKeys(legacyFile).size());
+        assertEquals(1, reader.countCookies(legacyFile));
+    }
+    
+    @Test
+    public void skipsHostDigestOfVersion24Store() throws IOException {
+        Path digestFile = Files.createDirectories(tempDir.resolve("digest").resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.createWithHostDigest(digestFile, ROWS, FixtureCiphers.cbcBytes("v10", "peanuts", 1));
+        
+        for (boolean lazyDecryption : new boolean[]{false, true}) {
+            JdbcCookieStoreReader digestReader = new JdbcCookieStoreReader(
+                    new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), lazyDecryption, tempFolder);
+            int row = 0;
+            try (CookieCursor cursor = digestReader.open(digestFile, CookieQuery.all())) {
+                while (cursor.hasNext()) {
+                    assertEquals(CookieStoreFixture.valueOf(row++), cursor.next().getValue());
+                }
+            }
+            assertEquals(ROWS, row);
+        }
+    }
+    
+    @Test
+    public void skipsHostDigestWithDecryptorOnlyReturningPlaintext() throws IOException {
+        Path digestFile = Files.createDirectories(tempDir.resolve("digest").resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.createWithHostDigest(digestFile, ROWS, plaintext -> xorWithPrefix(plaintext, 0));
+        // a third-party decryptor, which neither knows host digests nor plaintext offsets
+        CookieDecryptor decryptor = new CookieDecryptor() {
+            @Override
+            public String decrypt(byte[] encryptedValue) {
+                return new String(decryptToBytes(encryptedValue), StandardCharsets.UTF_8);
+            }
+            
+            @Override
+            public byte[] decryptToBytes(byte[] encryptedValue) {
+                return Arrays.copyOfRange(xorWithPrefix(encryptedValue, 3), 3, encryptedValue.length);
+            }
+        };
+        
+        int row = 0;
+        try (CookieCursor cursor = new JdbcCookieStoreReader(decryptor, false, tempFolder).open(digestFile, CookieQuery.all())) {
+            while (cursor.hasNext()) {
+                assertEquals(CookieStoreFixture.valueOf(row++), cursor.next().getValue());
+            }
+        }
+        assertEquals(ROWS, row);
+    }
+    
+    /**
+     * A toy cipher: "v10" followed by the bytes after {@code offset}, flipped.
+     */
+    private static byte[] xorWithPrefix(byte[] bytes, int offset) {
+        byte[] result = new byte[3 + bytes.length - offset];
+        result[0] = 'v';
+        result[1] = '1';
+        result[2] = '0';
+        for (int i = offset; i < bytes.length; i++) {
+            result[3 + i - offset] = (byte) (bytes[i] ^ 0x5a);
+        }
+        return result;
+    }
+    
+    @Test
+    public void inMemoryMatchAgreesWithSql() {
+        List<ICookie> cookies;
+        try (Stream<ICookie> stream = reader.open(cookieFile, CookieQuery.all()).stream()) {
+            cookies = stream.collect(Collectors.toList());
+        }
+        
+        for (CookieQuery query : new CookieQuery[]{
+                CookieQuery.builder().host(CookieStoreFixture.hostOf(21)).build(),
+                CookieQuery.builder().domain("host2.example.com").secureOnly().build(),
+                CookieQuery.builder().domain("example.com").pathPrefix("/path1").build(),
+                CookieQuery.builder().name(CookieStoreFixture.nameOf(3)).expired().build(),
+                CookieQuery.builder().unexpired().build(),
+                CookieQuery.builder().updatedAfter(CookieStoreFixture.BASE_UTC + 90).build()}) {
+            List<String> expected;
+            try (Stream<ICookie> stream = reader.open(cookieFile, query).stream()) {
+                expected = stream.map(ICookie::getName).collect(Collectors.toList());
+            }
+            assertEquals(expected, cookies.stream().filter(query::matches).map(ICookie::getName).collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.mikaa404.store;
+
+import com.mikaa404.cookie.ChromeCookie;
+import com.mikaa404.cookie.CookieColumn;
+import com.mikaa404.cookie.CookieCursor;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.cookie.CookieQuery;
+import com.mikaa404.cookie.ICookie;
+import com.mikaa404.crypto.CookieDecryptor;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PageCookieStoreReaderTest {
+    /**
+     * Enough rows for a table b-tree with interior pages.
+     */
+    private static final int ROWS = 3000;
+    
+    @TempDir
+    Path tempDir;
+    private Path cookieFile;
+    private Path tempFolder;
+    private CookieDecryptor decryptor;
+    private JdbcCookieStoreReader jdbcReader;
+    private PageCookieStoreReader reader;
+    
+    @BeforeEach
+    void createStore() throws IOException {
+        cookieFile = Files.createDirectories(tempDir.resolve("google-chrome").resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, ROWS, FixtureCiphers.linuxV10());
+        tempFolder = tempDir.resolve("cookyTmpStore");
+        decryptor = new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET);
+        jdbcReader = new JdbcCookieStoreReader(decryptor, false, tempFolder);
+        reader = new PageCookieStoreReader(decryptor, false, new CountingReader());
+    }
+    
+    @Test
+    public void agreesWithJdbcReader() {
+        for (CookieQuery query : new CookieQuery[]{
+                CookieQuery.all(),
+                CookieQuery.builder().host(CookieStoreFixture.hostOf(21)).build(),
+                CookieQuery.builder().domain("host2.example.com").secureOnly().build(),
+                CookieQuery.builder().domain("example.com").pathPrefix("/path1").build(),
+                CookieQuery.builder().name(CookieStoreFixture.nameOf(3)).expired().build(),
+                CookieQuery.builder().unexpired().columns(CookieColumn.EXPIRES_UTC).build(),
+                CookieQuery.builder().updatedAfter(CookieStoreFixture.BASE_UTC + 90).build()}) {
+            assertEquals(describeAll(jdbcReader, cookieFile, query), describeAll(reader, cookieFile, query));
+        }
+        assertEquals(jdbcReader.readKeys(cookieFile), reader.readKeys(cookieFile));
+        assertEquals(jdbcReader.countCookies(cookieFile), reader.countCookies(cookieFile));
+        assertFalse(Files.exists(tempFolder));
+    }
+    
+    @Test
+    public void findsEveryHostInIndex() {
+        // entries of interior index pages are found as well as those of leaves
+        for (int row = 0; row < ROWS; row += 20) {
+            CookieQuery query = CookieQuery.builder().host(CookieStoreFixture.hostOf(row)).build();
+            assertEquals(describeAll(jdbcReader, cookieFile, query), describeAll(reader, cookieFile, query));
+        }
+        assertFalse(reader.open(cookieFile, CookieQuery.builder().host(".missing.example.com").build()).hasNext());
+    }
+    
+    @Test
+    public void lazyDecryptionReadsTheSameCookies() {
+        PageCookieStoreReader lazyReader = new PageCookieStoreReader(decryptor, true, new CountingReader());
+        
+        assertEquals(describeAll(reader, cookieFile, CookieQuery.all()), describeAll(lazyReader, cookieFile, CookieQuery.all()));
+    }
+    
+    @Test
+    public void readsValuesOnOverflowPages() throws SQLException {
+        String longValue = String.join("", Collections.nCopies(2000, "overflow"));
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             PreparedStatement statement = connection.prepareStatement("UPDATE cookies SET encrypted_value = ? WHERE name = ?")) {
+            statement.setBytes(1, FixtureCiphers.linuxV10().apply(longValue));
+            statement.setString(2, CookieStoreFixture.nameOf(7));
+            statement.executeUpdate();
+        }
+        
+        try (CookieCursor cursor = reader.open(cookieFile, CookieQuery.builder().name(CookieStoreFixture.nameOf(7)).build())) {
+            assertEquals(longValue, cursor.next().getValue());
+        }
+        assertEquals(describeAll(jdbcReader, cookieFile, CookieQuery.all()), describeAll(reader, cookieFile, CookieQuery.all()));
+    }
+    
+    @Test
+    public void readsChangesNotCheckpointedFromWal() throws SQLException, IOException {
+        try (Connection browser = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             Statement statement = browser.createStatement()) {
+            statement.execute("PRAGMA journal_mode = WAL");
+            statement.execute("PRAGMA wal_autocheckpoint = 0");
+            update(browser, 1, "first commit");
+            update(browser, 2, "second commit");
+            statement.execute("DELETE FROM cookies WHERE name = '" + CookieStoreFixture.nameOf(3) + "'");
+            
+            List<String> values = values(reader, cookieFile);
+            assertEquals(ROWS - 1, values.size());
+            assertEquals("first commit", values.get(1));
+            assertEquals("second commit", values.get(2));
+            assertEquals(CookieStoreFixture.valueOf(4), values.get(3));
+            
+            // a frame being written when the file is read fails its checksum, with the frames after it
+            Path copyFolder = Files.createDirectories(tempDir.resolve("copy"));
+            Path copy = copyFolder.resolve("Cookies");
+            Files.copy(cookieFile, copy);
+            Files.copy(cookieFile.resolveSibling("Cookies-wal"), copyFolder.resolve("Cookies-wal"));
+            long walSize = Files.size(copyFolder.resolve("Cookies-wal"));
+            try (RandomAccessFile wal = new RandomAccessFile(copyFolder.resolve("Cookies-wal").toFile(), "rw")) {
+                // last frame is the commit of the delete, the one before it the commit of the second update
+                wal.setLength(walSize - 1);
+            }
+            values = values(reader, copy);
+            assertEquals(ROWS, values.size());
+            assertEquals("second commit", values.get(2));
+        }
+    }
+    
+    @Test
+    public void readsLegacySchemaWithRowidAlias() throws IOException, SQLException {
+        Path legacyFile = Files.createDirectories(tempDir.resolve("legacy").resolve("Default")).resolve("Cookies");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + legacyFile);
+             Statement statement = connection.createStatement()) {
+            // creation_utc is an INTEGER PRIMARY KEY, stored as the rowid rather than in records
+            statement.execute("CREATE TABLE cookies(creation_utc INTEGER NOT NULL UNIQUE PRIMARY KEY, host_key TEXT NOT NULL, " +
+                              "name TEXT NOT NULL, value TEXT NOT NULL, path TEXT NOT NULL, expires_utc INTEGER NOT NULL, " +
+                              "secure INTEGER NOT NULL, httponly INTEGER NOT NULL, last_access_utc INTEGER NOT NULL)");
+            statement.execute("INSERT INTO cookies VALUES (13300000000000000, '.example.com', 'SID', 'plain', '/', 0, 1, 0, 2)");
+            // columns added later are missing from older records
+            statement.execute("ALTER TABLE cookies ADD COLUMN has_expires INTEGER NOT NULL DEFAULT 1");
+            statement.execute("ALTER TABLE cookies ADD COLUMN encrypted_value BLOB DEFAULT ''");
+            // declared defaults which differ from those of CookieColumn
+            statement.execute("ALTER TABLE cookies ADD COLUMN priority INTEGER NOT NULL DEFAULT 2");
+            statement.execute("ALTER TABLE cookies ADD COLUMN samesite INTEGER NOT NULL DEFAULT (1)");
+            statement.execute("ALTER TABLE cookies ADD COLUMN source_port INTEGER NOT NULL DEFAULT -1");
+        }
+        
+        assertEquals(describeAll(jdbcReader, legacyFile, CookieQuery.all()), describeAll(reader, legacyFile, CookieQuery.all()));
+        try (CookieCursor cursor = reader.open(legacyFile, CookieQuery.all())) {
+            ChromeCookie cookie = (ChromeCookie) cursor.next();
+            assertEquals(13_300_000_000_000_000L, cookie.getCreationUtc());
+            assertEquals("plain", cookie.getValue());
+            assertTrue(cookie.isSecure());
+            assertEquals(2, cookie.getPriority());
+            assertEquals(1, cookie.getSameSite());
+        }
+    }
+    
+    @Test
+    public void matchesUpdateTimesLikeJdbcReader() throws IOException, SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+             PreparedStatement statement = connection.prepareStatement("UPDATE cookies SET last_update_utc = 0 WHERE name = ?")) {
+            statement.setString(1, CookieStoreFixture.nameOf(3));
+            statement.executeUpdate();
+        }
+        CookieQuery updatedQuery = CookieQuery.builder().updatedAfter(CookieStoreFixture.BASE_UTC).build();
+        assertEquals(describeAll(jdbcReader, cookieFile, updatedQuery), describeAll(reader, cookieFile, updatedQuery));
+        
+        // stores without update times match every cookie
+        Path legacyFile = Files.createDirectories(tempDir.resolve("legacy").resolve("Default")).resolve("Cookies");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + legacyFile);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE cookies(creation_utc INTEGER NOT NULL, host_key TEXT NOT NULL, " +
+                              "name TEXT NOT NULL, value TEXT NOT NULL, path TEXT NOT NULL, expires_utc INTEGER NOT NULL, " +
+                              "secure INTEGER NOT NULL, httponly INTEGER NOT NULL, last_access_utc INTEGER NOT NULL)");
+            statement.execute("INSERT INTO cookies VALUES (1, '.example.com', 'SID', 'plain', '/', 0, 1, 0, 2)");
+        }
+        assertEquals(1, describeAll(jdbcReader, legacyFile, updatedQuery).size());
+        assertEquals(describeAll(jdbcReader, legacyFile, updatedQuery), describeAll(reader, legacyFile, updatedQuery));
+    }
+    
+    @Test
+    public void closingCursorUnmapsFiles() throws IOException {
+        CookieCursor cursor = reader.open(cookieFile, CookieQuery.all());
+        assertTrue(cursor.hasNext());
+        cursor.close();
+        // closing twice does not unmap the files again
+        cursor.close();
+        assertEquals(ROWS, reader.countCookies(cookieFile));
+        Files.delete(cookieFile);
+        assertFalse(Files.exists(cookieFile));
+    }
+    
+    @Test
+    public void rejectsReadsOfClosedFile() throws IOException {
+        SqliteFile file = SqliteFile.open(cookieFile);
+        SqliteFile.Table table = file.table("cookies");
+        SqliteFile.Rows rows = file.scan(table);
+        assertTrue(rows.next());
+        file.close();
+        
+        assertThrows(IllegalStateException.class, rows::next);
+        assertThrows(IllegalStateException.class, () -> file.count(table));
+        assertThrows(IllegalStateException.class, () -> file.scan(table));
+    }
+    
+    @Test
+    public void skipsHostDigestOfVersion24Store() throws IOException {
+        Path digestFile = Files.createDirectories(tempDir.resolve("digest").resolve("Default")).resolve("Cookies");
+        CookieStoreFixture.createWithHostDigest(digestFile, 100, FixtureCiphers.cbcBytes("v10", "peanuts", 1));
+        
+        List<String> values = values(reader, digestFile);
+        assertEquals(100, values.size());
+        for (int row = 0; row < values.size(); row++) {
+            assertEquals(CookieStoreFixture.valueOf(row), values.get(row));
+        }
+    }
+    
+    @Test
+    public void fallsBackForFilesWhichAreNotSqlite() throws IOException {
+        Path textFile = Files.write(tempDir.resolve("Cookies.txt"), "not a database".getBytes(StandardCharsets.UTF_8));
+        CountingReader fallback = new CountingReader();
+        PageCookieStoreReader fallingBackReader = new PageCookieStoreReader(decryptor, false, fallback);
+        
+        assertFalse(fallingBackReader.open(textFile, CookieQuery.all()).hasNext());
+        assertEquals(0, fallingBackReader.readKeys(tempDir.resolve("Missing")).size());
+        assertEquals(2, fallback.reads.get());
+    }
+    
+    private void update(Connection connection, int row, String value) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE cookies SET encrypted_value = ? WHERE name = ?")) {
+            statement.setBytes(1, FixtureCiphers.linuxV10().apply(value));
+            statement.setString(2, CookieStoreFixture.nameOf(row));
+            statement.executeUpdate();
+        }
+    }
+    
+    private static List<String> values(CookieStoreReader reader, Path file) {
+        try (Stream<ICookie> stream = reader.open(file, CookieQuery.all()).stream()) {
+            return stream.map(ICookie::getValue).collect(Collectors.toList());
+        }
+    }
+    
+    private static List<String> describeAll(CookieStoreReader reader, Path file, CookieQuery query) {
+        try (Stream<ICookie> stream = reader.open(file, query).stream()) {
+            return stream.map(PageCookieStoreReaderTest::describe).collect(Collectors.toList());
+        }
+    }
+    
+    private static String describe(ICookie cookie) {
+        ChromeCookie c = (ChromeCookie) cookie;
+        return String.join("|", c.getHostKey(), c.getTopFrameSiteKey(), c.getName(), String.valueOf(c.getValue()), c.getPath(),
+                           String.valueOf(c.getCreationUtc()), String.valueOf(c.getExpiresUtc()), String.valueOf(c.isSecure()),
+                           String.valueOf(c.isHttpOnly()), String.valueOf(c.getLastAccessUtc()), String.valueOf(c.isHasExpires()),
+                           String.valueOf(c.isPersistent()), String.valueOf(c.getPriority()), String.valueOf(c.getSameSite()),
+                           String.valueOf(c.getSourceScheme()), String.valueOf(c.getSourcePort()), String.valueOf(c.isSameParty()),
+                           String.valueOf(c.getLastUpdateUtc()));
+    }
+    
+    /**
+     * Fallback counting its reads, so tests of files which must be read page by page can check it was not used.
+     */
+    private static class CountingReader implements CookieStoreReader {
+        private final AtomicInteger reads = new AtomicInteger();
+        
+        @Override
+        public CookieCursor open(Path cookieFile, CookieQuery query) {
+            reads.incrementAndGet();
+            return CookieCursor.empty();
+        }
+        
+        @Override
+        public Set<CookieKey> readKeys(Path cookieFile) {
+            reads.incrementAndGet();
+            return Collections.emptySet();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.mikaa404.watch;
+
+import com.mikaa404.browser.Profile;
+import com.mikaa404.cookie.CookieKey;
+import com.mikaa404.crypto.LinuxCookieDecryptor;
+import com.mikaa404.fixture.CookieStoreFixture;
+import com.mikaa404.fixture.FirefoxStoreFixture;
+import com.mikaa404.fixture.FixtureCiphers;
+import com.mikaa404.store.FirefoxCookieStoreReader;
+import com.mikaa404.store.JdbcCookieStoreReader;
+import com.mikaa404.store.StoreAccessStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CookieWatcherTest {
+    private static final int ROWS = 40;
+    
+    @TempDir
+    Path tempDir;
+    private Path cookieFile;
+    private CookieWatcher watcher;
+    private final List<CookieChangeEvent> events = new CopyOnWriteArrayList<>();
+    
+    @BeforeEach
+    void createStore() throws IOException {
+        Path profileFolder = Files.createDirectories(tempDir.resolve("google-chrome").resolve("Default"));
+        cookieFile = profileFolder.resolve("Cookies");
+        CookieStoreFixture.create(cookieFile, ROWS, FixtureCiphers.linuxV10());
+        JdbcCookieStoreReader reader = new JdbcCookieStoreReader(
+                new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), true, tempDir.resolve("cookyTmpStore"));
+        Profile profile = new Profile("Default", "Person 1", profileFolder, cookieFile);
+        watcher = new CookieWatcher(reader, Collections.singletonList(profile), events::add);
+    }
+    
+    @Test
+    public void firstPollAddsEveryCookie() {
+        watcher.poll();
+        
+        assertEquals(ROWS, events.size());
+        assertTrue(events.stream().allMatch(e -> e.getType() == CookieChangeEvent.Type.ADDED));
+        assertEquals(CookieStoreFixture.valueOf(7), events.get(7).getCookie().getValue());
+        
+        events.clear();
+        watcher.poll();
+        assertTrue(events.isEmpty());
+    }
+    
+    @Test
+    public void pollReportsOnlyChanges() throws SQLException {
+        watcher.poll();
+        events.clear();
+        
+        long updateUtc = CookieStoreFixture.BASE_UTC + 1_000;
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile)) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE cookies SET encrypted_value = ?, last_update_utc = ? WHERE name = ?")) {
+                statement.setBytes(1, FixtureCiphers.linuxV10().apply("updated"));
+                statement.setLong(2, updateUtc);
+                statement.setString(3, CookieStoreFixture.nameOf(3));
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO cookies SELECT creation_utc, host_key, top_frame_site_key, 'new', value, encrypted_value, " +
+                    "path, expires_utc, is_secure, is_httponly, last_access_utc, has_expires, is_persistent, priority, " +
+                    "samesite, source_scheme, source_port, is_same_party, ? FROM cookies WHERE name = ?")) {
+                statement.setLong(1, updateUtc);
+                statement.setString(2, CookieStoreFixture.nameOf(5));
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM cookies WHERE name = ?")) {
+                statement.setString(1, CookieStoreFixture.nameOf(9));
+                statement.executeUpdate();
+            }
+        }
+        watcher.poll();
+        
+        assertEquals(3, events.size());
+        CookieChangeEvent changed = events.get(0);
+        assertEquals(CookieChangeEvent.Type.CHANGED, changed.getType());
+        assertEquals(CookieStoreFixture.nameOf(3), changed.getKey().getName());
+        assertEquals("updated", changed.getCookie().getValue());
+        CookieChangeEvent added = events.get(1);
+        assertEquals(CookieChangeEvent.Type.ADDED, added.getType());
+        assertEquals("new", added.getCookie().getName());
+        assertEquals(CookieStoreFixture.valueOf(5), added.getCookie().getValue());
+        CookieChangeEvent removed = events.get(2);
+        assertEquals(CookieChangeEvent.Type.REMOVED, removed.getType());
+        assertEquals(new CookieKey(CookieStoreFixture.hostOf(9), "", CookieStoreFixture.nameOf(9), CookieStoreFixture.pathOf(9)),
+                     removed.getKey());
+        assertNull(removed.getCookie());
+    }
+    
+    @Test
+    public void pollsFirefoxStoreFromHighWaterMark() throws IOException, SQLException {
+        Path firefoxFile = Files.createDirectories(tempDir.resolve("firefox").resolve("a1.default")).resolve("cookies.sqlite");
+        FirefoxStoreFixture.create(firefoxFile, ROWS);
+        CookieWatcher firefoxWatcher = new CookieWatcher(
+                new FirefoxCookieStoreReader(tempDir.resolve("cookyTmpStore"), StoreAccessStrategy.COPY),
+                Collections.singletonList(new Profile("a1.default", "default", firefoxFile.getParent(), firefoxFile)),
+                events::add);
+        firefoxWatcher.poll();
+        assertEquals(ROWS, events.size());
+        events.clear();
+        
+        firefoxWatcher.poll();
+        assertTrue(events.isEmpty());
+        
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + firefoxFile);
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE moz_cookies SET value = 'updated', lastAccessed = ? WHERE name = ?")) {
+            statement.setLong(1, FirefoxStoreFixture.BASE_TIME + 1_000);
+            statement.setString(2, CookieStoreFixture.nameOf(3));
+            statement.executeUpdate();
+        }
+        firefoxWatcher.poll();
+        
+        assertEquals(1, events.size());
+        assertEquals(CookieChangeEvent.Type.CHANGED, events.get(0).getType());
+        assertEquals("updated", events.get(0).getCookie().getValue());
+        events.clear();
+        
+        // Firefox updates lastAccessed of cookies it sends, which does not change them
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + firefoxFile);
+             PreparedStatement statement = connection.prepareStatement("UPDATE moz_cookies SET lastAccessed = ?")) {
+            statement.setLong(1, FirefoxStoreFixture.BASE_TIME + 2_000);
+            statement.executeUpdate();
+        }
+        firefoxWatcher.poll();
+        assertTrue(events.isEmpty());
+    }
+    
+    @Test
+    public void startedWatcherPollsOnStoreChange() throws SQLException, InterruptedException {
+        CountDownLatch removed = new CountDownLatch(1);
+        try (CookieWatcher started = new CookieWatcher(
+                new JdbcCookieStoreReader(new LinuxCookieDecryptor(() -> FixtureCiphers.LINUX_KEYRING_SECRET), true, tempDir.resolve("cookyTmpStore")),
+                Collections.singletonList(new Profile("Default", "Person 1", cookieFile.getParent(), cookieFile)),
+                event -> {
+                    if (event.getType() == CookieChangeEvent.Type.REMOVED) {
+                        removed.countDown();
+                    }
+                },
+                TimeUnit.SECONDS.toMillis(1))) {
+            started.start();
+            
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + cookieFile);
+                 PreparedStatement statement = connection.prepareStatement("DELETE FROM cookies WHERE name = ?")) {
+                statement.setString(1, CookieStoreFixture.nameOf(0));
+                statement.executeUpdate();
+            }
+            
+            assertTrue(removed.await(10, TimeUnit.SECONDS));
+        }
+    }
+}